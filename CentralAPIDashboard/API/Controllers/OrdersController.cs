@@ -51,11 +51,12 @@ namespace API.Controllers
         }
 
         /// <summary>
-        /// GET /api/orders
-        /// Get all orders for the authenticated user
+        /// GET /api/orders?limit=20
+        /// Get the orders for the authenticated user, newest first.
+        /// limit is optional (the app's data saver asks for the latest few), no limit returns all of them
         /// </summary>
         [HttpGet]
-        public async Task<IActionResult> GetUserOrders()
+        public async Task<IActionResult> GetUserOrders([FromQuery] int? limit)
         {
             try
             {
@@ -66,7 +67,7 @@ namespace API.Controllers
                     return Unauthorized(new { message = "User not authenticated" });
                 }
 
-                var orders = await _orderService.GetUserOrdersAsync(userId);
+                var orders = await _orderService.GetUserOrdersAsync(userId, limit ?? 0);
 
                 return Ok(new
                 {
@@ -0,0 +1,144 @@
+using Core.Models.DTO;
+using Microsoft.AspNetCore.Mvc.Formatters;
+using Microsoft.Net.Http.Headers;
+using System.Buffers.Binary;
+using System.Text;
+using System.Text.Json;
+
+namespace API.Formatters
+{
+    /// <summary>
+    /// Writes inventory lists in the mobile app's compact binary format
+    /// (ClientMobileApp CompactWireFormat.java) when the Accept header asks for it.
+    /// Registered after the JSON formatter, so the dashboard and browsers keep getting JSON.
+    /// </summary>
+    public class CompactInventoryOutputFormatter : OutputFormatter
+    {
+        public const string MediaType = "application/x-nutec-columnar";
+
+        private const byte Version = 1;
+        private const byte KindInventory = 1;
+
+        public CompactInventoryOutputFormatter()
+        {
+            SupportedMediaTypes.Add(MediaTypeHeaderValue.Parse(MediaType));
+        }
+
+        protected override bool CanWriteType(Type? type)
+        {
+            return type != null && typeof(IEnumerable<InventoryDto>).IsAssignableFrom(type);
+        }
+
+        public override void WriteResponseHeaders(OutputFormatterWriteContext context)
+        {
+            base.WriteResponseHeaders(context);
+
+            //the same URL also has a JSON representation, so caches must key on Accept
+            context.HttpContext.Response.Headers.Append(HeaderNames.Vary, HeaderNames.Accept);
+        }
+
+        public override async Task WriteResponseBodyAsync(OutputFormatterWriteContext context)
+        {
+            var rows = ((IEnumerable<InventoryDto>)context.Object!).ToList();
+            var strings = new StringTable();
+            using var body = new MemoryStream();
+
+            // ============================================================
+            // STEP 1: Columns (one per field, strings as table references)
+            // ============================================================
+            WriteVarint(body, (ulong)rows.Count);
+            foreach (var row in rows) WriteInt(body, row.Sku);
+            foreach (var row in rows) strings.Write(body, row.SkuDescription);
+            foreach (var row in rows) WriteInt(body, row.Litres);
+            foreach (var row in rows) strings.Write(body, row.UserCode);
+            foreach (var row in rows) strings.Write(body, FormatDate(row.OrderDate));
+            foreach (var row in rows) strings.Write(body, row.PreviousOrderDate.HasValue ? FormatDate(row.PreviousOrderDate.Value) : null);
+            foreach (var row in rows) WriteInt(body, row.DaysBetweenOrders);
+            foreach (var row in rows)
+            {
+                body.WriteByte(1); //AverageDailyUse is never null in the DTO
+                WriteDouble(body, row.AverageDailyUse);
+            }
+            foreach (var row in rows) strings.Write(body, row.UserId);
+
+            // ============================================================
+            // STEP 2: Header + string table, then the columns
+            // ============================================================
+            using var output = new MemoryStream();
+            output.Write("NTC"u8);
+            output.WriteByte(Version);
+            output.WriteByte(KindInventory);
+            strings.WriteTable(output);
+            body.Position = 0;
+            body.CopyTo(output);
+
+            output.Position = 0;
+            await output.CopyToAsync(context.HttpContext.Response.Body);
+        }
+
+        //same text the JSON formatter writes, so both formats decode to identical values
+        private static string FormatDate(DateTime date)
+        {
+            return JsonSerializer.Serialize(date).Trim('"');
+        }
+
+        private static void WriteInt(Stream stream, int value)
+        {
+            WriteVarint(stream, (uint)((value << 1) ^ (value >> 31))); //zigzag
+        }
+
+        private static void WriteVarint(Stream stream, ulong value)
+        {
+            while (value >= 0x80)
+            {
+                stream.WriteByte((byte)(value | 0x80));
+                value >>= 7;
+            }
+            stream.WriteByte((byte)value);
+        }
+
+        private static void WriteDouble(Stream stream, double value)
+        {
+            Span<byte> bytes = stackalloc byte[8];
+            BinaryPrimitives.WriteInt64BigEndian(bytes, BitConverter.DoubleToInt64Bits(value));
+            stream.Write(bytes);
+        }
+
+        /// <summary>
+        /// Gives each distinct string an index the first time it is written; 0 means null.
+        /// </summary>
+        private class StringTable
+        {
+            private readonly Dictionary<string, int> _indexes = new();
+            private readonly List<string> _values = new();
+
+            public void Write(Stream stream, string? value)
+            {
+                if (value == null)
+                {
+                    WriteVarint(stream, 0);
+                    return;
+                }
+
+                if (!_indexes.TryGetValue(value, out var index))
+                {
+                    index = _values.Count;
+                    _indexes[value] = index;
+                    _values.Add(value);
+                }
+                WriteVarint(stream, (ulong)index + 1);
+            }
+
+            public void WriteTable(Stream stream)
+            {
+                WriteVarint(stream, (ulong)_values.Count);
+                foreach (var value in _values)
+                {
+                    var utf8 = Encoding.UTF8.GetBytes(value);
+                    WriteVarint(stream, (ulong)utf8.Length);
+                    stream.Write(utf8);
+                }
+            }
+        }
+    }
+}
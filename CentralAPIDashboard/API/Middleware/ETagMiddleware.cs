@@ -0,0 +1,62 @@
+using System.Security.Cryptography;
+
+namespace API.Middleware
+{
+    /// <summary>
+    /// Adds a weak ETag to successful GET responses and answers 304 Not Modified when the
+    /// client's If-None-Match still matches. The mobile app's HTTP cache revalidates with
+    /// If-None-Match, so unchanged inventory/orders payloads are not downloaded again.
+    /// </summary>
+    public class ETagMiddleware
+    {
+        private readonly RequestDelegate _next;
+
+        public ETagMiddleware(RequestDelegate next)
+        {
+            _next = next;
+        }
+
+        public async Task InvokeAsync(HttpContext context)
+        {
+            if (!HttpMethods.IsGet(context.Request.Method))
+            {
+                await _next(context);
+                return;
+            }
+
+            //buffer the response so the hash can be computed before anything is sent
+            var originalBody = context.Response.Body;
+            using var buffer = new MemoryStream();
+            context.Response.Body = buffer;
+
+            try
+            {
+                await _next(context);
+            }
+            finally
+            {
+                context.Response.Body = originalBody;
+            }
+
+            if (context.Response.StatusCode == StatusCodes.Status200OK && buffer.Length > 0)
+            {
+                buffer.Position = 0;
+                var hash = await SHA256.HashDataAsync(buffer);
+                var etag = $"W/\"{Convert.ToBase64String(hash, 0, 16)}\"";
+                context.Response.Headers.ETag = etag;
+
+                var ifNoneMatch = context.Request.Headers.IfNoneMatch.ToString();
+                if (!string.IsNullOrEmpty(ifNoneMatch) && ifNoneMatch.Split(',').Any(tag => tag.Trim() == etag))
+                {
+                    //client already has this exact payload
+                    context.Response.StatusCode = StatusCodes.Status304NotModified;
+                    context.Response.ContentLength = null;
+                    return;
+                }
+            }
+
+            buffer.Position = 0;
+            await buffer.CopyToAsync(originalBody);
+        }
+    }
+}
@@ -1,3 +1,5 @@
+using API.Formatters;
+using API.Middleware;
 using CentralAPIDashboard.Infrastructure.Configuration;
 using Microsoft.AspNetCore.Authentication.JwtBearer;
 using Microsoft.IdentityModel.Tokens;
@@ -11,7 +13,11 @@ var builder = WebApplication.CreateBuilder(args);
 // SERVICE REGISTRATION
 // ============================================================
 
-builder.Services.AddControllers(); //MVC Controllers for  API endppoints
+builder.Services.AddControllers(options =>
+{
+    //compact binary inventory for the mobile app, only when its Accept header asks for it
+    options.OutputFormatters.Add(new CompactInventoryOutputFormatter());
+}); //MVC Controllers for  API endppoints
 builder.Services.AddEndpointsApiExplorer();
 builder.Services.AddSwaggerGen();
 
@@ -127,6 +133,7 @@ app.UseCors("AllowMobileApp");
 
 app.UseAuthentication(); //validates JWT tokens
 app.UseAuthorization(); //checks user roles/permissions
+app.UseMiddleware<ETagMiddleware>(); //ETag + 304 for GETs so the mobile app's cache can revalidate cheaply
 app.MapControllers(); //routes API requests to controller methods
 
 app.Run();
@@ -5,7 +5,7 @@ namespace Core.Interfaces
     public interface IOrderService
     {
         Task<OrderResponseDto> CreateOrderAsync(string userId, CreateOrderDto orderDto);
-        Task<List<OrderResponseDto>> GetUserOrdersAsync(string userId);
+        Task<List<OrderResponseDto>> GetUserOrdersAsync(string userId, int limit = 0);
         Task<OrderResponseDto?> GetOrderByIdAsync(string orderId, string userId);
     }
 }
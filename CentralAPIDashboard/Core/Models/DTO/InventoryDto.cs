@@ -34,6 +34,16 @@
         public DateTime? StartDate { get; set; }
         public DateTime? EndDate { get; set; }
         public int? Sku { get; set; }
+
+        //paging, leave PageSize empty to get every matching record
+        public int? Page { get; set; }
+        public int? PageSize { get; set; }
+
+        //case-insensitive match on SkuDescription
+        public string? Search { get; set; }
+
+        //"name", "litres" or "orderDate", prefix with "-" for descending (default is -orderDate)
+        public string? SortBy { get; set; }
     }
 
     public class StockMetricsOverviewDto
@@ -5,6 +5,7 @@ using Infrastructure.Data;
 using Microsoft.Extensions.Logging;
 using MongoDB.Bson;
 using MongoDB.Driver;
+using System.Text.RegularExpressions;
 
 namespace Infrastructure.Services
 {
@@ -24,6 +25,9 @@ namespace Infrastructure.Services
         private readonly MongoDBContext _context;
         private readonly ILogger<InventoryService> _logger;
 
+        //upper limit for one page of inventory, whatever the client asks for
+        private const int MaxInventoryPageSize = 200;
+
         public InventoryService(MongoDBContext context, ILogger<InventoryService> logger)
         {
             _context = context;
@@ -235,7 +239,8 @@ namespace Infrastructure.Services
 
         /// <summary>
         ///Retrieves inventory records,
-        ///supports filtering by client ID, user code, date range, and SKU.
+        ///supports filtering by client ID, user code, date range, SKU and description search,
+        ///plus sorting and paging.
         /// </summary>
 
         public async Task<List<InventoryDto>> GetInventoryByFilterAsync(InventoryFilterDto filter)
@@ -277,6 +282,13 @@ namespace Infrastructure.Services
                 filters.Add(filterBuilder.Eq(i => i.Sku, filter.Sku.Value));
             }
 
+            //add description search if provided (escaped so user input is matched literally)
+            if (!string.IsNullOrWhiteSpace(filter.Search))
+            {
+                var pattern = new BsonRegularExpression(Regex.Escape(filter.Search.Trim()), "i");
+                filters.Add(filterBuilder.Regex(i => i.SkuDescription, pattern));
+            }
+
             // ============================================================
             // STEP 2: Combine FIlters and Query
             // ============================================================
@@ -286,10 +298,22 @@ namespace Infrastructure.Services
                 : filterBuilder.Empty; //empty filter = get all records
 
             //execute query with combined filter
-            var inventory = await _context.InventoryCollection
-                .Find(combinedFilter)
-                .SortByDescending(i => i.OrderDate) //most recent first
-                .ToListAsync();
+            //case-insensitive collation so name sorting matches the app's old A-Z order
+            var findOptions = new FindOptions { Collation = new Collation("en", strength: CollationStrength.Secondary) };
+            var query = _context.InventoryCollection
+                .Find(combinedFilter, findOptions)
+                .Sort(BuildInventorySort(filter.SortBy));
+
+            //only return the requested page when paging is used
+            if (filter.PageSize.HasValue && filter.PageSize.Value > 0)
+            {
+                var pageSize = Math.Min(filter.PageSize.Value, MaxInventoryPageSize);
+                var page = Math.Max(filter.Page ?? 0, 0);
+
+                query = query.Skip(page * pageSize).Limit(pageSize);
+            }
+
+            var inventory = await query.ToListAsync();
 
             // ============================================================
             // STEP 3: Convert to DTOs
@@ -310,6 +334,28 @@ namespace Infrastructure.Services
             }).ToList();
         }
 
+        /// <summary>
+        ///Builds the sort for inventory queries;
+        ///always ends with Id so paging is stable when values are equal.
+        /// </summary>
+
+        private static SortDefinition<Inventory> BuildInventorySort(string? sortBy)
+        {
+            var sortBuilder = Builders<Inventory>.Sort;
+            var descending = sortBy != null && sortBy.StartsWith("-");
+            var field = sortBy?.TrimStart('-').ToLowerInvariant();
+
+            SortDefinition<Inventory> sort = field switch
+            {
+                "name" => descending ? sortBuilder.Descending(i => i.SkuDescription) : sortBuilder.Ascending(i => i.SkuDescription),
+                "litres" => descending ? sortBuilder.Descending(i => i.Litres) : sortBuilder.Ascending(i => i.Litres),
+                "orderdate" when !descending => sortBuilder.Ascending(i => i.OrderDate),
+                _ => sortBuilder.Descending(i => i.OrderDate) //most recent first
+            };
+
+            return sortBuilder.Combine(sort, sortBuilder.Ascending(i => i.Id));
+        }
+
         public async Task<List<string>> GetDistinctItemCodesAsync()
         {
             try
@@ -55,17 +55,24 @@ namespace Infrastructure.Services
             return MapToResponseDto(order);
         }
 
-        public async Task<List<OrderResponseDto>> GetUserOrdersAsync(string userId)
+        public async Task<List<OrderResponseDto>> GetUserOrdersAsync(string userId, int limit = 0)
         {
             if (!ObjectId.TryParse(userId, out var userObjectId))
             {
                 throw new ArgumentException("Invalid user ID format");
             }
 
-            var orders = await _context.OrdersCollection
+            IFindFluent<Order, Order> query = _context.OrdersCollection
                 .Find(o => o.UserId == userObjectId)
-                .SortByDescending(o => o.CreatedAt)
-                .ToListAsync();
+                .SortByDescending(o => o.CreatedAt);
+
+            //limit <= 0 means the whole history
+            if (limit > 0)
+            {
+                query = query.Limit(limit);
+            }
+
+            var orders = await query.ToListAsync();
 
             return orders.Select(MapToResponseDto).ToList();
         }
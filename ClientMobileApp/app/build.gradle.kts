@@ -8,6 +8,7 @@ android {
 
     buildFeatures {
         dataBinding = true
+        buildConfig = true
     }
 
     defaultConfig {
@@ -46,6 +47,11 @@ dependencies {
     implementation("com.squareup.retrofit2:converter-gson:2.9.0")
     // (Optional but recommended) OkHttp for logging network requests
     implementation("com.squareup.okhttp3:logging-interceptor:4.9.3")
+    // Newer Gson than converter-gson pulls in, for ReflectionAccessFilter
+    implementation("com.google.code.gson:gson:2.11.0")
+    // Generated JSON type adapters for the pojo classes (see :json-codegen)
+    compileOnly(project(":json-codegen"))
+    annotationProcessor(project(":json-codegen"))
 
     // RecyclerView for displaying lists
     implementation("androidx.recyclerview:recyclerview:1.3.2")
@@ -62,6 +68,8 @@ dependencies {
     implementation(libs.constraintlayout)
 
     testImplementation(libs.junit)
+    // Local test server for the wire format tests
+    testImplementation("com.squareup.okhttp3:mockwebserver:4.9.3")
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
 
@@ -0,0 +1,131 @@
+package com.eduvos.nutec.sync;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.eduvos.nutec.pojo.ProductOrder;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for SqliteCatalog against a real (in-memory) SQLite database, so the
+ * merge, the full-text index and the ORDER BY run as they do in the app.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SqliteCatalogInstrumentedTest {
+
+    private CatalogDatabase database;
+    private SqliteCatalog catalog;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = new CatalogDatabase(context, null);
+        catalog = new SqliteCatalog(database);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    private static ProductOrder row(int sku, String description, int litres, int day) {
+        ProductOrder row = new ProductOrder();
+        row.setSku(sku);
+        row.setSkuDescription(description);
+        row.setLitres(litres);
+        row.setUserId("user" + sku % 3);
+        row.setOrderDate(String.format(Locale.US, "2025-01-%02dT00:00:00Z", day));
+        return row;
+    }
+
+    private static List<Integer> skus(List<ProductOrder> rows) {
+        List<Integer> skus = new ArrayList<>();
+        for (ProductOrder row : rows) {
+            skus.add(row.getSku());
+        }
+        return skus;
+    }
+
+    @Test
+    public void merge_updatesKnownRowsAndInsertsNewOnes() {
+        catalog.replaceAll(Arrays.asList(row(1, "Black Ink", 20, 1), row(2, "Cyan Ink", 10, 2)),
+                new CatalogStore.SyncState("2025-01-02T00:00:00Z", 100L));
+
+        // Same key as row 1 with a new litres value, plus a new row
+        int added = catalog.merge(Arrays.asList(row(1, "Black Ink", 25, 1), row(3, "Magenta Ink", 5, 3)),
+                new CatalogStore.SyncState("2025-01-03T00:00:00Z", 100L));
+
+        assertEquals(1, added);
+        assertEquals(3, catalog.size());
+        assertEquals(25, catalog.query("black", null, 0, 10).get(0).getLitres());
+
+        CatalogStore.SyncState state = catalog.load();
+        assertEquals("2025-01-03T00:00:00Z", state.watermark);
+        assertEquals(100L, state.lastFullSyncAt);
+    }
+
+    @Test
+    public void renamedRow_isFoundByItsNewNameOnly() {
+        catalog.replaceAll(Arrays.asList(row(1, "Black Ink", 20, 1), row(2, "Cyan Ink", 10, 2)),
+                new CatalogStore.SyncState(null, 0L));
+
+        // The update has to move the full-text entry with the row's docid
+        catalog.merge(Arrays.asList(row(1, "Yellow Toner", 20, 1)), new CatalogStore.SyncState(null, 0L));
+
+        assertEquals(Arrays.asList(1), skus(catalog.query("yel", null, 0, 10)));
+        assertTrue(catalog.query("black", null, 0, 10).isEmpty());
+        assertEquals(Arrays.asList(2), skus(catalog.query("ink", null, 0, 10)));
+    }
+
+    @Test
+    public void replaceAll_dropsTheOldRowsAndTheirIndex() {
+        catalog.replaceAll(Arrays.asList(row(1, "Black Ink", 20, 1)), new CatalogStore.SyncState(null, 0L));
+        catalog.replaceAll(Arrays.asList(row(2, "Cyan Ink", 10, 2)), new CatalogStore.SyncState(null, 5L));
+
+        assertEquals(1, catalog.size());
+        assertTrue(catalog.query("black", null, 0, 10).isEmpty());
+        assertEquals(5L, catalog.load().lastFullSyncAt);
+
+        catalog.clear();
+        assertEquals(0, catalog.size());
+        assertNull(catalog.load());
+    }
+
+    @Test
+    public void query_searchesSortsAndPages() {
+        List<ProductOrder> rows = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            rows.add(row(2000 + i, "Ink " + (2000 + i), i % 4, 1 + i));
+        }
+        rows.add(row(50, "toner-black", 99, 20));
+        catalog.replaceAll(rows, new CatalogStore.SyncState(null, 0L));
+
+        // Newest first by default, paged
+        assertEquals(Arrays.asList(50, 2011), skus(catalog.query(null, null, 0, 2)));
+        assertEquals(3, catalog.query(null, null, 2, 5).size());
+
+        // Every word matches as a prefix
+        assertEquals(10, catalog.query("ink 200", "name", 0, 20).size()); // Ink 2000 - Ink 2009
+        assertEquals(Arrays.asList(50), skus(catalog.query("BLACK", null, 0, 10)));
+        // Only punctuation falls back to LIKE
+        assertEquals(Arrays.asList(50), skus(catalog.query("-", null, 0, 10)));
+
+        assertEquals(2011, catalog.query("ink", "-name", 0, 1).get(0).getSku());
+        assertEquals(Arrays.asList(50, 2003), skus(catalog.query(null, "-litres", 0, 2)));
+        // Ties on litres come back in row key order
+        assertEquals(Arrays.asList(2000, 2004, 2008), skus(catalog.query("ink", "litres", 0, 3)));
+    }
+}
@@ -1,7 +1,6 @@
 package com.eduvos.nutec;
 
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.View;
@@ -20,6 +19,9 @@ import com.eduvos.nutec.pojo.LoginRequest;
 import com.eduvos.nutec.pojo.LoginResponse;
 import com.eduvos.nutec.api.RetrofitClient;
 import com.eduvos.nutec.api.ApiService;
+import com.eduvos.nutec.auth.SessionStore;
+import com.eduvos.nutec.util.AppExecutors;
+
 public class LoginActivity extends AppCompatActivity {
 
     private EditText emailInput;
@@ -38,13 +40,13 @@ public class LoginActivity extends AppCompatActivity {
         loginButton = findViewById(R.id.login_button);
         progressBar = findViewById(R.id.login_progress_bar);
 
-        // Check if user is already logged in
-        String existingToken = RetrofitClient.loadAuthToken(this);
-        if (existingToken != null && !existingToken.isEmpty()) {
-            // User is already logged in, go to MainActivity
-            navigateToMainActivity();
-            return;
-        }
+        // Check if user is already logged in (the session is normally loaded by now)
+        SessionStore.getInstance().whenLoaded(AppExecutors.getInstance().mainThread(), session -> {
+            if (session.hasAccessToken() && !isFinishing()) {
+                // User is already logged in, go to MainActivity
+                navigateToMainActivity();
+            }
+        });
 
         loginButton.setOnClickListener(v -> {
             String email = emailInput.getText().toString().trim();
@@ -82,10 +84,7 @@ public class LoginActivity extends AppCompatActivity {
                     if (loginResponse.isSuccess()) {
                         Log.d("LoginActivity", "Login successful for user: " + loginResponse.getFirstName());
 
-                        // Save the authentication token
-                        RetrofitClient.saveAuthToken(LoginActivity.this, loginResponse.getToken());
-
-                        // Save user information
+                        // Save the authentication tokens and user information
                         saveUserInfo(loginResponse);
 
                         // Show success message
@@ -133,40 +132,19 @@ public class LoginActivity extends AppCompatActivity {
     }
 
     private void saveUserInfo(LoginResponse loginResponse) {
-        SharedPreferences prefs = getSharedPreferences("MyAppPrefs", MODE_PRIVATE);
-        SharedPreferences.Editor editor = prefs.edit();
-
-        editor.putBoolean("loggedIn", true);
-        editor.putString("userName", loginResponse.getFirstName());
-        editor.putString("userEmail", loginResponse.getEmail());
-        editor.putString("userId", loginResponse.getUserId());
-        editor.putString("userRole", loginResponse.getRole());
-
-        // EXTENSIVE DEBUG LOGGING
         String refreshToken = loginResponse.getRefreshToken();
-        Log.d("LoginActivity", "=== REFRESH TOKEN DEBUG ===");
-        Log.d("LoginActivity", "RefreshToken is null: " + (refreshToken == null));
-
-        if (refreshToken != null) {
-            Log.d("LoginActivity", "RefreshToken isEmpty: " + refreshToken.isEmpty());
-            Log.d("LoginActivity", "RefreshToken length: " + refreshToken.length());
-            Log.d("LoginActivity", "RefreshToken first 10 chars: " + refreshToken.substring(0, Math.min(10, refreshToken.length())));
-            editor.putString("refresh_token", refreshToken);
-
-            // Verify it was saved
-            boolean committed = editor.commit(); // Use commit instead of apply for immediate save
-            Log.d("LoginActivity", "SharedPreferences commit result: " + committed);
-
-            // Read it back immediately to verify
-            String savedToken = prefs.getString("refresh_token", null);
-            Log.d("LoginActivity", "Verified saved token exists: " + (savedToken != null));
-            if (savedToken != null) {
-                Log.d("LoginActivity", "Saved token length: " + savedToken.length());
-            }
-        } else {
+        if (refreshToken == null) {
             Log.e("LoginActivity", "⚠️ RefreshToken is NULL from API response!");
         }
-        Log.d("LoginActivity", "=== END REFRESH TOKEN DEBUG ===");
+
+        // Tokens and profile in one change: in memory right away, written on the disk thread
+        SessionStore.getInstance().update(session -> SessionStore.Session.login(
+                loginResponse.getToken(),
+                refreshToken,
+                loginResponse.getFirstName(),
+                loginResponse.getEmail(),
+                loginResponse.getUserId(),
+                loginResponse.getRole()));
     }
 
     private void navigateToMainActivity() {
@@ -16,6 +16,7 @@ import androidx.fragment.app.Fragment;
 import androidx.preference.PreferenceManager;
 
 import com.eduvos.nutec.api.RetrofitClient;
+import com.eduvos.nutec.auth.SessionStore;
 import com.eduvos.nutec.fragment.AccountFragment;
 import com.eduvos.nutec.fragment.CartFragment;
 import com.eduvos.nutec.fragment.CategoriesFragment;
@@ -26,6 +27,11 @@ import com.eduvos.nutec.fragment.NotificationsFragment;
 import com.eduvos.nutec.fragment.OrdersFragment;
 import com.eduvos.nutec.fragment.ProductsFragment;
 import com.eduvos.nutec.fragment.SettingsFragment;
+import com.eduvos.nutec.manager.CartManager;
+import com.eduvos.nutec.manager.NotificationManager;
+import com.eduvos.nutec.sync.InventorySyncEngine;
+import com.eduvos.nutec.sync.OrderRepository;
+import com.eduvos.nutec.sync.ProductSnapshotStore;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 
 public class MainActivity extends AppCompatActivity {
@@ -109,8 +115,6 @@ public class MainActivity extends AppCompatActivity {
             pageTitle.setText("Home");
             bottomNav.setSelectedItemId(R.id.nav_home);
         }
-
-        testApiConnection();
     }
 
     @Override
@@ -180,14 +184,17 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void logoutUser() {
-        // Clear SharedPreferences
-        SharedPreferences prefs = getSharedPreferences("MyAppPrefs", MODE_PRIVATE);
-        SharedPreferences.Editor editor = prefs.edit();
-        editor.clear(); // This removes everything including loggedIn, userName, userEmail, etc.
-        editor.apply();
-
-        // Clear the auth token (CRITICAL - this is what LoginActivity checks!)
-        RetrofitClient.clearAuthToken(this);
+        // Clears tokens and profile in memory at once (this is what LoginActivity checks!),
+        // the file is written on the disk thread
+        SessionStore.getInstance().clear();
+        // Cached orders/inventory belong to this user
+        RetrofitClient.clearHttpCache();
+        InventorySyncEngine.getInstance(this).clear();
+        OrderRepository.getInstance().clear();
+        ProductSnapshotStore.getInstance().clear();
+        // The cart is saved on disk and not per user, the next account must not get it
+        CartManager.getInstance().clearCart();
+        NotificationManager.getInstance().clear();
 
         // Navigate to LoginActivity with flags to clear the back stack
         Intent intent = new Intent(this, LoginActivity.class);
@@ -196,10 +203,5 @@ public class MainActivity extends AppCompatActivity {
         finish();
     }
 
-    private void testApiConnection() {
-        RetrofitClient retrofitClient = new RetrofitClient();
-        retrofitClient.pingServer(this);
-    }
-
     // The getCurrentSearchQuery() method has been removed.
 }
@@ -0,0 +1,42 @@
+package com.eduvos.nutec;
+
+import android.app.Application;
+
+import com.eduvos.nutec.api.DataSaverPolicy;
+import com.eduvos.nutec.api.NetworkWarmup;
+import com.eduvos.nutec.api.RetrofitClient;
+import com.eduvos.nutec.auth.SessionStore;
+import com.eduvos.nutec.auth.TokenManager;
+import com.eduvos.nutec.manager.CartManager;
+import com.eduvos.nutec.manager.NotificationManager;
+import com.eduvos.nutec.sync.OrderRepository;
+import com.eduvos.nutec.sync.ProductSnapshotStore;
+
+/**
+ * Process-wide setup. Runs once per process, before any activity, so work done here is not
+ * repeated on rotation or when MainActivity is recreated.
+ */
+public class NuTecApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        RetrofitClient.initialize(this);
+        // Session loads on the disk thread; screens and AuthInterceptor read it from memory
+        SessionStore.getInstance().initialize(this);
+        // Follows the session's tokens and schedules their refresh
+        TokenManager.getInstance().initialize(this, SessionStore.getInstance());
+        // Saved cart is read on the disk thread, after the session
+        CartManager.getInstance().initialize(this);
+        NotificationManager.getInstance().initialize(this);
+        // After the session, the saved order history belongs to its user
+        OrderRepository.getInstance().initialize(this);
+        // Mapped and decoded before the products screen asks for it
+        ProductSnapshotStore.getInstance().initialize(this);
+        // Before the warm-up, which checks whether background traffic is allowed
+        DataSaverPolicy.getInstance().initialize(this);
+        // DNS, pooled connections and Gson adapters are ready before the first real request
+        NetworkWarmup.start(this);
+    }
+}
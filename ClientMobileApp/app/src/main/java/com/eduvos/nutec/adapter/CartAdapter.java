@@ -15,79 +15,177 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.eduvos.nutec.manager.CartManager;
+import com.eduvos.nutec.manager.ListSnapshot;
 import com.eduvos.nutec.pojo.CartItem;
 import com.eduvos.nutec.R;
+import com.eduvos.nutec.row.CartLine;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
+import java.util.Objects;
 
 public class CartAdapter extends RecyclerView.Adapter<CartAdapter.CartViewHolder> {
 
-    private List<CartItem> cartItems;
-    private OnCartItemChangedListener listener;
+    // The version the rows were built from
+    private ListSnapshot<CartItem> cartItems;
+    // One row per line, with its text formatted when the line changes rather than on every bind
+    private final List<CartLine> lines;
 
-    // Interface to communicate back to the fragment
-    public interface OnCartItemChangedListener {
-        void onItemRemoved(int position);
-        void onQuantityChanged();
+    // Changes go through the CartManager, whose change stream is handed to apply(), so the
+    // adapter never notifies itself
+    public CartAdapter(ListSnapshot<CartItem> cartItems) {
+        this.cartItems = cartItems;
+        this.lines = new ArrayList<>(cartItems.size());
+        rebuildLines();
+        // Rows keep their views across removals and resets
+        setHasStableIds(true);
     }
 
-    public CartAdapter(List<CartItem> cartItems, OnCartItemChangedListener listener) {
-        this.cartItems = cartItems;
-        this.listener = listener;
+    public ListSnapshot<CartItem> getItems() {
+        return cartItems;
     }
 
-    @NonNull
-    @Override
-    public CartViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_cart_product, parent, false);
-        return new CartViewHolder(view);
+    /**
+     * Moves the rows to a newer version of the cart, rebuilding and redrawing only the lines in
+     * changes. Versions this adapter already shows are ignored.
+     *
+     * @return whether cart was newer than what is showing
+     */
+    public boolean apply(ListSnapshot<CartItem> cart, List<CartManager.Change> changes) {
+        // Published before the rows were built
+        if (cart.getVersion() <= cartItems.getVersion()) return false;
+        boolean missedSome = cart.getVersion() != cartItems.getVersion() + 1;
+        cartItems = cart;
+        if (missedSome) {
+            rebuildLines();
+            notifyDataSetChanged();
+            return true;
+        }
+        for (CartManager.Change change : changes) {
+            switch (change.type) {
+                case INSERTED:
+                    lines.add(change.position, CartLine.of(change.item));
+                    notifyItemInserted(change.position);
+                    break;
+                case UPDATED:
+                    CartLine after = CartLine.of(change.item);
+                    CartLine before = lines.set(change.position, after);
+                    notifyLineUpdated(change.position, before, after);
+                    break;
+                case REMOVED:
+                    lines.remove(change.position);
+                    notifyItemRemoved(change.position);
+                    break;
+                default:
+                    rebuildLines();
+                    notifyDataSetChanged();
+                    break;
+            }
+        }
+        return true;
+    }
+
+    // A handful of lines at most, so this stays on the main thread
+    private void rebuildLines() {
+        lines.clear();
+        for (CartItem item : cartItems) {
+            lines.add(CartLine.of(item));
+        }
+    }
+
+    // Redraws only the parts of a line whose text differs between before and after
+    private void notifyLineUpdated(int position, CartLine before, CartLine after) {
+        if (!before.quantityText.equals(after.quantityText)) notifyItemChanged(position, RowPayload.QUANTITY);
+        if (!before.priceText.equals(after.priceText)) notifyItemChanged(position, RowPayload.PRICE);
+        if (!Objects.equals(before.name, after.name)) notifyItemChanged(position);
     }
 
     @Override
-    public void onBindViewHolder(@NonNull CartViewHolder holder, int position) {
-        CartItem currentItem = cartItems.get(position);
+    public long getItemId(int position) {
+        return lines.get(position).stableId;
+    }
 
-        holder.productName.setText(currentItem.getProductName());
-        holder.productPrice.setText(String.format(Locale.getDefault(), "R%.2f", currentItem.getPrice()));
-        holder.productQuantity.setText(String.valueOf(currentItem.getQuantity()));
+    @NonNull
+    @Override
+    public CartViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_cart_product, parent, false);
+        CartViewHolder holder = new CartViewHolder(view);
 
         // --- Click Listeners for buttons ---
+        // Set once per holder; the line is looked up at click time since positions shift on removal
         holder.increaseQuantity.setOnClickListener(v -> {
-            int currentQuantity = currentItem.getQuantity();
-            currentItem.setQuantity(currentQuantity + 1);
-            notifyItemChanged(position); // Update this item
-            if (listener != null) {
-                listener.onQuantityChanged(); // Notify fragment to update totals
+            CartItem item = itemAt(holder);
+            if (item != null) {
+                CartManager.getInstance().setQuantity(item, item.getQuantity() + 1);
             }
         });
 
         holder.decreaseQuantity.setOnClickListener(v -> {
-            int currentQuantity = currentItem.getQuantity();
-            if (currentQuantity > 1) {
-                currentItem.setQuantity(currentQuantity - 1);
-                notifyItemChanged(position); // Update this item
+            CartItem item = itemAt(holder);
+            if (item == null) return;
+            if (item.getQuantity() > 1) {
+                CartManager.getInstance().setQuantity(item, item.getQuantity() - 1);
             } else {
                 // If quantity is 1, decreasing removes the item
-                if (listener != null) {
-                    listener.onItemRemoved(position);
-                }
-            }
-            if (listener != null) {
-                listener.onQuantityChanged(); // Notify fragment to update totals
+                CartManager.getInstance().removeItem(item);
             }
         });
 
         holder.removeItem.setOnClickListener(v -> {
-            if (listener != null) {
-                listener.onItemRemoved(position); // Notify fragment to remove item
+            CartItem item = itemAt(holder);
+            if (item != null) {
+                CartManager.getInstance().removeItem(item);
             }
         });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull CartViewHolder holder, int position) {
+        CartLine line = lines.get(position);
+
+        holder.productName.setText(line.name);
+        bindPrice(holder, line);
+        bindQuantity(holder, line);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull CartViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        // Only what changed, e.g. a +/- tap touches the quantity text alone
+        CartLine line = lines.get(position);
+        for (Object payload : payloads) {
+            if (payload == RowPayload.QUANTITY) {
+                bindQuantity(holder, line);
+            } else if (payload == RowPayload.PRICE) {
+                bindPrice(holder, line);
+            } else {
+                onBindViewHolder(holder, position);
+                return;
+            }
+        }
+    }
+
+    private static void bindPrice(CartViewHolder holder, CartLine line) {
+        holder.productPrice.setText(line.priceText);
+    }
+
+    private static void bindQuantity(CartViewHolder holder, CartLine line) {
+        holder.productQuantity.setText(line.quantityText);
+    }
+
+    private CartItem itemAt(CartViewHolder holder) {
+        int position = holder.getAdapterPosition();
+        return position == RecyclerView.NO_POSITION ? null : lines.get(position).item;
     }
 
     @Override
     public int getItemCount() {
-        return cartItems != null ? cartItems.size() : 0;
+        return lines.size();
     }
 
 
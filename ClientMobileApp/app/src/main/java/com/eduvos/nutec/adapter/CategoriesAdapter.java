@@ -13,14 +13,16 @@ import com.eduvos.nutec.pojo.ListItem;
 import com.eduvos.nutec.pojo.ProductItem;
 import com.eduvos.nutec.R;
 import com.eduvos.nutec.manager.WishlistManager;
+import com.eduvos.nutec.util.DisplayFormats;
 
 import java.util.List;
-import java.util.Locale;
 
 public class CategoriesAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
 
     private List<ListItem> items;
     private OnProductActionClickListener actionListener; // Listener for button clicks
+    // Held so binding a row never takes getInstance()'s lock
+    private final WishlistManager wishlist = WishlistManager.getInstance();
 
     // --- INTERFACE FOR CLICK EVENTS ---
     public interface OnProductActionClickListener {
@@ -31,6 +33,18 @@ public class CategoriesAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
     public CategoriesAdapter(List<ListItem> items, OnProductActionClickListener listener) {
         this.items = items;
         this.actionListener = listener; // Set the listener
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        ListItem item = items.get(position);
+        if (item instanceof ProductItem) {
+            return ((ProductItem) item).getStableId();
+        }
+        // Headers sit above the ids ProductItem hands out
+        String title = ((CategoryHeader) item).getTitle();
+        return (2L << 32) | (title == null ? 0 : title.hashCode() & 0xFFFFFFFFL);
     }
 
     @Override
@@ -47,7 +61,26 @@ public class CategoriesAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
             return new HeaderViewHolder(view);
         } else { // TYPE_PRODUCT
             View view = inflater.inflate(R.layout.item_category_product, parent, false);
-            return new ProductViewHolder(view);
+            ProductViewHolder holder = new ProductViewHolder(view);
+
+            // --- SET CLICK LISTENERS FOR THE BUTTONS ---
+            // Once per holder; the product is looked up at click time
+            holder.addToCartButton.setOnClickListener(v -> {
+                int position = holder.getAdapterPosition();
+                if (actionListener != null && position != RecyclerView.NO_POSITION) {
+                    actionListener.onAddToCartClick((ProductItem) items.get(position));
+                }
+            });
+
+            holder.addToWishlistButton.setOnClickListener(v -> {
+                int position = holder.getAdapterPosition();
+                if (actionListener != null && position != RecyclerView.NO_POSITION) {
+                    actionListener.onAddToWishlistClick((ProductItem) items.get(position));
+                    // Redraw just the heart icon
+                    notifyItemChanged(position, RowPayload.WISHLIST);
+                }
+            });
+            return holder;
         }
     }
 
@@ -62,28 +95,26 @@ public class CategoriesAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
             ProductItem product = (ProductItem) items.get(position);
             ProductViewHolder productViewHolder = (ProductViewHolder) holder;
             productViewHolder.productName.setText(product.getName());
-            productViewHolder.productPrice.setText(String.format(Locale.getDefault(), "R%.2f", product.getPrice()));
-            // --- CHECK WISHLIST STATUS AND SET THE ICON ---
-            if (WishlistManager.getInstance().isProductInWishlist(product)) {
-                productViewHolder.addToWishlistButton.setImageResource(R.drawable.ic_favorite_filled);
-            } else {
-                productViewHolder.addToWishlistButton.setImageResource(R.drawable.ic_favorite_border);
-            }
-            // --- SET CLICK LISTENERS FOR THE BUTTONS ---
-            productViewHolder.addToCartButton.setOnClickListener(v -> {
-                if (actionListener != null) {
-                    actionListener.onAddToCartClick(product);
-                }
-            });
+            productViewHolder.productPrice.setText(DisplayFormats.money(product.getPrice()));
+            bindHeart(productViewHolder, product);
+        }
+    }
 
-            productViewHolder.addToWishlistButton.setOnClickListener(v -> {
-                if (actionListener != null) {
-                    actionListener.onAddToWishlistClick(product);
-                    // Notify the adapter that this specific item has changed,
-                    // so it can redraw the icon immediately.
-                    notifyItemChanged(holder.getAdapterPosition());
-                }
-            });
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.size() == 1 && payloads.get(0) == RowPayload.WISHLIST && holder instanceof ProductViewHolder) {
+            bindHeart((ProductViewHolder) holder, (ProductItem) items.get(position));
+        } else {
+            onBindViewHolder(holder, position);
+        }
+    }
+
+    // --- CHECK WISHLIST STATUS AND SET THE ICON ---
+    private void bindHeart(ProductViewHolder holder, ProductItem product) {
+        if (wishlist.getMembership().contains(product)) {
+            holder.addToWishlistButton.setImageResource(R.drawable.ic_favorite_filled);
+        } else {
+            holder.addToWishlistButton.setImageResource(R.drawable.ic_favorite_border);
         }
     }
 
@@ -0,0 +1,220 @@
+package com.eduvos.nutec.adapter;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.eduvos.nutec.util.AppExecutors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Base for adapters that are handed whole lists. submitList() works out what changed on a
+ * background thread and then tells the RecyclerView only the rows that were inserted, moved,
+ * changed or removed, so rows that stayed put are not rebound and keep their animations.
+ *
+ * Rows are matched by getItemKey() (a SKU, order id or notification id), and a matched row is
+ * only rebound if areContentsTheSame() says what it shows has changed.
+ *
+ * submitSource() also builds the rows from the data on that thread, so row models can format
+ * their text once when the data arrives rather than on every bind.
+ *
+ * A list submitted while an older one is still being diffed replaces it: the older diff stops
+ * where it is and is never applied. Lists handed to submitList() must not change afterwards
+ * (a ListSnapshot, or a fresh copy). Main thread only.
+ */
+public abstract class DiffingAdapter<T, VH extends RecyclerView.ViewHolder> extends RecyclerView.Adapter<VH> {
+
+    // How many comparisons (or rows built) run between checks for a newer list
+    private static final int CANCEL_CHECK_INTERVAL = 256;
+
+    private final Executor background;
+    private final Executor mainThread;
+
+    private List<T> items = Collections.emptyList();
+    // Bumped on the main thread for every submitted list, read by running diffs
+    private volatile int generation;
+
+    protected DiffingAdapter() {
+        this(AppExecutors.getInstance().background(), AppExecutors.getInstance().mainThread());
+    }
+
+    protected DiffingAdapter(Executor background, Executor mainThread) {
+        this.background = background;
+        this.mainThread = mainThread;
+    }
+
+    /**
+     * What identifies a row across lists, e.g. the product's SKU.
+     */
+    protected abstract Object getItemKey(@NonNull T item);
+
+    /**
+     * Whether the row shows the same thing for both items, which have the same key.
+     */
+    protected abstract boolean areContentsTheSame(@NonNull T oldItem, @NonNull T newItem);
+
+    /**
+     * What changed in a row, for a partial rebind; null rebinds the whole row.
+     */
+    protected Object getChangePayload(@NonNull T oldItem, @NonNull T newItem) {
+        return null;
+    }
+
+    public void submitList(List<T> newItems) {
+        submitList(newItems, null);
+    }
+
+    /**
+     * Shows newItems once the diff has been worked out.
+     *
+     * @param committed run on the main thread once newItems is showing; never run if a newer
+     *                  list replaces it first
+     */
+    public void submitList(List<T> newItems, Runnable committed) {
+        List<T> update = newItems == null ? Collections.<T>emptyList() : newItems;
+        int run = ++generation;
+        List<T> old = items;
+
+        if (update == old) {
+            if (committed != null) committed.run();
+            return;
+        }
+        // Nothing to compare: show it straight away, which also keeps the first frame fast
+        if (old.isEmpty() || update.isEmpty()) {
+            items = update;
+            if (!old.isEmpty()) notifyItemRangeRemoved(0, old.size());
+            if (!update.isEmpty()) notifyItemRangeInserted(0, update.size());
+            if (committed != null) committed.run();
+            return;
+        }
+
+        background.execute(() -> {
+            if (run != generation) return; // A newer list arrived before this one started
+            diffAndCommit(old, update, run, committed);
+        });
+    }
+
+    /**
+     * Builds a row for each item of source on a background thread, then shows the rows like
+     * submitList(). source must not change afterwards either.
+     */
+    public <S> void submitSource(List<S> source, Function<? super S, ? extends T> toRow, Runnable committed) {
+        List<S> input = source == null ? Collections.<S>emptyList() : source;
+        int run = ++generation;
+        // Only this run can commit from here on, so this is still the list it replaces then
+        List<T> old = items;
+
+        background.execute(() -> {
+            if (run != generation) return;
+            List<T> rows = new ArrayList<>(input.size());
+            try {
+                for (int i = 0; i < input.size(); i++) {
+                    if (i % CANCEL_CHECK_INTERVAL == 0 && i > 0 && run != generation) throw Superseded.INSTANCE;
+                    rows.add(toRow.apply(input.get(i)));
+                }
+            } catch (Superseded e) {
+                return;
+            }
+            diffAndCommit(old, Collections.unmodifiableList(rows), run, committed);
+        });
+    }
+
+    // Background thread
+    private void diffAndCommit(List<T> old, List<T> update, int run, Runnable committed) {
+        DiffUtil.DiffResult result = null;
+        if (!old.isEmpty() && !update.isEmpty()) {
+            try {
+                result = DiffUtil.calculateDiff(new ListDiff(old, update, run), true);
+            } catch (Superseded e) {
+                return;
+            }
+        }
+        DiffUtil.DiffResult diff = result;
+        mainThread.execute(() -> {
+            if (run != generation) return;
+            items = update;
+            if (diff != null) {
+                diff.dispatchUpdatesTo(this);
+            } else {
+                if (!old.isEmpty()) notifyItemRangeRemoved(0, old.size());
+                if (!update.isEmpty()) notifyItemRangeInserted(0, update.size());
+            }
+            if (committed != null) committed.run();
+        });
+    }
+
+    /**
+     * The list the RecyclerView is showing, which may be older than the last one submitted.
+     */
+    public List<T> getCurrentList() {
+        return items;
+    }
+
+    public T getItem(int position) {
+        return items.get(position);
+    }
+
+    @Override
+    public int getItemCount() {
+        return items.size();
+    }
+
+    private final class ListDiff extends DiffUtil.Callback {
+        private final List<T> oldItems;
+        private final List<T> newItems;
+        private final int run;
+        private int comparisons;
+
+        ListDiff(List<T> oldItems, List<T> newItems, int run) {
+            this.oldItems = oldItems;
+            this.newItems = newItems;
+            this.run = run;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldItems.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newItems.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldPosition, int newPosition) {
+            // DiffUtil cannot be stopped from outside, so give up from inside when outdated
+            if (++comparisons % CANCEL_CHECK_INTERVAL == 0 && run != generation) {
+                throw Superseded.INSTANCE;
+            }
+            return Objects.equals(getItemKey(oldItems.get(oldPosition)), getItemKey(newItems.get(newPosition)));
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldPosition, int newPosition) {
+            T oldItem = oldItems.get(oldPosition);
+            T newItem = newItems.get(newPosition);
+            return oldItem == newItem || DiffingAdapter.this.areContentsTheSame(oldItem, newItem);
+        }
+
+        @Override
+        public Object getChangePayload(int oldPosition, int newPosition) {
+            return DiffingAdapter.this.getChangePayload(oldItems.get(oldPosition), newItems.get(newPosition));
+        }
+    }
+
+    // Thrown to abandon a diff a newer list has replaced; shared, it carries no stack trace
+    private static final class Superseded extends RuntimeException {
+        static final Superseded INSTANCE = new Superseded();
+
+        private Superseded() {
+            super("Superseded by a newer list", null, false, false);
+        }
+    }
+}
@@ -7,14 +7,13 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.eduvos.nutec.manager.NotificationManager;
 import com.eduvos.nutec.pojo.AppNotification;
 import com.eduvos.nutec.R;
+import com.eduvos.nutec.row.NotificationRow;
 
-import java.util.List;
+public class NotificationsAdapter extends DiffingAdapter<NotificationRow, NotificationsAdapter.NotificationViewHolder> {
 
-public class NotificationsAdapter extends RecyclerView.Adapter<NotificationsAdapter.NotificationViewHolder> {
-
-    private final List<AppNotification> notifications;
     private final OnNotificationClickListener listener;
 
     // Interface to handle clicks on each notification item
@@ -22,49 +21,60 @@ public class NotificationsAdapter extends RecyclerView.Adapter<NotificationsAdap
         void onNotificationClicked(AppNotification notification, int position);
     }
 
-    public NotificationsAdapter(List<AppNotification> notifications, OnNotificationClickListener listener) {
-        this.notifications = notifications;
+    // Notifications come in through submitSource(notifications, NotificationRow::of, ...)
+    public NotificationsAdapter(OnNotificationClickListener listener) {
         this.listener = listener;
     }
 
-    @NonNull
     @Override
-    public NotificationViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        // Inflate the layout for a single notification item
-        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_notification, parent, false);
-        return new NotificationViewHolder(view);
+    protected Object getItemKey(@NonNull NotificationRow row) {
+        return row.id;
     }
 
-    // This is the method where the "Unexpected token" error was occurring.
-    // The code now correctly sits inside this method.
     @Override
-    public void onBindViewHolder(@NonNull NotificationViewHolder holder, int position) {
-        AppNotification notification = notifications.get(position);
-
-        holder.title.setText(notification.getTitle());
-        holder.timestamp.setText(notification.getFormattedTimestamp());
-
-        // Show or hide the blue "unread" dot
-        holder.unreadIndicator.setVisibility(notification.isRead() ? View.GONE : View.VISIBLE);
+    protected boolean areContentsTheSame(@NonNull NotificationRow oldRow, @NonNull NotificationRow newRow) {
+        // The rest never changes for the same id
+        return oldRow.read == newRow.read;
+    }
 
-        // Set the icon to a checkmark for success or an error icon for failure
-        holder.icon.setImageResource(notification.wasSuccess() ? R.drawable.ic_success : R.drawable.ic_error);
+    @NonNull
+    @Override
+    public NotificationViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        // Inflate the layout for a single notification item
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_notification, parent, false);
+        NotificationViewHolder holder = new NotificationViewHolder(view);
 
         // Set a click listener on the entire item view
-        holder.itemView.setOnClickListener(v -> {
-            if (listener != null) {
+        view.setOnClickListener(v -> {
+            int position = holder.getAdapterPosition();
+            if (listener != null && position != RecyclerView.NO_POSITION) {
                 // Mark the notification as read and pass the click event to the fragment
-                notification.setRead(true);
-                listener.onNotificationClicked(notification, holder.getAdapterPosition());
-                // Instantly hide the "unread" dot
-                notifyItemChanged(holder.getAdapterPosition());
+                AppNotification notification = getItem(position).notification;
+                NotificationManager manager = NotificationManager.getInstance();
+                manager.markAsRead(notification);
+                listener.onNotificationClicked(notification, position);
+                // Hide the "unread" dot; the diff rebinds just this row
+                submitSource(manager.getNotifications(), NotificationRow::of, null);
             }
         });
+        return holder;
     }
 
     @Override
-    public int getItemCount() {
-        return notifications.size();
+    public void onBindViewHolder(@NonNull NotificationViewHolder holder, int position) {
+        NotificationRow row = getItem(position);
+
+        holder.title.setText(row.title);
+        holder.timestamp.setText(row.timestampText);
+
+        // Show or hide the blue "unread" dot
+        holder.unreadIndicator.setVisibility(row.read ? View.GONE : View.VISIBLE);
+
+        // Decoding the drawable again is the costly part of a rebind, so skip it if it is showing
+        if (holder.iconRes != row.iconRes) {
+            holder.icon.setImageResource(row.iconRes);
+            holder.iconRes = row.iconRes;
+        }
     }
 
     // ViewHolder class to hold references to the views in item_notification.xml
@@ -73,6 +83,8 @@ public class NotificationsAdapter extends RecyclerView.Adapter<NotificationsAdap
         TextView title;
         TextView timestamp;
         ImageView unreadIndicator;
+        // The drawable icon is showing, 0 before the first bind
+        int iconRes;
 
         public NotificationViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -10,18 +10,31 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.eduvos.nutec.R;
 import com.eduvos.nutec.pojo.OrderItem;
+import com.eduvos.nutec.pojo.ProductItem;
+import com.eduvos.nutec.util.DisplayFormats;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
+import java.util.Objects;
 
-public class OrderDetailItemsAdapter extends RecyclerView.Adapter<OrderDetailItemsAdapter.ItemViewHolder> {
-
-    private List<OrderItem> items = new ArrayList<>();
+public class OrderDetailItemsAdapter extends DiffingAdapter<OrderItem, OrderDetailItemsAdapter.ItemViewHolder> {
 
     public void setItems(List<OrderItem> items) {
-        this.items = items != null ? items : new ArrayList<>();
-        notifyDataSetChanged();
+        // A copy, the order may be replaced while the diff runs
+        submitList(items != null ? new ArrayList<>(items) : null);
+    }
+
+    @Override
+    protected Object getItemKey(@NonNull OrderItem item) {
+        return ProductItem.keyOf(item.getSku(), item.getProductName());
+    }
+
+    @Override
+    protected boolean areContentsTheSame(@NonNull OrderItem oldItem, @NonNull OrderItem newItem) {
+        return Objects.equals(oldItem.getProductName(), newItem.getProductName())
+                && oldItem.getQuantity() == newItem.getQuantity()
+                && oldItem.getPricePerUnit() == newItem.getPricePerUnit()
+                && oldItem.getTotalPrice() == newItem.getTotalPrice();
     }
 
     @NonNull
@@ -34,17 +47,12 @@ public class OrderDetailItemsAdapter extends RecyclerView.Adapter<OrderDetailIte
 
     @Override
     public void onBindViewHolder(@NonNull ItemViewHolder holder, int position) {
-        OrderItem item = items.get(position);
+        OrderItem item = getItem(position);
 
         holder.productName.setText(item.getProductName());
         holder.productQuantity.setText("Qty: " + item.getQuantity());
-        holder.productPrice.setText(String.format(Locale.getDefault(), "R%.2f each", item.getPricePerUnit()));
-        holder.productTotal.setText(String.format(Locale.getDefault(), "R%.2f", item.getTotalPrice()));
-    }
-
-    @Override
-    public int getItemCount() {
-        return items.size();
+        holder.productPrice.setText(DisplayFormats.money(item.getPricePerUnit()) + " each");
+        holder.productTotal.setText(DisplayFormats.money(item.getTotalPrice()));
     }
 
     static class ItemViewHolder extends RecyclerView.ViewHolder {
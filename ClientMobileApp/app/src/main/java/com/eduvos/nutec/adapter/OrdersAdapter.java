@@ -1,5 +1,6 @@
 package com.eduvos.nutec.adapter;
 
+import android.content.res.ColorStateList;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -10,72 +11,63 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.eduvos.nutec.R;
 import com.eduvos.nutec.pojo.Order;
+import com.eduvos.nutec.row.OrderRow;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.List;
-import java.util.Locale;
+public class OrdersAdapter extends DiffingAdapter<OrderRow, OrdersAdapter.OrderViewHolder> {
 
-public class OrdersAdapter extends RecyclerView.Adapter<OrdersAdapter.OrderViewHolder> {
-
-    private List<Order> ordersList;
     private OnOrderClickListener listener;
 
     public interface OnOrderClickListener {
         void onOrderClick(Order order);
     }
 
-    public OrdersAdapter(List<Order> ordersList, OnOrderClickListener listener) {
-        this.ordersList = ordersList;
+    // Orders come in through submitSource(orders, OrderRow::of, ...)
+    public OrdersAdapter(OnOrderClickListener listener) {
         this.listener = listener;
     }
 
+    @Override
+    protected Object getItemKey(@NonNull OrderRow row) {
+        return row.id;
+    }
+
+    @Override
+    protected boolean areContentsTheSame(@NonNull OrderRow oldRow, @NonNull OrderRow newRow) {
+        return oldRow.looksLike(newRow);
+    }
+
     @NonNull
     @Override
     public OrderViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_order, parent, false);
-        return new OrderViewHolder(view);
-    }
+        OrderViewHolder holder = new OrderViewHolder(view);
 
-    @Override
-    public void onBindViewHolder(@NonNull OrderViewHolder holder, int position) {
-        Order order = ordersList.get(position);
-
-        holder.orderNumber.setText("Order #" + order.getOrderNumber());
-        holder.orderStatus.setText(order.getStatus());
-        holder.orderTotal.setText(String.format(Locale.getDefault(), "R%.2f", order.getTotal()));
-        holder.orderDate.setText(formatDate(order.getCreatedAt()));
-        holder.itemCount.setText(order.getItems().size() + " items");
-
-        // Set status color
-        if ("Pending".equals(order.getStatus())) {
-            holder.orderStatus.setTextColor(holder.itemView.getContext().getColor(android.R.color.holo_orange_dark));
-        } else if ("Completed".equals(order.getStatus())) {
-            holder.orderStatus.setTextColor(holder.itemView.getContext().getColor(android.R.color.holo_green_dark));
-        }
-
-        holder.itemView.setOnClickListener(v -> {
-            if (listener != null) {
-                listener.onOrderClick(order);
+        view.setOnClickListener(v -> {
+            int position = holder.getAdapterPosition();
+            if (listener != null && position != RecyclerView.NO_POSITION) {
+                listener.onOrderClick(getItem(position).order);
             }
         });
+        return holder;
     }
 
     @Override
-    public int getItemCount() {
-        return ordersList.size();
-    }
-
-    private String formatDate(String dateString) {
-        try {
-            SimpleDateFormat inputFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.getDefault());
-            SimpleDateFormat outputFormat = new SimpleDateFormat("MMM dd, yyyy", Locale.getDefault());
-            Date date = inputFormat.parse(dateString);
-            return outputFormat.format(date);
-        } catch (ParseException e) {
-            return dateString;
+    public void onBindViewHolder(@NonNull OrderViewHolder holder, int position) {
+        // Everything is formatted already, binding only sets text
+        OrderRow row = getItem(position);
+
+        holder.orderNumber.setText(row.numberText);
+        holder.orderStatus.setText(row.status);
+        holder.orderTotal.setText(row.totalText);
+        holder.orderDate.setText(row.dateText);
+        holder.itemCount.setText(row.itemCountText);
+
+        // Set status color, back to the default for other statuses since holders are reused
+        if (row.statusColorRes != 0) {
+            holder.orderStatus.setTextColor(holder.itemView.getContext().getColor(row.statusColorRes));
+        } else {
+            holder.orderStatus.setTextColor(holder.defaultStatusColors);
         }
     }
 
@@ -85,6 +77,7 @@ public class OrdersAdapter extends RecyclerView.Adapter<OrdersAdapter.OrderViewH
         TextView orderTotal;
         TextView orderDate;
         TextView itemCount;
+        final ColorStateList defaultStatusColors;
 
         public OrderViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -93,6 +86,7 @@ public class OrdersAdapter extends RecyclerView.Adapter<OrdersAdapter.OrderViewH
             orderTotal = itemView.findViewById(R.id.order_total);
             orderDate = itemView.findViewById(R.id.order_date);
             itemCount = itemView.findViewById(R.id.item_count);
+            defaultStatusColors = orderStatus.getTextColors();
         }
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,5 @@
 package com.eduvos.nutec.adapter;
 
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -11,13 +10,17 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 import java.util.List;
+import java.util.Objects;
+import com.eduvos.nutec.manager.WishlistManager;
 import com.eduvos.nutec.pojo.ProductOrder;
 import com.eduvos.nutec.R;
+import com.eduvos.nutec.row.ProductRow;
 
-public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductViewHolder> {
+public class ProductAdapter extends DiffingAdapter<ProductRow, ProductAdapter.ProductViewHolder> {
 
-    private List<ProductOrder> productList;
     private OnProductActionClickListener listener; // Listener for button clicks
+    // Held so binding a row never takes getInstance()'s lock
+    private final WishlistManager wishlist = WishlistManager.getInstance();
 
     // Define an interface for click events
     public interface OnProductActionClickListener {
@@ -25,48 +28,74 @@ public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductV
         void onAddToWishlistClick(ProductOrder product);
     }
 
-    public ProductAdapter(List<ProductOrder> productList, OnProductActionClickListener listener) {
-        this.productList = productList;
+    // Rows come in through submitSource(products, ProductRow::of, ...)
+    public ProductAdapter(OnProductActionClickListener listener) {
         this.listener = listener;
     }//:D
 
-    @NonNull
     @Override
-    public ProductViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_product, parent, false);
-        return new ProductViewHolder(view);
+    protected Object getItemKey(@NonNull ProductRow row) {
+        return row.sku;
     }
 
     @Override
-    public void onBindViewHolder(@NonNull ProductViewHolder holder, int position) {
-        ProductOrder product = productList.get(position);
-
-        String description = product.getSkuDescription();
-        int sku = product.getSku();
-
-        // Add logging to debug
-        Log.d("ProductAdapter", "Binding product: " + description + " (SKU: " + sku + ")");
+    protected boolean areContentsTheSame(@NonNull ProductRow oldRow, @NonNull ProductRow newRow) {
+        // Only what the row shows
+        return Objects.equals(oldRow.name, newRow.name);
+    }
 
-        holder.productName.setText(description);
-        holder.productSku.setText("SKU: " + sku);
+    @NonNull
+    @Override
+    public ProductViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_product, parent, false);
+        ProductViewHolder holder = new ProductViewHolder(view);
 
-        // Set click listeners for the buttons
+        // Set click listeners for the buttons once per holder rather than on every bind
         holder.addToCartButton.setOnClickListener(v -> {
-            if (listener != null) {
-                listener.onAddToCartClick(product);
+            int position = holder.getAdapterPosition();
+            if (listener != null && position != RecyclerView.NO_POSITION) {
+                listener.onAddToCartClick(getItem(position).product);
             }
         });
 
         holder.addToWishlistButton.setOnClickListener(v -> {
-            if (listener != null) {
-                listener.onAddToWishlistClick(product);
+            int position = holder.getAdapterPosition();
+            if (listener != null && position != RecyclerView.NO_POSITION) {
+                listener.onAddToWishlistClick(getItem(position).product);
+                // Redraw just the heart
+                notifyItemChanged(position, RowPayload.WISHLIST);
             }
         });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ProductViewHolder holder, int position) {
+        // The text is put together already, binding only sets it
+        ProductRow row = getItem(position);
+
+        holder.productName.setText(row.name);
+        holder.productSku.setText(row.skuText);
+        bindHeart(holder, row);
     }
 
     @Override
-    public int getItemCount() {
-        return productList.size();
+    public void onBindViewHolder(@NonNull ProductViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.size() == 1 && payloads.get(0) == RowPayload.WISHLIST) {
+            bindHeart(holder, getItem(position));
+        } else {
+            onBindViewHolder(holder, position);
+        }
+    }
+
+    // Filled heart for products on the wishlist; the drawable is only set when it changes
+    private void bindHeart(ProductViewHolder holder, ProductRow row) {
+        int heartRes = wishlist.getMembership().contains(row.sku, row.name)
+                ? R.drawable.ic_favorite_filled : R.drawable.ic_favorite_border;
+        if (holder.heartRes != heartRes) {
+            holder.addToWishlistButton.setImageResource(heartRes);
+            holder.heartRes = heartRes;
+        }
     }
 
     // ViewHolder class
@@ -75,6 +104,8 @@ public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductV
         TextView productSku;
         ImageView addToCartButton;
         ImageView addToWishlistButton;
+        // The heart drawable showing, 0 before the first bind
+        int heartRes;
 
         public ProductViewHolder(@NonNull View itemView) {
             super(itemView);
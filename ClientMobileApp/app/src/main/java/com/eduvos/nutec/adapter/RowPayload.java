@@ -0,0 +1,14 @@
+package com.eduvos.nutec.adapter;
+
+/**
+ * What changed in a row, passed as the payload of notifyItemChanged(position, payload) so the
+ * adapter updates only the views showing it instead of rebinding the whole row.
+ */
+public enum RowPayload {
+    // The quantity of a cart line
+    QUANTITY,
+    // The unit price of a cart line or product
+    PRICE,
+    // Whether the product is on the wishlist (the heart icon)
+    WISHLIST
+}
@@ -8,16 +8,19 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.eduvos.nutec.manager.WishlistManager;
 import com.eduvos.nutec.pojo.ProductItem;
 import com.eduvos.nutec.R;
+import com.eduvos.nutec.util.DisplayFormats;
 
 import java.util.List;
-import java.util.Locale;
+import java.util.Objects;
 
-public class WishlistAdapter extends RecyclerView.Adapter<WishlistAdapter.WishlistViewHolder> {
+public class WishlistAdapter extends DiffingAdapter<ProductItem, WishlistAdapter.WishlistViewHolder> {
 
-    private List<ProductItem> wishlistItems;
     private OnWishlistActionClickListener listener;
+    // Held so binding a row never takes getInstance()'s lock
+    private final WishlistManager wishlist = WishlistManager.getInstance();
 
     // Interface to handle clicks on the "remove" or "add to cart" buttons
     public interface OnWishlistActionClickListener {
@@ -25,46 +28,101 @@ public class WishlistAdapter extends RecyclerView.Adapter<WishlistAdapter.Wishli
         void onMoveToCart(ProductItem product, int position);
     }
 
-    public WishlistAdapter(List<ProductItem> wishlistItems, OnWishlistActionClickListener listener) {
-        this.wishlistItems = wishlistItems;
+    // Products come in through submitList()
+    public WishlistAdapter(OnWishlistActionClickListener listener) {
         this.listener = listener;
+        setHasStableIds(true);
     }
 
-    @NonNull
     @Override
-    public WishlistViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        // We can reuse the same layout from the categories page
-        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_category_product, parent, false);
-        return new WishlistViewHolder(view);
+    public long getItemId(int position) {
+        return getItem(position).getStableId();
     }
 
     @Override
-    public void onBindViewHolder(@NonNull WishlistViewHolder holder, int position) {
-        ProductItem product = wishlistItems.get(position);
+    protected Object getItemKey(@NonNull ProductItem product) {
+        return product.getKey();
+    }
 
-        holder.productName.setText(product.getName());
-        holder.productPrice.setText(String.format(Locale.getDefault(), "R%.2f", product.getPrice()));
+    @Override
+    protected boolean areContentsTheSame(@NonNull ProductItem oldProduct, @NonNull ProductItem newProduct) {
+        return Objects.equals(oldProduct.getName(), newProduct.getName())
+                && oldProduct.getPrice() == newProduct.getPrice();
+    }
+
+    @Override
+    protected Object getChangePayload(@NonNull ProductItem oldProduct, @NonNull ProductItem newProduct) {
+        return Objects.equals(oldProduct.getName(), newProduct.getName()) ? RowPayload.PRICE : null;
+    }
 
-        // Since this is the wishlist, the icon should always be a solid heart
-        holder.wishlistButton.setImageResource(R.drawable.ic_favorite_filled);
+    @NonNull
+    @Override
+    public WishlistViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        // We can reuse the same layout from the categories page
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_category_product, parent, false);
+        WishlistViewHolder holder = new WishlistViewHolder(view);
 
-        // Set click listeners for the buttons
+        // Set click listeners for the buttons once; the product is looked up at click time
         holder.wishlistButton.setOnClickListener(v -> {
-            if (listener != null) {
+            ProductItem product = productAt(holder);
+            if (listener != null && product != null) {
                 listener.onRemoveFromWishlist(product, holder.getAdapterPosition());
             }
         });
 
         holder.addToCartButton.setOnClickListener(v -> {
-            if (listener != null) {
+            ProductItem product = productAt(holder);
+            if (listener != null && product != null) {
                 listener.onMoveToCart(product, holder.getAdapterPosition());
             }
         });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull WishlistViewHolder holder, int position) {
+        ProductItem product = getItem(position);
+
+        holder.productName.setText(product.getName());
+        bindPrice(holder, product);
+        bindHeart(holder, product);
     }
 
     @Override
-    public int getItemCount() {
-        return wishlistItems.size();
+    public void onBindViewHolder(@NonNull WishlistViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        ProductItem product = getItem(position);
+        for (Object payload : payloads) {
+            if (payload == RowPayload.PRICE) {
+                bindPrice(holder, product);
+            } else if (payload == RowPayload.WISHLIST) {
+                bindHeart(holder, product);
+            } else {
+                onBindViewHolder(holder, position);
+                return;
+            }
+        }
+    }
+
+    private void bindPrice(WishlistViewHolder holder, ProductItem product) {
+        holder.productPrice.setText(DisplayFormats.money(product.getPrice()));
+    }
+
+    private void bindHeart(WishlistViewHolder holder, ProductItem product) {
+        // A solid heart, unless the row is on its way out after being removed
+        holder.wishlistButton.setImageResource(wishlist.getMembership().contains(product)
+                ? R.drawable.ic_favorite_filled : R.drawable.ic_favorite_border);
+    }
+
+    // Null while the row is leaving, or once it has left the wishlist and waits for the diff
+    private ProductItem productAt(WishlistViewHolder holder) {
+        int position = holder.getAdapterPosition();
+        if (position == RecyclerView.NO_POSITION) return null;
+        ProductItem product = getItem(position);
+        return wishlist.getMembership().contains(product) ? product : null;
     }
 
     // ViewHolder for a single wishlist item
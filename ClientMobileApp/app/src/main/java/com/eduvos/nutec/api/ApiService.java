@@ -17,8 +17,11 @@ import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.http.Body;
 import retrofit2.http.GET;
+import retrofit2.http.Headers;
 import retrofit2.http.POST;
 import retrofit2.http.Path;
+import retrofit2.http.Query;
+import retrofit2.http.Tag;
 
 import com.eduvos.nutec.pojo.LoginResponse;
 import com.eduvos.nutec.pojo.LoginRequest;
@@ -38,18 +41,37 @@ public interface ApiService {
 //    @GET("products")
 //    Call<List<ProductOrder>> getProductOrders();
 
-    //correct api call for inventory (also created inventory dto without the getters and setters because I  am unsure about how to do that in java)
+    // One page of inventory, filtered and sorted on the server (used by InventoryPager).
+    // null search/sortBy are left out of the query string, lane picks the RequestScheduler priority
+    @CachePolicy(maxAgeSeconds = 60, staleWhileRevalidateSeconds = 60 * 60, staleIfErrorSeconds = 7 * 24 * 60 * 60)
+    @Headers(CompactWireFormat.ACCEPT_HEADER)
     @GET("StockMetrics/inventory")
-    Call<List<ProductOrder>> getProductOrders();
+    Call<List<ProductOrder>> getInventoryPage(@Query("page") int page,
+                                              @Query("pageSize") int pageSize,
+                                              @Query("search") String search,
+                                              @Query("sortBy") String sortBy,
+                                              @Tag RequestLane lane);
+
+    // Rows with orderDate >= startDate, oldest first, for InventorySyncEngine (null startDate = everything)
+    @Lane(RequestLane.BACKGROUND)
+    @Headers(CompactWireFormat.ACCEPT_HEADER)
+    @GET("StockMetrics/inventory?sortBy=orderDate")
+    Call<List<ProductOrder>> getInventorySince(@Query("startDate") String startDate,
+                                               @Query("page") int page,
+                                               @Query("pageSize") int pageSize);
 
 
     // order endpoints
     @POST("orders")
     Call<OrderResponse> createOrder(@Body CreateOrderRequest request);
 
+    // Always JSON: the server only has a compact formatter for inventory lists
+    @CachePolicy(maxAgeSeconds = 30, staleWhileRevalidateSeconds = 10 * 60, staleIfErrorSeconds = 7 * 24 * 60 * 60)
+    // limit keeps only the most recent orders (data saver), null returns the whole history
     @GET("orders")
-    Call<OrdersListResponse> getUserOrders();
+    Call<OrdersListResponse> getUserOrders(@Query("limit") Integer limit);
 
+    @CachePolicy(maxAgeSeconds = 30, staleWhileRevalidateSeconds = 10 * 60, staleIfErrorSeconds = 7 * 24 * 60 * 60)
     @GET("orders/{id}")
     Call<OrderResponse> getOrderById(@Path("id") String orderId);
 }
@@ -0,0 +1,27 @@
+package com.eduvos.nutec.api;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares how long a GET endpoint's response may be reused from the on-disk HTTP cache.
+ * Put it directly on the ApiService method, next to the @GET annotation.
+ *
+ * maxAgeSeconds               - response is served straight from cache while younger than this
+ * staleWhileRevalidateSeconds - after max-age, stale data is still served instantly while a
+ *                               conditional request (If-None-Match / If-Modified-Since) refreshes it
+ * staleIfErrorSeconds         - how old a cached response may be when we are offline or the call fails
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CachePolicy {
+    int maxAgeSeconds();
+
+    int staleWhileRevalidateSeconds() default 0;
+
+    int staleIfErrorSeconds() default 0;
+}
@@ -0,0 +1,79 @@
+package com.eduvos.nutec.api;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for the HTTP response cache so we can see how many round-trips and bytes it saves.
+ * All counters are updated from OkHttp threads, so they are atomic and never reset implicitly.
+ */
+public class CacheStats {
+
+    private final AtomicLong hits = new AtomicLong();          // fresh response served from disk
+    private final AtomicLong staleHits = new AtomicLong();     // stale response served while revalidating
+    private final AtomicLong offlineHits = new AtomicLong();   // served from disk because the network failed
+    private final AtomicLong misses = new AtomicLong();        // had to go to the network
+    private final AtomicLong revalidations = new AtomicLong(); // background conditional requests sent
+    private final AtomicLong notModified = new AtomicLong();   // conditional requests answered with 304
+    private final AtomicLong bytesServedFromCache = new AtomicLong();
+
+    public void recordHit(long bytes) {
+        hits.incrementAndGet();
+        addBytes(bytes);
+    }
+
+    public void recordStaleHit(long bytes) {
+        staleHits.incrementAndGet();
+        addBytes(bytes);
+    }
+
+    public void recordOfflineHit(long bytes) {
+        offlineHits.incrementAndGet();
+        addBytes(bytes);
+    }
+
+    public void recordMiss() {
+        misses.incrementAndGet();
+    }
+
+    public void recordRevalidation() {
+        revalidations.incrementAndGet();
+    }
+
+    public void recordNotModified(long bytes) {
+        notModified.incrementAndGet();
+        addBytes(bytes);
+    }
+
+    private void addBytes(long bytes) {
+        // Content-Length is -1 for chunked responses, those are simply not counted
+        if (bytes > 0) {
+            bytesServedFromCache.addAndGet(bytes);
+        }
+    }
+
+    public long getHits() { return hits.get(); }
+    public long getStaleHits() { return staleHits.get(); }
+    public long getOfflineHits() { return offlineHits.get(); }
+    public long getMisses() { return misses.get(); }
+    public long getRevalidations() { return revalidations.get(); }
+    public long getNotModified() { return notModified.get(); }
+    public long getBytesServedFromCache() { return bytesServedFromCache.get(); }
+
+    /**
+     * Share of cacheable requests that did not need a full download.
+     */
+    public double getHitRate() {
+        long served = hits.get() + staleHits.get() + offlineHits.get();
+        long total = served + misses.get();
+        return total == 0 ? 0 : (double) served / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US,
+                "hits=%d stale=%d offline=%d misses=%d revalidations=%d notModified=%d hitRate=%.1f%% savedBytes=%d",
+                getHits(), getStaleHits(), getOfflineHits(), getMisses(), getRevalidations(),
+                getNotModified(), getHitRate() * 100, getBytesServedFromCache());
+    }
+}
@@ -0,0 +1,146 @@
+package com.eduvos.nutec.api;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.http.GET;
+import retrofit2.http.Streaming;
+
+/**
+ * Retrofit call adapter that routes every GET ApiService call through a SingleFlight, so
+ * fragments that are recreated quickly (bottom-nav switching) share the request already running
+ * instead of firing a duplicate.
+ *
+ * Only enqueue() is coalesced; execute() runs the call directly. Streaming and raw
+ * ResponseBody calls are left alone because their body can only be read once.
+ */
+public class CoalescingCallAdapterFactory extends CallAdapter.Factory {
+
+    private final SingleFlight singleFlight;
+
+    public CoalescingCallAdapterFactory(SingleFlight singleFlight) {
+        this.singleFlight = singleFlight;
+    }
+
+    @Override
+    public CallAdapter<?, ?> get(@NonNull Type returnType, @NonNull Annotation[] annotations, @NonNull Retrofit retrofit) {
+        if (getRawType(returnType) != Call.class || !(returnType instanceof ParameterizedType)) {
+            return null;
+        }
+        if (!hasAnnotation(annotations, GET.class) || hasAnnotation(annotations, Streaming.class)) {
+            return null;
+        }
+        if (getParameterUpperBound(0, (ParameterizedType) returnType) == ResponseBody.class) {
+            return null;
+        }
+
+        // Wrap Retrofit's default adapter so callbacks still arrive on the main thread
+        @SuppressWarnings("unchecked")
+        CallAdapter<Object, Call<Object>> delegate =
+                (CallAdapter<Object, Call<Object>>) retrofit.nextCallAdapter(this, returnType, annotations);
+
+        return new CallAdapter<Object, Call<Object>>() {
+            @NonNull
+            @Override
+            public Type responseType() {
+                return delegate.responseType();
+            }
+
+            @NonNull
+            @Override
+            public Call<Object> adapt(@NonNull Call<Object> call) {
+                return new CoalescedCall<>(delegate.adapt(call), singleFlight);
+            }
+        };
+    }
+
+    private static boolean hasAnnotation(Annotation[] annotations, Class<? extends Annotation> type) {
+        for (Annotation annotation : annotations) {
+            if (type.isInstance(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static final class CoalescedCall<T> implements Call<T> {
+        private final Call<T> delegate;
+        private final SingleFlight singleFlight;
+        private volatile boolean executed;
+        private volatile boolean canceled;
+
+        CoalescedCall(Call<T> delegate, SingleFlight singleFlight) {
+            this.delegate = delegate;
+            this.singleFlight = singleFlight;
+        }
+
+        @Override
+        public void enqueue(@NonNull Callback<T> callback) {
+            markExecuted();
+            singleFlight.enqueue(this, delegate, callback);
+        }
+
+        @NonNull
+        @Override
+        public Response<T> execute() throws IOException {
+            markExecuted();
+            return delegate.execute();
+        }
+
+        private synchronized void markExecuted() {
+            if (executed) throw new IllegalStateException("Already executed.");
+            executed = true;
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return executed;
+        }
+
+        @Override
+        public void cancel() {
+            canceled = true;
+            // The delegate may be the flight's shared call; SingleFlight cancels that once
+            // nobody is waiting, so only a call that never joined a flight is cancelled here
+            if (!singleFlight.unsubscribe(this)) {
+                delegate.cancel();
+            }
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        @NonNull
+        @SuppressWarnings("MethodDoesntCallSuperMethod")
+        @Override
+        public Call<T> clone() {
+            return new CoalescedCall<>(delegate.clone(), singleFlight);
+        }
+
+        @NonNull
+        @Override
+        public Request request() {
+            return delegate.request();
+        }
+
+        @NonNull
+        @Override
+        public Timeout timeout() {
+            return delegate.timeout();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.eduvos.nutec.api;
+
+import androidx.annotation.NonNull;
+
+import com.eduvos.nutec.pojo.ProductOrder;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * Decodes {@link CompactWireFormat} inventory responses straight into ProductOrder rows. Looks
+ * at the response Content-Type, so if the server answered with JSON (older server, or a proxy
+ * that dropped the Accept header) the body is handed to the next converter (Gson) instead.
+ * Inventory is the only payload the server encodes, orders always come as JSON.
+ *
+ * Must be added before GsonConverterFactory.
+ */
+public class CompactConverterFactory extends Converter.Factory {
+
+    private interface Decoder {
+        Object decode(BufferedSource source) throws IOException;
+    }
+
+    public static CompactConverterFactory create() {
+        return new CompactConverterFactory();
+    }
+
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(@NonNull Type type, @NonNull Annotation[] annotations,
+                                                            @NonNull Retrofit retrofit) {
+        Decoder decoder = decoderFor(type);
+        if (decoder == null) {
+            return null;
+        }
+
+        Converter<ResponseBody, ?> json = retrofit.nextResponseBodyConverter(this, type, annotations);
+        return body -> {
+            if (!isCompact(body.contentType())) {
+                return json.convert(body);
+            }
+            try (ResponseBody compact = body) {
+                return decoder.decode(compact.source());
+            }
+        };
+    }
+
+    private static Decoder decoderFor(Type type) {
+        if (type instanceof ParameterizedType && getRawType(type) == List.class
+                && getParameterUpperBound(0, (ParameterizedType) type) == ProductOrder.class) {
+            return CompactWireFormat::decodeInventory;
+        }
+        return null;
+    }
+
+    static boolean isCompact(MediaType contentType) {
+        return contentType != null
+                && CompactWireFormat.MEDIA_TYPE.equals(contentType.type() + "/" + contentType.subtype());
+    }
+}
@@ -0,0 +1,282 @@
+package com.eduvos.nutec.api;
+
+import com.eduvos.nutec.pojo.Order;
+import com.eduvos.nutec.pojo.OrderItem;
+import com.eduvos.nutec.pojo.OrdersListResponse;
+import com.eduvos.nutec.pojo.ProductOrder;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+
+/**
+ * Compact binary encoding for the inventory and order payloads. Inventory is served as
+ * {@value #MEDIA_TYPE} when the client asks for it in its Accept header; the order encoding is
+ * only used for the order history OrderRepository saves on disk, the server answers orders in JSON.
+ *
+ * Layout: "NTC" + version byte + kind byte, then a string table, then the payload.
+ * - Every string (descriptions, user codes, dates, ids...) is stored once in the table and
+ *   referenced by varint index + 1 (0 means null), so values repeated on every row cost 1-2 bytes.
+ * - Inventory is columnar: row count, then one column per field, which keeps similar values together.
+ * - Orders are row-based because each order has its own item list.
+ * - Ints are zigzag varints, doubles are 8 byte big-endian IEEE 754.
+ *
+ * The server writes the same layout in API/Formatters/CompactInventoryOutputFormatter.cs.
+ */
+public final class CompactWireFormat {
+
+    public static final String MEDIA_TYPE = "application/x-nutec-columnar";
+    // For @Headers on ApiService methods that have a compact encoding; JSON stays acceptable
+    public static final String ACCEPT_HEADER = "Accept: " + MEDIA_TYPE + ", application/json;q=0.9";
+
+    static final int VERSION = 1;
+    static final int KIND_INVENTORY = 1;
+    static final int KIND_ORDERS = 2;
+
+    private static final byte[] MAGIC = {'N', 'T', 'C'};
+
+    private CompactWireFormat() {}
+
+    // ============================================================
+    // Decoding
+    // ============================================================
+
+    public static List<ProductOrder> decodeInventory(BufferedSource source) throws IOException {
+        String[] strings = readHeader(source, KIND_INVENTORY);
+
+        int rows = readCount(source);
+        List<ProductOrder> list = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            list.add(new ProductOrder());
+        }
+
+        for (ProductOrder row : list) row.setSku(readInt(source));
+        for (ProductOrder row : list) row.setSkuDescription(readString(source, strings));
+        for (ProductOrder row : list) row.setLitres(readInt(source));
+        for (ProductOrder row : list) row.setUserCode(readString(source, strings));
+        for (ProductOrder row : list) row.setOrderDate(readString(source, strings));
+        for (ProductOrder row : list) row.setPreviousOrderDate(readString(source, strings));
+        for (ProductOrder row : list) row.setDaysBetweenOrders(readInt(source));
+        for (ProductOrder row : list) row.setAverageDailyUse(readNullableDouble(source));
+        for (ProductOrder row : list) row.setUserId(readString(source, strings));
+        return list;
+    }
+
+    public static OrdersListResponse decodeOrders(BufferedSource source) throws IOException {
+        String[] strings = readHeader(source, KIND_ORDERS);
+
+        OrdersListResponse response = new OrdersListResponse();
+        response.setSuccess(source.readByte() != 0);
+
+        int count = readCount(source);
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            orders.add(readOrder(source, strings));
+        }
+        response.setOrders(orders);
+        return response;
+    }
+
+    private static Order readOrder(BufferedSource source, String[] strings) throws IOException {
+        Order order = new Order();
+        order.setId(readString(source, strings));
+        order.setOrderNumber(readString(source, strings));
+        order.setStatus(readString(source, strings));
+        order.setCreatedAt(readString(source, strings));
+        order.setSubtotal(readDouble(source));
+        order.setDeliveryFee(readDouble(source));
+        order.setTaxAmount(readDouble(source));
+        order.setTotal(readDouble(source));
+
+        int count = readCount(source);
+        List<OrderItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String productName = readString(source, strings);
+            int sku = readInt(source);
+            int quantity = readInt(source);
+            double pricePerUnit = readDouble(source);
+            double totalPrice = readDouble(source);
+            items.add(new OrderItem(productName, sku, quantity, pricePerUnit, totalPrice));
+        }
+        order.setItems(items);
+        return order;
+    }
+
+    private static String[] readHeader(BufferedSource source, int expectedKind) throws IOException {
+        for (byte b : MAGIC) {
+            if (source.readByte() != b) throw new ProtocolException("Not a compact payload");
+        }
+        int version = source.readByte();
+        if (version != VERSION) throw new ProtocolException("Unsupported compact version " + version);
+        int kind = source.readByte();
+        if (kind != expectedKind) throw new ProtocolException("Expected payload kind " + expectedKind + " but was " + kind);
+
+        String[] strings = new String[readCount(source)];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = source.readUtf8(readCount(source));
+        }
+        return strings;
+    }
+
+    private static String readString(BufferedSource source, String[] strings) throws IOException {
+        int ref = readCount(source);
+        if (ref == 0) return null;
+        if (ref > strings.length) throw new ProtocolException("String ref " + ref + " out of range");
+        return strings[ref - 1];
+    }
+
+    private static int readInt(BufferedSource source) throws IOException {
+        long zigzag = readVarint(source);
+        return (int) ((zigzag >>> 1) ^ -(zigzag & 1));
+    }
+
+    private static int readCount(BufferedSource source) throws IOException {
+        long value = readVarint(source);
+        if (value > Integer.MAX_VALUE) throw new ProtocolException("Count too large: " + value);
+        return (int) value;
+    }
+
+    private static long readVarint(BufferedSource source) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = source.readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+        }
+        throw new ProtocolException("Malformed varint");
+    }
+
+    private static double readDouble(BufferedSource source) throws IOException {
+        return Double.longBitsToDouble(source.readLong());
+    }
+
+    private static Double readNullableDouble(BufferedSource source) throws IOException {
+        return source.readByte() == 0 ? null : readDouble(source);
+    }
+
+    // ============================================================
+    // Encoding (used by tests and the local test server)
+    // ============================================================
+
+    public static Buffer encodeInventory(List<ProductOrder> rows) throws IOException {
+        StringTable strings = new StringTable();
+        Buffer body = new Buffer();
+
+        writeVarint(body, rows.size());
+        for (ProductOrder row : rows) writeInt(body, row.getSku());
+        for (ProductOrder row : rows) strings.write(body, row.getSkuDescription());
+        for (ProductOrder row : rows) writeInt(body, row.getLitres());
+        for (ProductOrder row : rows) strings.write(body, row.getUserCode());
+        for (ProductOrder row : rows) strings.write(body, row.getOrderDate());
+        for (ProductOrder row : rows) strings.write(body, row.getPreviousOrderDate());
+        for (ProductOrder row : rows) writeInt(body, row.getDaysBetweenOrders());
+        for (ProductOrder row : rows) writeNullableDouble(body, row.getAverageDailyUse());
+        for (ProductOrder row : rows) strings.write(body, row.getUserId());
+
+        return assemble(KIND_INVENTORY, strings, body);
+    }
+
+    public static Buffer encodeOrders(OrdersListResponse response) throws IOException {
+        StringTable strings = new StringTable();
+        Buffer body = new Buffer();
+
+        body.writeByte(response.isSuccess() ? 1 : 0);
+        List<Order> orders = response.getOrders() != null ? response.getOrders() : new ArrayList<>();
+        writeVarint(body, orders.size());
+        for (Order order : orders) {
+            writeOrder(body, strings, order);
+        }
+        return assemble(KIND_ORDERS, strings, body);
+    }
+
+    private static void writeOrder(BufferedSink sink, StringTable strings, Order order) throws IOException {
+        strings.write(sink, order.getId());
+        strings.write(sink, order.getOrderNumber());
+        strings.write(sink, order.getStatus());
+        strings.write(sink, order.getCreatedAt());
+        sink.writeLong(Double.doubleToLongBits(order.getSubtotal()));
+        sink.writeLong(Double.doubleToLongBits(order.getDeliveryFee()));
+        sink.writeLong(Double.doubleToLongBits(order.getTaxAmount()));
+        sink.writeLong(Double.doubleToLongBits(order.getTotal()));
+
+        List<OrderItem> items = order.getItems() != null ? order.getItems() : new ArrayList<>();
+        writeVarint(sink, items.size());
+        for (OrderItem item : items) {
+            strings.write(sink, item.getProductName());
+            writeInt(sink, item.getSku());
+            writeInt(sink, item.getQuantity());
+            sink.writeLong(Double.doubleToLongBits(item.getPricePerUnit()));
+            sink.writeLong(Double.doubleToLongBits(item.getTotalPrice()));
+        }
+    }
+
+    private static Buffer assemble(int kind, StringTable strings, Buffer body) throws IOException {
+        Buffer out = new Buffer();
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(kind);
+        strings.writeTable(out);
+        out.writeAll(body);
+        return out;
+    }
+
+    private static void writeInt(BufferedSink sink, int value) throws IOException {
+        int zigzag = (value << 1) ^ (value >> 31);
+        writeVarint(sink, zigzag & 0xFFFFFFFFL);
+    }
+
+    private static void writeVarint(BufferedSink sink, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            sink.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        sink.writeByte((int) value);
+    }
+
+    private static void writeNullableDouble(BufferedSink sink, Double value) throws IOException {
+        if (value == null) {
+            sink.writeByte(0);
+        } else {
+            sink.writeByte(1);
+            sink.writeLong(Double.doubleToLongBits(value));
+        }
+    }
+
+    /**
+     * Assigns each distinct string an index the first time it is written.
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        void write(BufferedSink sink, String value) throws IOException {
+            if (value == null) {
+                writeVarint(sink, 0);
+                return;
+            }
+            Integer index = indexes.get(value);
+            if (index == null) {
+                index = values.size();
+                indexes.put(value, index);
+                values.add(value);
+            }
+            writeVarint(sink, index + 1);
+        }
+
+        void writeTable(BufferedSink sink) throws IOException {
+            writeVarint(sink, values.size());
+            for (String value : values) {
+                Buffer utf8 = new Buffer().writeUtf8(value);
+                writeVarint(sink, utf8.size());
+                sink.writeAll(utf8);
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.eduvos.nutec.api;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.preference.PreferenceManager;
+
+import com.eduvos.nutec.metrics.NetworkQualityEstimator;
+
+/**
+ * How much the app fetches, decided from the "data_saver" setting and the network quality:
+ *  - saving (setting on, or automatic on a metered/poor link): small pages, almost no
+ *    prefetch, only the latest orders, no response body logging and no background revalidation
+ *  - fast link (good and unmetered): bigger pages and deeper prefetch, so fewer round-trips
+ *  - otherwise the normal sizes
+ *
+ * Everything is evaluated on each call, so a change of network or setting applies to the
+ * next request without restarting anything.
+ */
+public class DataSaverPolicy {
+    private static final String TAG = "DataSaverPolicy";
+
+    public static final String PREF_KEY = "data_saver";
+    public static final String MODE_AUTO = "auto";
+    public static final String MODE_ON = "on";
+    public static final String MODE_OFF = "off";
+
+    static final int SAVER_PAGE_SIZE = 15;
+    static final int SAVER_PREFETCH_DISTANCE = 2;
+    static final int FAST_PAGE_SIZE = 60;
+    static final int FAST_PREFETCH_DISTANCE = 30;
+    // Orders screen shows only the most recent ones while saving, 0 means all
+    static final int SAVER_ORDER_HISTORY_LIMIT = 20;
+
+    private static DataSaverPolicy instance;
+
+    private final NetworkQualityEstimator estimator;
+    private volatile String mode = MODE_AUTO;
+    // SharedPreferences only keeps a weak reference to its listeners
+    private SharedPreferences.OnSharedPreferenceChangeListener preferenceListener;
+
+    DataSaverPolicy(NetworkQualityEstimator estimator) {
+        this.estimator = estimator;
+    }
+
+    public static synchronized DataSaverPolicy getInstance() {
+        if (instance == null) {
+            instance = new DataSaverPolicy(NetworkQualityEstimator.getInstance());
+        }
+        return instance;
+    }
+
+    /**
+     * Starts following the setting and the connectivity state. Call once, from the Application.
+     */
+    public synchronized void initialize(Context context) {
+        if (preferenceListener != null) return;
+
+        SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context.getApplicationContext());
+        setMode(prefs.getString(PREF_KEY, MODE_AUTO));
+        preferenceListener = (sharedPreferences, key) -> {
+            if (PREF_KEY.equals(key)) {
+                setMode(sharedPreferences.getString(PREF_KEY, MODE_AUTO));
+                Log.d(TAG, "Data saver: " + this);
+            }
+        };
+        prefs.registerOnSharedPreferenceChangeListener(preferenceListener);
+
+        estimator.watchConnectivity(context);
+    }
+
+    void setMode(String mode) {
+        this.mode = MODE_ON.equals(mode) || MODE_OFF.equals(mode) ? mode : MODE_AUTO;
+    }
+
+    public boolean isSaving() {
+        switch (mode) {
+            case MODE_ON:
+                return true;
+            case MODE_OFF:
+                return false;
+            default:
+                return estimator.isMetered() || estimator.getQuality() == NetworkQualityEstimator.Quality.POOR;
+        }
+    }
+
+    private boolean isFastLink() {
+        return !MODE_ON.equals(mode) && !estimator.isMetered()
+                && estimator.getQuality() == NetworkQualityEstimator.Quality.GOOD;
+    }
+
+    /**
+     * Rows per inventory page. Read when a query starts, so pages of one query never change size.
+     */
+    public int getPageSize() {
+        if (isSaving()) return SAVER_PAGE_SIZE;
+        return isFastLink() ? FAST_PAGE_SIZE : InventoryPager.PAGE_SIZE;
+    }
+
+    /**
+     * How many rows before the end of the list the next page starts loading.
+     */
+    public int getPrefetchDistance() {
+        if (isSaving()) return SAVER_PREFETCH_DISTANCE;
+        return isFastLink() ? FAST_PREFETCH_DISTANCE : InventoryPager.PREFETCH_DISTANCE;
+    }
+
+    /**
+     * @return how many of the latest orders to fetch, or null for the whole history
+     */
+    public Integer getOrderHistoryLimit() {
+        return isSaving() ? SAVER_ORDER_HISTORY_LIMIT : null;
+    }
+
+    /**
+     * Debug body logging buffers whole responses, so it is switched off while saving.
+     *
+     * @param normal the usual "1 in N calls" sample rate
+     */
+    public int getBodyLogSampleEvery(int normal) {
+        return isSaving() ? 0 : normal;
+    }
+
+    /**
+     * Stale-while-revalidate refreshes and warm-up pings. While saving, stale cached data is
+     * shown as is and only refetched when the user needs it.
+     */
+    public boolean allowsBackgroundSync() {
+        return !isSaving();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "mode=" + mode + ", saving=" + isSaving() + ", page=" + getPageSize()
+                + ", prefetch=" + getPrefetchDistance() + ", network=" + estimator;
+    }
+}
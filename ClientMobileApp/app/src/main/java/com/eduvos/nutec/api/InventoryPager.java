@@ -0,0 +1,178 @@
+package com.eduvos.nutec.api;
+
+import androidx.annotation.NonNull;
+
+import com.eduvos.nutec.pojo.ProductOrder;
+
+import java.util.Collections;
+import java.util.List;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.HttpException;
+import retrofit2.Response;
+
+/**
+ * Loads the inventory one server-side page at a time for the current search/sort, so the app
+ * only downloads and holds the rows the user actually scrolls to.
+ *
+ * Not thread-safe: call it from the main thread (Retrofit delivers the callbacks there too).
+ */
+public class InventoryPager {
+
+    public static final int PAGE_SIZE = 30;
+    // Start loading the next page when this many rows are left below the last visible one
+    public static final int PREFETCH_DISTANCE = 10;
+
+    /**
+     * Where pages come from, normally ApiService.getInventoryPage.
+     */
+    public interface PageSource {
+        Call<List<ProductOrder>> load(int page, int pageSize, String search, String sortBy);
+    }
+
+    public interface Listener {
+        /**
+         * @param firstPage true when these rows replace the list (new query or refresh)
+         */
+        void onPageLoaded(List<ProductOrder> rows, boolean firstPage);
+        void onError(Throwable error, boolean firstPage);
+    }
+
+    private final PageSource source;
+    private final DataSaverPolicy policy;
+    private final Listener listener;
+
+    private int pageSize;
+    private int prefetchDistance;
+
+    private String search;
+    private String sortBy;
+    private int nextPage;
+    private boolean endReached;
+    private Call<List<ProductOrder>> inFlight;
+
+    /**
+     * Page size and prefetch distance follow the data saver policy (see DataSaverPolicy).
+     * The source is serverSource() or the synced local catalog.
+     */
+    public InventoryPager(PageSource source, DataSaverPolicy policy, Listener listener) {
+        this(source, policy, PAGE_SIZE, listener);
+    }
+
+    /**
+     * Fixed page size and the default prefetch distance.
+     */
+    public InventoryPager(PageSource source, int pageSize, Listener listener) {
+        this(source, null, pageSize, listener);
+    }
+
+    private InventoryPager(PageSource source, DataSaverPolicy policy, int pageSize, Listener listener) {
+        this.source = source;
+        this.policy = policy;
+        this.pageSize = pageSize;
+        this.prefetchDistance = PREFETCH_DISTANCE;
+        this.listener = listener;
+    }
+
+    /**
+     * Pages straight from StockMetrics/inventory.
+     */
+    public static PageSource serverSource(ApiService apiService) {
+        // The first page is what the user is waiting for, later pages are prefetches
+        return (page, pageSize, search, sortBy) -> apiService.getInventoryPage(page, pageSize, search, sortBy,
+                page == 0 ? RequestLane.INTERACTIVE : RequestLane.VISIBLE_PREFETCH);
+    }
+
+    /**
+     * Switch to a new search/sort and reload from the first page.
+     *
+     * @param search text to match in the description, empty or null for everything
+     * @param sortBy server sort key ("name", "-litres", ...), null for the default order
+     */
+    public void setQuery(String search, String sortBy) {
+        this.search = search == null || search.trim().isEmpty() ? null : search.trim();
+        this.sortBy = sortBy;
+        refresh();
+    }
+
+    /**
+     * Drop whatever is loading and start again from the first page.
+     */
+    public void refresh() {
+        cancel();
+        nextPage = 0;
+        endReached = false;
+        // Sizes are picked per query: page N must mean the same rows for every page of it
+        if (policy != null) {
+            pageSize = policy.getPageSize();
+            prefetchDistance = policy.getPrefetchDistance();
+        }
+        loadNextPage();
+    }
+
+    /**
+     * Called from the list's scroll listener; loads the next page when the user gets close to the end.
+     */
+    public void onScrolled(int lastVisiblePosition, int itemCount) {
+        if (itemCount - 1 - lastVisiblePosition <= prefetchDistance) {
+            loadNextPage();
+        }
+    }
+
+    /**
+     * @return false if a page is already loading or there are no more pages
+     */
+    public boolean loadNextPage() {
+        if (inFlight != null || endReached) return false;
+
+        int page = nextPage;
+        Call<List<ProductOrder>> call = source.load(page, pageSize, search, sortBy);
+        inFlight = call;
+        call.enqueue(new Callback<List<ProductOrder>>() {
+            @Override
+            public void onResponse(@NonNull Call<List<ProductOrder>> c, @NonNull Response<List<ProductOrder>> response) {
+                if (call != inFlight) return; // the query changed while this page was loading
+                inFlight = null;
+
+                if (!response.isSuccessful()) {
+                    listener.onError(new HttpException(response), page == 0);
+                    return;
+                }
+
+                List<ProductOrder> rows = response.body() != null ? response.body() : Collections.emptyList();
+                nextPage = page + 1;
+                endReached = rows.size() < pageSize;
+                listener.onPageLoaded(rows, page == 0);
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<List<ProductOrder>> c, @NonNull Throwable t) {
+                if (call != inFlight) return;
+                inFlight = null;
+                listener.onError(t, page == 0);
+            }
+        });
+        return true;
+    }
+
+    public void cancel() {
+        Call<List<ProductOrder>> call = inFlight;
+        inFlight = null;
+        if (call != null) {
+            call.cancel();
+        }
+    }
+
+    public boolean isLoading() {
+        return inFlight != null;
+    }
+
+    public boolean isEndReached() {
+        return endReached;
+    }
+
+    public boolean hasQuery() {
+        return search != null;
+    }
+}
@@ -0,0 +1,18 @@
+package com.eduvos.nutec.api;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Default RequestScheduler lane for an ApiService method (INTERACTIVE when missing).
+ * A single call can still override it with a {@code @Tag RequestLane} parameter.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Lane {
+    RequestLane value();
+}
@@ -0,0 +1,147 @@
+package com.eduvos.nutec.api;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.eduvos.nutec.util.AppExecutors;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Gets the network stack ready while the first screen is drawing, once per process:
+ * - builds the shared OkHttp/Retrofit client
+ * - resolves the API host so the system DNS cache is warm
+ * - opens keep-alive connections in the shared pool with anonymous Test/ping calls, so the
+ *   first real getInventoryPage()/getUserOrders() skips connection setup
+ * - creates the Gson type adapters for every ApiService response type
+ *
+ * The pings go through the normal event listener, so their DNS/connect/TTFB timings show up in
+ * NetworkMetrics as the first connection-quality sample.
+ */
+public class NetworkWarmup {
+    private static final String TAG = "NetworkWarmup";
+
+    // HTTP/1.1 only runs one call per connection, so open a couple for the screens that load in parallel
+    private static final int WARM_CONNECTIONS = 2;
+    private static final long PING_TIMEOUT_SECONDS = 10;
+
+    private static final AtomicBoolean started = new AtomicBoolean(false);
+
+    private NetworkWarmup() {}
+
+    /**
+     * Starts the warm-up on a background thread. Only the first call in a process does anything.
+     */
+    public static void start(Context context) {
+        if (!started.compareAndSet(false, true)) return;
+
+        Context appContext = context.getApplicationContext();
+        AppExecutors.getInstance().background().execute(() -> run(appContext));
+    }
+
+    private static void run(Context context) {
+        long startedAt = SystemClock.elapsedRealtime();
+
+        RetrofitClient.getApiService(context);
+        OkHttpClient client = RetrofitClient.getHttpClient();
+
+        resolveHost(client);
+        // Pings are background traffic, skip them on a metered or poor link
+        if (DataSaverPolicy.getInstance().allowsBackgroundSync()) {
+            openConnections(RetrofitClient.getClientWithoutAuth(context));
+        }
+        preloadTypeAdapters(RetrofitClient.getGson());
+
+        Log.d(TAG, "Warm-up finished in " + (SystemClock.elapsedRealtime() - startedAt) + " ms, pooled connections: "
+                + client.connectionPool().idleConnectionCount());
+    }
+
+    private static void resolveHost(OkHttpClient client) {
+        String host = RetrofitClient.getBaseUrl().host();
+        long startedAt = SystemClock.elapsedRealtime();
+        try {
+            int addresses = client.dns().lookup(host).size();
+            Log.d(TAG, "Resolved " + host + " to " + addresses + " address(es) in "
+                    + (SystemClock.elapsedRealtime() - startedAt) + " ms");
+        } catch (IOException e) {
+            // Offline or bad DNS, the real calls will report it
+            Log.w(TAG, "DNS warm-up failed for " + host + ": " + e.getMessage());
+        }
+    }
+
+    private static void openConnections(OkHttpClient pingClient) {
+        // The ping is anonymous and must never trigger a token refresh or a login redirect
+        // Background lane: a login or the first screen's request goes first
+        Call.Factory calls = RetrofitClient.getRequestScheduler().wrap(pingClient);
+        Request ping = new Request.Builder()
+                .url(RetrofitClient.getBaseUrl().resolve("Test/ping"))
+                .tag(RequestLane.class, RequestLane.BACKGROUND)
+                .build();
+
+        CountDownLatch done = new CountDownLatch(WARM_CONNECTIONS);
+        for (int i = 0; i < WARM_CONNECTIONS; i++) {
+            calls.newCall(ping).enqueue(new Callback() {
+                @Override
+                public void onResponse(@NonNull Call call, @NonNull Response response) {
+                    // Read the body to the end so the connection goes back into the pool
+                    try (ResponseBody body = response.body()) {
+                        if (body != null) body.string();
+                    } catch (IOException e) {
+                        Log.w(TAG, "Warm-up ping body failed: " + e.getMessage());
+                    } finally {
+                        done.countDown();
+                    }
+                }
+
+                @Override
+                public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                    Log.w(TAG, "Warm-up ping failed: " + e.getMessage());
+                    done.countDown();
+                }
+            });
+        }
+
+        try {
+            done.await(PING_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gson builds a reflective adapter the first time it sees a type; doing it here keeps that
+     * cost off the first response. The types are read from ApiService so new endpoints are covered.
+     */
+    static int preloadTypeAdapters(Gson gson) {
+        int loaded = 0;
+        for (Method method : ApiService.class.getDeclaredMethods()) {
+            Type returnType = method.getGenericReturnType();
+            if (!(returnType instanceof ParameterizedType)) continue;
+
+            Type responseType = ((ParameterizedType) returnType).getActualTypeArguments()[0];
+            if (responseType == ResponseBody.class) continue;
+
+            gson.getAdapter(TypeToken.get(responseType));
+            loaded++;
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,23 @@
+package com.eduvos.nutec.api;
+
+/**
+ * Priority lanes for RequestScheduler, highest first.
+ */
+public enum RequestLane {
+    // The user is waiting on it (tapping an order, opening a screen)
+    INTERACTIVE(4),
+    // Content that will be on screen soon (next inventory page)
+    VISIBLE_PREFETCH(2),
+    // Nobody is looking at it (warm-up pings, cache revalidation, bulk downloads)
+    BACKGROUND(2);
+
+    private final int maxConcurrent;
+
+    RequestLane(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+}
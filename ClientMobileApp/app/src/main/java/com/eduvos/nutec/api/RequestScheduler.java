@@ -0,0 +1,355 @@
+package com.eduvos.nutec.api;
+
+import androidx.annotation.NonNull;
+
+import com.eduvos.nutec.metrics.FixedHistogram;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.Timeout;
+import retrofit2.Invocation;
+
+/**
+ * Decides when each request may go to OkHttp, by priority lane (see RequestLane).
+ *
+ * Rules, checked whenever a request is queued or finishes, and when a deferral runs out:
+ *  - every lane has its own concurrency limit
+ *  - lower lanes are deferred while an interactive call is running or waiting, and BACKGROUND
+ *    also waits for queued prefetches
+ *  - a deferred call goes anyway after MAX_DEFER_MS, so background work never starves
+ *
+ * Waiting happens here, not in the OkHttp Dispatcher, so a queued background call never holds
+ * a dispatcher slot that a tap needs. Running calls are never cancelled to make room.
+ */
+public class RequestScheduler {
+
+    // Lower lanes normally wait for interactive calls, but never longer than this
+    static final long MAX_DEFER_MS = 5000;
+    private static final long MAX_WAIT_MS = 60_000;
+
+    /**
+     * One request waiting for (or holding) a slot in its lane.
+     */
+    static final class Ticket {
+        final RequestLane lane;
+        final Runnable start;
+        long queuedAt;
+
+        Ticket(RequestLane lane, Runnable start) {
+            this.lane = lane;
+            this.start = start;
+        }
+    }
+
+    private final RequestLane[] lanes = RequestLane.values();
+    private final List<ArrayDeque<Ticket>> queues = new ArrayList<>();
+    private final int[] running = new int[lanes.length];
+    private final long[] started = new long[lanes.length];
+    private final long[] deferred = new long[lanes.length];
+    private final FixedHistogram[] waits = new FixedHistogram[lanes.length];
+
+    // nanoTime-style clock, and the timer that re-checks the queues when a deferral runs out
+    private final LongSupplier clock;
+    private final ScheduledExecutorService timer;
+    // When the pending re-check fires, Long.MAX_VALUE if none is scheduled
+    private long wakeAt = Long.MAX_VALUE;
+
+    public RequestScheduler() {
+        this(System::nanoTime, Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "nutec-lanes");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    RequestScheduler(LongSupplier clock, ScheduledExecutorService timer) {
+        this.clock = clock;
+        this.timer = timer;
+        for (int i = 0; i < lanes.length; i++) {
+            queues.add(new ArrayDeque<>());
+            waits[i] = new FixedHistogram(MAX_WAIT_MS);
+        }
+    }
+
+    /**
+     * Call.Factory for Retrofit (and anything else) that routes the client's calls through this
+     * scheduler. The lane comes from a RequestLane tag, else the method's @Lane, else INTERACTIVE.
+     */
+    public Call.Factory wrap(OkHttpClient client) {
+        return request -> new ScheduledCall(client.newCall(request), laneOf(request));
+    }
+
+    static RequestLane laneOf(Request request) {
+        RequestLane tagged = request.tag(RequestLane.class);
+        if (tagged != null) return tagged;
+
+        Invocation invocation = request.tag(Invocation.class);
+        if (invocation != null) {
+            Lane lane = invocation.method().getAnnotation(Lane.class);
+            if (lane != null) return lane.value();
+        }
+        return RequestLane.INTERACTIVE;
+    }
+
+    /**
+     * Runs ticket.start now if its lane allows it, otherwise once it does.
+     * Every started ticket must be followed by exactly one finished(lane).
+     */
+    void submit(Ticket ticket) {
+        synchronized (this) {
+            ticket.queuedAt = clock.getAsLong();
+            queues.get(ticket.lane.ordinal()).add(ticket);
+        }
+        startAdmitted();
+    }
+
+    /**
+     * @return true if the ticket was still waiting and has been dropped (it will never start)
+     */
+    synchronized boolean cancelQueued(Ticket ticket) {
+        return queues.get(ticket.lane.ordinal()).remove(ticket);
+    }
+
+    void finished(RequestLane lane) {
+        synchronized (this) {
+            running[lane.ordinal()]--;
+        }
+        startAdmitted();
+    }
+
+    private void startAdmitted() {
+        // Start outside the lock: start() may enqueue on OkHttp or wake a waiting thread
+        for (Ticket ticket : admit()) {
+            ticket.start.run();
+        }
+    }
+
+    private void wake() {
+        synchronized (this) {
+            wakeAt = Long.MAX_VALUE;
+        }
+        startAdmitted();
+    }
+
+    private synchronized List<Ticket> admit() {
+        List<Ticket> admitted = new ArrayList<>();
+        long now = clock.getAsLong();
+
+        for (RequestLane lane : lanes) {
+            ArrayDeque<Ticket> queue = queues.get(lane.ordinal());
+            while (!queue.isEmpty() && canStart(lane, queue.peek(), now)) {
+                Ticket ticket = queue.poll();
+                long waitedMs = (now - ticket.queuedAt) / 1_000_000;
+
+                running[lane.ordinal()]++;
+                started[lane.ordinal()]++;
+                if (waitedMs > 0) deferred[lane.ordinal()]++;
+                waits[lane.ordinal()].record(waitedMs);
+                admitted.add(ticket);
+            }
+        }
+        scheduleWake(now);
+        return admitted;
+    }
+
+    // Nothing else may happen before a deferred ticket's MAX_DEFER_MS is up (no other call queued
+    // or finishing), so make sure the queues are looked at again then
+    private void scheduleWake(long now) {
+        long next = Long.MAX_VALUE;
+        for (RequestLane lane : lanes) {
+            if (lane == RequestLane.INTERACTIVE) continue;
+
+            Ticket head = queues.get(lane.ordinal()).peek();
+            if (head == null) continue;
+            long due = head.queuedAt + TimeUnit.MILLISECONDS.toNanos(MAX_DEFER_MS);
+            // Already due means it is waiting for its lane limit, and finished() admits it
+            if (due > now) next = Math.min(next, due);
+        }
+        if (next >= wakeAt) return;
+
+        wakeAt = next;
+        timer.schedule(this::wake, next - now, TimeUnit.NANOSECONDS);
+    }
+
+    private boolean canStart(RequestLane lane, Ticket ticket, long now) {
+        if (running[lane.ordinal()] >= lane.getMaxConcurrent()) return false;
+        if (lane == RequestLane.INTERACTIVE) return true;
+
+        // Waited long enough, only the lane's own limit applies now
+        if ((now - ticket.queuedAt) / 1_000_000 >= MAX_DEFER_MS) return true;
+
+        int interactive = RequestLane.INTERACTIVE.ordinal();
+        if (running[interactive] > 0 || !queues.get(interactive).isEmpty()) return false;
+
+        return lane != RequestLane.BACKGROUND || queues.get(RequestLane.VISIBLE_PREFETCH.ordinal()).isEmpty();
+    }
+
+    public synchronized int getRunning(RequestLane lane) {
+        return running[lane.ordinal()];
+    }
+
+    public synchronized int getQueued(RequestLane lane) {
+        return queues.get(lane.ordinal()).size();
+    }
+
+    /**
+     * Queue wait (time between enqueue and going to OkHttp) for a lane.
+     */
+    public FixedHistogram getWaitHistogram(RequestLane lane) {
+        return waits[lane.ordinal()];
+    }
+
+    /**
+     * One line per lane with counts and queue-wait percentiles, for the debug metrics dialog.
+     */
+    public synchronized String report() {
+        StringBuilder out = new StringBuilder("Request lanes (queue wait ms):\n");
+        for (RequestLane lane : lanes) {
+            int i = lane.ordinal();
+            out.append(String.format(Locale.US, "  %-16s started=%d deferred=%d running=%d queued=%d p50=%d p95=%d p99=%d\n",
+                    lane.name().toLowerCase(Locale.US), started[i], deferred[i], running[i], queues.get(i).size(),
+                    waits[i].percentile(50), waits[i].percentile(95), waits[i].percentile(99)));
+        }
+        return out.toString();
+    }
+
+    /**
+     * OkHttp call that waits for its lane before it is really executed or enqueued.
+     */
+    private final class ScheduledCall implements Call {
+        private final Call delegate;
+        private final RequestLane lane;
+        private final AtomicBoolean executed = new AtomicBoolean();
+        private volatile Ticket ticket;
+        private volatile Runnable onDropped;
+        private volatile boolean canceled;
+
+        ScheduledCall(Call delegate, RequestLane lane) {
+            this.delegate = delegate;
+            this.lane = lane;
+        }
+
+        @NonNull
+        @Override
+        public Request request() {
+            return delegate.request();
+        }
+
+        @NonNull
+        @Override
+        public Response execute() throws IOException {
+            markExecuted();
+
+            CountDownLatch admitted = new CountDownLatch(1);
+            AtomicBoolean dropped = new AtomicBoolean();
+            onDropped = () -> {
+                dropped.set(true);
+                admitted.countDown();
+            };
+            ticket = new Ticket(lane, admitted::countDown);
+            submit(ticket);
+
+            try {
+                admitted.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+                if (!dropped.get()) finished(lane);
+                throw new InterruptedIOException("Interrupted while waiting for the " + lane + " lane");
+            }
+            if (dropped.get()) {
+                throw new IOException("Canceled");
+            }
+
+            try {
+                return delegate.execute();
+            } finally {
+                finished(lane);
+            }
+        }
+
+        @Override
+        public void enqueue(@NonNull Callback callback) {
+            markExecuted();
+
+            onDropped = () -> callback.onFailure(this, new IOException("Canceled"));
+            ticket = new Ticket(lane, () -> delegate.enqueue(new Callback() {
+                @Override
+                public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
+                    // The slot is held until the callback has read the body
+                    try {
+                        callback.onResponse(ScheduledCall.this, response);
+                    } finally {
+                        finished(lane);
+                    }
+                }
+
+                @Override
+                public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                    try {
+                        callback.onFailure(ScheduledCall.this, e);
+                    } finally {
+                        finished(lane);
+                    }
+                }
+            }));
+            submit(ticket);
+        }
+
+        private void markExecuted() {
+            if (!executed.compareAndSet(false, true)) {
+                throw new IllegalStateException("Already Executed");
+            }
+        }
+
+        @Override
+        public void cancel() {
+            canceled = true;
+            Ticket queued = ticket;
+            if (queued != null && cancelQueued(queued)) {
+                onDropped.run();
+                return;
+            }
+            delegate.cancel();
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return executed.get();
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled || delegate.isCanceled();
+        }
+
+        @NonNull
+        @Override
+        public Timeout timeout() {
+            return delegate.timeout();
+        }
+
+        @NonNull
+        @SuppressWarnings("MethodDoesntCallSuperMethod")
+        @Override
+        public Call clone() {
+            return new ScheduledCall(delegate.clone(), lane);
+        }
+    }
+}
@@ -1,26 +1,54 @@
 package com.eduvos.nutec.api;
 
 import android.content.Context;
-import android.content.SharedPreferences;
 import android.util.Log;
-import android.widget.Toast;
+import okhttp3.Cache;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
-import okhttp3.logging.HttpLoggingInterceptor;
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.ReflectionAccessFilter;
+import com.google.gson.Strictness;
+import com.eduvos.nutec.BuildConfig;
+import com.eduvos.nutec.auth.TokenManager;
 import com.eduvos.nutec.interceptor.AuthInterceptor;
+import com.eduvos.nutec.interceptor.CacheHeaderInterceptor;
+import com.eduvos.nutec.interceptor.CacheInterceptor;
+import com.eduvos.nutec.interceptor.SampledLoggingInterceptor;
+import com.eduvos.nutec.metrics.NetworkMetricsListener;
+import com.eduvos.nutec.pojo.GeneratedTypeAdapters;
+import com.eduvos.nutec.util.AppExecutors;
+
+import java.io.File;
+import java.io.IOException;
 
 public class RetrofitClient {
 
     private static final String BASE_URL = "http://10.0.2.2:5000/api/";  // Changed: removed /api/
 
+    // On-disk response cache for GET endpoints marked with @CachePolicy
+    private static final String HTTP_CACHE_DIR = "http_cache";
+    private static final long HTTP_CACHE_SIZE = 20L * 1024 * 1024; // 20 MB
+    // Debug builds log the full body of 1 in this many calls
+    private static final int BODY_LOG_SAMPLE_EVERY = 10;
+    // Identical GETs finishing within this window are answered from the last result
+    private static final long COALESCE_REUSE_WINDOW_MS = 2000;
+    // Higher than the lane limits added together, so calls wait in RequestScheduler and not in OkHttp
+    private static final int MAX_REQUESTS_PER_HOST = 12;
+
     private static Retrofit retrofit = null;
+    private static OkHttpClient httpClient = null;
+    private static OkHttpClient clientWithoutAuth = null;
+    private static Gson gson = null;
     private static Context appContext = null;
+    private static Cache httpCache = null;
+    private static final CacheStats cacheStats = new CacheStats();
+    private static final SingleFlight singleFlight =
+            new SingleFlight(COALESCE_REUSE_WINDOW_MS, AppExecutors.getInstance().mainThread());
+    private static final RequestScheduler requestScheduler = new RequestScheduler();
 
     /**
      * Initialize RetrofitClient with application context
@@ -30,7 +58,7 @@ public class RetrofitClient {
         appContext = context.getApplicationContext();
     }
 
-    public static ApiService getApiService(Context context) {
+    public static synchronized ApiService getApiService(Context context) {
         if (appContext == null) {
             initialize(context);
         }
@@ -39,45 +67,153 @@ public class RetrofitClient {
             // Create the auth interceptor with context
             AuthInterceptor authInterceptor = new AuthInterceptor(appContext);
 
-            // Create a logging interceptor to see request and response logs
-            HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor();
-            loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
+            // Disk cache + the interceptors that apply each endpoint's @CachePolicy
+            httpCache = new Cache(new File(appContext.getCacheDir(), HTTP_CACHE_DIR), HTTP_CACHE_SIZE);
+            CacheInterceptor cacheInterceptor = new CacheInterceptor(appContext, cacheStats);
+
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
 
             // Create an OkHttpClient and add the interceptors
-            OkHttpClient client = new OkHttpClient.Builder()
-                    .addInterceptor(authInterceptor) // Add auth interceptor FIRST
-                    .addInterceptor(loggingInterceptor) // Then logging interceptor
-                    .build();
+            OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                    .dispatcher(dispatcher)
+                    .cache(httpCache)
+                    .eventListenerFactory(NetworkMetricsListener.FACTORY) // per-endpoint latency/bytes histograms
+                    .addInterceptor(cacheInterceptor) // Cache FIRST so cache hits skip token checks
+                    .addInterceptor(authInterceptor); // Then auth interceptor
+
+            // Request logging only in debug builds, and bodies only for a sample of calls (none in data saver)
+            if (BuildConfig.DEBUG) {
+                builder.addInterceptor(new SampledLoggingInterceptor(
+                        () -> DataSaverPolicy.getInstance().getBodyLogSampleEvery(BODY_LOG_SAMPLE_EVERY)));
+            }
 
-            // Create a Gson instance that is lenient with JSON parsing
-            Gson gson = new GsonBuilder()
-                    .setLenient()
-                    .create();
+            OkHttpClient client = builder
+                    .addNetworkInterceptor(new CacheHeaderInterceptor())
+                    .build();
+            // Every call waits for its priority lane before it reaches OkHttp
+            okhttp3.Call.Factory scheduledCalls = requestScheduler.wrap(client);
+            cacheInterceptor.bindCallFactory(scheduledCalls);
+            httpClient = client;
 
             retrofit = new Retrofit.Builder()
                     .baseUrl(BASE_URL)
-                    .client(client) // Set the custom client
-                    .addConverterFactory(GsonConverterFactory.create(gson))
+                    .callFactory(scheduledCalls) // Set the custom client, behind the lane scheduler
+                    .addCallAdapterFactory(new CoalescingCallAdapterFactory(singleFlight)) // share identical in-flight GETs
+                    .addConverterFactory(CompactConverterFactory.create()) // binary inventory/orders when the server sends them
+                    .addConverterFactory(GsonConverterFactory.create(getGson())) // everything else, and the fallback
                     .build();
         }
         return retrofit.create(ApiService.class);
     }
 
     /**
-     * Save token to SharedPreferences for persistence across app restarts
+     * The OkHttpClient behind the ApiService (null until getApiService has been called)
+     */
+    static synchronized OkHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * Priority lanes every API call goes through (queue-wait stats for the debug screen)
+     */
+    public static RequestScheduler getRequestScheduler() {
+        return requestScheduler;
+    }
+
+    /**
+     * Same pool, dispatcher and event listener as the ApiService client, but no AuthInterceptor,
+     * for calls that must never trigger a token refresh or a login redirect (pings, auth/refresh)
+     */
+    public static synchronized OkHttpClient getClientWithoutAuth(Context context) {
+        if (clientWithoutAuth == null) {
+            getApiService(context);
+            OkHttpClient.Builder builder = httpClient.newBuilder();
+            builder.interceptors().removeIf(interceptor -> interceptor instanceof AuthInterceptor);
+            clientWithoutAuth = builder.build();
+        }
+        return clientWithoutAuth;
+    }
+
+    public static HttpUrl getBaseUrl() {
+        return HttpUrl.get(BASE_URL);
+    }
+
+    /**
+     * The Gson instance Retrofit parses with, shared so NetworkWarmup warms the same type adapters
+     */
+    public static synchronized Gson getGson() {
+        if (gson == null) {
+            // Create a Gson instance that is lenient with JSON parsing
+            gson = new GsonBuilder()
+                    .setStrictness(Strictness.LENIENT)
+                    // Compile-time adapters for the pojo classes (see @GenerateTypeAdapter)
+                    .registerTypeAdapterFactory(GeneratedTypeAdapters.FACTORY)
+                    // A covered class must never silently fall back to reflection; if it
+                    // somehow does, fail loudly instead of being slow
+                    .addReflectionAccessFilter(type -> GeneratedTypeAdapters.isCovered(type)
+                            ? ReflectionAccessFilter.FilterResult.BLOCK_ALL
+                            : ReflectionAccessFilter.FilterResult.INDECISIVE)
+                    .create();
+        }
+        return gson;
+    }
+
+    /**
+     * Hit/miss/revalidation counters for the HTTP cache
+     */
+    public static CacheStats getCacheStats() {
+        return cacheStats;
+    }
+
+    /**
+     * Dedup counters for coalesced GET calls
+     */
+    public static SingleFlight getCoalescingStats() {
+        return singleFlight;
+    }
+
+    /**
+     * Change how long a finished GET result is handed to identical calls (0 only shares in-flight calls)
+     */
+    public static void setCoalesceReuseWindowMs(long reuseWindowMs) {
+        singleFlight.setReuseWindowMs(reuseWindowMs);
+    }
+
+    /**
+     * Remove every cached response (e.g. on logout, so the next user never sees them).
+     * Runs on the disk thread because the cache lives on disk.
+     */
+    public static void clearHttpCache() {
+        singleFlight.clear();
+
+        Cache cache = httpCache;
+        if (cache == null) return;
+
+        AppExecutors.getInstance().diskIO().execute(() -> {
+            try {
+                cache.evictAll();
+                Log.d("RetrofitClient", "HTTP cache cleared");
+            } catch (IOException e) {
+                Log.e("RetrofitClient", "Failed to clear HTTP cache", e);
+            }
+        });
+    }
+
+    /**
+     * Save token in the session, which persists it across app restarts
      */
     public static void saveAuthToken(Context context, String token) {
-        SharedPreferences prefs = context.getSharedPreferences("MyAppPrefs", Context.MODE_PRIVATE);
-        prefs.edit().putString("auth_token", token).apply();
-        Log.d("RetrofitClient", "Token saved to SharedPreferences");
+        // Through TokenManager, so AuthInterceptor sees the new token on the very next request
+        TokenManager.getInstance().saveAccessToken(token);
+        Log.d("RetrofitClient", "Token saved");
     }
 
     /**
-     * Load token from SharedPreferences
+     * Current token, already loaded into memory by TokenManager
      */
     public static String loadAuthToken(Context context) {
-        SharedPreferences prefs = context.getSharedPreferences("MyAppPrefs", Context.MODE_PRIVATE);
-        String token = prefs.getString("auth_token", null);
+        String token = TokenManager.getInstance().getAccessToken();
         Log.d("RetrofitClient", "Token loaded: " + (token != null ? "exists" : "null"));
         return token;
     }
@@ -86,38 +222,7 @@ public class RetrofitClient {
      * Clear the authentication token (useful for logout)
      */
     public static void clearAuthToken(Context context) {
-        SharedPreferences prefs = context.getSharedPreferences("MyAppPrefs", Context.MODE_PRIVATE);
-        prefs.edit().remove("auth_token").apply();
-        Log.d("RetrofitClient", "Token cleared from SharedPreferences");
-    }
-
-    // Test connection method
-    public void pingServer(Context context) {
-        ApiService apiService = RetrofitClient.getApiService(context);
-        Log.d("API_TEST", "About to call ping endpoint");
-        apiService.ping().enqueue(new Callback<PingResponse>() {
-            @Override
-            public void onResponse(Call<PingResponse> call, Response<PingResponse> response) {
-                Log.d("API_TEST", "Response received! Code: " + response.code());
-                if (response.isSuccessful() && response.body() != null) {
-                    PingResponse ping = response.body();
-                    Log.d("API", "API is working: " + ping.getMessage());
-                    Toast.makeText(context,
-                            "Connected! " + ping.getMessage(),
-                            Toast.LENGTH_SHORT).show();
-                } else {
-                    Log.d("API_TEST", "SUCCESS (but maybe no body)!");
-                }
-            }
-
-            @Override
-            public void onFailure(Call<PingResponse> call, Throwable t) {
-                Log.e("API", "Connection failed: " + t.getMessage());
-                Log.e("API_TEST", "FAILED: " + t.getMessage());
-                Toast.makeText(context,
-                        "Failed: " + t.getMessage(),
-                        Toast.LENGTH_SHORT).show();
-            }
-        });
+        TokenManager.getInstance().clear();
+        Log.d("RetrofitClient", "Token cleared");
     }
 }
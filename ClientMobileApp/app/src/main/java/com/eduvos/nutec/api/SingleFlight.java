@@ -0,0 +1,223 @@
+package com.eduvos.nutec.api;
+
+import androidx.annotation.NonNull;
+
+import com.eduvos.nutec.pojo.OrdersListResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Shares one network call between every subscriber asking for the same request while it is
+ * in flight, and hands the successful result to anyone else asking within a short reuse window.
+ *
+ * Keys are "METHOD url", so two calls to the same ApiService method with the same arguments
+ * share a flight. Failed or non-2xx results are never reused.
+ *
+ * Every subscriber gets the same response body, so bodies are read-only: list bodies (and the
+ * order list of an OrdersListResponse) are made unmodifiable before they are handed out, and
+ * the rows in them must not be changed either. Copy a list before editing it.
+ */
+public class SingleFlight {
+
+    private static final class Subscriber {
+        final Call<Object> owner;
+        final Callback<Object> callback;
+
+        Subscriber(Call<Object> owner, Callback<Object> callback) {
+            this.owner = owner;
+            this.callback = callback;
+        }
+    }
+
+    private static final class Flight {
+        final Call<Object> call;
+        final List<Subscriber> subscribers = new ArrayList<>();
+        Response<Object> response;
+        long completedAt;
+        boolean done;
+
+        Flight(Call<Object> call) {
+            this.call = call;
+        }
+    }
+
+    private final Map<String, Flight> flights = new HashMap<>();
+    private final Executor callbackExecutor;
+    private volatile long reuseWindowMs;
+
+    // Stats, guarded by "this"
+    private long requests;
+    private long joined;
+    private long reused;
+    private long networkCalls;
+
+    /**
+     * @param callbackExecutor where results are delivered when they come from the reuse window
+     *                         (live results arrive on the delegate call's own callback thread)
+     */
+    public SingleFlight(long reuseWindowMs, Executor callbackExecutor) {
+        this.reuseWindowMs = reuseWindowMs;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    public void setReuseWindowMs(long reuseWindowMs) {
+        this.reuseWindowMs = reuseWindowMs;
+    }
+
+    /**
+     * Delivers the result of {@code delegate} (or of an identical call already running) to the callback.
+     *
+     * @param owner the call object the subscriber holds, passed back to its callback
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void enqueue(Call<T> owner, Call<T> delegate, Callback<T> callback) {
+        String key = keyOf(delegate);
+        Subscriber subscriber = new Subscriber((Call<Object>) owner, (Callback<Object>) callback);
+        Response<Object> reusable = null;
+
+        synchronized (this) {
+            requests++;
+            dropExpired();
+
+            Flight flight = flights.get(key);
+            if (flight != null && flight.done) {
+                reused++;
+                reusable = flight.response;
+            } else if (flight != null) {
+                joined++;
+                flight.subscribers.add(subscriber);
+                return;
+            } else {
+                networkCalls++;
+                flight = new Flight((Call<Object>) delegate);
+                flight.subscribers.add(subscriber);
+                flights.put(key, flight);
+                start(key, flight);
+                return;
+            }
+        }
+
+        Response<Object> result = reusable;
+        callbackExecutor.execute(() -> subscriber.callback.onResponse(subscriber.owner, result));
+    }
+
+    /**
+     * Stops delivering to this subscriber. The shared call is cancelled once nobody is waiting for it.
+     *
+     * @return whether owner was waiting on a flight; if not, cancelling its own call is up to the caller
+     */
+    public synchronized boolean unsubscribe(Call<?> owner) {
+        boolean found = false;
+        for (Iterator<Map.Entry<String, Flight>> it = flights.entrySet().iterator(); it.hasNext(); ) {
+            Flight flight = it.next().getValue();
+            if (flight.done) continue;
+
+            if (!flight.subscribers.removeIf(subscriber -> subscriber.owner == owner)) continue;
+            found = true;
+            if (flight.subscribers.isEmpty()) {
+                it.remove();
+                flight.call.cancel();
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Forget reusable results, e.g. after logout.
+     */
+    public synchronized void clear() {
+        flights.entrySet().removeIf(entry -> entry.getValue().done);
+    }
+
+    private void start(String key, Flight flight) {
+        flight.call.enqueue(new Callback<Object>() {
+            @Override
+            public void onResponse(@NonNull Call<Object> call, @NonNull Response<Object> response) {
+                Response<Object> shared = readOnly(response);
+                for (Subscriber subscriber : complete(key, flight, shared)) {
+                    subscriber.callback.onResponse(subscriber.owner, shared);
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<Object> call, @NonNull Throwable t) {
+                for (Subscriber subscriber : complete(key, flight, null)) {
+                    subscriber.callback.onFailure(subscriber.owner, t);
+                }
+            }
+        });
+    }
+
+    /**
+     * The response with its body's lists made unmodifiable, so one subscriber cannot change
+     * what the others (and later callers in the reuse window) see.
+     */
+    static Response<Object> readOnly(Response<Object> response) {
+        Object body = response.body();
+        if (body instanceof List) {
+            return Response.success(Collections.unmodifiableList((List<?>) body), response.raw());
+        }
+        if (body instanceof OrdersListResponse) {
+            OrdersListResponse orders = (OrdersListResponse) body;
+            if (orders.getOrders() != null) {
+                orders.setOrders(Collections.unmodifiableList(orders.getOrders()));
+            }
+        }
+        return response;
+    }
+
+    private synchronized List<Subscriber> complete(String key, Flight flight, Response<Object> response) {
+        flight.done = true;
+        flight.completedAt = System.currentTimeMillis();
+        flight.response = response;
+
+        boolean reusable = response != null && response.isSuccessful() && reuseWindowMs > 0;
+        if (!reusable && flights.get(key) == flight) {
+            flights.remove(key);
+        }
+
+        List<Subscriber> subscribers = new ArrayList<>(flight.subscribers);
+        flight.subscribers.clear();
+        return subscribers;
+    }
+
+    private void dropExpired() {
+        long now = System.currentTimeMillis();
+        long window = reuseWindowMs;
+        flights.entrySet().removeIf(entry ->
+                entry.getValue().done && now - entry.getValue().completedAt > window);
+    }
+
+    private static String keyOf(Call<?> call) {
+        return call.request().method() + " " + call.request().url();
+    }
+
+    public synchronized long getRequests() { return requests; }
+    public synchronized long getJoined() { return joined; }
+    public synchronized long getReused() { return reused; }
+    public synchronized long getNetworkCalls() { return networkCalls; }
+
+    /**
+     * Share of requests that did not start their own network call.
+     */
+    public synchronized double getDedupRate() {
+        return requests == 0 ? 0 : (double) (joined + reused) / requests;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US, "requests=%d joined=%d reused=%d network=%d dedupRate=%.1f%%",
+                requests, joined, reused, networkCalls, getDedupRate() * 100);
+    }
+}
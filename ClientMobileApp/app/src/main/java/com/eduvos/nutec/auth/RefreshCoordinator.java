@@ -0,0 +1,100 @@
+package com.eduvos.nutec.auth;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Makes sure an expired token is refreshed exactly once, however many calls notice it.
+ *
+ * Every caller says which access token it found stale. The first one runs the refresh; the
+ * others park until it is done and get its result. A caller whose stale token has already
+ * been replaced gets the current token straight away, so a 401 that arrives just after a
+ * refresh finished does not start another one. The leader saves the new token before it
+ * lets go of the refresh, so there is no window where a second refresh can start.
+ */
+final class RefreshCoordinator {
+
+    private final Supplier<String> currentToken;
+    private final Supplier<String> refresh;
+    private final long parkTimeoutMs;
+
+    private CompletableFuture<String> inFlight;
+
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong parked = new AtomicLong();
+    private final AtomicLong alreadyRefreshed = new AtomicLong();
+
+    /**
+     * @param currentToken the access token in use right now
+     * @param refresh      runs one refresh on the calling thread, returns the new token or null
+     */
+    RefreshCoordinator(Supplier<String> currentToken, Supplier<String> refresh, long parkTimeoutMs) {
+        this.currentToken = currentToken;
+        this.refresh = refresh;
+        this.parkTimeoutMs = parkTimeoutMs;
+    }
+
+    /**
+     * @param staleToken the access token the caller found expired or had turned down with a 401
+     * @return a newer access token, or null if the refresh failed
+     * @throws IOException if the refresh another caller is running did not finish in time
+     */
+    String refreshAfter(String staleToken) throws IOException {
+        CompletableFuture<String> flight;
+        boolean leader;
+        synchronized (this) {
+            String current = currentToken.get();
+            if (current != null && !current.equals(staleToken)) {
+                alreadyRefreshed.incrementAndGet();
+                return current;
+            }
+            leader = inFlight == null;
+            if (leader) inFlight = new CompletableFuture<>();
+            flight = inFlight;
+        }
+
+        if (leader) {
+            String token = null;
+            try {
+                refreshes.incrementAndGet();
+                token = refresh.get();
+            } finally {
+                synchronized (this) {
+                    inFlight = null;
+                }
+                flight.complete(token);
+            }
+            return token;
+        }
+
+        parked.incrementAndGet();
+        try {
+            return flight.get(parkTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IOException("Timed out waiting for the token refresh", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Token refresh failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for the token refresh");
+        }
+    }
+
+    long getRefreshes() {
+        return refreshes.get();
+    }
+
+    long getParked() {
+        return parked.get();
+    }
+
+    long getAlreadyRefreshed() {
+        return alreadyRefreshed.get();
+    }
+}
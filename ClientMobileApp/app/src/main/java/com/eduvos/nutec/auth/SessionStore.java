@@ -0,0 +1,318 @@
+package com.eduvos.nutec.auth;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.eduvos.nutec.util.AppExecutors;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * The logged-in user's session (tokens and profile) in memory.
+ *
+ * The session is read from disk once, on the disk thread, when the process starts. After that
+ * every read is a field read, so screens and AuthInterceptor never touch SharedPreferences.
+ * Changes update memory right away, notify the listeners, and are written through on the disk
+ * thread as one commit of the whole session, so the file never holds half a login.
+ *
+ * Changes made before the load has finished are replayed on top of what was loaded, so an
+ * early logout or login is never lost.
+ */
+public class SessionStore {
+    private static final String TAG = "SessionStore";
+
+    // Same file and keys as before the store existed, so existing logins carry over
+    static final String PREFS_NAME = "MyAppPrefs";
+    private static final String KEY_LOGGED_IN = "loggedIn";
+    private static final String KEY_ACCESS_TOKEN = "auth_token";
+    private static final String KEY_REFRESH_TOKEN = "refresh_token";
+    private static final String KEY_USER_NAME = "userName";
+    private static final String KEY_USER_EMAIL = "userEmail";
+    private static final String KEY_USER_ID = "userId";
+    private static final String KEY_USER_ROLE = "userRole";
+
+    // Background threads waiting for the load give up after this long
+    private static final long LOAD_TIMEOUT_MS = 10_000;
+
+    /**
+     * Immutable snapshot of the session. Changes make a copy.
+     */
+    public static final class Session {
+        public static final Session EMPTY = new Session(false, null, null, null, null, null, null);
+
+        public final boolean loggedIn;
+        public final String accessToken;
+        public final String refreshToken;
+        public final String userName;
+        public final String userEmail;
+        public final String userId;
+        public final String userRole;
+
+        Session(boolean loggedIn, String accessToken, String refreshToken,
+                String userName, String userEmail, String userId, String userRole) {
+            this.loggedIn = loggedIn;
+            this.accessToken = accessToken;
+            this.refreshToken = refreshToken;
+            this.userName = userName;
+            this.userEmail = userEmail;
+            this.userId = userId;
+            this.userRole = userRole;
+        }
+
+        /**
+         * A fresh login: tokens and profile together.
+         */
+        public static Session login(String accessToken, String refreshToken,
+                                    String userName, String userEmail, String userId, String userRole) {
+            return new Session(true, accessToken, refreshToken, userName, userEmail, userId, userRole);
+        }
+
+        public Session withTokens(String accessToken, String refreshToken) {
+            return new Session(loggedIn, accessToken, refreshToken, userName, userEmail, userId, userRole);
+        }
+
+        public boolean hasAccessToken() {
+            return accessToken != null && !accessToken.isEmpty();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Session)) return false;
+            Session other = (Session) o;
+            return loggedIn == other.loggedIn
+                    && Objects.equals(accessToken, other.accessToken)
+                    && Objects.equals(refreshToken, other.refreshToken)
+                    && Objects.equals(userName, other.userName)
+                    && Objects.equals(userEmail, other.userEmail)
+                    && Objects.equals(userId, other.userId)
+                    && Objects.equals(userRole, other.userRole);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(loggedIn, accessToken, refreshToken, userName, userEmail, userId, userRole);
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            // Never log the tokens themselves
+            return "Session{loggedIn=" + loggedIn + ", user=" + userId + ", role=" + userRole
+                    + ", token=" + hasAccessToken() + "}";
+        }
+    }
+
+    /**
+     * Called on the thread that made the change (the disk thread for the initial load).
+     * Post to the main thread before touching views.
+     */
+    public interface Listener {
+        void onSessionChanged(Session session);
+    }
+
+    /**
+     * Where the session lives on disk. Both methods run on the disk thread only.
+     */
+    interface Storage {
+        Session read();
+        void write(Session session);
+    }
+
+    private static SessionStore instance;
+
+    private final Executor diskIO;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final CountDownLatch loadedLatch = new CountDownLatch(1);
+    private final AtomicBoolean writeQueued = new AtomicBoolean();
+
+    private Storage storage;
+    private volatile Session session = Session.EMPTY;
+    private volatile boolean loaded;
+    // Changes made before the load finished, replayed on top of the loaded session
+    private final List<UnaryOperator<Session>> pending = new ArrayList<>();
+
+    SessionStore(Executor diskIO) {
+        this.diskIO = diskIO;
+    }
+
+    public static synchronized SessionStore getInstance() {
+        if (instance == null) {
+            instance = new SessionStore(AppExecutors.getInstance().diskIO());
+        }
+        return instance;
+    }
+
+    /**
+     * Starts loading the saved session on the disk thread. Called once from NuTecApplication.
+     */
+    public void initialize(Context context) {
+        SharedPreferences prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        load(new PrefsStorage(prefs));
+    }
+
+    synchronized void load(Storage storage) {
+        if (this.storage != null) return;
+        this.storage = storage;
+        diskIO.execute(this::runLoad);
+    }
+
+    private void runLoad() {
+        Session stored = storage.read();
+        boolean replayed;
+        synchronized (this) {
+            for (UnaryOperator<Session> change : pending) {
+                stored = change.apply(stored);
+            }
+            replayed = !pending.isEmpty();
+            pending.clear();
+            session = stored;
+            loaded = true;
+        }
+        loadedLatch.countDown();
+        notifyListeners(stored);
+        if (replayed) queueWrite();
+    }
+
+    /**
+     * The current session, from memory. Session.EMPTY until the load has finished; use
+     * whenLoaded() where that matters.
+     */
+    public Session get() {
+        return session;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Runs the callback with the session once it has been loaded: right away on the calling
+     * thread if it already has, otherwise on the given executor.
+     */
+    public void whenLoaded(Executor executor, Consumer<Session> callback) {
+        if (loaded) {
+            callback.accept(session);
+            return;
+        }
+        diskIO.execute(() -> {
+            // The disk thread runs tasks in order, so the load has finished by now
+            Session loadedSession = session;
+            executor.execute(() -> callback.accept(loadedSession));
+        });
+    }
+
+    /**
+     * Blocks until the session has been loaded. For background threads only (AuthInterceptor);
+     * normally returns at once, since the load is the first thing the disk thread does.
+     */
+    public void awaitLoaded() throws InterruptedIOException {
+        if (loaded) return;
+        try {
+            if (!loadedLatch.await(LOAD_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                throw new InterruptedIOException("Timed out loading the session");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted loading the session");
+        }
+    }
+
+    /**
+     * Changes the session in memory, tells the listeners and writes it through on the disk thread.
+     * Safe from any thread, including the main thread.
+     */
+    public void update(UnaryOperator<Session> change) {
+        Session updated;
+        synchronized (this) {
+            updated = change.apply(session);
+            if (!loaded) pending.add(change);
+            if (updated.equals(session)) return;
+            session = updated;
+        }
+        notifyListeners(updated);
+        if (loaded) queueWrite();
+    }
+
+    /**
+     * Logs out: forgets the tokens and the profile.
+     */
+    public void clear() {
+        update(current -> Session.EMPTY);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private void notifyListeners(Session current) {
+        for (Listener listener : listeners) {
+            listener.onSessionChanged(current);
+        }
+    }
+
+    private void queueWrite() {
+        // A burst of changes becomes one write of the newest session
+        if (!writeQueued.compareAndSet(false, true)) return;
+        diskIO.execute(() -> {
+            writeQueued.set(false);
+            storage.write(session);
+        });
+    }
+
+    /**
+     * The MyAppPrefs file, written with one commit() per change. commit() replaces the file
+     * as a whole, and runs on the disk thread so it never blocks the UI.
+     */
+    private static final class PrefsStorage implements Storage {
+        private final SharedPreferences prefs;
+
+        PrefsStorage(SharedPreferences prefs) {
+            this.prefs = prefs;
+        }
+
+        @Override
+        public Session read() {
+            return new Session(
+                    prefs.getBoolean(KEY_LOGGED_IN, false),
+                    prefs.getString(KEY_ACCESS_TOKEN, null),
+                    prefs.getString(KEY_REFRESH_TOKEN, null),
+                    prefs.getString(KEY_USER_NAME, null),
+                    prefs.getString(KEY_USER_EMAIL, null),
+                    prefs.getString(KEY_USER_ID, null),
+                    prefs.getString(KEY_USER_ROLE, null));
+        }
+
+        @Override
+        public void write(Session session) {
+            boolean saved = prefs.edit()
+                    .clear()
+                    .putBoolean(KEY_LOGGED_IN, session.loggedIn)
+                    .putString(KEY_ACCESS_TOKEN, session.accessToken)
+                    .putString(KEY_REFRESH_TOKEN, session.refreshToken)
+                    .putString(KEY_USER_NAME, session.userName)
+                    .putString(KEY_USER_EMAIL, session.userEmail)
+                    .putString(KEY_USER_ID, session.userId)
+                    .putString(KEY_USER_ROLE, session.userRole)
+                    .commit();
+            if (!saved) Log.w(TAG, "Could not save the session");
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.eduvos.nutec.auth;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.eduvos.nutec.metrics.FixedHistogram;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import okio.ByteString;
+
+/**
+ * Keeps the access token, the refresh token and the token's expiry time in memory, so
+ * AuthInterceptor never decodes the JWT on a request. The tokens themselves live in the
+ * SessionStore; the JWT is decoded once, when they change there.
+ *
+ * A refresh is scheduled REFRESH_AHEAD_MS before the token expires and runs on its own
+ * thread, so requests normally find a fresh token and never wait on auth/refresh. The
+ * interceptor only refreshes by itself when the scheduled refresh could not run in time
+ * (offline, process frozen in the background).
+ *
+ * All refreshes go through a RefreshCoordinator, so the scheduled refresh and any number of
+ * calls that see an expired token or a 401 together cause a single auth/refresh.
+ */
+public class TokenManager {
+    private static final String TAG = "TokenManager";
+
+    // A token this close to its expiry is treated as expired (same margin the interceptor used)
+    static final long EXPIRY_MARGIN_MS = TimeUnit.SECONDS.toMillis(60);
+    // Refresh ahead of the margin, so the scheduled refresh wins against the request path
+    static final long REFRESH_AHEAD_MS = TimeUnit.SECONDS.toMillis(90);
+    // Scheduled refreshes that failed (no network) are retried this often until the token expires
+    static final long RETRY_DELAY_MS = TimeUnit.SECONDS.toMillis(20);
+    private static final long MAX_LATENCY_MS = 30_000;
+    // Longer than one refresh can take (connect + read timeouts) before a parked call gives up
+    static final long PARK_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * Trades a refresh token for a new pair, on the calling thread.
+     */
+    public interface Refresher {
+        /**
+         * @return the new tokens, or null if the server turned the refresh token down
+         * @throws IOException if the server could not be reached
+         */
+        Tokens refresh(String refreshToken) throws IOException;
+    }
+
+    /**
+     * An access/refresh token pair and the access token's decoded expiry. Immutable, so the
+     * interceptor can read it without locking.
+     */
+    public static final class Tokens {
+        static final Tokens NONE = new Tokens(null, null);
+
+        public final String accessToken;
+        public final String refreshToken;
+        // Epoch millis, 0 when there is no token or it has no readable exp claim
+        public final long expiresAtMs;
+
+        public Tokens(String accessToken, String refreshToken) {
+            this.accessToken = accessToken;
+            this.refreshToken = refreshToken;
+            this.expiresAtMs = expiryOf(accessToken);
+        }
+
+        boolean sameAs(String accessToken, String refreshToken) {
+            return Objects.equals(this.accessToken, accessToken) && Objects.equals(this.refreshToken, refreshToken);
+        }
+    }
+
+    private static TokenManager instance;
+
+    private final LongSupplier clock;
+    private final ScheduledExecutorService scheduler;
+    private volatile Refresher refresher;
+    private volatile Tokens tokens = Tokens.NONE;
+    private ScheduledFuture<?> scheduledRefresh;
+
+    private SessionStore sessionStore;
+    // Tokens are also changed by login and logout, follow those too. Reads the store rather than
+    // the event's snapshot, so events from two threads can never leave an older pair in place
+    private final SessionStore.Listener sessionListener = session -> {
+        SessionStore.Session current = sessionStore.get();
+        update(current.accessToken, current.refreshToken);
+    };
+
+    private final AtomicLong refreshCount = new AtomicLong();
+    private final AtomicLong failedRefreshCount = new AtomicLong();
+    private final AtomicLong scheduledRefreshCount = new AtomicLong();
+    private final FixedHistogram refreshLatency = new FixedHistogram(MAX_LATENCY_MS);
+    private final RefreshCoordinator coordinator =
+            new RefreshCoordinator(this::getAccessToken, this::refreshNow, PARK_TIMEOUT_MS);
+
+    TokenManager(Refresher refresher, LongSupplier clock, ScheduledExecutorService scheduler) {
+        this.refresher = refresher;
+        this.clock = clock;
+        this.scheduler = scheduler;
+    }
+
+    public static synchronized TokenManager getInstance() {
+        if (instance == null) {
+            instance = new TokenManager(null, System::currentTimeMillis,
+                    Executors.newSingleThreadScheduledExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "nutec-token");
+                        thread.setDaemon(true);
+                        return thread;
+                    }));
+        }
+        return instance;
+    }
+
+    /**
+     * Starts following the tokens in the SessionStore. Called once from NuTecApplication,
+     * after the store has started loading.
+     */
+    public synchronized void initialize(Context context, SessionStore store) {
+        if (sessionStore != null) return;
+
+        if (refresher == null) refresher = new TokenRefresher(context.getApplicationContext());
+        sessionStore = store;
+        store.addListener(sessionListener);
+        SessionStore.Session current = store.get();
+        update(current.accessToken, current.refreshToken);
+    }
+
+    public String getAccessToken() {
+        return tokens.accessToken;
+    }
+
+    public String getRefreshToken() {
+        return tokens.refreshToken;
+    }
+
+    public long getExpiresAtMs() {
+        return tokens.expiresAtMs;
+    }
+
+    /**
+     * True when there is no usable access token: none at all, unreadable, or within
+     * EXPIRY_MARGIN_MS of its expiry. Only compares numbers, safe to call on every request.
+     */
+    public boolean isExpired() {
+        Tokens current = tokens;
+        return current.accessToken == null
+                || clock.getAsLong() >= current.expiresAtMs - EXPIRY_MARGIN_MS;
+    }
+
+    /**
+     * Saves a new access token, keeping the current refresh token.
+     */
+    public void saveAccessToken(String accessToken) {
+        saveTokens(accessToken, tokens.refreshToken);
+    }
+
+    /**
+     * Saves a new pair, in memory right away and on disk in the background.
+     */
+    public void saveTokens(String accessToken, String refreshToken) {
+        update(accessToken, refreshToken);
+        SessionStore store = sessionStore;
+        if (store != null) store.update(session -> session.withTokens(accessToken, refreshToken));
+    }
+
+    /**
+     * Forgets both tokens (refresh turned down). Logout clears the whole SessionStore instead.
+     */
+    public void clear() {
+        saveTokens(null, null);
+    }
+
+    private synchronized void update(String accessToken, String refreshToken) {
+        if (tokens.sameAs(accessToken, refreshToken)) return;
+
+        tokens = accessToken == null && refreshToken == null ? Tokens.NONE : new Tokens(accessToken, refreshToken);
+        scheduleRefresh(refreshDelayMs());
+    }
+
+    /**
+     * How long until the scheduled refresh should run, or -1 if there is nothing to refresh.
+     */
+    synchronized long refreshDelayMs() {
+        Tokens current = tokens;
+        if (current.refreshToken == null || current.refreshToken.isEmpty()) return -1;
+        // No exp claim: nothing to plan around, the interceptor refreshes when the server says 401
+        if (current.expiresAtMs == 0) return -1;
+        return Math.max(0, current.expiresAtMs - REFRESH_AHEAD_MS - clock.getAsLong());
+    }
+
+    private synchronized void scheduleRefresh(long delayMs) {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+            scheduledRefresh = null;
+        }
+        if (delayMs < 0 || scheduler == null) return;
+
+        scheduledRefresh = scheduler.schedule(this::runScheduledRefresh, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void runScheduledRefresh() {
+        Tokens before = tokens;
+        scheduledRefreshCount.incrementAndGet();
+        try {
+            if (refreshAfter(before.accessToken) != null) return;
+        } catch (IOException e) {
+            logWarning("Scheduled token refresh failed", e);
+        }
+
+        // Turned down: tokens were cleared and the next request sends the user to login.
+        // Not reached: try again while the old token is still good.
+        synchronized (this) {
+            if (tokens == before && clock.getAsLong() < before.expiresAtMs) {
+                scheduleRefresh(RETRY_DELAY_MS);
+            }
+        }
+    }
+
+    /**
+     * Replaces an access token that turned out to be expired or was turned down with a 401.
+     * Runs the refresh on the calling thread, or waits for the one already running; if the
+     * token was already replaced, returns the new one without calling the server.
+     *
+     * @return the new access token, or null if the refresh failed. When the server turned the
+     * refresh token down both tokens are cleared.
+     * @throws IOException if the refresh another call is running did not finish in time
+     */
+    public String refreshAfter(String staleAccessToken) throws IOException {
+        return coordinator.refreshAfter(staleAccessToken);
+    }
+
+    /**
+     * One auth/refresh call on the calling thread. Only the coordinator calls this.
+     */
+    String refreshNow() {
+        String refreshToken = tokens.refreshToken;
+        Refresher currentRefresher = refresher;
+        if (refreshToken == null || refreshToken.isEmpty() || currentRefresher == null) {
+            return null;
+        }
+
+        long startedAt = System.nanoTime();
+        try {
+            Tokens refreshed = currentRefresher.refresh(refreshToken);
+            refreshLatency.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+            if (refreshed == null || refreshed.accessToken == null) {
+                failedRefreshCount.incrementAndGet();
+                clear();
+                return null;
+            }
+            refreshCount.incrementAndGet();
+            saveTokens(refreshed.accessToken,
+                    refreshed.refreshToken != null ? refreshed.refreshToken : refreshToken);
+            return refreshed.accessToken;
+        } catch (IOException e) {
+            refreshLatency.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+            failedRefreshCount.incrementAndGet();
+            logWarning("Token refresh failed", e);
+            return null;
+        }
+    }
+
+    public long getRefreshCount() {
+        return refreshCount.get();
+    }
+
+    public long getFailedRefreshCount() {
+        return failedRefreshCount.get();
+    }
+
+    /**
+     * One line for the debug dialog.
+     */
+    public String report() {
+        long expiresInS = tokens.expiresAtMs == 0 ? 0
+                : TimeUnit.MILLISECONDS.toSeconds(tokens.expiresAtMs - clock.getAsLong());
+        return String.format(Locale.US, "%d ok, %d failed, %d scheduled, %d parked, %d already fresh,"
+                        + " p50 %d ms, p95 %d ms, expires in %d s",
+                refreshCount.get(), failedRefreshCount.get(), scheduledRefreshCount.get(),
+                coordinator.getParked(), coordinator.getAlreadyRefreshed(),
+                refreshLatency.percentile(50), refreshLatency.percentile(95), expiresInS);
+    }
+
+    /**
+     * The exp claim of a JWT in epoch millis, or 0 if the token is missing or unreadable.
+     */
+    static long expiryOf(String jwt) {
+        if (jwt == null) return 0;
+
+        String[] parts = jwt.split("\\.");
+        if (parts.length < 2) return 0;
+        try {
+            // decodeBase64 takes both the standard and the URL-safe alphabet
+            ByteString payload = ByteString.decodeBase64(parts[1]);
+            if (payload == null) return 0;
+            JsonElement claims = JsonParser.parseString(payload.utf8());
+            if (!claims.isJsonObject()) return 0;
+            JsonElement exp = ((JsonObject) claims).get("exp");
+            return exp == null || !exp.isJsonPrimitive() ? 0 : TimeUnit.SECONDS.toMillis(exp.getAsLong());
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    private void logWarning(String message, Throwable error) {
+        // Tests run this without an Android runtime
+        if (sessionStore != null) Log.w(TAG, message, error);
+    }
+}
@@ -0,0 +1,74 @@
+package com.eduvos.nutec.auth;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.eduvos.nutec.api.RetrofitClient;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * Calls auth/refresh. Moved out of AuthInterceptor so TokenManager can run it ahead of expiry.
+ */
+class TokenRefresher implements TokenManager.Refresher {
+    private static final String TAG = "TokenRefresher";
+
+    private final Context context;
+
+    TokenRefresher(Context context) {
+        this.context = context;
+    }
+
+    @Override
+    public TokenManager.Tokens refresh(String refreshToken) throws IOException {
+        // The shared client's pool and threads, minus AuthInterceptor so the refresh cannot loop.
+        // Called directly, not through the lane scheduler: parked calls may be holding lane slots
+        OkHttpClient client = RetrofitClient.getClientWithoutAuth(context);
+
+        try {
+            JSONObject jsonBody = new JSONObject();
+            jsonBody.put("RefreshToken", refreshToken);
+
+            RequestBody body = RequestBody.create(
+                    jsonBody.toString(),
+                    MediaType.parse("application/json")
+            );
+
+            Request request = new Request.Builder()
+                    .url(RetrofitClient.getBaseUrl().resolve("auth/refresh"))
+                    .post(body)
+                    .build();
+
+            try (Response response = client.newCall(request).execute()) {
+                if (!response.isSuccessful() || response.body() == null) {
+                    Log.e(TAG, "Token refresh failed with code: " + response.code());
+                    // Server errors are worth another try, anything else means the token is no good
+                    if (response.code() >= 500) throw new IOException("HTTP " + response.code());
+                    return null;
+                }
+
+                JSONObject jsonResponse = new JSONObject(response.body().string());
+                if (!jsonResponse.optBoolean("Success", false)) {
+                    Log.e(TAG, "Token refresh failed: " + jsonResponse.optString("Message"));
+                    return null;
+                }
+
+                Log.d(TAG, "Token refreshed successfully");
+                return new TokenManager.Tokens(jsonResponse.getString("Token"),
+                        jsonResponse.optString("RefreshToken", refreshToken));
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "Unreadable refresh response", e);
+            return null;
+        }
+    }
+}
@@ -18,7 +18,6 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -33,14 +32,18 @@ import com.eduvos.nutec.pojo.OrderItem;
 import com.eduvos.nutec.api.ApiService;
 import com.eduvos.nutec.api.RetrofitClient;
 import com.eduvos.nutec.manager.CartManager;
+import com.eduvos.nutec.manager.ListSnapshot;
 import com.eduvos.nutec.manager.NotificationManager;
 import com.eduvos.nutec.pojo.AppNotification;
+import com.eduvos.nutec.sync.OrderRepository;
+import com.eduvos.nutec.util.DisplayFormats;
 
-public class CartFragment extends Fragment implements CartAdapter.OnCartItemChangedListener {
+public class CartFragment extends Fragment implements CartManager.CartListener {
 
     private RecyclerView recyclerView;
     private CartAdapter adapter;
-    private List<CartItem> cartItems;
+    // The version the list is showing
+    private ListSnapshot<CartItem> cartItems;
 
     private TextView subtotalTextView, deliveryTextView, taxesTextView, totalTextView, emptyCartMessage;
     private Button checkoutButton;
@@ -73,8 +76,10 @@ public class CartFragment extends Fragment implements CartAdapter.OnCartItemChan
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
         // --- Get the items LocalDate.from the CartManager ---
         this.cartItems = CartManager.getInstance().getCartItems();
-        adapter = new CartAdapter(cartItems, this); // 'this' refers to the fragment implementing the listener
+        adapter = new CartAdapter(cartItems);
         recyclerView.setAdapter(adapter);
+        // Redraws only the lines that change; also hears the saved cart arriving after a cold start
+        CartManager.getInstance().addCartListener(this);
 
         // Setup checkout button
         checkoutButton.setOnClickListener(v -> {
@@ -91,6 +96,20 @@ public class CartFragment extends Fragment implements CartAdapter.OnCartItemChan
         updatePriceSummary();
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        CartManager.getInstance().removeCartListener(this);
+    }
+
+    @Override
+    public void onCartChanged(ListSnapshot<CartItem> cart, List<CartManager.Change> changes) {
+        // False if published before this view took its snapshot
+        if (!adapter.apply(cart, changes)) return;
+        cartItems = cart;
+        updatePriceSummary();
+    }
+
     private void submitOrderToApi() {
         // Build the order items from cart data with the new structure
         List<OrderItem> orderItems = new ArrayList<>();
@@ -102,7 +121,7 @@ public class CartFragment extends Fragment implements CartAdapter.OnCartItemChan
             // Use the new OrderItem constructor with all fields
             orderItems.add(new OrderItem(
                     item.getProductName(),
-                    0, // SKU - use 0 as default or add SKU to CartItem if available
+                    item.getSku(), // 0 for lines added without one
                     item.getQuantity(),
                     item.getPrice(),
                     itemTotal
@@ -145,18 +164,14 @@ public class CartFragment extends Fragment implements CartAdapter.OnCartItemChan
                                 true
                         );
                         NotificationManager.getInstance().addNotification(notif);
+                        // Order history shows the new order without refetching
+                        OrderRepository.getInstance().putOrder(orderResponse.getOrder());
 
                         // Show success dialog
                         showOrderSuccessDialog(orderResponse.getOrder().getOrderNumber());
 
-                        // Clear the cart
+                        // Clear the cart; the change stream redraws the list and totals
                         CartManager.getInstance().clearCart();
-                        if (adapter != null) {
-                            adapter.notifyDataSetChanged();
-                        }
-
-                        // Update UI
-                        updatePriceSummary();
 
                     } else {
                         // --- API RETURNED SUCCESS=FALSE ---
@@ -239,33 +254,15 @@ public class CartFragment extends Fragment implements CartAdapter.OnCartItemChan
             checkoutButton.setAlpha(1.0f);
         }
 
-        double subtotal = 0;
-        for (CartItem item : cartItems) {
-            subtotal += item.getPrice() * item.getQuantity();
-        }
+        // Kept by the CartManager as lines change
+        double subtotal = CartManager.getInstance().getSubtotal();
 
         double taxes = subtotal * TAX_RATE;
         double total = subtotal + DELIVERY_FEE + taxes;
 
-        subtotalTextView.setText(String.format(Locale.getDefault(), "R%.2f", subtotal));
-        deliveryTextView.setText(String.format(Locale.getDefault(), "R%.2f", DELIVERY_FEE));
-        taxesTextView.setText(String.format(Locale.getDefault(), "R%.2f", taxes));
-        totalTextView.setText(String.format(Locale.getDefault(), "R%.2f", total));
-    }
-
-    // --- Implementation of the adapter's listener methods ---
-
-    @Override
-    public void onItemRemoved(int position) {
-        cartItems.remove(position);
-        adapter.notifyItemRemoved(position);
-        adapter.notifyItemRangeChanged(position, cartItems.size()); // Update positions of remaining items
-        updatePriceSummary(); // Recalculate totals
-    }
-
-    @Override
-    public void onQuantityChanged() {
-        // Just need to recalculate the totals
-        updatePriceSummary();
+        subtotalTextView.setText(DisplayFormats.money(subtotal));
+        deliveryTextView.setText(DisplayFormats.money(DELIVERY_FEE));
+        taxesTextView.setText(DisplayFormats.money(taxes));
+        totalTextView.setText(DisplayFormats.money(total));
     }
 }
@@ -1,8 +1,6 @@
 package com.eduvos.nutec.fragment;
 
 import android.annotation.SuppressLint;
-import android.content.Context;
-import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -14,6 +12,8 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import com.eduvos.nutec.R;
+import com.eduvos.nutec.auth.SessionStore;
+import com.eduvos.nutec.util.AppExecutors;
 
 public class HomeFragment extends Fragment {
 
@@ -37,9 +37,12 @@ public class HomeFragment extends Fragment {
 
         // 2. Set up the welcome message
         if (welcomeTextView != null) {
-            SharedPreferences sharedPreferences = requireActivity().getSharedPreferences("MyAppPrefs", Context.MODE_PRIVATE);
-            String userName = sharedPreferences.getString("userName", "User");
-            welcomeTextView.setText("Welcome, " + userName + "!");
+            // From memory; only waits for the disk if the session has not finished loading
+            SessionStore.getInstance().whenLoaded(AppExecutors.getInstance().mainThread(), session -> {
+                if (welcomeTextView == null || getView() == null) return;
+                String userName = session.userName != null ? session.userName : "User";
+                welcomeTextView.setText("Welcome, " + userName + "!");
+            });
         }
 
         // 3. Set up all the button listeners
@@ -15,6 +15,7 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.eduvos.nutec.manager.CartManager;
 import com.eduvos.nutec.pojo.ProductItem;
 import com.eduvos.nutec.R;
+import com.eduvos.nutec.adapter.RowPayload;
 import com.eduvos.nutec.adapter.WishlistAdapter;
 import com.eduvos.nutec.manager.WishlistManager;
 import com.google.android.material.snackbar.Snackbar;
@@ -54,12 +55,20 @@ public class ListsFragment extends Fragment implements WishlistAdapter.OnWishlis
 
         // Set up the RecyclerView
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
-        adapter = new WishlistAdapter(wishlistItems, this);
+        adapter = new WishlistAdapter(this);
+        adapter.submitList(wishlistItems);
         recyclerView.setAdapter(adapter);
 
         updateEmptyView();
     }
 
+    // The manager publishes a new list on every change; the adapter diffs it against the shown one
+    private void showLatest() {
+        wishlistItems = WishlistManager.getInstance().getWishlistItems();
+        adapter.submitList(wishlistItems);
+        updateEmptyView();
+    }
+
     private void updateEmptyView() {
         if (wishlistItems.isEmpty()) {
             recyclerView.setVisibility(View.GONE);
@@ -76,8 +85,7 @@ public class ListsFragment extends Fragment implements WishlistAdapter.OnWishlis
         // Refresh the list every time the user comes back to this screen,
         // in case they made changes elsewhere.
         if (adapter != null) {
-            adapter.notifyDataSetChanged();
-            updateEmptyView();
+            showLatest();
         }
     }
 
@@ -87,10 +95,9 @@ public class ListsFragment extends Fragment implements WishlistAdapter.OnWishlis
     public void onRemoveFromWishlist(ProductItem product, int position) {
         // Remove from the manager
         WishlistManager.getInstance().toggleWishlist(product);
-        // Notify the adapter to remove the item from the view
-        adapter.notifyItemRemoved(position);
-        adapter.notifyItemRangeChanged(position, wishlistItems.size());
-        updateEmptyView();
+        // Empty the heart straight away; the diff then removes the row
+        adapter.notifyItemChanged(position, RowPayload.WISHLIST);
+        showLatest();
         Toast.makeText(getContext(), product.getName() + " removed from wishlist", Toast.LENGTH_SHORT).show();
     }
 
@@ -101,10 +108,9 @@ public class ListsFragment extends Fragment implements WishlistAdapter.OnWishlis
         // Remove item from wishlist
         WishlistManager.getInstance().toggleWishlist(product);
 
-        // Notify the adapter to remove the item from the view
-        adapter.notifyItemRemoved(position);
-        adapter.notifyItemRangeChanged(position, wishlistItems.size());
-        updateEmptyView();
+        // Empty the heart straight away; the diff then removes the row
+        adapter.notifyItemChanged(position, RowPayload.WISHLIST);
+        showLatest();
 
         // Show a confirmation message with a "View Cart" action
         Snackbar.make(requireView(), product.getName() + " moved to cart", Snackbar.LENGTH_SHORT)
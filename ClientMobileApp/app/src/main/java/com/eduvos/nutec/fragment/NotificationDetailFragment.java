@@ -12,14 +12,16 @@ import androidx.appcompat.widget.Toolbar;
 import androidx.fragment.app.Fragment;
 
 import com.eduvos.nutec.pojo.AppNotification;
+import com.eduvos.nutec.manager.ListSnapshot;
 import com.eduvos.nutec.manager.NotificationManager;
 import com.eduvos.nutec.R;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
-import java.util.List;
 
 public class NotificationDetailFragment extends Fragment {
 
-    private List<AppNotification> notifications;
+    private NotificationManager manager;
+    // The list as it was when the user opened this screen, so positions stay put while paging
+    private ListSnapshot<AppNotification> notifications;
     private int currentPosition;
 
     private TextView detailTitle, detailTimestamp, detailBody;
@@ -28,7 +30,8 @@ public class NotificationDetailFragment extends Fragment {
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        notifications = NotificationManager.getInstance().getNotifications();
+        manager = NotificationManager.getInstance();
+        notifications = manager.getNotifications();
         if (getArguments() != null) {
             currentPosition = getArguments().getInt("notification_position", 0);
         }
@@ -74,7 +77,7 @@ public class NotificationDetailFragment extends Fragment {
         detailTimestamp.setText(notification.getFormattedTimestamp());
         detailBody.setText(notification.getDetails());
 
-        notification.setRead(true); // Mark as read
+        manager.markAsRead(notification); // Mark as read
 
         buttonPrevious.setEnabled(position > 0);
         buttonNext.setEnabled(position < notifications.size() - 1);
@@ -12,18 +12,19 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.eduvos.nutec.pojo.AppNotification;
+import com.eduvos.nutec.manager.ListSnapshot;
 import com.eduvos.nutec.manager.NotificationManager;
 import com.eduvos.nutec.adapter.NotificationsAdapter;
 import com.eduvos.nutec.R;
-
-import java.util.List;
+import com.eduvos.nutec.row.NotificationRow;
 
 public class NotificationsFragment extends Fragment implements NotificationsAdapter.OnNotificationClickListener {
 
     // Declare RecyclerView and Adapter as member variables
     private RecyclerView recyclerView;
     private NotificationsAdapter adapter;
-    private List<AppNotification> notifications;
+    // The version the list is showing
+    private ListSnapshot<AppNotification> notifications;
     private TextView emptyMessageView;
 
     @Override
@@ -38,7 +39,10 @@ public class NotificationsFragment extends Fragment implements NotificationsAdap
         // Set the empty message specific to this screen
         emptyMessageView.setText("You have no notifications.");
 
-        // Get the list of notifications from the manager
+        // Mark all notifications as read as soon as the user opens this screen
+        NotificationManager.getInstance().markAllAsRead();
+
+        // Snapshot of the manager's notifications, taken after marking them read
         notifications = NotificationManager.getInstance().getNotifications();
 
         // Set up the RecyclerView
@@ -47,14 +51,12 @@ public class NotificationsFragment extends Fragment implements NotificationsAdap
         recyclerView.addItemDecoration(new DividerItemDecoration(requireContext(), DividerItemDecoration.VERTICAL));
 
         // Initialize the adapter with the data and the click listener (this fragment)
-        adapter = new NotificationsAdapter(notifications, this);
+        adapter = new NotificationsAdapter(this);
+        adapter.submitSource(notifications, NotificationRow::of, null);
 
         // Set the adapter on the RecyclerView
         recyclerView.setAdapter(adapter);
 
-        // Mark all notifications as read as soon as the user opens this screen
-        NotificationManager.getInstance().markAllAsRead();
-
         // Check if the list is empty and show the message if it is
         updateEmptyView();
 
@@ -76,7 +78,8 @@ public class NotificationsFragment extends Fragment implements NotificationsAdap
         super.onResume();
         // Refresh the view when the user returns to this fragment
         if (adapter != null) {
-            adapter.notifyDataSetChanged();
+            notifications = NotificationManager.getInstance().getNotifications();
+            adapter.submitSource(notifications, NotificationRow::of, null);
             updateEmptyView();
         }
     }
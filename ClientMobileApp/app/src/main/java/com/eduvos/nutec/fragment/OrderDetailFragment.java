@@ -17,19 +17,10 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.eduvos.nutec.R;
 import com.eduvos.nutec.adapter.OrderDetailItemsAdapter;
-import com.eduvos.nutec.api.ApiService;
-import com.eduvos.nutec.api.RetrofitClient;
 import com.eduvos.nutec.pojo.Order;
-import com.eduvos.nutec.pojo.OrderResponse;
-
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
-
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
+import com.eduvos.nutec.row.OrderRow;
+import com.eduvos.nutec.sync.OrderRepository;
+import com.eduvos.nutec.util.DisplayFormats;
 
 public class OrderDetailFragment extends Fragment {
 
@@ -105,38 +96,24 @@ public class OrderDetailFragment extends Fragment {
 
         progressBar.setVisibility(View.VISIBLE);
 
-        ApiService apiService = RetrofitClient.getApiService(requireContext());
-        Call<OrderResponse> call = apiService.getOrderById(orderId);
-
-        call.enqueue(new Callback<OrderResponse>() {
+        // The orders list already has this order with its items, so usually no request is made
+        OrderRepository.getInstance().loadOrder(requireContext(), orderId, new OrderRepository.OrderCallback() {
             @Override
-            public void onResponse(Call<OrderResponse> call, Response<OrderResponse> response) {
+            public void onOrder(Order loaded) {
                 if (!isAdded()) return;
 
                 progressBar.setVisibility(View.GONE);
-
-                if (response.isSuccessful() && response.body() != null) {
-                    OrderResponse orderResponse = response.body();
-
-                    if (orderResponse.isSuccess() && orderResponse.getOrder() != null) {
-                        order = orderResponse.getOrder();
-                        displayOrderDetails();
-                    } else {
-                        Toast.makeText(getContext(), "Order not found", Toast.LENGTH_SHORT).show();
-                    }
-                } else {
-                    Toast.makeText(getContext(), "Failed to load order details", Toast.LENGTH_SHORT).show();
-                    Log.e("OrderDetailFragment", "API Error: " + response.code());
-                }
+                order = loaded;
+                displayOrderDetails();
             }
 
             @Override
-            public void onFailure(Call<OrderResponse> call, Throwable t) {
+            public void onError(String message) {
                 if (!isAdded()) return;
 
                 progressBar.setVisibility(View.GONE);
-                Log.e("OrderDetailFragment", "Error fetching order details", t);
-                Toast.makeText(getContext(), "Network error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
+                Log.e("OrderDetailFragment", "Error fetching order details: " + message);
+                Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
             }
         });
     }
@@ -146,36 +123,22 @@ public class OrderDetailFragment extends Fragment {
 
         // Set order header info
         orderNumberTextView.setText("Order #" + order.getOrderNumber());
-        orderDateTextView.setText("Placed on " + formatDate(order.getCreatedAt()));
+        orderDateTextView.setText("Placed on " + DisplayFormats.orderDateTime(order.getCreatedAt()));
         orderStatusTextView.setText("Status: " + order.getStatus());
 
-        // Set status color
-        if ("Pending".equals(order.getStatus())) {
-            orderStatusTextView.setTextColor(getResources().getColor(android.R.color.holo_orange_dark));
-        } else if ("Completed".equals(order.getStatus())) {
-            orderStatusTextView.setTextColor(getResources().getColor(android.R.color.holo_green_dark));
-        } else if ("Cancelled".equals(order.getStatus())) {
-            orderStatusTextView.setTextColor(getResources().getColor(android.R.color.holo_red_dark));
+        // Set status color, the same one the order list uses
+        int statusColorRes = OrderRow.statusColorRes(order.getStatus());
+        if (statusColorRes != 0) {
+            orderStatusTextView.setTextColor(getResources().getColor(statusColorRes));
         }
 
         // Set items
         itemsAdapter.setItems(order.getItems());
 
         // Set price summary
-        subtotalTextView.setText(String.format(Locale.getDefault(), "R%.2f", order.getSubtotal()));
-        deliveryFeeTextView.setText(String.format(Locale.getDefault(), "R%.2f", order.getDeliveryFee()));
-        taxAmountTextView.setText(String.format(Locale.getDefault(), "R%.2f", order.getTaxAmount()));
-        totalTextView.setText(String.format(Locale.getDefault(), "R%.2f", order.getTotal()));
-    }
-
-    private String formatDate(String dateString) {
-        try {
-            SimpleDateFormat inputFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.getDefault());
-            SimpleDateFormat outputFormat = new SimpleDateFormat("MMMM dd, yyyy 'at' hh:mm a", Locale.getDefault());
-            Date date = inputFormat.parse(dateString);
-            return outputFormat.format(date);
-        } catch (ParseException e) {
-            return dateString;
-        }
+        subtotalTextView.setText(DisplayFormats.money(order.getSubtotal()));
+        deliveryFeeTextView.setText(DisplayFormats.money(order.getDeliveryFee()));
+        taxAmountTextView.setText(DisplayFormats.money(order.getTaxAmount()));
+        totalTextView.setText(DisplayFormats.money(order.getTotal()));
     }
-}
\ No newline at end of file
+}
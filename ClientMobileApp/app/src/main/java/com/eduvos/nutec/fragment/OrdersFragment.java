@@ -17,18 +17,13 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.eduvos.nutec.R;
 import com.eduvos.nutec.adapter.OrdersAdapter;
-import com.eduvos.nutec.api.ApiService;
-import com.eduvos.nutec.api.RetrofitClient;
 import com.eduvos.nutec.pojo.Order;
-import com.eduvos.nutec.pojo.OrdersListResponse;
+import com.eduvos.nutec.row.OrderRow;
+import com.eduvos.nutec.sync.OrderRepository;
 
 import java.util.ArrayList;
 import java.util.List;
 
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
-
 public class OrdersFragment extends Fragment {
 
     private RecyclerView recyclerView;
@@ -58,7 +53,7 @@ public class OrdersFragment extends Fragment {
 
     private void setupRecyclerView() {
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
-        adapter = new OrdersAdapter(ordersList, order -> {
+        adapter = new OrdersAdapter(order -> {
             // Handle order click - navigate to order details
             navigateToOrderDetails(order);
         });
@@ -70,42 +65,29 @@ public class OrdersFragment extends Fragment {
         recyclerView.setVisibility(View.GONE);
         emptyMessageView.setVisibility(View.GONE);
 
-        ApiService apiService = RetrofitClient.getApiService(requireContext());
-        Call<OrdersListResponse> call = apiService.getUserOrders();
-
-        call.enqueue(new Callback<OrdersListResponse>() {
+        // Cached history shows at once; the repository only calls again if revalidating changed it
+        OrderRepository.getInstance().loadOrders(requireContext(), new OrderRepository.OrdersCallback() {
             @Override
-            public void onResponse(Call<OrdersListResponse> call, Response<OrdersListResponse> response) {
+            public void onOrders(List<Order> orders) {
                 if (!isAdded()) return;
 
                 progressBar.setVisibility(View.GONE);
+                // A copy; revalidating diffs it against this one and moves only the changed rows.
+                // The rows and their text are built off the main thread
+                ordersList = new ArrayList<>(orders);
+                adapter.submitSource(ordersList, OrderRow::of, null);
 
-                if (response.isSuccessful() && response.body() != null) {
-                    OrdersListResponse ordersResponse = response.body();
-
-                    if (ordersResponse.isSuccess() && ordersResponse.getOrders() != null) {
-                        ordersList.clear();
-                        ordersList.addAll(ordersResponse.getOrders());
-                        adapter.notifyDataSetChanged();
-
-                        updateEmptyView();
-                    } else {
-                        showEmptyView("No orders found");
-                    }
-                } else {
-                    Toast.makeText(getContext(), "Failed to load orders", Toast.LENGTH_SHORT).show();
-                    showEmptyView("Failed to load orders");
-                }
+                updateEmptyView();
             }
 
             @Override
-            public void onFailure(Call<OrdersListResponse> call, Throwable t) {
+            public void onError(String message) {
                 if (!isAdded()) return;
 
                 progressBar.setVisibility(View.GONE);
-                Log.e("OrdersFragment", "Error fetching orders", t);
-                Toast.makeText(getContext(), "Network error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
-                showEmptyView("Network error");
+                Log.e("OrdersFragment", "Error fetching orders: " + message);
+                Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
+                showEmptyView(message);
             }
         });
     }
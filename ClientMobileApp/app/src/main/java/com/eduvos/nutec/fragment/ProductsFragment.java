@@ -1,6 +1,8 @@
 package com.eduvos.nutec.fragment;
 
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -21,26 +23,32 @@ import com.eduvos.nutec.pojo.ProductItem;
 import com.google.android.material.button.MaterialButton;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
-
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
+import java.util.Objects;
 
 import com.eduvos.nutec.adapter.ProductAdapter;
 import com.eduvos.nutec.R;
 import com.eduvos.nutec.pojo.ProductOrder;
+import com.eduvos.nutec.row.ProductRow;
 import com.eduvos.nutec.api.ApiService;
+import com.eduvos.nutec.api.DataSaverPolicy;
+import com.eduvos.nutec.api.InventoryPager;
 import com.eduvos.nutec.api.RetrofitClient;
+import com.eduvos.nutec.auth.SessionStore;
 import com.eduvos.nutec.manager.CartManager;
 import com.eduvos.nutec.manager.WishlistManager;
+import com.eduvos.nutec.sync.InventorySyncEngine;
+import com.eduvos.nutec.sync.ProductSnapshot;
+import com.eduvos.nutec.sync.ProductSnapshotStore;
 import com.google.android.material.snackbar.Snackbar;
 
 public class ProductsFragment extends Fragment implements ProductAdapter.OnProductActionClickListener{
 
+    // Wait for the user to stop typing before asking the server for a new search
+    private static final long SEARCH_DEBOUNCE_MS = 300;
+    // Server sort keys matching the options in showSortDialog()
+    private static final String[] SORT_KEYS = {null, "name", "-name", "litres", "-litres"};
+
     private RecyclerView recyclerView;
     private ProductAdapter adapter;
     private ProgressBar progressBar;
@@ -48,12 +56,19 @@ public class ProductsFragment extends Fragment implements ProductAdapter.OnProdu
     private MaterialButton sortButton;
     private SearchView searchView;
 
-    // Two lists are key: one for the original data, one for display
-    private final List<ProductOrder> fullProductList = new ArrayList<>();
-    private final List<ProductOrder> displayedProductList = new ArrayList<>();
+    // The rows last handed to the adapter; replaced, never changed, since the adapter diffs it
+    private List<ProductOrder> displayedProductList = new ArrayList<>();
 
     private int currentSortMethod = 0; // 0: Default
 
+    // Rows on screen are the cold-start snapshot, waiting for the live first page
+    private boolean showingSnapshot;
+    private boolean liveRequested;
+
+    private InventoryPager pager;
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+    private final Runnable searchRunnable = this::reloadProducts;
+
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
@@ -70,10 +85,53 @@ public class ProductsFragment extends Fragment implements ProductAdapter.OnProdu
     @Override
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
-        // Only fetch if the list is empty to avoid re-fetching on screen rotation
-        if (fullProductList.isEmpty()) {
-            fetchProducts();
-        }
+        ApiService apiService = RetrofitClient.getApiService(requireContext());
+        // Pages come from the synced local catalog once it is complete, from the server until then
+        InventorySyncEngine inventorySync = InventorySyncEngine.getInstance(requireContext());
+        pager = new InventoryPager(inventorySync.pageSource(apiService), DataSaverPolicy.getInstance(), new InventoryPager.Listener() {
+            @Override
+            public void onPageLoaded(List<ProductOrder> rows, boolean firstPage) {
+                if (!isAdded() || getView() == null) return;
+                progressBar.setVisibility(View.GONE);
+                showPage(rows, firstPage);
+            }
+
+            @Override
+            public void onError(Throwable error, boolean firstPage) {
+                if (!isAdded() || getView() == null) return;
+                progressBar.setVisibility(View.GONE);
+                Log.e("ProductsFragment", "Network request failed", error);
+                // Keep the rows already shown, scrolling again retries the next page
+                Toast.makeText(getContext(), firstPage ? "Network Error." : "Failed to load more products.",
+                        Toast.LENGTH_SHORT).show();
+                updateEmptyView();
+            }
+        });
+
+        // A new view always starts from the first page (onDestroyView drops the old rows).
+        // On a cold start the last screen is drawn from the snapshot while the catalog opens
+        progressBar.setVisibility(View.VISIBLE);
+        ProductSnapshotStore.getInstance().takeColdStartSnapshot(this::showSnapshot);
+        // The saved catalog is opened first, so the rows come straight from disk
+        inventorySync.loadAsync(this::fetchProducts);
+
+        // Only rows newer than the last sync are downloaded
+        inventorySync.syncAsync(new InventorySyncEngine.Listener() {
+            @Override
+            public void onSynced(InventorySyncEngine.SyncResult result) {
+                if (pager == null || getView() == null) return;
+                saveSnapshot();
+                // Show new rows, but don't yank the list away from a user who has scrolled down
+                if (result.added > 0 && !recyclerView.canScrollVertically(-1)) {
+                    reloadProducts();
+                }
+            }
+
+            @Override
+            public void onSyncFailed(Throwable error) {
+                // Nothing to show, the pager keeps using the server and reports its own errors
+            }
+        });
     }
 
     private void initializeViews(View view) {
@@ -85,22 +143,35 @@ public class ProductsFragment extends Fragment implements ProductAdapter.OnProdu
     }
 
     private void setupRecyclerView() {
-        recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
-        // The adapter always points to the list that is being displayed
-        adapter = new ProductAdapter(displayedProductList, this);
+        LinearLayoutManager layoutManager = new LinearLayoutManager(getContext());
+        recyclerView.setLayoutManager(layoutManager);
+        adapter = new ProductAdapter(this);
         recyclerView.setAdapter(adapter);
+
+        // Prefetch the next page before the user reaches the bottom
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (dy <= 0 || pager == null) return;
+                pager.onScrolled(layoutManager.findLastVisibleItemPosition(), adapter.getItemCount());
+            }
+        });
     }
 
     private void setupSearch() {
         searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
             @Override
             public boolean onQueryTextSubmit(String query) {
-                return false; // We filter on text change
+                // Search straight away instead of waiting for the debounce
+                searchHandler.removeCallbacks(searchRunnable);
+                reloadProducts();
+                return true;
             }
 
             @Override
             public boolean onQueryTextChange(String newText) {
-                filterAndSortList(); // Re-run the filter and sort logic
+                searchHandler.removeCallbacks(searchRunnable);
+                searchHandler.postDelayed(searchRunnable, SEARCH_DEBOUNCE_MS);
                 return true;
             }
         });
@@ -123,88 +194,113 @@ public class ProductsFragment extends Fragment implements ProductAdapter.OnProdu
                 .setTitle("Sort By")
                 .setSingleChoiceItems(sortOptions, currentSortMethod, (dialog, which) -> {
                     currentSortMethod = which;
-                    filterAndSortList(); // Re-run the filter and sort logic
+                    reloadProducts(); // The server sorts, so start again from the first page
                     dialog.dismiss();
                 })
                 .show();
     }
 
+    private void fetchProducts() {
+        if (getView() == null) return;
+        liveRequested = true;
+        if (!showingSnapshot) {
+            progressBar.setVisibility(View.VISIBLE);
+            recyclerView.setVisibility(View.GONE);
+            emptyMessageView.setVisibility(View.GONE);
+        }
+
+        reloadProducts();
+    }
+
     /**
-     * Central method to handle all filtering and sorting.
-     * It always starts from the full list, applies the search query, then applies the sort.
+     * Draws the rows saved when the screen was last shown, until the live first page replaces them.
      */
-    private void filterAndSortList() {
-        // Step 1: Filter the list based on the search query
-        String query = searchView.getQuery().toString();
-        List<ProductOrder> filteredList;
+    private void showSnapshot(ProductSnapshot snapshot) {
+        if (snapshot == null || getView() == null || liveRequested || snapshot.rows.isEmpty()) return;
 
-        if (query.isEmpty()) {
-            filteredList = new ArrayList<>(fullProductList);
-        } else {
-            String lowerCaseQuery = query.toLowerCase();
-            filteredList = fullProductList.stream()
-                    .filter(item -> item.getSkuDescription().toLowerCase().contains(lowerCaseQuery))
-                    .collect(Collectors.toList());
+        // Same search and sort as then, so the live rows that replace these match
+        for (int i = 0; i < SORT_KEYS.length; i++) {
+            if (Objects.equals(SORT_KEYS[i], snapshot.sortBy)) currentSortMethod = i;
         }
-
-        // Step 2: Sort the already filtered list
-        switch (currentSortMethod) {
-            case 1: // Name ASC
-                Collections.sort(filteredList, Comparator.comparing(ProductOrder::getSkuDescription, String.CASE_INSENSITIVE_ORDER));
-                break;
-            case 2: // Name DESC
-                Collections.sort(filteredList, Comparator.comparing(ProductOrder::getSkuDescription, String.CASE_INSENSITIVE_ORDER).reversed());
-                break;
-            case 3: // Litres ASC
-                Collections.sort(filteredList, Comparator.comparingInt(ProductOrder::getLitres));
-                break;
-            case 4: // Litres DESC
-                Collections.sort(filteredList, Comparator.comparingInt(ProductOrder::getLitres).reversed());
-                break;
-            // Case 0 (Default) requires no sorting after filtering
+        if (snapshot.search != null && !snapshot.search.isEmpty()) {
+            searchView.setQuery(snapshot.search, false);
+            searchHandler.removeCallbacks(searchRunnable); // fetchProducts() searches anyway
         }
 
-        // Step 3: Update the display list and notify the adapter
-        displayedProductList.clear();
-        displayedProductList.addAll(filteredList);
-        adapter.notifyDataSetChanged();
+        showingSnapshot = true;
+        progressBar.setVisibility(View.GONE);
+        displayedProductList = snapshot.rows;
+        // The list is empty, so the rows show without a diff as soon as they are built
+        adapter.submitSource(displayedProductList, ProductRow::of, () -> ((LinearLayoutManager) recyclerView.getLayoutManager())
+                .scrollToPositionWithOffset(snapshot.anchorPosition, snapshot.anchorOffset));
         updateEmptyView();
     }
 
-    private void fetchProducts() {
-        if (getView() == null) return;
-        progressBar.setVisibility(View.VISIBLE);
-        recyclerView.setVisibility(View.GONE);
-        emptyMessageView.setVisibility(View.GONE);
-
-        ApiService apiService = RetrofitClient.getApiService(requireContext());
-        Call<List<ProductOrder>> call = apiService.getProductOrders();
+    /**
+     * Saves what is on screen for the next cold start.
+     */
+    private void saveSnapshot() {
+        // Only live rows; the snapshot itself is already saved
+        if (showingSnapshot || displayedProductList.isEmpty()) return;
+
+        LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+        int anchor = Math.max(0, layoutManager.findFirstVisibleItemPosition());
+        View anchorView = layoutManager.findViewByPosition(anchor);
+        int offset = anchorView == null ? 0 : anchorView.getTop() - recyclerView.getPaddingTop();
+        // Stamped with the user, so these rows are never shown to anyone else
+        String userId = SessionStore.getInstance().get().userId;
+        ProductSnapshotStore.getInstance().save(new ProductSnapshot(userId, System.currentTimeMillis(),
+                searchView.getQuery().toString(), SORT_KEYS[currentSortMethod], anchor, offset,
+                displayedProductList));
+    }
 
-        call.enqueue(new Callback<List<ProductOrder>>() {
-            @Override
-            public void onResponse(@NonNull Call<List<ProductOrder>> call, @NonNull Response<List<ProductOrder>> response) {
-                if (!isAdded() || getView() == null) return;
-                progressBar.setVisibility(View.GONE);
+    /**
+     * Asks the server for the first page matching the current search text and sort.
+     */
+    private void reloadProducts() {
+        if (pager == null || getView() == null) return;
+        pager.setQuery(searchView.getQuery().toString(), SORT_KEYS[currentSortMethod]);
+    }
 
-                if (response.isSuccessful() && response.body() != null) {
-                    fullProductList.clear();
-                    fullProductList.addAll(response.body());
-                    filterAndSortList(); // Initial population of the displayed list
-                } else {
-                    Toast.makeText(getContext(), "Failed to retrieve data.", Toast.LENGTH_SHORT).show();
-                    updateEmptyView();
-                }
+    /**
+     * Shows a page from the pager; the first page of a query replaces the list, later pages are appended.
+     */
+    private void showPage(List<ProductOrder> rows, boolean firstPage) {
+        // Rows that are in both lists stay put, so typing a search only moves what changed.
+        // A newer page or query arriving before the diff is done replaces it. The rows are
+        // built with the diff, off the main thread.
+        if (firstPage) {
+            displayedProductList = new ArrayList<>(rows);
+            if (showingSnapshot) {
+                // Live rows for the same query, leave the list where the snapshot put it
+                showingSnapshot = false;
+                adapter.submitSource(displayedProductList, ProductRow::of, null);
+            } else {
+                adapter.submitSource(displayedProductList, ProductRow::of, () -> recyclerView.scrollToPosition(0));
             }
+        } else {
+            List<ProductOrder> appended = new ArrayList<>(displayedProductList.size() + rows.size());
+            appended.addAll(displayedProductList);
+            appended.addAll(rows);
+            displayedProductList = appended;
+            adapter.submitSource(displayedProductList, ProductRow::of, null);
+        }
+        updateEmptyView();
+    }
 
-            @Override
-            public void onFailure(@NonNull Call<List<ProductOrder>> call, @NonNull Throwable t) {
-                if (!isAdded()) return;
-                progressBar.setVisibility(View.GONE);
-                Log.e("ProductsFragment", "Network request failed", t);
-                Toast.makeText(getContext(), "Network Error.", Toast.LENGTH_SHORT).show();
-                updateEmptyView();
-            }
-        });
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        saveSnapshot();
+        // Stop loading if the user leaves before the page arrives
+        searchHandler.removeCallbacks(searchRunnable);
+        if (pager != null) {
+            pager.cancel();
+            pager = null;
+        }
+        displayedProductList = new ArrayList<>();
+        showingSnapshot = false;
+        liveRequested = false;
     }
 
     private void updateEmptyView() {
@@ -214,7 +310,7 @@ public class ProductsFragment extends Fragment implements ProductAdapter.OnProdu
             recyclerView.setVisibility(View.GONE);
             emptyMessageView.setVisibility(View.VISIBLE);
             // Give a more helpful message
-            emptyMessageView.setText(fullProductList.isEmpty() ? "No products available." : "No results found.");
+            emptyMessageView.setText(pager != null && pager.hasQuery() ? "No results found." : "No products available.");
         } else {
             recyclerView.setVisibility(View.VISIBLE);
             emptyMessageView.setVisibility(View.GONE);
@@ -225,6 +321,7 @@ public class ProductsFragment extends Fragment implements ProductAdapter.OnProdu
     public void onAddToWishlistClick(ProductOrder product) {
         ProductItem productItem = new ProductItem(
                 product.getSkuDescription(),
+                product.getSku(),
                 45
         );
         // Use the WishlistManager singleton to add or remove the item
@@ -252,6 +349,7 @@ public class ProductsFragment extends Fragment implements ProductAdapter.OnProdu
     public void onAddToCartClick(ProductOrder product) {
         ProductItem productItem = new ProductItem(
                 product.getSkuDescription(),
+                product.getSku(),
                 45
         );
 
@@ -1,11 +1,27 @@
 package com.eduvos.nutec.fragment;
 
+import android.content.Context;
 import android.content.SharedPreferences;
+import android.graphics.Typeface;
 import android.os.Bundle;
+import android.util.Log;
+import android.widget.TextView;
+import android.widget.Toast;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatDelegate;
+import androidx.preference.Preference;
 import androidx.preference.PreferenceFragmentCompat;
 
+import com.eduvos.nutec.BuildConfig;
 import com.eduvos.nutec.R;
+import com.eduvos.nutec.api.DataSaverPolicy;
+import com.eduvos.nutec.api.RetrofitClient;
+import com.eduvos.nutec.auth.TokenManager;
+import com.eduvos.nutec.metrics.NetworkMetrics;
+import com.eduvos.nutec.util.AppExecutors;
+
+import java.io.File;
+import java.io.IOException;
 
 public class SettingsFragment extends PreferenceFragmentCompat {
 
@@ -28,6 +44,67 @@ public class SettingsFragment extends PreferenceFragmentCompat {
                 }
             }
         };
+
+        setupDebugPreferences();
+    }
+
+    // --- Debug-only network statistics screen ---
+
+    private void setupDebugPreferences() {
+        Preference debugCategory = findPreference("debug_category");
+        if (debugCategory != null) {
+            debugCategory.setVisible(BuildConfig.DEBUG);
+        }
+
+        Preference networkMetrics = findPreference("network_metrics");
+        if (networkMetrics != null) {
+            networkMetrics.setOnPreferenceClickListener(preference -> {
+                showNetworkMetricsDialog();
+                return true;
+            });
+        }
+    }
+
+    private void showNetworkMetricsDialog() {
+        String report = NetworkMetrics.getInstance().report()
+                + "\nData saver: " + DataSaverPolicy.getInstance()
+                + "\nHTTP cache: " + RetrofitClient.getCacheStats()
+                + "\nCoalescing: " + RetrofitClient.getCoalescingStats()
+                + "\nToken refresh: " + TokenManager.getInstance().report()
+                + "\n\n" + RetrofitClient.getRequestScheduler().report();
+
+        TextView reportView = new TextView(requireContext());
+        reportView.setText(report);
+        reportView.setTypeface(Typeface.MONOSPACE);
+        reportView.setTextIsSelectable(true);
+        int padding = (int) (16 * getResources().getDisplayMetrics().density);
+        reportView.setPadding(padding, padding, padding, padding);
+
+        new AlertDialog.Builder(requireContext())
+                .setTitle("Network statistics")
+                .setView(reportView)
+                .setPositiveButton("Close", null)
+                .setNeutralButton("Export", (dialog, which) -> exportNetworkMetrics())
+                .show();
+    }
+
+    private void exportNetworkMetrics() {
+        Context appContext = requireContext().getApplicationContext();
+        File directory = new File(appContext.getExternalFilesDir(null), "metrics");
+
+        AppExecutors.getInstance().diskIO().execute(() -> {
+            String message;
+            try {
+                File file = NetworkMetrics.getInstance().exportTo(directory);
+                message = "Exported to " + file.getAbsolutePath();
+            } catch (IOException e) {
+                Log.e("SettingsFragment", "Metrics export failed", e);
+                message = "Export failed: " + e.getMessage();
+            }
+            String result = message;
+            AppExecutors.getInstance().mainThread().execute(() ->
+                    Toast.makeText(appContext, result, Toast.LENGTH_LONG).show());
+        });
     }
 
     @Override
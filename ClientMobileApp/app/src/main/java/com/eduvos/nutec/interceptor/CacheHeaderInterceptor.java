@@ -0,0 +1,38 @@
+package com.eduvos.nutec.interceptor;
+
+import androidx.annotation.NonNull;
+
+import com.eduvos.nutec.api.CachePolicy;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Network interceptor that gives responses a freshness lifetime when the API does not send one.
+ *
+ * The API does not set Cache-Control, so without this OkHttp would store the response
+ * but treat it as expired straight away. We take the max-age from the endpoint's @CachePolicy.
+ * Any Cache-Control the server does send is left alone.
+ */
+public class CacheHeaderInterceptor implements Interceptor {
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response = chain.proceed(request);
+
+        CachePolicy policy = CacheInterceptor.policyOf(request);
+        if (policy == null || !response.isSuccessful() || response.header("Cache-Control") != null) {
+            return response;
+        }
+
+        return response.newBuilder()
+                .removeHeader("Pragma")
+                .header("Cache-Control", "private, max-age=" + policy.maxAgeSeconds())
+                .build();
+    }
+}
@@ -0,0 +1,231 @@
+package com.eduvos.nutec.interceptor;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.eduvos.nutec.api.CachePolicy;
+import com.eduvos.nutec.api.CacheStats;
+import com.eduvos.nutec.api.DataSaverPolicy;
+import com.eduvos.nutec.api.RequestLane;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.CacheControl;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Okio;
+import retrofit2.Invocation;
+
+/**
+ * Applies the @CachePolicy declared on ApiService methods on top of OkHttp's disk cache.
+ *
+ * OkHttp already stores responses and sends If-None-Match / If-Modified-Since when a stored
+ * response has gone stale. What it does not do is stale-while-revalidate or offline fallback,
+ * so this interceptor adds those:
+ *  - fresh cached response            -> returned without touching the network
+ *  - stale but inside the SWR window  -> returned immediately, a conditional request runs in the background
+ *  - offline or the network call fails -> the cached copy is returned if it is within stale-if-error
+ *
+ * In data saver mode the background request is skipped; the stale copy is served until it
+ * falls out of the SWR window and the next foreground call fetches it.
+ *
+ * It must be added as the FIRST application interceptor so that cache probes never reach
+ * the auth/refresh logic.
+ */
+public class CacheInterceptor implements Interceptor {
+    private static final String TAG = "CacheInterceptor";
+
+    // Marks the background request we send to revalidate a stale entry
+    private static final class Revalidation {
+        static final Revalidation INSTANCE = new Revalidation();
+    }
+
+    private final Context context;
+    private final CacheStats stats;
+    private final Set<String> revalidatingUrls = ConcurrentHashMap.newKeySet();
+    private volatile Call.Factory callFactory;
+
+    public CacheInterceptor(Context context, CacheStats stats) {
+        this.context = context.getApplicationContext();
+        this.stats = stats;
+    }
+
+    /**
+     * The client is needed to fire background revalidations, and it only exists after it
+     * has been built with this interceptor, so RetrofitClient hands it over afterwards
+     * (wrapped by the request scheduler, so revalidations run in the background lane).
+     */
+    public void bindCallFactory(Call.Factory callFactory) {
+        this.callFactory = callFactory;
+    }
+
+    /**
+     * Returns the @CachePolicy of the ApiService method that created this request, or null.
+     */
+    public static CachePolicy policyOf(Request request) {
+        Invocation invocation = request.tag(Invocation.class);
+        if (invocation == null) return null;
+        return invocation.method().getAnnotation(CachePolicy.class);
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request request = chain.request();
+        CachePolicy policy = policyOf(request);
+
+        if (policy == null || !"GET".equals(request.method())) {
+            return chain.proceed(request);
+        }
+
+        // Our own background revalidation: let OkHttp send the conditional request
+        if (request.tag(Revalidation.class) != null) {
+            return chain.proceed(request);
+        }
+
+        if (!isOnline()) {
+            Response offline = fromCache(chain, request, policy.staleIfErrorSeconds());
+            if (offline != null) {
+                stats.recordOfflineHit(contentLength(offline));
+                Log.d(TAG, "Offline, serving cached " + request.url().encodedPath());
+                return offline;
+            }
+            // Nothing cached, let the real call fail with the usual network error
+            return chain.proceed(request);
+        }
+
+        Response cached = fromCache(chain, request, policy.staleWhileRevalidateSeconds());
+        if (cached != null) {
+            if (isStale(cached)) {
+                stats.recordStaleHit(contentLength(cached));
+                revalidateInBackground(request);
+            } else {
+                stats.recordHit(contentLength(cached));
+            }
+            return cached;
+        }
+
+        stats.recordMiss();
+        try {
+            Response response = chain.proceed(request);
+            Response networkResponse = response.networkResponse();
+            if (networkResponse != null && networkResponse.code() == 304) {
+                stats.recordNotModified(contentLength(response));
+            }
+            return response;
+        } catch (IOException e) {
+            Response fallback = fromCache(chain, request, policy.staleIfErrorSeconds());
+            if (fallback != null) {
+                stats.recordOfflineHit(contentLength(fallback));
+                Log.d(TAG, "Network failed, serving cached " + request.url().encodedPath(), e);
+                return fallback;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Asks OkHttp for the stored response only (no network). Returns null on a cache miss.
+     */
+    private Response fromCache(Chain chain, Request request, int maxStaleSeconds) throws IOException {
+        Request cacheOnly = request.newBuilder()
+                .cacheControl(new CacheControl.Builder()
+                        .onlyIfCached()
+                        .maxStale(Math.max(0, maxStaleSeconds), TimeUnit.SECONDS)
+                        .build())
+                .build();
+
+        Response response = chain.proceed(cacheOnly);
+        if (response.code() == 504) {
+            // OkHttp answers only-if-cached misses with a synthetic 504
+            response.close();
+            return null;
+        }
+        return response;
+    }
+
+    private void revalidateInBackground(Request request) {
+        Call.Factory callFactory = this.callFactory;
+        String url = request.url().toString();
+        if (!DataSaverPolicy.getInstance().allowsBackgroundSync()) {
+            return;
+        }
+        if (callFactory == null || !revalidatingUrls.add(url)) {
+            return; // not bound yet, or a revalidation for this URL is already running
+        }
+
+        stats.recordRevalidation();
+        Request revalidation = request.newBuilder()
+                .tag(Revalidation.class, Revalidation.INSTANCE)
+                .tag(RequestLane.class, RequestLane.BACKGROUND)
+                .build();
+
+        callFactory.newCall(revalidation).enqueue(new Callback() {
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                try (ResponseBody body = response.body()) {
+                    Response networkResponse = response.networkResponse();
+                    if (networkResponse != null && networkResponse.code() == 304) {
+                        stats.recordNotModified(contentLength(response));
+                    } else if (body != null) {
+                        // The body has to be read to the end for OkHttp to commit it to the cache
+                        body.source().readAll(Okio.blackhole());
+                    }
+                } catch (IOException e) {
+                    Log.w(TAG, "Revalidation body failed for " + url, e);
+                } finally {
+                    revalidatingUrls.remove(url);
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                revalidatingUrls.remove(url);
+                Log.w(TAG, "Revalidation failed for " + url, e);
+            }
+        });
+    }
+
+    private static boolean isStale(Response response) {
+        // OkHttp adds "Warning: 110 ... Response is stale" when it serves an expired entry
+        for (String warning : response.headers("Warning")) {
+            if (warning.startsWith("110")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long contentLength(Response response) {
+        String length = response.header("Content-Length");
+        if (length == null) return -1;
+        try {
+            return Long.parseLong(length);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private boolean isOnline() {
+        ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (cm == null) return true; // can't tell, assume online and let the call decide
+
+        Network network = cm.getActiveNetwork();
+        if (network == null) return false;
+
+        NetworkCapabilities capabilities = cm.getNetworkCapabilities(network);
+        return capabilities != null && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET);
+    }
+}
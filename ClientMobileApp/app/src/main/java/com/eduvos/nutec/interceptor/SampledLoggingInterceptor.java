@@ -0,0 +1,54 @@
+package com.eduvos.nutec.interceptor;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+import okhttp3.logging.HttpLoggingInterceptor;
+
+/**
+ * Debug-only request logging. Every call gets a one-line BASIC log, but only one in
+ * every N calls is logged at BODY level, because BODY buffers and prints the whole
+ * payload (the inventory response is large).
+ */
+public class SampledLoggingInterceptor implements Interceptor {
+
+    private final HttpLoggingInterceptor bodyLogger = new HttpLoggingInterceptor();
+    private final HttpLoggingInterceptor basicLogger = new HttpLoggingInterceptor();
+    private final AtomicLong callCounter = new AtomicLong();
+    private volatile IntSupplier bodySampleEvery;
+
+    /**
+     * @param bodySampleEvery log the body of 1 in this many calls, 0 to never log bodies
+     */
+    public SampledLoggingInterceptor(int bodySampleEvery) {
+        this(() -> bodySampleEvery);
+    }
+
+    /**
+     * @param bodySampleEvery asked on every call, so the rate can follow the data saver
+     */
+    public SampledLoggingInterceptor(IntSupplier bodySampleEvery) {
+        this.bodySampleEvery = bodySampleEvery;
+        bodyLogger.setLevel(HttpLoggingInterceptor.Level.BODY);
+        basicLogger.setLevel(HttpLoggingInterceptor.Level.BASIC);
+        bodyLogger.redactHeader("Authorization");
+        basicLogger.redactHeader("Authorization");
+    }
+
+    public void setBodySampleEvery(int bodySampleEvery) {
+        this.bodySampleEvery = () -> bodySampleEvery;
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        int every = bodySampleEvery.getAsInt();
+        boolean logBody = every > 0 && callCounter.getAndIncrement() % every == 0;
+        return (logBody ? bodyLogger : basicLogger).intercept(chain);
+    }
+}
@@ -0,0 +1,290 @@
+package com.eduvos.nutec.manager;
+
+import android.util.Log;
+
+import com.eduvos.nutec.pojo.CartItem;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ByteString;
+import okio.Okio;
+
+/**
+ * The cart on disk: a snapshot of the whole cart, plus a journal of the changes made since.
+ *
+ * A change only appends a few bytes to the journal, so tapping + on a large cart never rewrites
+ * the cart. Changes are queued in memory and written on the disk thread; everything queued
+ * while a write is waiting goes out in that one write. Once the journal holds
+ * COMPACT_AFTER_RECORDS changes it is folded into a new snapshot and emptied, so a restore reads
+ * the snapshot and at most that many changes, however long the cart has been in use.
+ *
+ * Every record says what a cart line became, not how it changed, so replaying a record that
+ * is already in the snapshot gives the same cart.
+ */
+public class CartJournal {
+    private static final String TAG = "CartJournal";
+
+    static final String SNAPSHOT_FILE = "cart.snapshot";
+    static final String JOURNAL_FILE = "cart.journal";
+    private static final String SNAPSHOT_MAGIC = "NCS1";
+
+    // Journal length at which it is folded into the snapshot
+    static final int COMPACT_AFTER_RECORDS = 200;
+
+    // Records written before lines had a SKU
+    private static final byte OP_PUT_BY_NAME = 1;
+    private static final byte OP_REMOVE_BY_NAME = 2;
+    private static final byte OP_CLEAR = 3;
+    private static final byte OP_PUT = 4;
+    private static final byte OP_REMOVE = 5;
+
+    /**
+     * One change to the cart.
+     */
+    static final class Record {
+        final byte op;
+        final String productName;
+        final int sku;
+        final double price;
+        final int quantity;
+
+        private Record(byte op, String productName, int sku, double price, int quantity) {
+            this.op = op;
+            this.productName = productName;
+            this.sku = sku;
+            this.price = price;
+            this.quantity = quantity;
+        }
+
+        /**
+         * The line as it is now: added, or its quantity changed.
+         */
+        static Record put(CartItem item) {
+            return new Record(OP_PUT, item.getProductName(), item.getSku(), item.getPrice(), item.getQuantity());
+        }
+
+        static Record remove(CartItem item) {
+            return new Record(OP_REMOVE, item.getProductName(), item.getSku(), 0, 0);
+        }
+
+        static Record clear() {
+            return new Record(OP_CLEAR, null, 0, 0, 0);
+        }
+
+        void applyTo(CartLines lines) {
+            switch (op) {
+                case OP_CLEAR:
+                    lines.clear();
+                    break;
+                case OP_PUT:
+                    lines.put(new CartItem(productName, sku, price, quantity));
+                    break;
+                default:
+                    lines.remove(CartItem.keyOf(sku, productName));
+                    break;
+            }
+        }
+
+        void writeTo(BufferedSink sink) throws IOException {
+            sink.writeByte(op);
+            if (op == OP_CLEAR) return;
+            writeString(sink, productName);
+            sink.writeInt(sku);
+            if (op == OP_PUT) {
+                sink.writeLong(Double.doubleToLongBits(price)).writeInt(quantity);
+            }
+        }
+
+        /**
+         * @throws java.io.EOFException if the record was cut short, like a write a crash interrupted
+         */
+        static Record readFrom(BufferedSource source) throws IOException {
+            byte op = source.readByte();
+            if (op == OP_CLEAR) return clear();
+            if (op < OP_PUT_BY_NAME || op > OP_REMOVE) throw new IOException("Unknown cart record " + op);
+
+            String name = readString(source);
+            int sku = op == OP_PUT || op == OP_REMOVE ? source.readInt() : 0;
+            if (op == OP_REMOVE || op == OP_REMOVE_BY_NAME) {
+                return new Record(OP_REMOVE, name, sku, 0, 0);
+            }
+            double price = Double.longBitsToDouble(source.readLong());
+            return new Record(OP_PUT, name, sku, price, source.readInt());
+        }
+
+        // Lines from a product without a description have no name, written as length -1
+        private static void writeString(BufferedSink sink, String value) throws IOException {
+            if (value == null) {
+                sink.writeInt(-1);
+                return;
+            }
+            ByteString bytes = ByteString.encodeUtf8(value);
+            sink.writeInt(bytes.size()).write(bytes);
+        }
+
+        private static String readString(BufferedSource source) throws IOException {
+            int length = source.readInt();
+            return length < 0 ? null : source.readUtf8(length);
+        }
+    }
+
+    private final File snapshotFile;
+    private final File journalFile;
+    private final Executor diskIO;
+
+    // Guarded by this
+    private final List<Record> pending = new ArrayList<>();
+    private List<Record> pendingSnapshot;
+    private boolean flushQueued;
+    private int recordsSinceSnapshot;
+
+    CartJournal(File dir, Executor diskIO) {
+        this.snapshotFile = new File(dir, SNAPSHOT_FILE);
+        this.journalFile = new File(dir, JOURNAL_FILE);
+        this.diskIO = diskIO;
+    }
+
+    /**
+     * Reads the snapshot and replays the journal on top of it. Disk thread only, before
+     * anything is appended.
+     *
+     * @return the saved cart, empty if there is none
+     */
+    List<CartItem> restore() {
+        CartLines items = new CartLines();
+        boolean damaged = false;
+        if (snapshotFile.exists()) {
+            try (BufferedSource source = Okio.buffer(Okio.source(snapshotFile))) {
+                if (!SNAPSHOT_MAGIC.equals(source.readUtf8(SNAPSHOT_MAGIC.length()))) {
+                    throw new IOException("Unknown cart snapshot format");
+                }
+                for (int count = source.readInt(); count > 0; count--) {
+                    Record.readFrom(source).applyTo(items);
+                }
+            } catch (IOException e) {
+                // Unreadable, so start from an empty cart; the journal may still have some of it
+                Log.w(TAG, "Could not read the cart snapshot", e);
+                items.clear();
+                damaged = true;
+            }
+        }
+
+        int replayed = 0;
+        if (journalFile.exists()) {
+            try (BufferedSource source = Okio.buffer(Okio.source(journalFile))) {
+                while (!source.exhausted()) {
+                    Record.readFrom(source).applyTo(items);
+                    replayed++;
+                }
+            } catch (IOException e) {
+                // The last write was cut short; everything before it is still good
+                Log.w(TAG, "Cart journal ends in a partial record after " + replayed + " records");
+                damaged = true;
+            }
+        }
+
+        synchronized (this) {
+            // Damaged files are rewritten before anything is appended after them
+            recordsSinceSnapshot = damaged ? COMPACT_AFTER_RECORDS : replayed;
+        }
+        return new ArrayList<>(items.asList());
+    }
+
+    /**
+     * Queues a change for the disk thread. Changes queued before the write starts share it.
+     */
+    synchronized void append(Record record) {
+        pending.add(record);
+        recordsSinceSnapshot++;
+        queueFlush();
+    }
+
+    synchronized boolean needsCompaction() {
+        return recordsSinceSnapshot >= COMPACT_AFTER_RECORDS;
+    }
+
+    /**
+     * Replaces the snapshot with the given cart and empties the journal. The cart must already
+     * include every appended change, which is why the queued ones can be dropped.
+     */
+    synchronized void compact(List<CartItem> items) {
+        List<Record> snapshot = new ArrayList<>(items.size());
+        for (CartItem item : items) {
+            snapshot.add(Record.put(item));
+        }
+        pending.clear();
+        pendingSnapshot = snapshot;
+        recordsSinceSnapshot = 0;
+        queueFlush();
+    }
+
+    private void queueFlush() {
+        if (flushQueued) return;
+        flushQueued = true;
+        diskIO.execute(this::flush);
+    }
+
+    private void flush() {
+        List<Record> records;
+        List<Record> snapshot;
+        synchronized (this) {
+            flushQueued = false;
+            records = new ArrayList<>(pending);
+            pending.clear();
+            snapshot = pendingSnapshot;
+            pendingSnapshot = null;
+        }
+
+        if (snapshot != null) {
+            try {
+                writeSnapshot(snapshot);
+            } catch (IOException e) {
+                // Keep the old snapshot and journal, and put the whole cart in the journal instead
+                Log.w(TAG, "Could not write the cart snapshot", e);
+                List<Record> fallback = new ArrayList<>(snapshot.size() + records.size() + 1);
+                fallback.add(Record.clear());
+                fallback.addAll(snapshot);
+                fallback.addAll(records);
+                records = fallback;
+            }
+        }
+        if (records.isEmpty()) return;
+
+        Buffer out = new Buffer();
+        try {
+            for (Record record : records) {
+                record.writeTo(out);
+            }
+            try (BufferedSink sink = Okio.buffer(Okio.appendingSink(journalFile))) {
+                sink.writeAll(out);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Could not append to the cart journal", e);
+        }
+    }
+
+    private void writeSnapshot(List<Record> snapshot) throws IOException {
+        // Write next to the old snapshot and swap, so a crash never leaves half a cart
+        File temp = new File(snapshotFile.getPath() + ".tmp");
+        try (BufferedSink sink = Okio.buffer(Okio.sink(temp))) {
+            sink.writeUtf8(SNAPSHOT_MAGIC).writeInt(snapshot.size());
+            for (Record record : snapshot) {
+                record.writeTo(sink);
+            }
+        }
+        if (!temp.renameTo(snapshotFile)) {
+            throw new IOException("Could not replace " + snapshotFile);
+        }
+        // Every journal record is in the new snapshot now
+        if (journalFile.exists() && !journalFile.delete()) {
+            throw new IOException("Could not empty " + journalFile);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.eduvos.nutec.manager;
+
+import com.eduvos.nutec.pojo.CartItem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The cart's lines in the order they were added, with a hash index from line key (the SKU) to
+ * position and running totals.
+ *
+ * Finding, adding and updating a line are O(1) and keep the subtotal up to date as they go, so
+ * nothing ever walks the whole cart. Removing a line shifts the ones after it, which is a
+ * single array copy plus re-indexing those lines.
+ *
+ * Changing a quantity replaces the line with a new CartItem instead of mutating it. Not
+ * thread-safe; CartManager uses it from the main thread.
+ */
+final class CartLines {
+
+    private final List<CartItem> lines = new ArrayList<>();
+    private final Map<String, Integer> positions = new HashMap<>();
+    private final List<CartItem> readOnly = Collections.unmodifiableList(lines);
+
+    // In cents, so adding and taking away amounts never drifts
+    private long subtotalCents;
+    private int units;
+
+    int size() {
+        return lines.size();
+    }
+
+    CartItem get(int position) {
+        return lines.get(position);
+    }
+
+    /**
+     * @return the line's position, or -1
+     */
+    int indexOf(String key) {
+        Integer position = positions.get(key);
+        return position == null ? -1 : position;
+    }
+
+    /**
+     * Adds a line at the end, or replaces the line with the same key in place.
+     *
+     * @return the position, and whether the line is new
+     */
+    CartManager.Change put(CartItem item) {
+        String key = item.getKey();
+        int position = indexOf(key);
+        if (position >= 0) {
+            CartItem old = lines.set(position, item);
+            count(old, -1);
+            count(item, 1);
+            return new CartManager.Change(CartManager.Change.Type.UPDATED, position, item, old);
+        }
+        lines.add(item);
+        positions.put(key, lines.size() - 1);
+        count(item, 1);
+        return new CartManager.Change(CartManager.Change.Type.INSERTED, lines.size() - 1, item);
+    }
+
+    /**
+     * @return the removal, or null if there was no such line
+     */
+    CartManager.Change remove(String key) {
+        Integer position = positions.remove(key);
+        if (position == null) return null;
+        CartItem removed = lines.remove((int) position);
+        for (int i = position; i < lines.size(); i++) {
+            positions.put(lines.get(i).getKey(), i);
+        }
+        count(removed, -1);
+        return new CartManager.Change(CartManager.Change.Type.REMOVED, position, removed);
+    }
+
+    void clear() {
+        lines.clear();
+        positions.clear();
+        subtotalCents = 0;
+        units = 0;
+    }
+
+    /**
+     * Live, read-only view of the lines.
+     */
+    List<CartItem> asList() {
+        return readOnly;
+    }
+
+    double getSubtotal() {
+        return subtotalCents / 100.0;
+    }
+
+    int getUnits() {
+        return units;
+    }
+
+    private void count(CartItem item, int sign) {
+        subtotalCents += sign * Math.round(item.getPrice() * 100) * item.getQuantity();
+        units += sign * item.getQuantity();
+    }
+}
@@ -1,46 +1,268 @@
 package com.eduvos.nutec.manager;
 
+import android.content.Context;
+
 import com.eduvos.nutec.pojo.CartItem;
 import com.eduvos.nutec.pojo.ProductItem;
+import com.eduvos.nutec.util.AppExecutors;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
+/**
+ * The cart, kept in memory and saved through a CartJournal so it survives the process being
+ * killed. Every change goes through this class so it can be journaled; use it from the main
+ * thread only.
+ *
+ * Lines are keyed by SKU (see CartLines), so adding, updating and removing never scan the cart,
+ * and the subtotal is kept as lines change.
+ *
+ * Readers get an immutable ListSnapshot of the lines, swapped in after every change, so they
+ * never lock and can hold on to it from any thread. Changes are made under the manager's lock;
+ * batch() makes several of them one published version. Each version is handed to the
+ * CartListeners with the inserted, updated and removed lines that led to it, so screens redraw
+ * only those lines.
+ */
 public class CartManager {
 
+    /**
+     * One change to the cart's lines.
+     */
+    public static final class Change {
+        public enum Type {
+            INSERTED,
+            UPDATED,
+            REMOVED,
+            // Everything changed: cleared, or the saved cart was restored
+            RESET
+        }
+
+        public final Type type;
+        // Position of the line; -1 for RESET
+        public final int position;
+        // The line as it is now, or as it was for REMOVED; null for RESET
+        public final CartItem item;
+        // The line before an UPDATED change, otherwise null
+        public final CartItem previous;
+
+        Change(Type type, int position, CartItem item) {
+            this(type, position, item, null);
+        }
+
+        Change(Type type, int position, CartItem item, CartItem previous) {
+            this.type = type;
+            this.position = position;
+            this.item = item;
+            this.previous = previous;
+        }
+
+        static final Change RESET = new Change(Type.RESET, -1, null);
+    }
+
+    /**
+     * Called on the main thread once per published version of the cart.
+     */
+    public interface CartListener {
+        /**
+         * @param cart the new version
+         * @param changes the changes from version cart.getVersion() - 1 to this one, in order
+         */
+        void onCartChanged(ListSnapshot<CartItem> cart, List<Change> changes);
+    }
+
+    // One published version: the lines and their totals
+    private static final class State {
+        static final State EMPTY = new State(ListSnapshot.empty(), 0, 0);
+
+        final ListSnapshot<CartItem> items;
+        final double subtotal;
+        final int units;
+
+        State(ListSnapshot<CartItem> items, double subtotal, int units) {
+            this.items = items;
+            this.subtotal = subtotal;
+            this.units = units;
+        }
+    }
+
     private static CartManager instance;
-    private List<CartItem> cartItems = new ArrayList<>();
 
-    // Private constructor to prevent anyone else from creating an instance
-    private CartManager() {}
+    private final Executor mainThread;
+    // Main thread only
+    private final List<CartListener> listeners = new ArrayList<>();
+
+    private volatile State state = State.EMPTY;
+
+    // Guarded by this
+    private final CartLines cartItems = new CartLines();
+    private CartJournal journal;
+    private boolean restored;
+    // Changes made before the saved cart was read, replayed on top of it
+    private final List<CartJournal.Record> beforeRestore = new ArrayList<>();
+    private int batchDepth;
+    // Changes not published yet
+    private final List<Change> unpublished = new ArrayList<>();
+
+    // Package-private so tests can run the restore without a Looper
+    CartManager(Executor mainThread) {
+        this.mainThread = mainThread;
+    }
 
     // The only way to get the instance of this class
     public static synchronized CartManager getInstance() {
         if (instance == null) {
-            instance = new CartManager();
+            instance = new CartManager(AppExecutors.getInstance().mainThread());
         }
         return instance;
     }
 
-    public void addToCart(ProductItem product) {
-        // Check if the item is already in the cart
-        for (CartItem item : cartItems) {
-            if (item.getProductName().equals(product.getName())) {
-                // If it is, just increase the quantity
-                item.setQuantity(item.getQuantity() + 1);
-                return; // Exit the method
+    /**
+     * Restores the saved cart on the disk thread. Called once from NuTecApplication.
+     */
+    public void initialize(Context context) {
+        attach(new CartJournal(context.getApplicationContext().getFilesDir(),
+                AppExecutors.getInstance().diskIO()), AppExecutors.getInstance().diskIO());
+    }
+
+    synchronized void attach(CartJournal journal, Executor diskIO) {
+        if (this.journal != null) return;
+        this.journal = journal;
+        diskIO.execute(() -> {
+            List<CartItem> saved = journal.restore();
+            mainThread.execute(() -> onRestored(saved));
+        });
+    }
+
+    private synchronized void onRestored(List<CartItem> saved) {
+        cartItems.clear();
+        for (CartItem item : saved) {
+            cartItems.put(item);
+        }
+        for (CartJournal.Record change : beforeRestore) {
+            change.applyTo(cartItems);
+        }
+        beforeRestore.clear();
+        restored = true;
+        compactIfNeeded();
+        unpublished.add(Change.RESET);
+        if (batchDepth == 0) publish();
+    }
+
+    /**
+     * Runs the edits as one change: readers see all of them or none, in one new version.
+     */
+    public void batch(Runnable edits) {
+        synchronized (this) {
+            batchDepth++;
+            try {
+                edits.run();
+            } finally {
+                if (--batchDepth == 0 && !unpublished.isEmpty()) publish();
             }
         }
+    }
+
+    public synchronized void addToCart(ProductItem product) {
+        // Already in the cart: one more of it
+        int position = cartItems.indexOf(CartItem.keyOf(product));
+        if (position >= 0) {
+            CartItem item = cartItems.get(position);
+            setQuantity(item, item.getQuantity() + 1);
+            return;
+        }
+
+        CartItem item = new CartItem(product.getName(), product.getSku(), product.getPrice(), 1);
+        apply(cartItems.put(item), CartJournal.Record.put(item));
+    }
 
-        // If the item is not in the cart, add it as a new item
-        cartItems.add(new CartItem(product.getName(), product.getPrice(), 1));
+    /**
+     * Changes the quantity of a line that is in the cart.
+     */
+    public synchronized void setQuantity(CartItem item, int quantity) {
+        int position = cartItems.indexOf(item.getKey());
+        if (position < 0 || cartItems.get(position).getQuantity() == quantity) return;
+        CartItem updated = cartItems.get(position).withQuantity(quantity);
+        apply(cartItems.put(updated), CartJournal.Record.put(updated));
     }
 
-    public List<CartItem> getCartItems() {
-        return cartItems;
+    public synchronized void removeItem(CartItem item) {
+        Change change = cartItems.remove(item.getKey());
+        if (change != null) apply(change, CartJournal.Record.remove(change.item));
     }
 
-    public void clearCart() {
+    /**
+     * The latest published lines, in the order they were added.
+     */
+    public ListSnapshot<CartItem> getCartItems() {
+        return state.items;
+    }
+
+    /**
+     * Sum of price times quantity over all lines of the latest version.
+     */
+    public double getSubtotal() {
+        return state.subtotal;
+    }
+
+    /**
+     * Number of units over all lines of the latest version.
+     */
+    public int getUnitCount() {
+        return state.units;
+    }
+
+    public synchronized void clearCart() {
         cartItems.clear();
+        apply(Change.RESET, CartJournal.Record.clear());
+    }
+
+    // Main thread only, like the callbacks
+    public void addCartListener(CartListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeCartListener(CartListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Called with the lock held
+    private void apply(Change change, CartJournal.Record record) {
+        if (journal != null) {
+            if (!restored) beforeRestore.add(record);
+            journal.append(record);
+            compactIfNeeded();
+        }
+        unpublished.add(change);
+        if (batchDepth == 0) publish();
+    }
+
+    // Called with the lock held
+    private void publish() {
+        List<Change> changes = new ArrayList<>(unpublished);
+        unpublished.clear();
+        // A reset in the batch makes the changes before it meaningless
+        for (int i = changes.size() - 1; i > 0; i--) {
+            if (changes.get(i).type == Change.Type.RESET) {
+                changes = new ArrayList<>(changes.subList(i, changes.size()));
+                break;
+            }
+        }
+        State published = new State(ListSnapshot.of(state.items.getVersion() + 1, cartItems.asList()),
+                cartItems.getSubtotal(), cartItems.getUnits());
+        state = published;
+        List<Change> delivered = changes;
+        mainThread.execute(() -> {
+            for (CartListener listener : new ArrayList<>(listeners)) {
+                listener.onCartChanged(published.items, delivered);
+            }
+        });
+    }
+
+    private void compactIfNeeded() {
+        // Before the restore the in-memory cart is not the whole cart, so it cannot be a snapshot
+        if (restored && journal.needsCompaction()) {
+            journal.compact(cartItems.asList());
+        }
     }
 }
@@ -0,0 +1,50 @@
+package com.eduvos.nutec.manager;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list published by one of the managers, with the version it was published as.
+ * Managers swap in a new snapshot through a volatile field after each change (or batch of
+ * changes), so any thread can read and keep one without locking, and it never changes under it.
+ *
+ * Versions go up by one per published change, so a reader holding version n knows whether the
+ * changes it was told about lead straight to version n + 1 or whether it missed some.
+ */
+public final class ListSnapshot<T> extends AbstractList<T> implements RandomAccess {
+
+    private static final ListSnapshot<Object> EMPTY = new ListSnapshot<>(0, new Object[0]);
+
+    private final long version;
+    private final Object[] items;
+
+    private ListSnapshot(long version, Object[] items) {
+        this.version = version;
+        this.items = items;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> ListSnapshot<T> empty() {
+        return (ListSnapshot<T>) EMPTY;
+    }
+
+    static <T> ListSnapshot<T> of(long version, Collection<? extends T> items) {
+        return new ListSnapshot<>(version, items.toArray());
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        return (T) items[index];
+    }
+
+    @Override
+    public int size() {
+        return items.length;
+    }
+}
@@ -1,20 +1,60 @@
 package com.eduvos.nutec.manager;
 
+import android.content.Context;
+import android.util.Log;
+
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.eduvos.nutec.pojo.AppNotification;
+import com.eduvos.nutec.util.AppExecutors;
 
-import java.util.ArrayList;
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.Executor;
+
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ByteString;
+import okio.Okio;
 
+/**
+ * The in-app notifications, newest first, kept in a NotificationRing so only the newest
+ * getRetentionLimit() are held and saved. The unread count is kept up to date as notifications
+ * are added, read and dropped, so the badge never rescans the list.
+ *
+ * Readers get an immutable ListSnapshot, swapped in after every change (or batch() of changes),
+ * so they never lock. The notifications are saved to a file on the disk thread and read back at
+ * startup. Safe to use from any thread.
+ */
 public class NotificationManager {
+    private static final String TAG = "NotificationManager";
+
+    static final String FILE_NAME = "notifications.bin";
+    private static final String FILE_MAGIC = "NTN1";
+
+    // Older notifications are dropped once there are this many
+    public static final int DEFAULT_RETENTION_LIMIT = 100;
 
     private static NotificationManager instance;
-    private final List<AppNotification> notifications = new ArrayList<>();
+    // Guarded by this
+    private final NotificationRing notifications = new NotificationRing(DEFAULT_RETENTION_LIMIT);
+    private int batchDepth;
+    private boolean unpublished;
+
+    private volatile ListSnapshot<AppNotification> snapshot = ListSnapshot.empty();
 
     // LiveData to automatically update the UI when the unread count changes
     private final MutableLiveData<Integer> unreadCount = new MutableLiveData<>(0);
+    private int postedUnreadCount;
+
+    private File file;
+    private Executor diskIO;
+    private boolean loaded;
+    private boolean writeQueued;
+    // Set by a clear() that came before the load, so the saved notifications are not read back
+    private boolean discardSaved;
 
     private NotificationManager() {}
 
@@ -25,33 +65,202 @@ public class NotificationManager {
         return instance;
     }
 
-    public void addNotification(AppNotification notification) {
-        notifications.add(0, notification); // Add new notifications to the top
-        updateUnreadCount();
+    /**
+     * Reads the saved notifications on the disk thread. Called once from NuTecApplication.
+     */
+    public synchronized void initialize(Context context) {
+        if (file != null) return;
+        file = new File(context.getApplicationContext().getFilesDir(), FILE_NAME);
+        diskIO = AppExecutors.getInstance().diskIO();
+        diskIO.execute(this::load);
     }
 
-    public List<AppNotification> getNotifications() {
-        return notifications;
+    public synchronized void addNotification(AppNotification notification) {
+        notifications.add(notification); // Newest at the top, the oldest drops off when full
+        changed();
+    }
+
+    /**
+     * Runs the edits as one change: readers see all of them or none, in one new version.
+     */
+    public void batch(Runnable edits) {
+        synchronized (this) {
+            batchDepth++;
+            try {
+                edits.run();
+            } finally {
+                if (--batchDepth == 0 && unpublished) changed();
+            }
+        }
+    }
+
+    /**
+     * The latest published notifications, newest first.
+     */
+    public ListSnapshot<AppNotification> getNotifications() {
+        return snapshot;
+    }
+
+    public int getNotificationCount() {
+        return snapshot.size();
+    }
+
+    /**
+     * @param position 0 is the newest notification
+     */
+    public AppNotification getNotification(int position) {
+        return snapshot.get(position);
     }
 
     public LiveData<Integer> getUnreadCount() {
         return unreadCount;
     }
 
-    public void markAllAsRead() {
-        for (AppNotification notification : notifications) {
-            notification.setRead(true);
+    public synchronized void markAsRead(AppNotification notification) {
+        if (notifications.markRead(notification)) changed();
+    }
+
+    public synchronized void markAllAsRead() {
+        if (notifications.markAllRead() > 0) changed();
+    }
+
+    public synchronized int getRetentionLimit() {
+        return notifications.capacity();
+    }
+
+    /**
+     * Changes how many notifications are kept, dropping the oldest ones if there are too many.
+     */
+    public synchronized void setRetentionLimit(int limit) {
+        notifications.resize(limit);
+        changed();
+    }
+
+    /**
+     * Drops every notification and deletes the saved file (logout), so the next account
+     * starts with none.
+     */
+    public synchronized void clear() {
+        notifications.clear();
+        unpublished = false;
+        publishSnapshot();
+        publishUnreadCount();
+        if (file == null) return;
+
+        if (!loaded) discardSaved = true;
+        File saved = file;
+        // Runs after any write already queued, so nothing is written back after it
+        diskIO.execute(() -> {
+            if (saved.exists() && !saved.delete()) {
+                Log.w(TAG, "Could not delete " + saved);
+            }
+        });
+    }
+
+    // Called with the lock held
+    private void changed() {
+        if (batchDepth > 0) {
+            unpublished = true;
+            return;
         }
-        updateUnreadCount();
+        unpublished = false;
+        publishSnapshot();
+        publishUnreadCount();
+        queueWrite();
     }
 
-    private void updateUnreadCount() {
-        int count = 0;
-        for (AppNotification notification : notifications) {
-            if (!notification.isRead()) {
-                count++;
+    private void publishSnapshot() {
+        snapshot = ListSnapshot.of(snapshot.getVersion() + 1, notifications.toList());
+    }
+
+    private void publishUnreadCount() {
+        int count = notifications.unreadCount();
+        if (count != postedUnreadCount) {
+            postedUnreadCount = count;
+            unreadCount.postValue(count); // Use postValue for thread-safety
+        }
+    }
+
+    private void queueWrite() {
+        // Before the load a write would replace the saved notifications; the load writes instead
+        if (file == null || !loaded || writeQueued) return;
+        writeQueued = true;
+        diskIO.execute(this::save);
+    }
+
+    private void load() {
+        AppNotification[] saved = new AppNotification[0];
+        if (file.exists()) {
+            try (BufferedSource source = Okio.buffer(Okio.source(file))) {
+                if (!FILE_MAGIC.equals(source.readUtf8(FILE_MAGIC.length()))) {
+                    throw new IOException("Unknown notifications file format");
+                }
+                saved = new AppNotification[source.readInt()];
+                for (int i = 0; i < saved.length; i++) {
+                    String title = readString(source);
+                    String details = readString(source);
+                    long timestamp = source.readLong();
+                    byte flags = source.readByte();
+                    saved[i] = new AppNotification(title, details, timestamp, (flags & 1) != 0, (flags & 2) != 0);
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "Could not read the saved notifications", e);
+                saved = new AppNotification[0];
+            }
+        }
+
+        synchronized (this) {
+            if (discardSaved) saved = new AppNotification[0];
+            boolean addedBeforeLoad = notifications.size() > 0;
+            // Saved ones are older than anything added since the app started
+            for (AppNotification notification : saved) {
+                if (notification == null || !notifications.addOldest(notification)) break;
             }
+            loaded = true;
+            publishSnapshot();
+            publishUnreadCount();
+            if (addedBeforeLoad) queueWrite();
         }
-        unreadCount.postValue(count); // Use postValue for thread-safety
+    }
+
+    private void save() {
+        List<AppNotification> snapshot;
+        synchronized (this) {
+            writeQueued = false;
+            snapshot = this.snapshot;
+        }
+
+        // Write next to the old file and swap, so a crash never leaves a half-written file
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            try (BufferedSink sink = Okio.buffer(Okio.sink(temp))) {
+                sink.writeUtf8(FILE_MAGIC).writeInt(snapshot.size());
+                for (AppNotification notification : snapshot) {
+                    writeString(sink, notification.getTitle());
+                    writeString(sink, notification.getDetails());
+                    sink.writeLong(notification.getTimestamp());
+                    sink.writeByte((notification.wasSuccess() ? 1 : 0) | (notification.isRead() ? 2 : 0));
+                }
+            }
+            if (!temp.renameTo(file)) {
+                throw new IOException("Could not replace " + file);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Could not save the notifications", e);
+        }
+    }
+
+    private static void writeString(BufferedSink sink, String value) throws IOException {
+        if (value == null) {
+            sink.writeInt(-1);
+            return;
+        }
+        ByteString bytes = ByteString.encodeUtf8(value);
+        sink.writeInt(bytes.size()).write(bytes);
+    }
+
+    private static String readString(BufferedSource source) throws IOException {
+        int length = source.readInt();
+        return length < 0 ? null : source.readUtf8(length);
     }
 }
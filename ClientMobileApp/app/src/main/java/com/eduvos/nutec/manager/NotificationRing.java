@@ -0,0 +1,153 @@
+package com.eduvos.nutec.manager;
+
+import com.eduvos.nutec.pojo.AppNotification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-size ring of notifications, newest first. Adding one, reading any position and the
+ * unread count are all O(1); once the ring is full, adding drops the oldest notification.
+ * Notifications are immutable, so marking one read swaps in a read copy.
+ *
+ * Not thread-safe, NotificationManager locks around it.
+ */
+final class NotificationRing {
+
+    private AppNotification[] slots;
+    // Slot of the newest notification
+    private int head;
+    private int size;
+    private int unread;
+
+    NotificationRing(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+        slots = new AppNotification[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    int unreadCount() {
+        return unread;
+    }
+
+    /**
+     * @param position 0 is the newest notification
+     */
+    AppNotification get(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("position " + position + ", size " + size);
+        }
+        return slots[(head + position) % slots.length];
+    }
+
+    /**
+     * Adds a notification as the newest one.
+     *
+     * @return the oldest notification if it had to make room for this one, otherwise null
+     */
+    AppNotification add(AppNotification notification) {
+        // When the ring is full the slot before the head is the oldest notification
+        head = (head + slots.length - 1) % slots.length;
+        AppNotification evicted = slots[head];
+        slots[head] = notification;
+        if (evicted != null && !evicted.isRead()) unread--;
+        if (!notification.isRead()) unread++;
+        if (size < slots.length) size++;
+        return evicted;
+    }
+
+    /**
+     * Adds a notification behind the oldest one, for loading saved notifications newest first.
+     *
+     * @return false if the ring is already full
+     */
+    boolean addOldest(AppNotification notification) {
+        if (size == slots.length) return false;
+        slots[(head + size) % slots.length] = notification;
+        size++;
+        if (!notification.isRead()) unread++;
+        return true;
+    }
+
+    /**
+     * Replaces the notification with a read copy.
+     *
+     * @return true if it is in the ring and was unread
+     */
+    boolean markRead(AppNotification notification) {
+        if (notification.isRead()) return false;
+        // Unread notifications are usually the newest, so this stops early
+        for (int i = 0; i < size; i++) {
+            int slot = (head + i) % slots.length;
+            if (slots[slot] == notification) {
+                slots[slot] = notification.asRead();
+                unread--;
+                return true;
+            }
+        }
+        // Already dropped from the ring, or already replaced by a read copy
+        return false;
+    }
+
+    /**
+     * @return how many notifications were unread
+     */
+    int markAllRead() {
+        int marked = unread;
+        for (int i = 0; i < size && unread > 0; i++) {
+            int slot = (head + i) % slots.length;
+            if (!slots[slot].isRead()) {
+                slots[slot] = slots[slot].asRead();
+                unread--;
+            }
+        }
+        return marked;
+    }
+
+    /**
+     * Changes the capacity, keeping the newest notifications that fit.
+     */
+    void resize(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+        if (capacity == slots.length) return;
+        AppNotification[] resized = new AppNotification[capacity];
+        int kept = Math.min(size, capacity);
+        int keptUnread = 0;
+        for (int i = 0; i < kept; i++) {
+            resized[i] = get(i);
+            if (!resized[i].isRead()) keptUnread++;
+        }
+        slots = resized;
+        head = 0;
+        size = kept;
+        unread = keptUnread;
+    }
+
+    /**
+     * Drops every notification, keeping the capacity.
+     */
+    void clear() {
+        slots = new AppNotification[slots.length];
+        head = 0;
+        size = 0;
+        unread = 0;
+    }
+
+    /**
+     * Copy of the notifications, newest first.
+     */
+    List<AppNotification> toList() {
+        List<AppNotification> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(get(i));
+        }
+        return list;
+    }
+}
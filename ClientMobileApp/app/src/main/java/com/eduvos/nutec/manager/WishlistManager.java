@@ -3,15 +3,33 @@ package com.eduvos.nutec.manager;
 import com.eduvos.nutec.pojo.ProductItem;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * The wishlist, in the order products were added, with a hash index from product key (the SKU,
+ * see ProductItem.keyOf) to position.
+ *
+ * Changes are made under the manager's lock, and each one (or each batch()) publishes an
+ * immutable ListSnapshot of the products and a WishlistMembership, which product lists read
+ * while binding rows to draw the heart icons. Reading either is a single volatile read.
+ */
 public class WishlistManager {
 
     private static WishlistManager instance;
-    private List<ProductItem> wishlistItems = new ArrayList<>();
 
-    // Private constructor to ensure it's a singleton
-    private WishlistManager() {}
+    // Guarded by this
+    private final List<ProductItem> wishlistItems = new ArrayList<>();
+    private final Map<String, Integer> positions = new HashMap<>();
+    private int batchDepth;
+    private boolean unpublished;
+
+    private volatile ListSnapshot<ProductItem> snapshot = ListSnapshot.empty();
+    private volatile WishlistMembership membership = WishlistMembership.EMPTY;
+
+    // Package-private so tests can start from an empty wishlist
+    WishlistManager() {}
 
     // Public method to get the single instance of this class
     public static synchronized WishlistManager getInstance() {
@@ -28,33 +46,79 @@ public class WishlistManager {
      * @param product The product to add or remove.
      * @return true if the item was added, false if it was removed.
      */
-    public boolean toggleWishlist(ProductItem product) {
-        for (ProductItem item : wishlistItems) {
-            // Use a unique identifier if available, otherwise name is okay for this example
-            if (item.getName().equals(product.getName())) {
-                wishlistItems.remove(item); // Item was in the list, so remove it
-                return false;
+    public synchronized boolean toggleWishlist(ProductItem product) {
+        Integer position = positions.remove(product.getKey());
+        if (position != null) {
+            // Item was in the list, so remove it and move the later ones up
+            wishlistItems.remove((int) position);
+            for (int i = position; i < wishlistItems.size(); i++) {
+                positions.put(wishlistItems.get(i).getKey(), i);
             }
+            changed();
+            return false;
         }
+        positions.put(product.getKey(), wishlistItems.size());
         wishlistItems.add(product); // Item was not in the list, so add it
+        changed();
         return true;
     }
 
+    /**
+     * Runs the edits as one change: readers see all of them or none, in one new version.
+     */
+    public void batch(Runnable edits) {
+        synchronized (this) {
+            batchDepth++;
+            try {
+                edits.run();
+            } finally {
+                if (--batchDepth == 0 && unpublished) publish();
+            }
+        }
+    }
+
     /**
      * Checks if a product is in the wishlist.
      * @param product The product to check.
      * @return true if the item is in the wishlist, false otherwise.
      */
     public boolean isProductInWishlist(ProductItem product) {
-        for (ProductItem item : wishlistItems) {
-            if (item.getName().equals(product.getName())) {
-                return true;
-            }
-        }
-        return false;
+        return membership.contains(product);
+    }
+
+    /**
+     * @return the product's position in getWishlistItems(), or -1
+     */
+    public synchronized int indexOf(ProductItem product) {
+        Integer position = positions.get(product.getKey());
+        return position == null ? -1 : position;
+    }
+
+    /**
+     * The current membership snapshot. It never changes; a new one replaces it on every change.
+     */
+    public WishlistMembership getMembership() {
+        return membership;
+    }
+
+    /**
+     * The latest published wishlist, in the order products were added.
+     */
+    public ListSnapshot<ProductItem> getWishlistItems() {
+        return snapshot;
+    }
+
+    // Called with the lock held
+    private void changed() {
+        unpublished = true;
+        if (batchDepth == 0) publish();
     }
 
-    public List<ProductItem> getWishlistItems() {
-        return wishlistItems;
+    private void publish() {
+        unpublished = false;
+        ListSnapshot<ProductItem> items = ListSnapshot.of(snapshot.getVersion() + 1, wishlistItems);
+        // Rebuilt rather than patched, a batch may have added and removed the same product
+        membership = WishlistMembership.of(items);
+        snapshot = items;
     }
 }
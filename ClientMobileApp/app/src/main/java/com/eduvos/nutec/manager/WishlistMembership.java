@@ -0,0 +1,67 @@
+package com.eduvos.nutec.manager;
+
+import com.eduvos.nutec.pojo.ProductItem;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Which products are on the wishlist, as one immutable snapshot. SKUs are bits in a BitSet, so
+ * a lookup while binding a row is a shift and a mask; products without a SKU (and the odd SKU
+ * too large for the bitset) fall back to a set of keys.
+ *
+ * WishlistManager publishes a new snapshot on every change, so adapters can keep reading the
+ * one they have from any thread without locking.
+ */
+public final class WishlistMembership {
+
+    // Larger SKUs go in the key set, so one odd SKU cannot make the bitset huge (2^20 bits = 128 KB)
+    static final int MAX_BITSET_SKU = 1 << 20;
+
+    public static final WishlistMembership EMPTY = new WishlistMembership(new BitSet(), Collections.emptySet());
+
+    private final BitSet skus;
+    private final Set<String> otherKeys;
+    private final int size;
+
+    private WishlistMembership(BitSet skus, Set<String> otherKeys) {
+        this.skus = skus;
+        this.otherKeys = otherKeys;
+        this.size = skus.cardinality() + otherKeys.size();
+    }
+
+    /**
+     * Builds the snapshot for a whole wishlist.
+     */
+    static WishlistMembership of(Iterable<ProductItem> products) {
+        BitSet skus = new BitSet();
+        Set<String> otherKeys = new HashSet<>();
+        for (ProductItem product : products) {
+            if (inBitset(product.getSku())) {
+                skus.set(product.getSku());
+            } else {
+                otherKeys.add(product.getKey());
+            }
+        }
+        return new WishlistMembership(skus, Collections.unmodifiableSet(otherKeys));
+    }
+
+    public boolean contains(int sku, String name) {
+        if (inBitset(sku)) return skus.get(sku);
+        return !otherKeys.isEmpty() && otherKeys.contains(ProductItem.keyOf(sku, name));
+    }
+
+    public boolean contains(ProductItem product) {
+        return contains(product.getSku(), product.getName());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static boolean inBitset(int sku) {
+        return sku > 0 && sku < MAX_BITSET_SKU;
+    }
+}
@@ -0,0 +1,60 @@
+package com.eduvos.nutec.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency and payload histograms for a single ApiService method.
+ * Latencies are in milliseconds, payloads in bytes as read from / written to the socket.
+ */
+public class EndpointMetrics {
+
+    private static final long MAX_LATENCY_MS = 5 * 60 * 1000;     // 5 minutes
+    private static final long MAX_PAYLOAD_BYTES = 512L * 1024 * 1024; // 512 MB
+
+    private final String name;
+
+    final FixedHistogram dns = new FixedHistogram(MAX_LATENCY_MS);
+    final FixedHistogram connect = new FixedHistogram(MAX_LATENCY_MS);
+    final FixedHistogram ttfb = new FixedHistogram(MAX_LATENCY_MS);
+    final FixedHistogram total = new FixedHistogram(MAX_LATENCY_MS);
+    final FixedHistogram requestBytes = new FixedHistogram(MAX_PAYLOAD_BYTES);
+    final FixedHistogram responseBytes = new FixedHistogram(MAX_PAYLOAD_BYTES);
+
+    final AtomicLong calls = new AtomicLong();
+    final AtomicLong failures = new AtomicLong();
+    final AtomicLong cacheHits = new AtomicLong();
+
+    EndpointMetrics(String name) {
+        this.name = name;
+    }
+
+    public String getName() { return name; }
+    public FixedHistogram getDns() { return dns; }
+    public FixedHistogram getConnect() { return connect; }
+    public FixedHistogram getTtfb() { return ttfb; }
+    public FixedHistogram getTotal() { return total; }
+    public FixedHistogram getRequestBytes() { return requestBytes; }
+    public FixedHistogram getResponseBytes() { return responseBytes; }
+    public long getCalls() { return calls.get(); }
+    public long getFailures() { return failures.get(); }
+    public long getCacheHits() { return cacheHits.get(); }
+
+    void appendReport(StringBuilder out) {
+        out.append(String.format(Locale.US, "%s  calls=%d failed=%d cacheHits=%d%n",
+                name, calls.get(), failures.get(), cacheHits.get()));
+        appendLine(out, "dns ms", dns);
+        appendLine(out, "connect ms", connect);
+        appendLine(out, "ttfb ms", ttfb);
+        appendLine(out, "total ms", total);
+        appendLine(out, "req bytes", requestBytes);
+        appendLine(out, "resp bytes", responseBytes);
+    }
+
+    private static void appendLine(StringBuilder out, String label, FixedHistogram histogram) {
+        if (histogram.getCount() == 0) return;
+        out.append(String.format(Locale.US, "  %-10s n=%-5d p50=%-8d p95=%-8d p99=%-8d max=%d%n",
+                label, histogram.getCount(), histogram.percentile(50), histogram.percentile(95),
+                histogram.percentile(99), histogram.getMax()));
+    }
+}
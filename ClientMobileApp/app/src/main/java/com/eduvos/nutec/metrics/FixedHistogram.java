@@ -0,0 +1,103 @@
+package com.eduvos.nutec.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram with a fixed number of exponentially sized buckets, so memory never grows
+ * no matter how many values are recorded. Each bucket is ~20% wider than the one before,
+ * which means percentiles are accurate to within ~20% of the real value.
+ *
+ * Thread-safe: record() can be called from any OkHttp thread.
+ */
+public class FixedHistogram {
+
+    private static final double GROWTH = 1.2;
+
+    private final long[] upperBounds;
+    private final AtomicLongArray counts;
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param maxValue values above this land in the last bucket
+     */
+    public FixedHistogram(long maxValue) {
+        int buckets = 1;
+        double bound = 1;
+        while (bound < maxValue) {
+            bound = Math.ceil(bound * GROWTH);
+            buckets++;
+        }
+
+        upperBounds = new long[buckets];
+        bound = 1;
+        for (int i = 0; i < buckets; i++) {
+            upperBounds[i] = (long) bound;
+            bound = Math.ceil(bound * GROWTH);
+        }
+        counts = new AtomicLongArray(buckets);
+    }
+
+    public void record(long value) {
+        if (value < 0) return;
+
+        counts.incrementAndGet(bucketFor(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+
+        long currentMax;
+        do {
+            currentMax = max.get();
+        } while (value > currentMax && !max.compareAndSet(currentMax, value));
+    }
+
+    /**
+     * @param percentile between 0 and 100, e.g. 95 for p95
+     * @return the upper bound of the bucket holding that percentile, or 0 if nothing was recorded
+     */
+    public long percentile(double percentile) {
+        long total = count.get();
+        if (total == 0) return 0;
+
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < upperBounds.length; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                // The last bucket also holds everything above maxValue
+                return i == upperBounds.length - 1 ? max.get() : Math.min(upperBounds[i], max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long total = count.get();
+        return total == 0 ? 0 : (double) sum.get() / total;
+    }
+
+    private int bucketFor(long value) {
+        // Binary search for the first bucket whose upper bound holds the value
+        int low = 0;
+        int high = upperBounds.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (upperBounds[mid] >= value) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+}
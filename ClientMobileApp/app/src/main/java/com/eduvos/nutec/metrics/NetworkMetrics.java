@@ -0,0 +1,101 @@
+package com.eduvos.nutec.metrics;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+import okhttp3.Request;
+import retrofit2.Invocation;
+
+/**
+ * Per-endpoint network histograms, fed by NetworkMetricsListener.
+ * Endpoints are named after the ApiService method that made the call, so the number of
+ * entries is bounded by the number of API methods.
+ */
+public class NetworkMetrics {
+
+    private static NetworkMetrics instance;
+
+    private final ConcurrentHashMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    private final long startedAt = System.currentTimeMillis();
+
+    private NetworkMetrics() {}
+
+    public static synchronized NetworkMetrics getInstance() {
+        if (instance == null) {
+            instance = new NetworkMetrics();
+        }
+        return instance;
+    }
+
+    public EndpointMetrics forRequest(Request request) {
+        return forEndpoint(endpointName(request));
+    }
+
+    public EndpointMetrics forEndpoint(String name) {
+        return endpoints.computeIfAbsent(name, EndpointMetrics::new);
+    }
+
+    public List<EndpointMetrics> getEndpoints() {
+        List<EndpointMetrics> list = new ArrayList<>(endpoints.values());
+        Collections.sort(list, Comparator.comparing(EndpointMetrics::getName));
+        return list;
+    }
+
+    /**
+     * ApiService method name, or the path for calls made outside Retrofit (token refresh etc.)
+     */
+    static String endpointName(Request request) {
+        Invocation invocation = request.tag(Invocation.class);
+        if (invocation != null) {
+            return invocation.method().getName();
+        }
+        return request.method() + " " + request.url().encodedPath();
+    }
+
+    /**
+     * Plain-text table with p50/p95/p99 for every endpoint, used by the debug screen and export.
+     */
+    public String report() {
+        StringBuilder out = new StringBuilder();
+        out.append("Network metrics since ")
+                .append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US).format(new Date(startedAt)))
+                .append('\n');
+
+        List<EndpointMetrics> list = getEndpoints();
+        if (list.isEmpty()) {
+            out.append("No requests recorded yet.\n");
+        }
+        for (EndpointMetrics endpoint : list) {
+            out.append('\n');
+            endpoint.appendReport(out);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Writes report() to a timestamped file in the given directory.
+     * Does disk I/O, so call it off the main thread.
+     */
+    public File exportTo(File directory) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        File file = new File(directory, "network-metrics-" + stamp + ".txt");
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(report());
+        }
+        return file;
+    }
+}
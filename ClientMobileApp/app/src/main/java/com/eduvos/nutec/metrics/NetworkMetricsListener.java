@@ -0,0 +1,136 @@
+package com.eduvos.nutec.metrics;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Times the phases of each call (DNS, connect, time to first byte, total) and counts the
+ * bytes on the wire, then records them in NetworkMetrics under the calling ApiService method.
+ *
+ * OkHttp creates one listener per call, so the fields below are never shared between calls.
+ * TTFB is measured from sending the request headers to receiving the response headers,
+ * i.e. server time plus one round-trip, without DNS/connect.
+ */
+public class NetworkMetricsListener extends EventListener {
+
+    public static final EventListener.Factory FACTORY = call -> new NetworkMetricsListener();
+
+    private long callStart;
+    private long dnsStart;
+    private long connectStart;
+    private long requestStart;
+    private long ttfbMs = -1;
+    private long responseBodyStart;
+    private long responseBodyMs;
+    private long requestBytes;
+    private long responseBytes;
+    private boolean cacheHit;
+
+    @Override
+    public void callStart(@NonNull Call call) {
+        callStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsStart(@NonNull Call call, @NonNull String domainName) {
+        dnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(@NonNull Call call, @NonNull String domainName, @NonNull List<InetAddress> inetAddressList) {
+        metrics(call).dns.record(millisSince(dnsStart));
+    }
+
+    @Override
+    public void connectStart(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress, @NonNull Proxy proxy) {
+        connectStart = System.nanoTime();
+    }
+
+    @Override
+    public void connectEnd(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress,
+                           @NonNull Proxy proxy, Protocol protocol) {
+        metrics(call).connect.record(millisSince(connectStart));
+    }
+
+    @Override
+    public void requestHeadersStart(@NonNull Call call) {
+        requestStart = System.nanoTime();
+    }
+
+    @Override
+    public void requestBodyEnd(@NonNull Call call, long byteCount) {
+        requestBytes += byteCount;
+    }
+
+    @Override
+    public void responseHeadersStart(@NonNull Call call) {
+        if (requestStart != 0) {
+            ttfbMs = millisSince(requestStart);
+            metrics(call).ttfb.record(ttfbMs);
+        }
+    }
+
+    @Override
+    public void responseBodyStart(@NonNull Call call) {
+        responseBodyStart = System.nanoTime();
+    }
+
+    @Override
+    public void responseBodyEnd(@NonNull Call call, long byteCount) {
+        responseBytes += byteCount;
+        responseBodyMs = millisSince(responseBodyStart);
+    }
+
+    @Override
+    public void cacheHit(@NonNull Call call, @NonNull Response cachedResponse) {
+        cacheHit = true;
+    }
+
+    @Override
+    public void callEnd(@NonNull Call call) {
+        finish(call, false);
+    }
+
+    @Override
+    public void callFailed(@NonNull Call call, @NonNull IOException ioe) {
+        finish(call, true);
+    }
+
+    private void finish(Call call, boolean failed) {
+        EndpointMetrics metrics = metrics(call);
+        metrics.calls.incrementAndGet();
+        if (failed) metrics.failures.incrementAndGet();
+        if (cacheHit) metrics.cacheHits.incrementAndGet();
+
+        metrics.total.record(millisSince(callStart));
+        // Only network calls moved bytes; cache hits would skew the payload histograms to 0
+        if (requestStart != 0) {
+            metrics.requestBytes.record(requestBytes);
+            metrics.responseBytes.record(responseBytes);
+        }
+        // Successful network calls also tell the data saver how good the link is
+        if (!failed && ttfbMs >= 0) {
+            NetworkQualityEstimator.getInstance().record(ttfbMs, responseBytes, responseBodyMs);
+        }
+    }
+
+    private static EndpointMetrics metrics(Call call) {
+        Request request = call.request();
+        return NetworkMetrics.getInstance().forRequest(request);
+    }
+
+    private static long millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
@@ -0,0 +1,141 @@
+package com.eduvos.nutec.metrics;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+
+/**
+ * Rough idea of how good the current connection is, from the app's own traffic:
+ *  - TTFB of every network call (server time + one round-trip)
+ *  - download throughput of responses big enough to measure it
+ *  - whether the system says the network is metered
+ *
+ * Both timings are exponentially weighted moving averages, so a few slow calls move the
+ * estimate but one outlier does not. Samples are dropped whenever the default network changes
+ * (Wi-Fi to mobile etc.), since they describe the old link.
+ */
+public class NetworkQualityEstimator {
+    private static final String TAG = "NetworkQuality";
+
+    public enum Quality { UNKNOWN, POOR, MODERATE, GOOD }
+
+    // Weight of the newest sample in the moving averages
+    private static final double ALPHA = 0.3;
+    // Below this a response is mostly latency, so it says nothing about bandwidth
+    static final long MIN_THROUGHPUT_BYTES = 8 * 1024;
+    // Calls needed before the estimate is trusted
+    static final int MIN_SAMPLES = 3;
+
+    static final long POOR_TTFB_MS = 1500;
+    static final long POOR_KBPS = 150;
+    static final long GOOD_TTFB_MS = 300;
+    static final long GOOD_KBPS = 2000;
+
+    private static NetworkQualityEstimator instance;
+
+    private double ttfbMs = -1;
+    private double throughputKbps = -1;
+    private int ttfbSamples;
+    private volatile boolean metered;
+
+    /**
+     * Separate instances are for tests, the app uses getInstance().
+     */
+    public NetworkQualityEstimator() {}
+
+    public static synchronized NetworkQualityEstimator getInstance() {
+        if (instance == null) {
+            instance = new NetworkQualityEstimator();
+        }
+        return instance;
+    }
+
+    /**
+     * Follows the default network's metered state, and forgets the timings when it changes.
+     */
+    public void watchConnectivity(Context context) {
+        ConnectivityManager cm = (ConnectivityManager) context.getApplicationContext()
+                .getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (cm == null) return;
+
+        metered = cm.isActiveNetworkMetered();
+        cm.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(@NonNull Network network) {
+                reset();
+            }
+
+            @Override
+            public void onCapabilitiesChanged(@NonNull Network network, @NonNull NetworkCapabilities capabilities) {
+                boolean nowMetered = !capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED);
+                if (nowMetered != metered) {
+                    Log.d(TAG, "Network is now " + (nowMetered ? "metered" : "unmetered"));
+                }
+                metered = nowMetered;
+            }
+        });
+    }
+
+    /**
+     * One finished network call (not a cache hit).
+     *
+     * @param ttfbMs     request sent to response headers received
+     * @param bodyBytes  response body size
+     * @param bodyMs     time spent downloading the body
+     */
+    public synchronized void record(long ttfbMs, long bodyBytes, long bodyMs) {
+        if (ttfbMs >= 0) {
+            this.ttfbMs = this.ttfbMs < 0 ? ttfbMs : ALPHA * ttfbMs + (1 - ALPHA) * this.ttfbMs;
+            ttfbSamples++;
+        }
+        if (bodyBytes >= MIN_THROUGHPUT_BYTES) {
+            // kbit/s == bits per millisecond; a body that arrived "instantly" counts as 1 ms
+            double kbps = bodyBytes * 8.0 / Math.max(1, bodyMs);
+            throughputKbps = throughputKbps < 0 ? kbps : ALPHA * kbps + (1 - ALPHA) * throughputKbps;
+        }
+    }
+
+    public synchronized void reset() {
+        ttfbMs = -1;
+        throughputKbps = -1;
+        ttfbSamples = 0;
+    }
+
+    public synchronized Quality getQuality() {
+        if (ttfbSamples < MIN_SAMPLES) return Quality.UNKNOWN;
+
+        boolean knownThroughput = throughputKbps >= 0;
+        if (ttfbMs >= POOR_TTFB_MS || (knownThroughput && throughputKbps < POOR_KBPS)) {
+            return Quality.POOR;
+        }
+        // Only call it good once a real download has shown the bandwidth
+        if (ttfbMs <= GOOD_TTFB_MS && knownThroughput && throughputKbps >= GOOD_KBPS) {
+            return Quality.GOOD;
+        }
+        return Quality.MODERATE;
+    }
+
+    public boolean isMetered() {
+        return metered;
+    }
+
+    // Normally set by watchConnectivity
+    public void setMetered(boolean metered) {
+        this.metered = metered;
+    }
+
+    @NonNull
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US, "%s%s (ttfb %s, %s)",
+                getQuality(), metered ? ", metered" : "",
+                ttfbMs < 0 ? "-" : Math.round(ttfbMs) + " ms",
+                throughputKbps < 0 ? "-" : Math.round(throughputKbps) + " kbps");
+    }
+}
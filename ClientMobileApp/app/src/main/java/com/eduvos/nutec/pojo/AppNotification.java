@@ -6,18 +6,24 @@
 
 package com.eduvos.nutec.pojo;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
+import com.eduvos.nutec.util.DisplayFormats;
 
+import java.util.concurrent.atomic.AtomicLong;
+
+// Immutable, so the NotificationManager's snapshots can be shared between threads
 public class AppNotification {
-    private String title;
-    private String details;
-    private long timestamp;
-    private boolean isRead;
-    private boolean wasSuccess;
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+    // Tells notifications apart in lists; not saved, only stable while the app runs
+    private final long id;
+    private final String title;
+    private final String details;
+    private final long timestamp;
+    private final boolean isRead;
+    private final boolean wasSuccess;
 
     public AppNotification(String title, String details, boolean wasSuccess) {
+        this.id = NEXT_ID.getAndIncrement();
         this.title = title;
         this.details = details;
         this.timestamp = System.currentTimeMillis();
@@ -25,7 +31,23 @@ public class AppNotification {
         this.isRead = false; // All new notifications start as unread
     }
 
+    // For notifications read back from disk
+    public AppNotification(String title, String details, long timestamp, boolean wasSuccess, boolean isRead) {
+        this(NEXT_ID.getAndIncrement(), title, details, timestamp, wasSuccess, isRead);
+    }
+
+    private AppNotification(long id, String title, String details, long timestamp, boolean wasSuccess, boolean isRead) {
+        this.id = id;
+        this.title = title;
+        this.details = details;
+        this.timestamp = timestamp;
+        this.wasSuccess = wasSuccess;
+        this.isRead = isRead;
+    }
+
     // --- Getters ---
+    public long getId() {
+        return id; }
     public String getTitle() {
         return title; }
     public String getDetails() {
@@ -34,13 +56,16 @@ public class AppNotification {
         return wasSuccess; }
     public boolean isRead() {
         return isRead; }
+    public long getTimestamp() {
+        return timestamp; }
 
     public String getFormattedTimestamp() {
-        SimpleDateFormat sdf = new SimpleDateFormat("dd MMM yyyy, HH:mm", Locale.getDefault());
-        return sdf.format(new Date(timestamp));
+        return DisplayFormats.timestamp(timestamp);
     }
 
-    // --- Setter ---
-    public void setRead(boolean read) { isRead = read; }
+    // Copy of this notification marked as read
+    public AppNotification asRead() {
+        return isRead ? this : new AppNotification(id, title, details, timestamp, wasSuccess, true);
+    }
 }
 
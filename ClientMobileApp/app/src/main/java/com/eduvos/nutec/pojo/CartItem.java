@@ -1,22 +1,52 @@
 package com.eduvos.nutec.pojo;
 
+// Immutable, so the CartManager's snapshots can be shared between threads
 public class CartItem {
-    private String productName;
-    private double price;
-    private int quantity;
+    private final String productName;
+    private final int sku;
+    private final double price;
+    private final int quantity;
 
 
     public CartItem(String productName, double price, int quantity) {
+        this(productName, 0, price, quantity);
+    }
+
+    public CartItem(String productName, int sku, double price, int quantity) {
         this.productName = productName;
+        this.sku = sku;
         this.price = price;
         this.quantity = quantity;
     }
 
+    /**
+     * What the cart is keyed by: the SKU, or the name for products without one.
+     */
+    public static String keyOf(int sku, String productName) {
+        return ProductItem.keyOf(sku, productName);
+    }
+
+    public static String keyOf(ProductItem product) {
+        return product.getKey();
+    }
+
     // --- Getters ---
+    public String getKey() {
+        return keyOf(sku, productName);
+    }
+
+    public long getStableId() {
+        return ProductItem.stableIdOf(sku, productName);
+    }
+
     public String getProductName() {
         return productName;
     }
 
+    public int getSku() {
+        return sku;
+    }
+
     public double getPrice() {
         return price;
     }
@@ -25,8 +55,10 @@ public class CartItem {
         return quantity;
     }
 
-    // --- Setters ---
-    public void setQuantity(int quantity) {
-        this.quantity = quantity;
+    /**
+     * Copy of this line with another quantity.
+     */
+    public CartItem withQuantity(int quantity) {
+        return new CartItem(productName, sku, price, quantity);
     }
 }
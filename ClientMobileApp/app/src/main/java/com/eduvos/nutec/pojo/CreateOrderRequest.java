@@ -1,23 +1,29 @@
 package com.eduvos.nutec.pojo;
 
+import com.eduvos.nutec.codegen.GenerateTypeAdapter;
 import com.google.gson.annotations.SerializedName;
 import java.util.List;
 
+@GenerateTypeAdapter
 public class CreateOrderRequest {
     @SerializedName("items")
-    private List<OrderItem> items;
+    List<OrderItem> items;
 
     @SerializedName("subtotal")
-    private double subtotal;
+    double subtotal;
 
     @SerializedName("deliveryFee")
-    private double deliveryFee;
+    double deliveryFee;
 
     @SerializedName("taxAmount")
-    private double taxAmount;
+    double taxAmount;
 
     @SerializedName("total")
-    private double total;
+    double total;
+
+    // For the generated JSON adapter
+    CreateOrderRequest() {
+    }
 
     public CreateOrderRequest(List<OrderItem> items, double subtotal, double deliveryFee,
                               double taxAmount, double total) {
@@ -1,17 +1,23 @@
 package com.eduvos.nutec.pojo;
 
+import com.eduvos.nutec.codegen.GenerateTypeAdapter;
 import com.google.gson.annotations.SerializedName;
 
 /**
  * Login request matching Core.Models.DTO.LoginRequestDto
  * Your API expects: Email and Password
  */
+@GenerateTypeAdapter
 public class LoginRequest {
     @SerializedName("email")
-    private String email;
+    String email;
 
     @SerializedName("password")
-    private String password;
+    String password;
+
+    // For the generated JSON adapter
+    LoginRequest() {
+    }
 
     public LoginRequest(String email, String password) {
         this.email = email;
@@ -1,35 +1,37 @@
 package com.eduvos.nutec.pojo;
 
+import com.eduvos.nutec.codegen.GenerateTypeAdapter;
 import com.google.gson.annotations.SerializedName;
 
 /**
  * Login response matching Core.Models.DTO.LoginResponseDto
  * Matches your API's exact response structure
  */
+@GenerateTypeAdapter
 public class LoginResponse {
     @SerializedName("success")
-    private boolean success;
+    boolean success;
 
     @SerializedName("message")
-    private String message;
+    String message;
 
     @SerializedName("userId")
-    private String userId;
+    String userId;
 
     @SerializedName("email")
-    private String email;
+    String email;
 
     @SerializedName("firstName")
-    private String firstName;
+    String firstName;
 
     @SerializedName("role")
-    private String role;
+    String role;
 
     @SerializedName("token")
-    private String token;
+    String token;
 
     @SerializedName("refreshToken")
-    private String refreshToken;
+    String refreshToken;
 
     // Getters
     public boolean isSuccess() {
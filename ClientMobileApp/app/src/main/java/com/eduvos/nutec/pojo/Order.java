@@ -1,37 +1,39 @@
 package com.eduvos.nutec.pojo;
 
+import com.eduvos.nutec.codegen.GenerateTypeAdapter;
 import com.google.gson.annotations.SerializedName;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
+@GenerateTypeAdapter
 public class Order {
     @SerializedName("id")
-    private String id;
+    String id;
 
     @SerializedName("orderNumber")
-    private String orderNumber;
+    String orderNumber;
 
     @SerializedName("items")
-    private List<OrderItem> items = new ArrayList<>();
+    List<OrderItem> items = new ArrayList<>();
 
     @SerializedName("subtotal")
-    private double subtotal;
+    double subtotal;
 
     @SerializedName("deliveryFee")
-    private double deliveryFee;
+    double deliveryFee;
 
     @SerializedName("taxAmount")
-    private double taxAmount;
+    double taxAmount;
 
     @SerializedName("total")
-    private double total;
+    double total;
 
     @SerializedName("status")
-    private String status;
+    String status;
 
     @SerializedName("createdAt")
-    private String createdAt;
+    String createdAt;
 
     // Getters
     public String getId() { return id; }
@@ -1,22 +1,28 @@
 package com.eduvos.nutec.pojo;
 
+import com.eduvos.nutec.codegen.GenerateTypeAdapter;
 import com.google.gson.annotations.SerializedName;
 
+@GenerateTypeAdapter
 public class OrderItem {
     @SerializedName("productName")
-    private String productName;
+    String productName;
 
     @SerializedName("sku")
-    private int sku;
+    int sku;
 
     @SerializedName("quantity")
-    private int quantity;
+    int quantity;
 
     @SerializedName("pricePerUnit")
-    private double pricePerUnit;
+    double pricePerUnit;
 
     @SerializedName("totalPrice")
-    private double totalPrice;
+    double totalPrice;
+
+    // For the generated JSON adapter
+    OrderItem() {
+    }
 
     // Constructor matching your old style (for backward compatibility)
     public OrderItem(String productName, int quantity, double price) {
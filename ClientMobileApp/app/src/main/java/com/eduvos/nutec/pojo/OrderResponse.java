@@ -1,18 +1,24 @@
 package com.eduvos.nutec.pojo;
 
+import com.eduvos.nutec.codegen.GenerateTypeAdapter;
 import com.google.gson.annotations.SerializedName;
 
+@GenerateTypeAdapter
 public class OrderResponse {
     @SerializedName("success")
-    private boolean success;
+    boolean success;
 
     @SerializedName("message")
-    private String message;
+    String message;
 
     @SerializedName("order")
-    private Order order;
+    Order order;
 
     public boolean isSuccess() { return success; }
     public String getMessage() { return message; }
     public Order getOrder() { return order; }
+
+    public void setSuccess(boolean success) { this.success = success; }
+    public void setMessage(String message) { this.message = message; }
+    public void setOrder(Order order) { this.order = order; }
 }
\ No newline at end of file
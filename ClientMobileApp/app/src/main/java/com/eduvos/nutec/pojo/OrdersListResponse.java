@@ -1,15 +1,20 @@
 package com.eduvos.nutec.pojo;
 
+import com.eduvos.nutec.codegen.GenerateTypeAdapter;
 import com.google.gson.annotations.SerializedName;
 import java.util.List;
 
+@GenerateTypeAdapter
 public class OrdersListResponse {
     @SerializedName("success")
-    private boolean success;
+    boolean success;
 
     @SerializedName("orders")
-    private List<Order> orders;
+    List<Order> orders;
 
     public boolean isSuccess() { return success; }
     public List<Order> getOrders() { return orders; }
+
+    public void setSuccess(boolean success) { this.success = success; }
+    public void setOrders(List<Order> orders) { this.orders = orders; }
 }
\ No newline at end of file
@@ -3,18 +3,51 @@ package com.eduvos.nutec.pojo;
 
 public class ProductItem implements ListItem {
     private String name;
+    private int sku; // 0 when the product has no SKU (the sample categories)
     private double price;
 
 
     public ProductItem(String name, double price) {
+        this(name, 0, price);
+    }
+
+    public ProductItem(String name, int sku, double price) {
         this.name = name;
+        this.sku = sku;
         this.price = price;
     }
 
+    /**
+     * Identifies a product in the cart and wishlist: the SKU, or the name for products without one.
+     */
+    public static String keyOf(int sku, String name) {
+        return sku > 0 ? "sku:" + sku : "name:" + name;
+    }
+
+    public String getKey() {
+        return keyOf(sku, name);
+    }
+
+    /**
+     * keyOf() as a number, for RecyclerView stable ids: the SKU itself, or a hash of the name
+     * above the range of SKUs.
+     */
+    public static long stableIdOf(int sku, String name) {
+        return sku > 0 ? sku : (1L << 32) | (name == null ? 0 : name.hashCode() & 0xFFFFFFFFL);
+    }
+
+    public long getStableId() {
+        return stableIdOf(sku, name);
+    }
+
     public String getName() {
         return name;
     }
 
+    public int getSku() {
+        return sku;
+    }
+
     public double getPrice() {
         return price;
     }
@@ -24,4 +57,3 @@ public class ProductItem implements ListItem {
         return TYPE_PRODUCT;
     }
 }
-
@@ -1,35 +1,37 @@
 package com.eduvos.nutec.pojo;
 
+import com.eduvos.nutec.codegen.GenerateTypeAdapter;
 import com.google.gson.annotations.SerializedName;
 
+@GenerateTypeAdapter
 public class ProductOrder {
 
     @SerializedName("sku")
-    private int sku;
+    int sku;
 
     @SerializedName("skuDescription")
-    private String skuDescription;
+    String skuDescription;
 
     @SerializedName("litres")
-    private int litres;
+    int litres;
 
     @SerializedName("userCode")
-    private String userCode;
+    String userCode;
 
     @SerializedName("orderDate")
-    private String orderDate;
+    String orderDate;
 
     @SerializedName("previousOrderDate")
-    private String previousOrderDate;
+    String previousOrderDate;
 
     @SerializedName("daysBetweenOrders")
-    private int daysBetweenOrders;
+    int daysBetweenOrders;
 
     @SerializedName("averageDailyUse")
-    private Double averageDailyUse;
+    Double averageDailyUse;
 
     @SerializedName("userId")
-    private String userId;
+    String userId;
 
     // GETTERS
     public int getSku() {
@@ -60,6 +62,14 @@ public class ProductOrder {
         return averageDailyUse;
     }
 
+    public String getPreviousOrderDate() {
+        return previousOrderDate;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
     // SETTERS
     public void setSku(int sku) {
         this.sku = sku;
@@ -72,4 +82,28 @@ public class ProductOrder {
     public void setLitres(int litres) {
         this.litres = litres;
     }
+
+    public void setUserCode(String userCode) {
+        this.userCode = userCode;
+    }
+
+    public void setOrderDate(String orderDate) {
+        this.orderDate = orderDate;
+    }
+
+    public void setPreviousOrderDate(String previousOrderDate) {
+        this.previousOrderDate = previousOrderDate;
+    }
+
+    public void setDaysBetweenOrders(int daysBetweenOrders) {
+        this.daysBetweenOrders = daysBetweenOrders;
+    }
+
+    public void setAverageDailyUse(Double averageDailyUse) {
+        this.averageDailyUse = averageDailyUse;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
 }
@@ -0,0 +1,29 @@
+package com.eduvos.nutec.row;
+
+import com.eduvos.nutec.pojo.CartItem;
+import com.eduvos.nutec.util.DisplayFormats;
+
+/**
+ * One row of the cart, with its price and quantity already formatted. Built once per change to
+ * the line, so binding the row only sets text.
+ */
+public final class CartLine {
+
+    public final CartItem item;
+    public final long stableId;
+    public final String name;
+    public final String priceText;
+    public final String quantityText;
+
+    private CartLine(CartItem item) {
+        this.item = item;
+        this.stableId = item.getStableId();
+        this.name = item.getProductName();
+        this.priceText = DisplayFormats.money(item.getPrice());
+        this.quantityText = String.valueOf(item.getQuantity());
+    }
+
+    public static CartLine of(CartItem item) {
+        return new CartLine(item);
+    }
+}
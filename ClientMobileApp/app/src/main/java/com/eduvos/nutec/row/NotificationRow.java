@@ -0,0 +1,36 @@
+package com.eduvos.nutec.row;
+
+import androidx.annotation.DrawableRes;
+
+import com.eduvos.nutec.R;
+import com.eduvos.nutec.pojo.AppNotification;
+import com.eduvos.nutec.util.DisplayFormats;
+
+/**
+ * One row of the notification list, with its timestamp already formatted. Built on a
+ * background thread when the notifications change, so binding the row only sets text.
+ */
+public final class NotificationRow {
+
+    public final AppNotification notification;
+    public final long id;
+    public final String title;
+    public final String timestampText;
+    public final boolean read;
+    @DrawableRes
+    public final int iconRes;
+
+    private NotificationRow(AppNotification notification) {
+        this.notification = notification;
+        this.id = notification.getId();
+        this.title = notification.getTitle();
+        this.timestampText = DisplayFormats.timestamp(notification.getTimestamp());
+        this.read = notification.isRead();
+        // A checkmark for success or an error icon for failure
+        this.iconRes = notification.wasSuccess() ? R.drawable.ic_success : R.drawable.ic_error;
+    }
+
+    public static NotificationRow of(AppNotification notification) {
+        return new NotificationRow(notification);
+    }
+}
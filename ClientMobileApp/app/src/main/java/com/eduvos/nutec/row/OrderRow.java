@@ -0,0 +1,64 @@
+package com.eduvos.nutec.row;
+
+import androidx.annotation.ColorRes;
+
+import com.eduvos.nutec.pojo.Order;
+import com.eduvos.nutec.util.DisplayFormats;
+
+import java.util.Objects;
+
+/**
+ * One row of the order history, with every string it shows already formatted. Built on a
+ * background thread when the orders arrive, so binding the row only sets text.
+ */
+public final class OrderRow {
+
+    public final Order order;
+    public final String id;
+    public final String numberText;
+    public final String status;
+    // 0 for the default text colour
+    @ColorRes
+    public final int statusColorRes;
+    public final String totalText;
+    public final String dateText;
+    public final String itemCountText;
+
+    private OrderRow(Order order) {
+        this.order = order;
+        this.id = order.getId();
+        this.numberText = "Order #" + order.getOrderNumber();
+        this.status = order.getStatus();
+        this.statusColorRes = statusColorRes(order.getStatus());
+        this.totalText = DisplayFormats.money(order.getTotal());
+        this.dateText = DisplayFormats.orderDate(order.getCreatedAt());
+        this.itemCountText = (order.getItems() == null ? 0 : order.getItems().size()) + " items";
+    }
+
+    public static OrderRow of(Order order) {
+        return new OrderRow(order);
+    }
+
+    /**
+     * The colour an order status is shown in, or 0 for the default text colour.
+     */
+    @ColorRes
+    public static int statusColorRes(String status) {
+        if ("Pending".equals(status)) return android.R.color.holo_orange_dark;
+        if ("Completed".equals(status)) return android.R.color.holo_green_dark;
+        if ("Cancelled".equals(status)) return android.R.color.holo_red_dark;
+        return 0;
+    }
+
+    /**
+     * Whether both rows show the same text and colours.
+     */
+    public boolean looksLike(OrderRow other) {
+        return numberText.equals(other.numberText)
+                && statusColorRes == other.statusColorRes
+                && Objects.equals(status, other.status)
+                && totalText.equals(other.totalText)
+                && Objects.equals(dateText, other.dateText)
+                && itemCountText.equals(other.itemCountText);
+    }
+}
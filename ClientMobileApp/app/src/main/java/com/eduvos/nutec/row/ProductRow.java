@@ -0,0 +1,27 @@
+package com.eduvos.nutec.row;
+
+import com.eduvos.nutec.pojo.ProductOrder;
+
+/**
+ * One row of the products list, with its text already put together. Built on a background
+ * thread when a page arrives. Whether it is on the wishlist is not part of the row, it is read
+ * from the WishlistMembership when binding.
+ */
+public final class ProductRow {
+
+    public final ProductOrder product;
+    public final int sku;
+    public final String name;
+    public final String skuText;
+
+    private ProductRow(ProductOrder product) {
+        this.product = product;
+        this.sku = product.getSku();
+        this.name = product.getSkuDescription();
+        this.skuText = "SKU: " + product.getSku();
+    }
+
+    public static ProductRow of(ProductOrder product) {
+        return new ProductRow(product);
+    }
+}
@@ -0,0 +1,109 @@
+package com.eduvos.nutec.sync;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+/**
+ * Schema of the local inventory database.
+ *
+ * inventory holds one row per ProductOrder, with an index on every column the products
+ * screen sorts or filters by. inventory_fts is an FTS4 index over skuDescription whose docid
+ * is the inventory row id, so a search is an index lookup instead of a scan of every row.
+ * sync_state has a single row with the sync watermark; it is written in the same transaction
+ * as the rows.
+ *
+ * The database is a copy of the server, so an upgrade just drops it and the next sync
+ * downloads everything again.
+ */
+class CatalogDatabase extends SQLiteOpenHelper {
+
+    private static final String DATABASE_NAME = "inventory_catalog.db";
+    private static final int DATABASE_VERSION = 1;
+
+    static final String TABLE_INVENTORY = "inventory";
+    static final String TABLE_FTS = "inventory_fts";
+    static final String TABLE_SYNC_STATE = "sync_state";
+
+    static final String COL_ID = "id";
+    static final String COL_ROW_KEY = "row_key";
+    static final String COL_SKU = "sku";
+    static final String COL_SKU_DESCRIPTION = "sku_description";
+    static final String COL_LITRES = "litres";
+    static final String COL_USER_CODE = "user_code";
+    static final String COL_ORDER_DATE = "order_date";
+    static final String COL_PREVIOUS_ORDER_DATE = "previous_order_date";
+    static final String COL_DAYS_BETWEEN_ORDERS = "days_between_orders";
+    static final String COL_AVERAGE_DAILY_USE = "average_daily_use";
+    static final String COL_USER_ID = "user_id";
+
+    static final String COL_WATERMARK = "watermark";
+    static final String COL_LAST_FULL_SYNC_AT = "last_full_sync_at";
+
+    CatalogDatabase(Context context) {
+        this(context, DATABASE_NAME);
+    }
+
+    /**
+     * @param name the database file, or null for a database in memory (tests)
+     */
+    CatalogDatabase(Context context, String name) {
+        super(context.getApplicationContext(), name, null, DATABASE_VERSION);
+        // Page queries read while a sync writes, without waiting for each other. Not for a
+        // database in memory, where every extra connection would open an empty one
+        if (name != null) setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_INVENTORY + " ("
+                + COL_ID + " INTEGER PRIMARY KEY, "
+                + COL_ROW_KEY + " TEXT NOT NULL UNIQUE, "
+                + COL_SKU + " INTEGER NOT NULL, "
+                + COL_SKU_DESCRIPTION + " TEXT, "
+                + COL_LITRES + " INTEGER NOT NULL, "
+                + COL_USER_CODE + " TEXT, "
+                + COL_ORDER_DATE + " TEXT, "
+                + COL_PREVIOUS_ORDER_DATE + " TEXT, "
+                + COL_DAYS_BETWEEN_ORDERS + " INTEGER NOT NULL, "
+                + COL_AVERAGE_DAILY_USE + " REAL, "
+                + COL_USER_ID + " TEXT)");
+
+        createIndex(db, COL_SKU, "");
+        createIndex(db, COL_SKU_DESCRIPTION, " COLLATE NOCASE");
+        createIndex(db, COL_LITRES, "");
+        createIndex(db, COL_ORDER_DATE, "");
+        createIndex(db, COL_DAYS_BETWEEN_ORDERS, "");
+        createIndex(db, COL_AVERAGE_DAILY_USE, "");
+
+        db.execSQL("CREATE VIRTUAL TABLE " + TABLE_FTS + " USING fts4(" + COL_SKU_DESCRIPTION + ")");
+
+        db.execSQL("CREATE TABLE " + TABLE_SYNC_STATE + " ("
+                + COL_ID + " INTEGER PRIMARY KEY CHECK (" + COL_ID + " = 0), "
+                + COL_WATERMARK + " TEXT, "
+                + COL_LAST_FULL_SYNC_AT + " INTEGER NOT NULL)");
+    }
+
+    private static void createIndex(SQLiteDatabase db, String column, String collation) {
+        db.execSQL("CREATE INDEX idx_" + TABLE_INVENTORY + "_" + column
+                + " ON " + TABLE_INVENTORY + " (" + column + collation + ")");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        dropAll(db);
+        onCreate(db);
+    }
+
+    @Override
+    public void onDowngrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        dropAll(db);
+        onCreate(db);
+    }
+
+    private static void dropAll(SQLiteDatabase db) {
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_INVENTORY);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_FTS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_SYNC_STATE);
+    }
+}
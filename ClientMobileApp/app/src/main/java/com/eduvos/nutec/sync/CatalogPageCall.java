@@ -0,0 +1,122 @@
+package com.eduvos.nutec.sync;
+
+import androidx.annotation.NonNull;
+
+import com.eduvos.nutec.pojo.ProductOrder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.Request;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * A page of the local catalog behind the Retrofit Call interface, so InventoryPager can page
+ * through the catalog the same way it pages through the server.
+ * The query runs on the background executor and the callback on the callback executor.
+ * A failed query (damaged database, disk error) is reported as onFailure, like a network error.
+ */
+class CatalogPageCall implements Call<List<ProductOrder>> {
+
+    private final CatalogStore catalog;
+    private final String search;
+    private final String sortBy;
+    private final int page;
+    private final int pageSize;
+    private final Executor background;
+    private final Executor callbackExecutor;
+    private final AtomicBoolean executed = new AtomicBoolean();
+    private volatile boolean canceled;
+
+    CatalogPageCall(CatalogStore catalog, String search, String sortBy, int page, int pageSize,
+                    Executor background, Executor callbackExecutor) {
+        this.catalog = catalog;
+        this.search = search;
+        this.sortBy = sortBy;
+        this.page = page;
+        this.pageSize = pageSize;
+        this.background = background;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    @NonNull
+    @Override
+    public Response<List<ProductOrder>> execute() throws IOException {
+        markExecuted();
+        try {
+            return Response.success(catalog.query(search, sortBy, page, pageSize));
+        } catch (RuntimeException e) {
+            throw new IOException("Catalog query failed", e);
+        }
+    }
+
+    @Override
+    public void enqueue(@NonNull Callback<List<ProductOrder>> callback) {
+        markExecuted();
+        background.execute(() -> {
+            if (canceled) return;
+            Response<List<ProductOrder>> response;
+            try {
+                response = Response.success(catalog.query(search, sortBy, page, pageSize));
+            } catch (RuntimeException e) {
+                // SQLiteException and friends, not thrown on a pool thread where nobody catches it
+                IOException failure = new IOException("Catalog query failed", e);
+                callbackExecutor.execute(() -> {
+                    if (!canceled) callback.onFailure(this, failure);
+                });
+                return;
+            }
+            callbackExecutor.execute(() -> {
+                if (!canceled) callback.onResponse(this, response);
+            });
+        });
+    }
+
+    private void markExecuted() {
+        if (!executed.compareAndSet(false, true)) {
+            throw new IllegalStateException("Already executed.");
+        }
+    }
+
+    @Override
+    public boolean isExecuted() {
+        return executed.get();
+    }
+
+    @Override
+    public void cancel() {
+        canceled = true;
+    }
+
+    @Override
+    public boolean isCanceled() {
+        return canceled;
+    }
+
+    @SuppressWarnings("MethodDoesntCallSuperMethod")
+    @NonNull
+    @Override
+    public Call<List<ProductOrder>> clone() {
+        return new CatalogPageCall(catalog, search, sortBy, page, pageSize, background, callbackExecutor);
+    }
+
+    @NonNull
+    @Override
+    public Request request() {
+        // Never sent anywhere, only describes the page for logging
+        return new Request.Builder()
+                .url("http://catalog.local/inventory?page=" + page + "&pageSize=" + pageSize)
+                .build();
+    }
+
+    @NonNull
+    @Override
+    public Timeout timeout() {
+        return Timeout.NONE;
+    }
+}
@@ -0,0 +1,29 @@
+package com.eduvos.nutec.sync;
+
+import com.eduvos.nutec.pojo.ProductOrder;
+
+/**
+ * Row helpers shared by SqliteCatalog and InventorySyncEngine.
+ */
+final class CatalogRows {
+
+    private CatalogRows() {}
+
+    /**
+     * Rows are keyed by SKU, order date and user, so a row the server sends again (the sync
+     * watermark is inclusive) replaces the old copy instead of being added twice.
+     */
+    static String keyOf(ProductOrder row) {
+        return row.getSku() + "|" + row.getOrderDate() + "|" + row.getUserId();
+    }
+
+    /**
+     * The later of two order dates, either may be null. The server sends ISO-8601 dates in one
+     * format, so comparing the strings orders them by time.
+     */
+    static String later(String a, String b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return b.compareTo(a) > 0 ? b : a;
+    }
+}
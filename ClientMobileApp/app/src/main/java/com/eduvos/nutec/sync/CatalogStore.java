@@ -0,0 +1,62 @@
+package com.eduvos.nutec.sync;
+
+import com.eduvos.nutec.pojo.ProductOrder;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Where InventorySyncEngine keeps the synced inventory and its sync state.
+ *
+ * The rows and the state are always saved together, so after a crash the watermark can never
+ * point past rows that were not saved. All methods may touch the disk; call them off the main
+ * thread.
+ */
+public interface CatalogStore {
+
+    /**
+     * Watermark (newest orderDate synced) and when the last full download finished.
+     */
+    final class SyncState {
+        public final String watermark;
+        public final long lastFullSyncAt;
+
+        public SyncState(String watermark, long lastFullSyncAt) {
+            this.watermark = watermark;
+            this.lastFullSyncAt = lastFullSyncAt;
+        }
+    }
+
+    /**
+     * Opens the saved catalog.
+     *
+     * @return the saved state, or null if no complete catalog was saved
+     */
+    SyncState load() throws IOException;
+
+    /**
+     * Replaces every row (full sync), all or nothing.
+     */
+    void replaceAll(List<ProductOrder> rows, SyncState state) throws IOException;
+
+    /**
+     * Adds new rows and replaces the ones already present (delta sync), all or nothing.
+     *
+     * @return how many rows were not in the catalog before
+     */
+    int merge(List<ProductOrder> rows, SyncState state) throws IOException;
+
+    /**
+     * Forgets all rows and the saved state (logout).
+     */
+    void clear();
+
+    int size();
+
+    /**
+     * One page of rows, with the same rules as StockMetrics/inventory: search matches the
+     * description, sortBy is "name", "litres" or "orderDate" with a "-" prefix for descending,
+     * and the default is newest first.
+     */
+    List<ProductOrder> query(String search, String sortBy, int page, int pageSize);
+}
@@ -0,0 +1,313 @@
+package com.eduvos.nutec.sync;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.eduvos.nutec.api.ApiService;
+import com.eduvos.nutec.api.DataSaverPolicy;
+import com.eduvos.nutec.api.InventoryPager;
+import com.eduvos.nutec.api.RetrofitClient;
+import com.eduvos.nutec.pojo.ProductOrder;
+import com.eduvos.nutec.util.AppExecutors;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Keeps the local catalog (a CatalogStore) in step with StockMetrics/inventory without downloading the
+ * whole history every time.
+ *
+ * The newest orderDate seen so far is the watermark. A sync asks only for rows with
+ * orderDate >= watermark (the server's StartDate filter) and merges them into the catalog, so
+ * after the first sync the traffic and parse time depend on what changed, not on how much
+ * history there is. The filter is inclusive, so rows on the watermark date come again and
+ * simply replace their copies.
+ *
+ * A delta cannot see rows that were edited or deleted on the server, so every
+ * fullResyncIntervalMs the catalog is downloaded again and replaced.
+ *
+ * Catalog, watermark and last full sync time are saved together by the store, so they can
+ * never disagree after a crash.
+ */
+public class InventorySyncEngine {
+    private static final String TAG = "InventorySync";
+
+    // Snapshot file used before the catalog moved to SQLite
+    private static final String LEGACY_CATALOG_FILE = "inventory_catalog.bin";
+
+    // Biggest page the server hands out (InventoryService.MaxInventoryPageSize)
+    static final int SYNC_PAGE_SIZE = 200;
+    public static final long DEFAULT_FULL_RESYNC_INTERVAL_MS = TimeUnit.HOURS.toMillis(24);
+
+    /**
+     * One page of rows with orderDate >= startDate, oldest first (null startDate = everything).
+     */
+    interface Fetcher {
+        List<ProductOrder> fetch(String startDate, int page, int pageSize) throws IOException;
+    }
+
+    /**
+     * Called on the main thread.
+     */
+    public interface Listener {
+        void onSynced(SyncResult result);
+        void onSyncFailed(Throwable error);
+    }
+
+    public static final class SyncResult {
+        public final boolean full;
+        public final int fetched;
+        public final int added;
+        public final int catalogSize;
+        public final long elapsedMs;
+
+        SyncResult(boolean full, int fetched, int added, int catalogSize, long elapsedMs) {
+            this.full = full;
+            this.fetched = fetched;
+            this.added = added;
+            this.catalogSize = catalogSize;
+            this.elapsedMs = elapsedMs;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s sync: %d rows fetched, %d new, %d in catalog, %d ms",
+                    full ? "full" : "delta", fetched, added, catalogSize, elapsedMs);
+        }
+    }
+
+    private static InventorySyncEngine instance;
+
+    private final Fetcher fetcher;
+    private final CatalogStore catalog;
+    private final LongSupplier clock;
+    private final Executor diskIO;
+    private final AtomicBoolean syncing = new AtomicBoolean();
+
+    private volatile long fullResyncIntervalMs = DEFAULT_FULL_RESYNC_INTERVAL_MS;
+    private volatile String watermark;
+    private volatile long lastFullSyncAt;
+    private volatile boolean loaded;
+    // Bumped by clear(), so a sync that was running at the time throws its result away
+    private volatile int generation;
+    // The generation the catalog holds a complete copy for (synced or loaded from disk), -1 for none.
+    // A clear() makes it stale at once, even if a sync caught mid-write sets it afterwards
+    private volatile int readyGeneration = -1;
+
+    InventorySyncEngine(Fetcher fetcher, CatalogStore catalog, LongSupplier clock, Executor diskIO) {
+        this.fetcher = fetcher;
+        this.catalog = catalog;
+        this.clock = clock;
+        this.diskIO = diskIO;
+    }
+
+    public static synchronized InventorySyncEngine getInstance(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            instance = new InventorySyncEngine(apiFetcher(RetrofitClient.getApiService(appContext)),
+                    new SqliteCatalog(new CatalogDatabase(appContext)), System::currentTimeMillis,
+                    AppExecutors.getInstance().diskIO());
+
+            File legacyFile = new File(appContext.getFilesDir(), LEGACY_CATALOG_FILE);
+            AppExecutors.getInstance().diskIO().execute(() -> {
+                if (legacyFile.exists() && !legacyFile.delete()) {
+                    Log.w(TAG, "Could not delete " + legacyFile);
+                }
+            });
+        }
+        return instance;
+    }
+
+    private static Fetcher apiFetcher(ApiService apiService) {
+        return (startDate, page, pageSize) -> {
+            Response<List<ProductOrder>> response = apiService.getInventorySince(startDate, page, pageSize).execute();
+            if (!response.isSuccessful() || response.body() == null) {
+                throw new IOException("Inventory sync failed: HTTP " + response.code());
+            }
+            return response.body();
+        };
+    }
+
+    public CatalogStore getCatalog() {
+        return catalog;
+    }
+
+    public boolean isReady() {
+        return readyGeneration == generation;
+    }
+
+    public String getWatermark() {
+        return watermark;
+    }
+
+    public void setFullResyncIntervalMs(long fullResyncIntervalMs) {
+        this.fullResyncIntervalMs = fullResyncIntervalMs;
+    }
+
+    public boolean needsFullSync() {
+        long sinceFull = clock.getAsLong() - lastFullSyncAt;
+        // A negative age means the clock was changed, don't trust the old sync time
+        return !isReady() || watermark == null || sinceFull < 0 || sinceFull >= fullResyncIntervalMs;
+    }
+
+    /**
+     * Pages from the local catalog once it is complete, from the server until then.
+     */
+    public InventoryPager.PageSource pageSource(ApiService apiService) {
+        AppExecutors executors = AppExecutors.getInstance();
+        return pageSource(InventoryPager.serverSource(apiService), executors.background(), executors.mainThread());
+    }
+
+    InventoryPager.PageSource pageSource(InventoryPager.PageSource server, Executor background, Executor callbackExecutor) {
+        return new InventoryPager.PageSource() {
+            private boolean local;
+
+            @Override
+            public Call<List<ProductOrder>> load(int page, int pageSize, String search, String sortBy) {
+                // Picked on the first page of each query (InventoryPager.refresh) and kept until the next:
+                // the server and the catalog search and break ties differently, so switching
+                // mid-scroll would repeat or skip rows
+                if (page == 0) local = isReady();
+                return local
+                        ? new CatalogPageCall(catalog, search, sortBy, page, pageSize, background, callbackExecutor)
+                        : server.load(page, pageSize, search, sortBy);
+            }
+        };
+    }
+
+    /**
+     * Opens the saved catalog on the disk thread, then runs onLoaded on the main thread.
+     * Once it has run, pageSource() pages from disk if a complete catalog was saved, so a
+     * screen can show rows without waiting for the network.
+     */
+    public void loadAsync(Runnable onLoaded) {
+        AppExecutors executors = AppExecutors.getInstance();
+        executors.diskIO().execute(() -> {
+            loadIfNeeded();
+            executors.mainThread().execute(onLoaded);
+        });
+    }
+
+    /**
+     * Loads the saved catalog if needed and syncs it on a background thread.
+     * Does nothing if a sync is already running. A full download is skipped while the data
+     * saver is on; the products screen keeps paging from the server until it can run.
+     */
+    public void syncAsync(Listener listener) {
+        if (!syncing.compareAndSet(false, true)) return;
+
+        AppExecutors executors = AppExecutors.getInstance();
+        executors.background().execute(() -> {
+            try {
+                loadIfNeeded();
+                if (needsFullSync() && !DataSaverPolicy.getInstance().allowsBackgroundSync()) {
+                    Log.d(TAG, "Full inventory sync postponed, data saver is on");
+                    return;
+                }
+                SyncResult result = sync();
+                Log.d(TAG, result.toString());
+                executors.mainThread().execute(() -> listener.onSynced(result));
+            } catch (IOException e) {
+                Log.w(TAG, "Inventory sync failed", e);
+                executors.mainThread().execute(() -> listener.onSyncFailed(e));
+            } finally {
+                syncing.set(false);
+            }
+        });
+    }
+
+    /**
+     * Runs one full or delta sync on the calling thread. Only one may run at a time.
+     */
+    SyncResult sync() throws IOException {
+        long startedAt = System.nanoTime();
+        int syncGeneration = generation;
+        boolean full = needsFullSync();
+        String startDate = full ? null : watermark;
+
+        List<ProductOrder> fetched = new ArrayList<>();
+        for (int page = 0; ; page++) {
+            List<ProductOrder> rows = fetcher.fetch(startDate, page, SYNC_PAGE_SIZE);
+            fetched.addAll(rows);
+            if (rows.size() < SYNC_PAGE_SIZE) break;
+        }
+
+        String newest = full ? null : watermark;
+        for (ProductOrder row : fetched) {
+            newest = CatalogRows.later(newest, row.getOrderDate());
+        }
+
+        // Rows and state go to disk in one step, the fields only change once that worked.
+        // clear() wipes under the same lock, so a logout from here on waits for the write and
+        // then wipes it, it can never run in the middle of it
+        int added;
+        int size;
+        synchronized (this) {
+            if (syncGeneration != generation) {
+                throw new IOException("Catalog was cleared during the sync");
+            }
+            if (full) {
+                long syncedAt = clock.getAsLong();
+                catalog.replaceAll(fetched, new CatalogStore.SyncState(newest, syncedAt));
+                added = catalog.size();
+                lastFullSyncAt = syncedAt;
+            } else {
+                added = catalog.merge(fetched, new CatalogStore.SyncState(newest, lastFullSyncAt));
+            }
+            watermark = newest;
+            readyGeneration = syncGeneration;
+            size = catalog.size();
+        }
+
+        return new SyncResult(full, fetched.size(), added, size,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+
+    /**
+     * Forgets the catalog (logout); the next sync starts with a full download.
+     */
+    public void clear() {
+        // Not ready from here on; the rows and saved state go on the disk thread
+        generation++;
+        loaded = true;
+        diskIO.execute(this::wipe);
+    }
+
+    private synchronized void wipe() {
+        readyGeneration = -1;
+        watermark = null;
+        lastFullSyncAt = 0;
+        catalog.clear();
+    }
+
+    synchronized void loadIfNeeded() {
+        if (loaded) return;
+        loaded = true;
+        int loadGeneration = generation;
+
+        try {
+            CatalogStore.SyncState state = catalog.load();
+            if (state == null) return;
+            lastFullSyncAt = state.lastFullSyncAt;
+            watermark = state.watermark;
+            readyGeneration = loadGeneration;
+        } catch (IOException | RuntimeException e) {
+            // Start over with a full sync rather than trusting a damaged catalog
+            Log.w(TAG, "Discarding unreadable inventory catalog", e);
+            catalog.clear();
+        }
+    }
+}
@@ -0,0 +1,492 @@
+package com.eduvos.nutec.sync;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.eduvos.nutec.api.ApiService;
+import com.eduvos.nutec.api.CompactWireFormat;
+import com.eduvos.nutec.api.DataSaverPolicy;
+import com.eduvos.nutec.api.RetrofitClient;
+import com.eduvos.nutec.auth.SessionStore;
+import com.eduvos.nutec.pojo.Order;
+import com.eduvos.nutec.pojo.OrderItem;
+import com.eduvos.nutec.pojo.OrderResponse;
+import com.eduvos.nutec.pojo.OrdersListResponse;
+import com.eduvos.nutec.util.AppExecutors;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ByteString;
+import okio.Okio;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * The user's order history, in memory and on disk, keyed by order id.
+ *
+ * Stale-while-revalidate: a screen gets the cached orders straight away, and if they are older
+ * than REVALIDATE_AFTER_MS they are fetched again in the background. Orders that did not
+ * change keep their cached instance, and the screen is only called again if something did
+ * change. Order details come from the same cache, since the list already has every order
+ * with its items, so opening an order normally makes no request at all.
+ *
+ * The cache is saved with the user's id and ignored for anyone else. Use from the main thread.
+ */
+public class OrderRepository {
+    private static final String TAG = "OrderRepository";
+
+    static final String CACHE_FILE = "orders_cache.bin";
+    private static final String FILE_MAGIC = "NTO1";
+
+    // Same as the orders endpoints' max-age; younger data is shown without asking the server
+    static final long REVALIDATE_AFTER_MS = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * Called on the main thread.
+     */
+    public interface OrdersCallback {
+        /**
+         * The order history, newest first: once from the cache if there is one, then again
+         * only if revalidating changed it.
+         */
+        void onOrders(List<Order> orders);
+
+        /**
+         * The history could not be loaded and there was no cached copy to show.
+         */
+        void onError(String message);
+    }
+
+    /**
+     * Called on the main thread.
+     */
+    public interface OrderCallback {
+        /**
+         * The order: once from the cache if it is there, then again only if revalidating
+         * changed it.
+         */
+        void onOrder(Order order);
+
+        void onError(String message);
+    }
+
+    /**
+     * Fetched orders with the unchanged ones swapped for their cached instances.
+     */
+    static final class Merge {
+        final List<Order> orders;
+        // Orders that are new or differ from the cached copy
+        final int changed;
+        final boolean listChanged;
+
+        Merge(List<Order> orders, int changed, boolean listChanged) {
+            this.orders = orders;
+            this.changed = changed;
+            this.listChanged = listChanged;
+        }
+    }
+
+    private static OrderRepository instance;
+
+    private File file;
+    private List<Order> orders = Collections.emptyList();
+    private final Map<String, Order> byId = new HashMap<>();
+    private long validatedAt;
+    private final Map<String, Long> detailValidatedAt = new HashMap<>();
+
+    private boolean loaded;
+    private final List<Runnable> afterLoad = new ArrayList<>();
+
+    private Call<OrdersListResponse> inFlight;
+    // Bumped by clear(), so a detail request that was running at the time drops its answer
+    private int generation;
+    // Waiting for the revalidation: screens that have nothing yet, and screens showing the cache
+    private final List<OrdersCallback> waitingForData = new ArrayList<>();
+    private final List<OrdersCallback> waitingForChanges = new ArrayList<>();
+
+    private OrderRepository() {}
+
+    public static synchronized OrderRepository getInstance() {
+        if (instance == null) {
+            instance = new OrderRepository();
+        }
+        return instance;
+    }
+
+    /**
+     * Reads the saved history on the disk thread, after the session. Called once from
+     * NuTecApplication.
+     */
+    public void initialize(Context context) {
+        if (file != null) return;
+        file = new File(context.getApplicationContext().getFilesDir(), CACHE_FILE);
+        AppExecutors executors = AppExecutors.getInstance();
+        executors.diskIO().execute(() -> {
+            Saved saved = read(file, SessionStore.getInstance().get().userId);
+            executors.mainThread().execute(() -> onLoaded(saved));
+        });
+    }
+
+    private void onLoaded(Saved saved) {
+        if (saved != null) {
+            // Anything put in before the load is newer than what was saved
+            List<Order> combined = new ArrayList<>(orders);
+            for (Order order : saved.orders) {
+                if (order.getId() == null || !byId.containsKey(order.getId())) combined.add(order);
+            }
+            setOrders(combined);
+            validatedAt = saved.savedAt;
+        }
+        loaded = true;
+        for (Runnable task : afterLoad) {
+            task.run();
+        }
+        afterLoad.clear();
+    }
+
+    private void whenLoaded(Runnable task) {
+        if (loaded || file == null) {
+            task.run();
+        } else {
+            afterLoad.add(task);
+        }
+    }
+
+    /**
+     * The order history: cached orders right away, revalidated in the background when stale.
+     */
+    public void loadOrders(Context context, OrdersCallback callback) {
+        whenLoaded(() -> {
+            boolean cached = validatedAt > 0;
+            if (cached) callback.onOrders(orders);
+            if (cached && System.currentTimeMillis() - validatedAt < REVALIDATE_AFTER_MS) return;
+            (cached ? waitingForChanges : waitingForData).add(callback);
+            revalidate(context);
+        });
+    }
+
+    /**
+     * One order: from the cache when it is there, revalidated in the background when stale,
+     * fetched when it is not cached at all.
+     */
+    public void loadOrder(Context context, String orderId, OrderCallback callback) {
+        whenLoaded(() -> {
+            Order cached = byId.get(orderId);
+            if (cached != null) {
+                callback.onOrder(cached);
+                long checkedAt = Math.max(validatedAt, getOrDefault(detailValidatedAt, orderId));
+                if (System.currentTimeMillis() - checkedAt < REVALIDATE_AFTER_MS) return;
+            }
+
+            int requestGeneration = generation;
+            ApiService apiService = RetrofitClient.getApiService(context);
+            apiService.getOrderById(orderId).enqueue(new Callback<OrderResponse>() {
+                @Override
+                public void onResponse(@NonNull Call<OrderResponse> call, @NonNull Response<OrderResponse> response) {
+                    // Logged out meanwhile: putting it back would save it under the next user
+                    if (requestGeneration != generation) return;
+                    OrderResponse body = response.body();
+                    if (!response.isSuccessful() || body == null || !body.isSuccess() || body.getOrder() == null) {
+                        Log.w(TAG, "Could not revalidate order " + orderId + ": " + response.code());
+                        if (cached == null) callback.onError(response.isSuccessful() ? "Order not found" : "Failed to load order details");
+                        return;
+                    }
+                    detailValidatedAt.put(orderId, System.currentTimeMillis());
+                    Order fresh = body.getOrder();
+                    if (cached != null && sameContent(cached, fresh)) return;
+                    putOrder(fresh);
+                    callback.onOrder(fresh);
+                }
+
+                @Override
+                public void onFailure(@NonNull Call<OrderResponse> call, @NonNull Throwable t) {
+                    if (requestGeneration != generation) return;
+                    Log.w(TAG, "Could not revalidate order " + orderId, t);
+                    if (cached == null) callback.onError("Network error: " + t.getMessage());
+                }
+            });
+        });
+    }
+
+    /**
+     * The cached order, or null.
+     */
+    public Order getCachedOrder(String orderId) {
+        return byId.get(orderId);
+    }
+
+    /**
+     * Adds or replaces one order, like the one just placed, without a round trip.
+     */
+    public void putOrder(Order order) {
+        if (order == null || order.getId() == null) return;
+        List<Order> updated = new ArrayList<>(orders.size() + 1);
+        boolean replaced = false;
+        for (Order existing : orders) {
+            if (order.getId().equals(existing.getId())) {
+                updated.add(order);
+                replaced = true;
+            } else {
+                updated.add(existing);
+            }
+        }
+        if (!replaced) updated.add(0, order); // Newest first
+        setOrders(updated);
+        save();
+    }
+
+    /**
+     * Forgets the cached history (logout).
+     */
+    public void clear() {
+        generation++;
+        if (inFlight != null) inFlight.cancel();
+        inFlight = null;
+        waitingForData.clear();
+        waitingForChanges.clear();
+        setOrders(Collections.emptyList());
+        validatedAt = 0;
+        detailValidatedAt.clear();
+        if (file != null) {
+            File toDelete = file;
+            // Best effort, a file left behind is ignored for any other user anyway
+            AppExecutors.getInstance().diskIO().execute(toDelete::delete);
+        }
+    }
+
+    private void revalidate(Context context) {
+        if (inFlight != null) return; // The callback joins the request already running
+
+        ApiService apiService = RetrofitClient.getApiService(context);
+        // Data saver asks for the newest orders only; the older cached ones are kept as they are
+        Integer limit = DataSaverPolicy.getInstance().getOrderHistoryLimit();
+        Call<OrdersListResponse> call = apiService.getUserOrders(limit);
+        inFlight = call;
+        call.enqueue(new Callback<OrdersListResponse>() {
+            @Override
+            public void onResponse(@NonNull Call<OrdersListResponse> call, @NonNull Response<OrdersListResponse> response) {
+                if (call != inFlight) return; // Cleared meanwhile
+                inFlight = null;
+
+                OrdersListResponse body = response.body();
+                if (!response.isSuccessful() || body == null) {
+                    Log.w(TAG, "Could not revalidate orders: " + response.code());
+                    fail("Failed to load orders");
+                    return;
+                }
+
+                List<Order> fetched = body.isSuccess() && body.getOrders() != null
+                        ? body.getOrders() : Collections.<Order>emptyList();
+                Merge merge = merge(orders, fetched, limit);
+                validatedAt = System.currentTimeMillis();
+                if (merge.listChanged) setOrders(merge.orders);
+                // Saved even when nothing changed, so the next start knows the cache is fresh
+                save();
+                Log.d(TAG, "Revalidated " + fetched.size() + " orders, " + merge.changed + " changed");
+
+                List<OrdersCallback> notify = new ArrayList<>(waitingForData);
+                if (merge.listChanged) notify.addAll(waitingForChanges);
+                waitingForData.clear();
+                waitingForChanges.clear();
+                for (OrdersCallback callback : notify) {
+                    callback.onOrders(orders);
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<OrdersListResponse> call, @NonNull Throwable t) {
+                if (call != inFlight) return;
+                inFlight = null;
+                Log.w(TAG, "Could not revalidate orders", t);
+                fail("Network error: " + t.getMessage());
+            }
+        });
+    }
+
+    private void fail(String message) {
+        // Screens showing the cache keep showing it
+        List<OrdersCallback> notify = new ArrayList<>(waitingForData);
+        waitingForData.clear();
+        waitingForChanges.clear();
+        for (OrdersCallback callback : notify) {
+            callback.onError(message);
+        }
+    }
+
+    private void setOrders(List<Order> updated) {
+        orders = Collections.unmodifiableList(new ArrayList<>(updated));
+        byId.clear();
+        for (Order order : orders) {
+            if (order.getId() != null) byId.put(order.getId(), order);
+        }
+    }
+
+    private static long getOrDefault(Map<String, Long> map, String key) {
+        Long value = map.get(key);
+        return value == null ? 0 : value;
+    }
+
+    /**
+     * Takes the fetched list as the truth, but keeps the cached instance of every order whose
+     * content did not change.
+     */
+    static Merge merge(List<Order> cached, List<Order> fetched) {
+        return merge(cached, fetched, null);
+    }
+
+    /**
+     * Like merge(cached, fetched), but if fetched was cut off at limit it only stands for the
+     * newest orders: the cached orders older than all of them are kept after them unchanged.
+     *
+     * @param limit the limit the history was fetched with, or null for the whole history
+     */
+    static Merge merge(List<Order> cached, List<Order> fetched, Integer limit) {
+        Map<String, Order> cachedById = new HashMap<>();
+        for (Order order : cached) {
+            if (order.getId() != null) cachedById.put(order.getId(), order);
+        }
+
+        List<Order> merged = new ArrayList<>(fetched.size());
+        int changed = 0;
+        for (Order order : fetched) {
+            Order old = order.getId() == null ? null : cachedById.get(order.getId());
+            if (old != null && sameContent(old, order)) {
+                merged.add(old);
+            } else {
+                merged.add(order);
+                changed++;
+            }
+        }
+
+        // Fewer than asked for means this is the whole history anyway
+        if (limit != null && fetched.size() >= limit) {
+            Set<String> fetchedIds = new HashSet<>();
+            for (Order order : fetched) {
+                if (order.getId() != null) fetchedIds.add(order.getId());
+            }
+            // Newest first, so everything after the last fetched order is older than the window
+            int lastFetched = -1;
+            for (int i = 0; i < cached.size(); i++) {
+                String id = cached.get(i).getId();
+                if (id != null && fetchedIds.contains(id)) lastFetched = i;
+            }
+            merged.addAll(cached.subList(lastFetched + 1, cached.size()));
+        }
+
+        boolean listChanged = changed > 0 || merged.size() != cached.size();
+        for (int i = 0; !listChanged && i < merged.size(); i++) {
+            listChanged = merged.get(i) != cached.get(i); // Same orders, different order
+        }
+        return new Merge(merged, changed, listChanged);
+    }
+
+    static boolean sameContent(Order a, Order b) {
+        if (!Objects.equals(a.getId(), b.getId())
+                || !Objects.equals(a.getOrderNumber(), b.getOrderNumber())
+                || !Objects.equals(a.getStatus(), b.getStatus())
+                || !Objects.equals(a.getCreatedAt(), b.getCreatedAt())
+                || a.getSubtotal() != b.getSubtotal()
+                || a.getDeliveryFee() != b.getDeliveryFee()
+                || a.getTaxAmount() != b.getTaxAmount()
+                || a.getTotal() != b.getTotal()) {
+            return false;
+        }
+
+        List<OrderItem> itemsA = a.getItems() == null ? Collections.<OrderItem>emptyList() : a.getItems();
+        List<OrderItem> itemsB = b.getItems() == null ? Collections.<OrderItem>emptyList() : b.getItems();
+        if (itemsA.size() != itemsB.size()) return false;
+        for (int i = 0; i < itemsA.size(); i++) {
+            OrderItem x = itemsA.get(i);
+            OrderItem y = itemsB.get(i);
+            if (!Objects.equals(x.getProductName(), y.getProductName())
+                    || x.getSku() != y.getSku()
+                    || x.getQuantity() != y.getQuantity()
+                    || x.getPricePerUnit() != y.getPricePerUnit()
+                    || x.getTotalPrice() != y.getTotalPrice()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ---- Disk ----
+
+    private static final class Saved {
+        final long savedAt;
+        final List<Order> orders;
+
+        Saved(long savedAt, List<Order> orders) {
+            this.savedAt = savedAt;
+            this.orders = orders;
+        }
+    }
+
+    private void save() {
+        if (file == null) return;
+        String userId = SessionStore.getInstance().get().userId;
+        if (userId == null) return;
+
+        OrdersListResponse snapshot = new OrdersListResponse();
+        snapshot.setSuccess(true);
+        snapshot.setOrders(orders); // Immutable, safe to hand to the disk thread
+        long savedAt = validatedAt;
+        File target = file;
+        AppExecutors.getInstance().diskIO().execute(() -> write(target, userId, savedAt, snapshot));
+    }
+
+    private static void write(File file, String userId, long savedAt, OrdersListResponse snapshot) {
+        try {
+            ByteString user = ByteString.encodeUtf8(userId);
+            Buffer out = new Buffer()
+                    .writeUtf8(FILE_MAGIC)
+                    .writeLong(savedAt)
+                    .writeInt(user.size())
+                    .write(user);
+            out.writeAll(CompactWireFormat.encodeOrders(snapshot));
+
+            // Write next to the old file and swap, so a crash never leaves a half-written cache
+            File temp = new File(file.getPath() + ".tmp");
+            try (BufferedSink sink = Okio.buffer(Okio.sink(temp))) {
+                sink.writeAll(out);
+            }
+            if (!temp.renameTo(file)) {
+                throw new IOException("Could not replace " + file);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Could not save the order history", e);
+        }
+    }
+
+    private static Saved read(File file, String userId) {
+        if (userId == null || !file.exists()) return null;
+        try (BufferedSource source = Okio.buffer(Okio.source(file))) {
+            if (!FILE_MAGIC.equals(source.readUtf8(FILE_MAGIC.length()))) {
+                throw new IOException("Unknown order cache format");
+            }
+            long savedAt = source.readLong();
+            String savedUser = source.readUtf8(source.readInt());
+            if (!userId.equals(savedUser)) return null; // Someone else's orders
+            OrdersListResponse saved = CompactWireFormat.decodeOrders(source);
+            return saved.getOrders() == null ? null : new Saved(savedAt, saved.getOrders());
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read the order history", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.eduvos.nutec.sync;
+
+import com.eduvos.nutec.pojo.ProductOrder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The products screen as it was last shown: its search, sort, first rows and scroll position.
+ * Saved as a small binary file and read back through a memory-mapped buffer, so the first frame
+ * after a cold start is drawn without opening the database or parsing any JSON.
+ *
+ * File layout, big-endian: magic "NPS1", format version, user id, saved-at millis, search,
+ * sortBy, anchor position and offset, row count, then the rows. Strings are a byte length (-1
+ * for null) and UTF-8 bytes. A file with another magic or version, or saved for another user,
+ * is ignored.
+ */
+public final class ProductSnapshot {
+
+    private static final int MAGIC = 0x4E505331; // "NPS1"
+    static final int FORMAT_VERSION = 2;
+
+    // A couple of screens; the live catalog replaces them straight away
+    public static final int MAX_ROWS = 100;
+
+    // Whose rows these are; a snapshot without one is never saved
+    public final String userId;
+    public final long savedAt;
+    public final String search;
+    public final String sortBy;
+    // First visible row, and its top relative to the list's top in pixels (as
+    // LinearLayoutManager.scrollToPositionWithOffset() takes it)
+    public final int anchorPosition;
+    public final int anchorOffset;
+    public final List<ProductOrder> rows;
+
+    public ProductSnapshot(String userId, long savedAt, String search, String sortBy,
+                           int anchorPosition, int anchorOffset, List<ProductOrder> rows) {
+        List<ProductOrder> kept = rows.size() > MAX_ROWS ? rows.subList(0, MAX_ROWS) : rows;
+        this.userId = userId;
+        this.savedAt = savedAt;
+        this.search = search;
+        this.sortBy = sortBy;
+        this.rows = Collections.unmodifiableList(new ArrayList<>(kept));
+        // The anchor has to point at a saved row
+        this.anchorPosition = Math.max(0, Math.min(anchorPosition, this.rows.size() - 1));
+        this.anchorOffset = this.anchorPosition == anchorPosition ? anchorOffset : 0;
+    }
+
+    byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + rows.size() * 96);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        writeString(out, userId);
+        out.writeLong(savedAt);
+        writeString(out, search);
+        writeString(out, sortBy);
+        out.writeInt(anchorPosition);
+        out.writeInt(anchorOffset);
+        out.writeInt(rows.size());
+        for (ProductOrder row : rows) {
+            out.writeInt(row.getSku());
+            writeString(out, row.getSkuDescription());
+            out.writeInt(row.getLitres());
+            writeString(out, row.getUserCode());
+            writeString(out, row.getOrderDate());
+            writeString(out, row.getPreviousOrderDate());
+            out.writeInt(row.getDaysBetweenOrders());
+            // NaN stands for "no value", the server never sends it
+            out.writeDouble(row.getAverageDailyUse() == null ? Double.NaN : row.getAverageDailyUse());
+            writeString(out, row.getUserId());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return the snapshot, or null if the buffer holds another format or version
+     * @throws IOException if the buffer is cut short
+     */
+    static ProductSnapshot decode(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                return null;
+            }
+            String userId = readString(buffer);
+            long savedAt = buffer.getLong();
+            String search = readString(buffer);
+            String sortBy = readString(buffer);
+            int anchorPosition = buffer.getInt();
+            int anchorOffset = buffer.getInt();
+            int count = buffer.getInt();
+            if (count < 0 || count > MAX_ROWS) throw new IOException("Bad product snapshot row count " + count);
+
+            List<ProductOrder> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                ProductOrder row = new ProductOrder();
+                row.setSku(buffer.getInt());
+                row.setSkuDescription(readString(buffer));
+                row.setLitres(buffer.getInt());
+                row.setUserCode(readString(buffer));
+                row.setOrderDate(readString(buffer));
+                row.setPreviousOrderDate(readString(buffer));
+                row.setDaysBetweenOrders(buffer.getInt());
+                double averageDailyUse = buffer.getDouble();
+                row.setAverageDailyUse(Double.isNaN(averageDailyUse) ? null : averageDailyUse);
+                row.setUserId(readString(buffer));
+                rows.add(row);
+            }
+            return new ProductSnapshot(userId, savedAt, search, sortBy, anchorPosition, anchorOffset, rows);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Product snapshot is cut short", e);
+        }
+    }
+
+    /**
+     * Writes the snapshot next to the old file and swaps it in, so a crash never leaves half a
+     * snapshot. Disk thread only.
+     */
+    void writeTo(File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(encode());
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("Could not replace " + file);
+        }
+    }
+
+    /**
+     * Maps the file and decodes it in place. Disk thread only.
+     *
+     * @return the snapshot, or null if there is none in a format this version understands or
+     *         it was saved for someone other than userId
+     */
+    static ProductSnapshot readFrom(File file, String userId) throws IOException {
+        if (userId == null || !file.exists()) return null;
+        try (FileInputStream in = new FileInputStream(file); FileChannel channel = in.getChannel()) {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            ProductSnapshot snapshot = decode(map);
+            // Someone else's inventory, e.g. a save that raced the last logout
+            return snapshot == null || !userId.equals(snapshot.userId) ? null : snapshot;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) throws IOException {
+        int length = buffer.getInt();
+        if (length < 0) return null;
+        if (length > buffer.remaining()) throw new IOException("Product snapshot is cut short");
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
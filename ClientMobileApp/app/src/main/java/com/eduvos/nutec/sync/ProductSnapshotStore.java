@@ -0,0 +1,152 @@
+package com.eduvos.nutec.sync;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.eduvos.nutec.auth.SessionStore;
+import com.eduvos.nutec.util.AppExecutors;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the ProductSnapshot file. The snapshot is mapped and decoded on the disk thread while
+ * the app starts, so by the time the products screen opens it is already in memory.
+ *
+ * Only the first products screen after a cold start uses it; after that the live catalog is
+ * open and the snapshot is dropped.
+ *
+ * The snapshot belongs to the user who saved it. After a logout nothing is saved until the
+ * next login, and a file saved for someone else is never shown.
+ */
+public class ProductSnapshotStore {
+    private static final String TAG = "ProductSnapshotStore";
+
+    static final String FILE_NAME = "products_snapshot.bin";
+
+    private static ProductSnapshotStore instance;
+
+    private final Executor diskIO;
+    // The logged-in user's id, null when logged out
+    private final Supplier<String> currentUser;
+
+    private File file;
+    // Guarded by this
+    private ProductSnapshot preloaded;
+    private boolean ready;
+    private boolean taken;
+    // Set by clear(): the screen being torn down by a logout must not save its rows again
+    private boolean loggedOut;
+
+    ProductSnapshotStore(Executor diskIO, Supplier<String> currentUser) {
+        this.diskIO = diskIO;
+        this.currentUser = currentUser;
+    }
+
+    public static synchronized ProductSnapshotStore getInstance() {
+        if (instance == null) {
+            instance = new ProductSnapshotStore(AppExecutors.getInstance().diskIO(),
+                    () -> SessionStore.getInstance().get().userId);
+        }
+        return instance;
+    }
+
+    /**
+     * Maps and decodes the saved snapshot on the disk thread, after the session. Called once
+     * from NuTecApplication.
+     */
+    public void initialize(Context context) {
+        open(new File(context.getApplicationContext().getFilesDir(), FILE_NAME));
+        SessionStore.getInstance().addListener(session -> {
+            if (session.loggedIn) onLogin();
+        });
+    }
+
+    synchronized void open(File file) {
+        if (this.file != null) return;
+        this.file = file;
+        diskIO.execute(this::preload);
+    }
+
+    /**
+     * Lets snapshots be saved again after a logout.
+     */
+    synchronized void onLogin() {
+        loggedOut = false;
+    }
+
+    private void preload() {
+        ProductSnapshot snapshot = null;
+        try {
+            snapshot = ProductSnapshot.readFrom(file, currentUser.get());
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read the product snapshot", e);
+        }
+        synchronized (this) {
+            if (!taken) preloaded = snapshot;
+            ready = true;
+        }
+    }
+
+    /**
+     * Hands the cold-start snapshot to the callback on the main thread, at once if it has been
+     * read already. Every later call gets null.
+     */
+    public void takeColdStartSnapshot(Consumer<ProductSnapshot> callback) {
+        ProductSnapshot snapshot;
+        boolean available;
+        synchronized (this) {
+            available = ready || taken || file == null;
+            snapshot = taken ? null : preloaded;
+            if (available) {
+                preloaded = null;
+                taken = true;
+            }
+        }
+        if (available) {
+            callback.accept(snapshot);
+            return;
+        }
+        Executor mainThread = AppExecutors.getInstance().mainThread();
+        // The disk thread runs tasks in order, so the preload has finished by now
+        diskIO.execute(() -> mainThread.execute(() -> takeColdStartSnapshot(callback)));
+    }
+
+    /**
+     * Replaces the saved snapshot on the disk thread. Ignored between a logout and the next
+     * login, and for a snapshot of anyone but the logged-in user.
+     */
+    public void save(ProductSnapshot snapshot) {
+        File target;
+        synchronized (this) {
+            target = loggedOut ? null : file;
+        }
+        if (target == null || snapshot.userId == null || !snapshot.userId.equals(currentUser.get())) return;
+        diskIO.execute(() -> {
+            try {
+                snapshot.writeTo(target);
+            } catch (IOException e) {
+                Log.w(TAG, "Could not save the product snapshot", e);
+            }
+        });
+    }
+
+    /**
+     * Forgets the snapshot (logout).
+     */
+    public void clear() {
+        File target;
+        synchronized (this) {
+            preloaded = null;
+            taken = true;
+            loggedOut = true;
+            target = file;
+        }
+        if (target == null) return;
+        // Best effort, a file left behind is ignored for any other user anyway
+        diskIO.execute(target::delete);
+    }
+}
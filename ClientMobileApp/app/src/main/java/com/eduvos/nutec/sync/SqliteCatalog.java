@@ -0,0 +1,274 @@
+package com.eduvos.nutec.sync;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import com.eduvos.nutec.pojo.ProductOrder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static com.eduvos.nutec.sync.CatalogDatabase.*;
+
+/**
+ * The app's CatalogStore: the inventory in SQLite (see CatalogDatabase for the schema).
+ *
+ * A sync writes all its rows and the new watermark in one transaction with precompiled
+ * statements, so thousands of rows go in with one disk sync and a crash keeps either the old
+ * catalog or the new one. Pages are read with an indexed ORDER BY ... LIMIT, so the products
+ * screen opens from disk without loading the whole catalog.
+ *
+ * Search goes through the full-text index and matches words by prefix: "ink 20" finds
+ * "Ink 2000". Unlike the server's substring match it does not find text in the middle of a word.
+ */
+class SqliteCatalog implements CatalogStore {
+
+    // Bound in this order by bindRow(), the row key last so UPDATE can use it in its WHERE
+    private static final String[] ROW_COLUMNS = {
+            COL_SKU, COL_SKU_DESCRIPTION, COL_LITRES, COL_USER_CODE, COL_ORDER_DATE,
+            COL_PREVIOUS_ORDER_DATE, COL_DAYS_BETWEEN_ORDERS, COL_AVERAGE_DAILY_USE, COL_USER_ID};
+
+    private static final String SELECT_ROWS = "SELECT " + joinColumns(", ") + " FROM " + TABLE_INVENTORY;
+
+    private final CatalogDatabase database;
+
+    SqliteCatalog(CatalogDatabase database) {
+        this.database = database;
+    }
+
+    @Override
+    public SyncState load() {
+        try (Cursor cursor = database.getWritableDatabase().rawQuery(
+                "SELECT " + COL_WATERMARK + ", " + COL_LAST_FULL_SYNC_AT + " FROM " + TABLE_SYNC_STATE
+                        + " WHERE " + COL_ID + " = 0", null)) {
+            if (!cursor.moveToFirst()) return null;
+            return new SyncState(cursor.isNull(0) ? null : cursor.getString(0), cursor.getLong(1));
+        }
+    }
+
+    @Override
+    public void replaceAll(List<ProductOrder> rows, SyncState state) {
+        SQLiteDatabase db = database.getWritableDatabase();
+        db.beginTransactionNonExclusive();
+        try {
+            db.execSQL("DELETE FROM " + TABLE_INVENTORY);
+            db.execSQL("DELETE FROM " + TABLE_FTS);
+            write(db, rows, false);
+            saveState(db, state);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    @Override
+    public int merge(List<ProductOrder> rows, SyncState state) {
+        SQLiteDatabase db = database.getWritableDatabase();
+        db.beginTransactionNonExclusive();
+        try {
+            int added = write(db, rows, true);
+            saveState(db, state);
+            db.setTransactionSuccessful();
+            return added;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Inserts the rows, or updates the ones with a known key when mayExist is set.
+     *
+     * @return how many rows were inserted
+     */
+    private static int write(SQLiteDatabase db, List<ProductOrder> rows, boolean mayExist) {
+        StringBuilder placeholders = new StringBuilder("?");
+        for (int i = 0; i < ROW_COLUMNS.length; i++) {
+            placeholders.append(", ?");
+        }
+        SQLiteStatement insert = db.compileStatement("INSERT INTO " + TABLE_INVENTORY
+                + " (" + joinColumns(", ") + ", " + COL_ROW_KEY + ") VALUES (" + placeholders + ")");
+        SQLiteStatement insertFts = db.compileStatement("INSERT INTO " + TABLE_FTS
+                + " (docid, " + COL_SKU_DESCRIPTION + ") VALUES (?, ?)");
+        SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_INVENTORY
+                + " SET " + joinColumns(" = ?, ") + " = ? WHERE " + COL_ROW_KEY + " = ?");
+        SQLiteStatement updateFts = db.compileStatement("UPDATE " + TABLE_FTS
+                + " SET " + COL_SKU_DESCRIPTION + " = ? WHERE docid = (SELECT " + COL_ID
+                + " FROM " + TABLE_INVENTORY + " WHERE " + COL_ROW_KEY + " = ?)");
+
+        int added = 0;
+        for (ProductOrder row : rows) {
+            String key = CatalogRows.keyOf(row);
+            if (mayExist) {
+                bindRow(update, row, key);
+                if (update.executeUpdateDelete() > 0) {
+                    bindNullable(updateFts, 1, row.getSkuDescription());
+                    updateFts.bindString(2, key);
+                    updateFts.executeUpdateDelete();
+                    continue;
+                }
+            }
+            bindRow(insert, row, key);
+            long id = insert.executeInsert();
+            insertFts.bindLong(1, id);
+            bindNullable(insertFts, 2, row.getSkuDescription());
+            insertFts.executeInsert();
+            added++;
+        }
+
+        insert.close();
+        insertFts.close();
+        update.close();
+        updateFts.close();
+        return added;
+    }
+
+    // String.join needs API 26
+    private static String joinColumns(String separator) {
+        StringBuilder joined = new StringBuilder();
+        for (String column : ROW_COLUMNS) {
+            if (joined.length() > 0) joined.append(separator);
+            joined.append(column);
+        }
+        return joined.toString();
+    }
+
+    private static void bindRow(SQLiteStatement statement, ProductOrder row, String key) {
+        statement.clearBindings();
+        statement.bindLong(1, row.getSku());
+        bindNullable(statement, 2, row.getSkuDescription());
+        statement.bindLong(3, row.getLitres());
+        bindNullable(statement, 4, row.getUserCode());
+        bindNullable(statement, 5, row.getOrderDate());
+        bindNullable(statement, 6, row.getPreviousOrderDate());
+        statement.bindLong(7, row.getDaysBetweenOrders());
+        if (row.getAverageDailyUse() != null) statement.bindDouble(8, row.getAverageDailyUse());
+        bindNullable(statement, 9, row.getUserId());
+        statement.bindString(10, key);
+    }
+
+    private static void bindNullable(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    private static void saveState(SQLiteDatabase db, SyncState state) {
+        SQLiteStatement statement = db.compileStatement("INSERT OR REPLACE INTO " + TABLE_SYNC_STATE
+                + " (" + COL_ID + ", " + COL_WATERMARK + ", " + COL_LAST_FULL_SYNC_AT + ") VALUES (0, ?, ?)");
+        bindNullable(statement, 1, state.watermark);
+        statement.bindLong(2, state.lastFullSyncAt);
+        statement.executeInsert();
+        statement.close();
+    }
+
+    @Override
+    public void clear() {
+        SQLiteDatabase db = database.getWritableDatabase();
+        db.beginTransactionNonExclusive();
+        try {
+            db.execSQL("DELETE FROM " + TABLE_INVENTORY);
+            db.execSQL("DELETE FROM " + TABLE_FTS);
+            db.execSQL("DELETE FROM " + TABLE_SYNC_STATE);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    @Override
+    public int size() {
+        return (int) DatabaseUtils.queryNumEntries(database.getReadableDatabase(), TABLE_INVENTORY);
+    }
+
+    @Override
+    public List<ProductOrder> query(String search, String sortBy, int page, int pageSize) {
+        StringBuilder sql = new StringBuilder(SELECT_ROWS);
+        String[] args = null;
+
+        String match = ftsQuery(search);
+        if (match != null) {
+            sql.append(" WHERE ").append(COL_ID).append(" IN (SELECT docid FROM ").append(TABLE_FTS)
+                    .append(" WHERE ").append(TABLE_FTS).append(" MATCH ?)");
+            args = new String[]{match};
+        } else if (search != null && !search.trim().isEmpty()) {
+            // Only punctuation, nothing the full-text index knows about
+            sql.append(" WHERE ").append(COL_SKU_DESCRIPTION).append(" LIKE ? ESCAPE '\\'");
+            args = new String[]{"%" + search.trim().replaceAll("([\\\\%_])", "\\\\$1") + "%"};
+        }
+        sql.append(" ORDER BY ").append(orderBy(sortBy))
+                .append(" LIMIT ").append(pageSize)
+                .append(" OFFSET ").append((long) page * pageSize);
+
+        List<ProductOrder> rows = new ArrayList<>(pageSize);
+        try (Cursor cursor = database.getReadableDatabase().rawQuery(sql.toString(), args)) {
+            while (cursor.moveToNext()) {
+                rows.add(readRow(cursor));
+            }
+        }
+        return rows;
+    }
+
+    private static ProductOrder readRow(Cursor cursor) {
+        ProductOrder row = new ProductOrder();
+        row.setSku(cursor.getInt(0));
+        row.setSkuDescription(cursor.getString(1));
+        row.setLitres(cursor.getInt(2));
+        row.setUserCode(cursor.getString(3));
+        row.setOrderDate(cursor.getString(4));
+        row.setPreviousOrderDate(cursor.getString(5));
+        row.setDaysBetweenOrders(cursor.getInt(6));
+        row.setAverageDailyUse(cursor.isNull(7) ? null : cursor.getDouble(7));
+        row.setUserId(cursor.getString(8));
+        return row;
+    }
+
+    /**
+     * FTS4 query for the search text: every word must match as a prefix. Null when the text
+     * has no words.
+     */
+    static String ftsQuery(String search) {
+        if (search == null) return null;
+
+        StringBuilder match = new StringBuilder();
+        // Same word boundaries as the FTS "simple" tokenizer; lower case keeps AND/OR/NOT literal
+        for (String word : search.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) continue;
+            if (match.length() > 0) match.append(' ');
+            match.append(word).append('*');
+        }
+        return match.length() == 0 ? null : match.toString();
+    }
+
+    /**
+     * ORDER BY clause for sortBy: NULLs first, ties broken by the row key, newest first by
+     * default like the server.
+     */
+    static String orderBy(String sortBy) {
+        boolean descending = sortBy != null && sortBy.startsWith("-");
+        String field = sortBy == null ? "" : sortBy.replaceFirst("^-", "").toLowerCase(Locale.ROOT);
+
+        String column;
+        switch (field) {
+            case "name":
+                column = COL_SKU_DESCRIPTION + " COLLATE NOCASE";
+                break;
+            case "litres":
+                column = COL_LITRES;
+                break;
+            case "orderdate":
+                column = COL_ORDER_DATE;
+                break;
+            default:
+                // Anything else is most recent first, like the server
+                column = COL_ORDER_DATE;
+                descending = true;
+                break;
+        }
+        return column + (descending ? " DESC" : " ASC") + ", " + COL_ROW_KEY + " ASC";
+    }
+}
@@ -0,0 +1,64 @@
+package com.eduvos.nutec.util;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared thread pools so disk and parsing work never runs on the main thread.
+ * diskIO() is single threaded so file writes happen in the order they were submitted.
+ */
+public class AppExecutors {
+
+    private static AppExecutors instance;
+
+    private final ExecutorService diskIO;
+    private final ExecutorService background;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Executor mainThread = mainHandler::post;
+
+    private AppExecutors() {
+        diskIO = Executors.newSingleThreadExecutor(namedThreads("nutec-disk"));
+        background = Executors.newFixedThreadPool(
+                Math.max(2, Runtime.getRuntime().availableProcessors() - 1),
+                namedThreads("nutec-bg"));
+    }
+
+    public static synchronized AppExecutors getInstance() {
+        if (instance == null) {
+            instance = new AppExecutors();
+        }
+        return instance;
+    }
+
+    public ExecutorService diskIO() {
+        return diskIO;
+    }
+
+    public ExecutorService background() {
+        return background;
+    }
+
+    public Executor mainThread() {
+        return mainThread;
+    }
+
+    public Handler mainHandler() {
+        return mainHandler;
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,99 @@
+package com.eduvos.nutec.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.NumberFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Formats amounts and dates the way the screens show them. SimpleDateFormat and NumberFormat are
+ * slow to create and not thread-safe, so each thread keeps its own set, made again only if the
+ * device locale changes.
+ */
+public final class DisplayFormats {
+
+    // What the server sends, e.g. 2025-03-14T09:30:00
+    private static final String SERVER_DATE = "yyyy-MM-dd'T'HH:mm:ss";
+
+    private static final ThreadLocal<Formats> FORMATS = new ThreadLocal<>();
+
+    private DisplayFormats() {}
+
+    /**
+     * "R12.50", like String.format("R%.2f", amount) but without parsing the pattern each time.
+     */
+    public static String money(double amount) {
+        // Rounded from the shortest decimal for amount, as %.2f does, so 1.005 shows as 1.01
+        return "R" + formats().money.format(BigDecimal.valueOf(amount));
+    }
+
+    /**
+     * A server date as "Mar 14, 2025", or the text itself if it is not a date.
+     */
+    public static String orderDate(String serverDate) {
+        Formats formats = formats();
+        Date date = parse(formats, serverDate);
+        return date == null ? serverDate : formats.orderDate.format(date);
+    }
+
+    /**
+     * A server date as "March 14, 2025 at 09:30 AM", or the text itself if it is not a date.
+     */
+    public static String orderDateTime(String serverDate) {
+        Formats formats = formats();
+        Date date = parse(formats, serverDate);
+        return date == null ? serverDate : formats.orderDateTime.format(date);
+    }
+
+    /**
+     * Epoch millis as "14 Mar 2025, 09:30".
+     */
+    public static String timestamp(long millis) {
+        return formats().timestamp.format(new Date(millis));
+    }
+
+    private static Date parse(Formats formats, String serverDate) {
+        if (serverDate == null) return null;
+        try {
+            return formats.serverDate.parse(serverDate);
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+
+    private static Formats formats() {
+        Locale locale = Locale.getDefault();
+        Formats formats = FORMATS.get();
+        if (formats == null || !formats.locale.equals(locale)) {
+            formats = new Formats(locale);
+            FORMATS.set(formats);
+        }
+        return formats;
+    }
+
+    private static final class Formats {
+        final Locale locale;
+        final NumberFormat money;
+        final SimpleDateFormat serverDate;
+        final SimpleDateFormat orderDate;
+        final SimpleDateFormat orderDateTime;
+        final SimpleDateFormat timestamp;
+
+        Formats(Locale locale) {
+            this.locale = locale;
+            // Same as %.2f: two decimals, half up, no grouping
+            money = NumberFormat.getNumberInstance(locale);
+            money.setMinimumFractionDigits(2);
+            money.setMaximumFractionDigits(2);
+            money.setGroupingUsed(false);
+            money.setRoundingMode(RoundingMode.HALF_UP);
+            serverDate = new SimpleDateFormat(SERVER_DATE, locale);
+            orderDate = new SimpleDateFormat("MMM dd, yyyy", locale);
+            orderDateTime = new SimpleDateFormat("MMMM dd, yyyy 'at' hh:mm a", locale);
+            timestamp = new SimpleDateFormat("dd MMM yyyy, HH:mm", locale);
+        }
+    }
+}
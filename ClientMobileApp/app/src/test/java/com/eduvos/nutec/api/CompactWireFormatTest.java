@@ -0,0 +1,160 @@
+package com.eduvos.nutec.api;
+
+import com.eduvos.nutec.pojo.Order;
+import com.eduvos.nutec.pojo.OrderItem;
+import com.eduvos.nutec.pojo.OrdersListResponse;
+import com.eduvos.nutec.pojo.ProductOrder;
+import com.google.gson.Gson;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the compact wire format. A MockWebServer plays the API and serves the
+ * same dataset as JSON or compact depending on the Accept header, so the sizes can be compared.
+ */
+public class CompactWireFormatTest {
+
+    private static final int ROWS = 2000;
+
+    private final Gson gson = new Gson();
+    private final List<ProductOrder> inventory = inventory(ROWS);
+    private MockWebServer server;
+    private boolean serveCompact = true;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String accept = request.getHeader("Accept");
+                try {
+                    if (serveCompact && accept != null && accept.contains(CompactWireFormat.MEDIA_TYPE)) {
+                        return new MockResponse()
+                                .setHeader("Content-Type", CompactWireFormat.MEDIA_TYPE)
+                                .setBody(CompactWireFormat.encodeInventory(inventory));
+                    }
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+                return new MockResponse()
+                        .setHeader("Content-Type", "application/json; charset=utf-8")
+                        .setBody(gson.toJson(inventory));
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void inventory_roundTripsThroughCompactEncoding() throws Exception {
+        Buffer encoded = CompactWireFormat.encodeInventory(inventory);
+        List<ProductOrder> decoded = CompactWireFormat.decodeInventory(encoded);
+
+        assertEquals(gson.toJson(inventory), gson.toJson(decoded));
+    }
+
+    @Test
+    public void orders_roundTripThroughCompactEncoding() throws Exception {
+        Order order = new Order();
+        order.setId("665f1c2e9b1e8a0012345678");
+        order.setOrderNumber("ORD-0001");
+        order.setStatus("Pending");
+        order.setCreatedAt("2025-10-01T09:30:00Z");
+        order.setSubtotal(900);
+        order.setDeliveryFee(50);
+        order.setTaxAmount(135);
+        order.setTotal(1085);
+        List<OrderItem> items = new ArrayList<>();
+        items.add(new OrderItem("Process Black", 1001, 2, 450, 900));
+        items.add(new OrderItem(null, -5, 0, 0, 0));
+        order.setItems(items);
+
+        OrdersListResponse response = new OrdersListResponse();
+        response.setSuccess(true);
+        response.setOrders(List.of(order, order));
+
+        OrdersListResponse decoded = CompactWireFormat.decodeOrders(CompactWireFormat.encodeOrders(response));
+
+        assertEquals(gson.toJson(response), gson.toJson(decoded));
+    }
+
+    @Test
+    public void retrofit_decodesCompactResponseAndIsSmallerThanJson() throws Exception {
+        ApiService api = api();
+
+        Response<List<ProductOrder>> compact = api.getInventorySince(null, 0, ROWS).execute();
+        serveCompact = false;
+        Response<List<ProductOrder>> json = api.getInventorySince(null, 0, ROWS).execute();
+
+        assertTrue(compact.isSuccessful());
+        assertEquals(CompactWireFormat.MEDIA_TYPE, compact.raw().header("Content-Type"));
+        assertEquals(ROWS, compact.body().size());
+        assertEquals(gson.toJson(json.body()), gson.toJson(compact.body()));
+
+        // What actually went over the wire, about 44 KB against 473 KB for this dataset
+        long compactBytes = Long.parseLong(compact.raw().header("Content-Length"));
+        long jsonBytes = Long.parseLong(json.raw().header("Content-Length"));
+        assertEquals(CompactWireFormat.encodeInventory(inventory).size(), compactBytes);
+        assertEquals(gson.toJson(inventory).getBytes("UTF-8").length, jsonBytes);
+        assertTrue("compact " + compactBytes + " B vs json " + jsonBytes + " B", compactBytes * 10 < jsonBytes);
+    }
+
+    @Test
+    public void retrofit_fallsBackToJsonWhenServerIgnoresAccept() throws Exception {
+        serveCompact = false;
+
+        Response<List<ProductOrder>> response = api().getInventorySince(null, 0, ROWS).execute();
+
+        assertEquals(ROWS, response.body().size());
+        assertTrue(server.takeRequest().getHeader("Accept").contains(CompactWireFormat.MEDIA_TYPE));
+    }
+
+    private ApiService api() {
+        return new Retrofit.Builder()
+                .baseUrl(server.url("/api/"))
+                .addConverterFactory(CompactConverterFactory.create())
+                .addConverterFactory(GsonConverterFactory.create(gson))
+                .build()
+                .create(ApiService.class);
+    }
+
+    private static List<ProductOrder> inventory(int rows) {
+        List<ProductOrder> list = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            ProductOrder row = new ProductOrder();
+            row.setSku(1000 + i % 40);
+            row.setSkuDescription("Solvent Ink " + (i % 40));
+            row.setLitres(5 + i % 200);
+            row.setUserCode("CL" + (i % 15));
+            row.setOrderDate(String.format(Locale.US, "2025-%02d-%02dT00:00:00Z", 1 + i % 12, 1 + i % 28));
+            row.setPreviousOrderDate(i % 7 == 0 ? null : String.format(Locale.US, "2024-%02d-01T00:00:00Z", 1 + i % 12));
+            row.setDaysBetweenOrders(i % 90);
+            row.setAverageDailyUse(i % 11 == 0 ? null : (i % 200) / 3.0);
+            row.setUserId("665f1c2e9b1e8a00000000" + String.format(Locale.US, "%02d", i % 15));
+            list.add(row);
+        }
+        return list;
+    }
+}
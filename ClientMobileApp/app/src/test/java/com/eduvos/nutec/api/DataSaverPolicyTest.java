@@ -0,0 +1,77 @@
+package com.eduvos.nutec.api;
+
+import com.eduvos.nutec.metrics.NetworkQualityEstimator;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the network quality estimate and the data saver decisions.
+ */
+public class DataSaverPolicyTest {
+
+    private final NetworkQualityEstimator estimator = new NetworkQualityEstimator();
+    private final DataSaverPolicy policy = new DataSaverPolicy(estimator);
+
+    private void recordCalls(int count, long ttfbMs, long bodyBytes, long bodyMs) {
+        for (int i = 0; i < count; i++) {
+            estimator.record(ttfbMs, bodyBytes, bodyMs);
+        }
+    }
+
+    @Test
+    public void estimator_needsSamplesAndClassifiesLinks() {
+        recordCalls(2, 100, 64 * 1024, 50);
+        assertEquals(NetworkQualityEstimator.Quality.UNKNOWN, estimator.getQuality());
+
+        recordCalls(1, 100, 64 * 1024, 50); // ~10 Mbps, fast replies
+        assertEquals(NetworkQualityEstimator.Quality.GOOD, estimator.getQuality());
+
+        estimator.reset();
+        recordCalls(5, 2500, 64 * 1024, 5000); // ~100 kbps, slow replies
+        assertEquals(NetworkQualityEstimator.Quality.POOR, estimator.getQuality());
+    }
+
+    @Test
+    public void auto_savesOnMeteredOrPoorLinks() {
+        recordCalls(5, 500, 1024, 10);
+        assertFalse(policy.isSaving());
+        assertEquals(InventoryPager.PAGE_SIZE, policy.getPageSize());
+        assertNull(policy.getOrderHistoryLimit());
+
+        estimator.setMetered(true);
+        assertTrue(policy.isSaving());
+        assertEquals(DataSaverPolicy.SAVER_PAGE_SIZE, policy.getPageSize());
+        assertEquals(DataSaverPolicy.SAVER_PREFETCH_DISTANCE, policy.getPrefetchDistance());
+        assertEquals(Integer.valueOf(DataSaverPolicy.SAVER_ORDER_HISTORY_LIMIT), policy.getOrderHistoryLimit());
+        assertEquals(0, policy.getBodyLogSampleEvery(10));
+        assertFalse(policy.allowsBackgroundSync());
+
+        estimator.setMetered(false);
+        recordCalls(10, 3000, 1024, 10);
+        assertTrue(policy.isSaving());
+    }
+
+    @Test
+    public void fastUnmeteredLink_fetchesBiggerPages() {
+        recordCalls(5, 80, 256 * 1024, 100);
+
+        assertEquals(DataSaverPolicy.FAST_PAGE_SIZE, policy.getPageSize());
+        assertEquals(DataSaverPolicy.FAST_PREFETCH_DISTANCE, policy.getPrefetchDistance());
+        assertTrue(policy.allowsBackgroundSync());
+    }
+
+    @Test
+    public void userSetting_overridesTheEstimate() {
+        recordCalls(5, 80, 256 * 1024, 100);
+        policy.setMode(DataSaverPolicy.MODE_ON);
+        assertTrue(policy.isSaving());
+        assertEquals(DataSaverPolicy.SAVER_PAGE_SIZE, policy.getPageSize());
+
+        estimator.setMetered(true);
+        policy.setMode(DataSaverPolicy.MODE_OFF);
+        assertFalse(policy.isSaving());
+        assertEquals(10, policy.getBodyLogSampleEvery(10));
+    }
+}
@@ -0,0 +1,157 @@
+package com.eduvos.nutec.api;
+
+import com.eduvos.nutec.pojo.ProductOrder;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.Request;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for server-side inventory paging.
+ */
+public class InventoryPagerTest {
+
+    private static final int TOTAL_ROWS = 25;
+
+    private final List<String> requests = new ArrayList<>();
+    private final List<PageCall> calls = new ArrayList<>();
+    private final List<Integer> pageSizes = new ArrayList<>();
+
+    private final InventoryPager pager = new InventoryPager((page, pageSize, search, sortBy) -> {
+        requests.add(page + "|" + search + "|" + sortBy);
+        PageCall call = new PageCall(page, pageSize);
+        calls.add(call);
+        return call;
+    }, 10, new InventoryPager.Listener() {
+        @Override
+        public void onPageLoaded(List<ProductOrder> rows, boolean firstPage) {
+            if (firstPage) pageSizes.clear();
+            pageSizes.add(rows.size());
+        }
+
+        @Override
+        public void onError(Throwable error, boolean firstPage) {
+            fail("unexpected error " + error);
+        }
+    });
+
+    @Test
+    public void loadsPagesUntilShortPage() {
+        pager.setQuery("", null);
+        lastCall().complete();
+        pager.loadNextPage();
+        lastCall().complete();
+        pager.loadNextPage();
+        lastCall().complete();
+
+        assertEquals(List.of(10, 10, 5), pageSizes);
+        assertTrue(pager.isEndReached());
+        assertFalse(pager.loadNextPage());
+        assertEquals(List.of("0|null|null", "1|null|null", "2|null|null"), requests);
+    }
+
+    @Test
+    public void onlyOnePageLoadsAtATime() {
+        pager.setQuery(null, null);
+        assertFalse(pager.loadNextPage());
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    public void prefetchesWhenCloseToTheEnd() {
+        pager.setQuery(null, null);
+        lastCall().complete();
+
+        pager.onScrolled(0, 10);
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    public void newQuery_dropsThePageStillLoading() {
+        pager.setQuery("blue", "name");
+        PageCall stale = lastCall();
+        pager.setQuery("red", "-litres");
+
+        assertTrue(stale.canceled);
+        stale.complete(); // late response must be ignored
+        assertTrue(pageSizes.isEmpty());
+
+        lastCall().complete();
+        assertEquals(List.of(10), pageSizes);
+        assertEquals("0|red|-litres", requests.get(1));
+    }
+
+    private PageCall lastCall() {
+        return calls.get(calls.size() - 1);
+    }
+
+    private static class PageCall implements Call<List<ProductOrder>> {
+        private final int page;
+        private final int pageSize;
+        private Callback<List<ProductOrder>> callback;
+        boolean canceled;
+
+        PageCall(int page, int pageSize) {
+            this.page = page;
+            this.pageSize = pageSize;
+        }
+
+        void complete() {
+            List<ProductOrder> rows = new ArrayList<>();
+            for (int i = page * pageSize; i < Math.min(TOTAL_ROWS, (page + 1) * pageSize); i++) {
+                rows.add(new ProductOrder());
+            }
+            callback.onResponse(this, Response.success(rows));
+        }
+
+        @Override
+        public void enqueue(Callback<List<ProductOrder>> callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public Response<List<ProductOrder>> execute() throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return callback != null;
+        }
+
+        @Override
+        public void cancel() {
+            canceled = true;
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        @Override
+        public Call<List<ProductOrder>> clone() {
+            return new PageCall(page, pageSize);
+        }
+
+        @Override
+        public Request request() {
+            return new Request.Builder().url("http://test/api/StockMetrics/inventory").build();
+        }
+
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.eduvos.nutec.api;
+
+import com.google.gson.Gson;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the startup warm-up.
+ */
+public class NetworkWarmupTest {
+
+    @Test
+    public void preloadTypeAdapters_handlesEveryApiServiceType() {
+        // Fails if Gson cannot build an adapter for one of the response types
+        int loaded = NetworkWarmup.preloadTypeAdapters(new Gson());
+
+        assertEquals(ApiService.class.getDeclaredMethods().length, loaded);
+    }
+}
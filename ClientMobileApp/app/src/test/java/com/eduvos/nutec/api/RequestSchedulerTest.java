@@ -0,0 +1,122 @@
+package com.eduvos.nutec.api;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Request;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the priority lane scheduler.
+ */
+public class RequestSchedulerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final ManualTimer timer = new ManualTimer();
+    private final RequestScheduler scheduler = new RequestScheduler(now::get, timer);
+    private final List<String> started = new ArrayList<>();
+
+    /**
+     * Holds scheduled tasks until the test runs the ones that are due on the fake clock.
+     */
+    private final class ManualTimer extends ScheduledThreadPoolExecutor {
+        private final List<Runnable> tasks = new ArrayList<>();
+        private final List<Long> dueAt = new ArrayList<>();
+
+        ManualTimer() {
+            super(1);
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            tasks.add(command);
+            dueAt.add(now.get() + unit.toNanos(delay));
+            return null;
+        }
+
+        void advanceMs(long ms) {
+            now.addAndGet(TimeUnit.MILLISECONDS.toNanos(ms));
+            for (int i = 0; i < tasks.size(); ) {
+                if (dueAt.get(i) <= now.get()) {
+                    dueAt.remove(i);
+                    tasks.remove(i).run();
+                } else {
+                    i++;
+                }
+            }
+        }
+    }
+
+    private void submit(RequestLane lane, String name) {
+        scheduler.submit(new RequestScheduler.Ticket(lane, () -> started.add(name)));
+    }
+
+    @Test
+    public void laneLimit_queuesUntilASlotIsFree() {
+        submit(RequestLane.BACKGROUND, "b1");
+        submit(RequestLane.BACKGROUND, "b2");
+        submit(RequestLane.BACKGROUND, "b3");
+
+        assertEquals(List.of("b1", "b2"), started);
+        assertEquals(1, scheduler.getQueued(RequestLane.BACKGROUND));
+
+        scheduler.finished(RequestLane.BACKGROUND);
+        assertEquals(List.of("b1", "b2", "b3"), started);
+    }
+
+    @Test
+    public void lowerLanes_waitWhileInteractiveIsInFlight() {
+        submit(RequestLane.INTERACTIVE, "tap");
+        submit(RequestLane.BACKGROUND, "sync");
+        submit(RequestLane.VISIBLE_PREFETCH, "page2");
+
+        assertEquals(List.of("tap"), started);
+
+        scheduler.finished(RequestLane.INTERACTIVE);
+        // Prefetch is admitted before background once the tap is done
+        assertEquals(List.of("tap", "page2", "sync"), started);
+    }
+
+    @Test
+    public void interactive_isNeverBlockedByLowerLanes() {
+        submit(RequestLane.BACKGROUND, "b1");
+        submit(RequestLane.BACKGROUND, "b2");
+        submit(RequestLane.INTERACTIVE, "tap");
+
+        assertEquals(List.of("b1", "b2", "tap"), started);
+        assertEquals(1, scheduler.getWaitHistogram(RequestLane.INTERACTIVE).getCount());
+    }
+
+    @Test
+    public void deferredCall_startsAtItsDeadlineWithoutAnotherEvent() {
+        submit(RequestLane.INTERACTIVE, "tap");
+        submit(RequestLane.BACKGROUND, "sync");
+        assertEquals(List.of("tap"), started);
+
+        // The tap never finishes and nothing else is queued, only the clock moves
+        timer.advanceMs(RequestScheduler.MAX_DEFER_MS - 1);
+        assertEquals(List.of("tap"), started);
+
+        timer.advanceMs(1);
+        assertEquals(List.of("tap", "sync"), started);
+        assertEquals(0, scheduler.getQueued(RequestLane.BACKGROUND));
+        assertEquals(RequestScheduler.MAX_DEFER_MS,
+                scheduler.getWaitHistogram(RequestLane.BACKGROUND).percentile(50));
+    }
+
+    @Test
+    public void laneOf_prefersTagOverDefault() {
+        Request plain = new Request.Builder().url("http://test/api/orders").build();
+        Request tagged = plain.newBuilder().tag(RequestLane.class, RequestLane.VISIBLE_PREFETCH).build();
+
+        assertEquals(RequestLane.INTERACTIVE, RequestScheduler.laneOf(plain));
+        assertEquals(RequestLane.VISIBLE_PREFETCH, RequestScheduler.laneOf(tagged));
+    }
+}
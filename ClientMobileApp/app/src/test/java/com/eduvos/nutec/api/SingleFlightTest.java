@@ -0,0 +1,210 @@
+package com.eduvos.nutec.api;
+
+import com.eduvos.nutec.pojo.Order;
+import com.eduvos.nutec.pojo.OrdersListResponse;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.Request;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for request coalescing.
+ */
+public class SingleFlightTest {
+
+    @Test
+    public void identicalCalls_shareOneNetworkCall() {
+        SingleFlight singleFlight = new SingleFlight(0, Runnable::run);
+        FakeCall first = new FakeCall("http://test/api/orders");
+        FakeCall second = new FakeCall("http://test/api/orders");
+        List<String> results = new ArrayList<>();
+
+        singleFlight.enqueue(first, first, recording(results));
+        singleFlight.enqueue(second, second, recording(results));
+        first.complete("orders");
+
+        assertEquals(List.of("orders", "orders"), results);
+        assertTrue(first.enqueued);
+        assertFalse(second.enqueued);
+        assertEquals(1, singleFlight.getNetworkCalls());
+        assertEquals(1, singleFlight.getJoined());
+        assertEquals(0.5, singleFlight.getDedupRate(), 0.001);
+    }
+
+    @Test
+    public void differentUrls_doNotShare() {
+        SingleFlight singleFlight = new SingleFlight(0, Runnable::run);
+        FakeCall first = new FakeCall("http://test/api/orders/1");
+        FakeCall second = new FakeCall("http://test/api/orders/2");
+
+        singleFlight.enqueue(first, first, recording(new ArrayList<>()));
+        singleFlight.enqueue(second, second, recording(new ArrayList<>()));
+
+        assertTrue(first.enqueued);
+        assertTrue(second.enqueued);
+        assertEquals(2, singleFlight.getNetworkCalls());
+    }
+
+    @Test
+    public void finishedResult_isReusedInsideWindow() {
+        SingleFlight singleFlight = new SingleFlight(60_000, Runnable::run);
+        FakeCall first = new FakeCall("http://test/api/orders");
+        FakeCall later = new FakeCall("http://test/api/orders");
+        List<String> results = new ArrayList<>();
+
+        singleFlight.enqueue(first, first, recording(results));
+        first.complete("orders");
+        singleFlight.enqueue(later, later, recording(results));
+
+        assertEquals(List.of("orders", "orders"), results);
+        assertFalse(later.enqueued);
+        assertEquals(1, singleFlight.getReused());
+
+        // After a clear (logout) the next call goes to the network again
+        singleFlight.clear();
+        FakeCall afterClear = new FakeCall("http://test/api/orders");
+        singleFlight.enqueue(afterClear, afterClear, recording(results));
+        assertTrue(afterClear.enqueued);
+    }
+
+    @Test
+    public void lastSubscriberLeaving_cancelsSharedCall() {
+        SingleFlight singleFlight = new SingleFlight(0, Runnable::run);
+        FakeCall first = new FakeCall("http://test/api/orders");
+        FakeCall second = new FakeCall("http://test/api/orders");
+        List<String> results = new ArrayList<>();
+
+        singleFlight.enqueue(first, first, recording(results));
+        singleFlight.enqueue(second, second, recording(results));
+
+        singleFlight.unsubscribe(first);
+        assertFalse(first.canceled);
+        singleFlight.unsubscribe(second);
+        assertTrue(first.canceled);
+
+        first.complete("orders");
+        assertTrue(results.isEmpty());
+    }
+
+    @Test
+    public void firstSubscriberCancelling_leavesTheSharedCallToTheOthers() {
+        SingleFlight singleFlight = new SingleFlight(0, Runnable::run);
+        FakeCall firstDelegate = new FakeCall("http://test/api/products");
+        Call<String> first = new CoalescingCallAdapterFactory.CoalescedCall<>(firstDelegate, singleFlight);
+        Call<String> second = new CoalescingCallAdapterFactory.CoalescedCall<>(
+                new FakeCall("http://test/api/products"), singleFlight);
+        List<String> firstResults = new ArrayList<>();
+        List<String> results = new ArrayList<>();
+
+        first.enqueue(recording(firstResults));
+        second.enqueue(recording(results));
+        first.cancel(); // e.g. the screen that started it closing
+
+        assertTrue(first.isCanceled());
+        assertFalse(firstDelegate.canceled);
+        firstDelegate.complete("products");
+        assertEquals(List.of("products"), results);
+        assertTrue(firstResults.isEmpty());
+
+        // A call that never joined a flight is cancelled itself
+        FakeCall unsentDelegate = new FakeCall("http://test/api/products");
+        new CoalescingCallAdapterFactory.CoalescedCall<>(unsentDelegate, singleFlight).cancel();
+        assertTrue(unsentDelegate.canceled);
+    }
+
+    @Test
+    public void sharedBodies_areReadOnly() {
+        List<String> rows = new ArrayList<>(List.of("a", "b"));
+        Response<Object> shared = SingleFlight.readOnly(Response.success(rows));
+        @SuppressWarnings("unchecked")
+        List<String> body = (List<String>) shared.body();
+
+        assertEquals(rows, body);
+        assertThrows(UnsupportedOperationException.class, () -> body.add("c"));
+
+        OrdersListResponse orders = new OrdersListResponse();
+        orders.setOrders(new ArrayList<>(List.of(new Order())));
+        SingleFlight.readOnly(Response.success(orders));
+        assertThrows(UnsupportedOperationException.class, () -> orders.getOrders().clear());
+    }
+
+    private static Callback<String> recording(List<String> results) {
+        return new Callback<String>() {
+            @Override
+            public void onResponse(Call<String> call, Response<String> response) {
+                results.add(response.body());
+            }
+
+            @Override
+            public void onFailure(Call<String> call, Throwable t) {
+                results.add("failure");
+            }
+        };
+    }
+
+    private static class FakeCall implements Call<String> {
+        private final Request request;
+        private Callback<String> callback;
+        boolean enqueued;
+        boolean canceled;
+
+        FakeCall(String url) {
+            request = new Request.Builder().url(url).build();
+        }
+
+        void complete(String body) {
+            callback.onResponse(this, Response.success(body));
+        }
+
+        @Override
+        public void enqueue(Callback<String> callback) {
+            this.callback = callback;
+            enqueued = true;
+        }
+
+        @Override
+        public Response<String> execute() throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return enqueued;
+        }
+
+        @Override
+        public void cancel() {
+            canceled = true;
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        @Override
+        public Call<String> clone() {
+            return new FakeCall(request.url().toString());
+        }
+
+        @Override
+        public Request request() {
+            return request;
+        }
+
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+    }
+}
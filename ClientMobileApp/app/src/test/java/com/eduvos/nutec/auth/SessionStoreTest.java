@@ -0,0 +1,107 @@
+package com.eduvos.nutec.auth;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the memory-first session store, with a disk thread the test steps by hand.
+ */
+public class SessionStoreTest {
+
+    private final Queue<Runnable> diskTasks = new ArrayDeque<>();
+    private final Executor diskIO = diskTasks::add;
+    private final List<SessionStore.Session> written = new ArrayList<>();
+    private SessionStore.Session onDisk = SessionStore.Session.EMPTY;
+
+    private final SessionStore.Storage storage = new SessionStore.Storage() {
+        @Override
+        public SessionStore.Session read() {
+            return onDisk;
+        }
+
+        @Override
+        public void write(SessionStore.Session session) {
+            written.add(session);
+            onDisk = session;
+        }
+    };
+
+    private void runDiskTasks() {
+        Runnable task;
+        while ((task = diskTasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static SessionStore.Session login(String token) {
+        return SessionStore.Session.login(token, "refresh-" + token, "Ann", "ann@example.com", "u1", "Customer");
+    }
+
+    @Test
+    public void reads_comeFromMemoryAndChangesAreWrittenOnceOffThread() {
+        onDisk = login("t1");
+        SessionStore store = new SessionStore(diskIO);
+        store.load(storage);
+        assertFalse(store.isLoaded());
+
+        runDiskTasks();
+        assertTrue(store.isLoaded());
+        assertEquals("Ann", store.get().userName);
+
+        List<SessionStore.Session> events = new ArrayList<>();
+        store.addListener(events::add);
+        store.update(session -> session.withTokens("t2", "r2"));
+        store.update(session -> session.withTokens("t3", "r3"));
+        store.update(session -> session.withTokens("t3", "r3")); // no change, no event
+
+        assertEquals("t3", store.get().accessToken);
+        assertEquals(2, events.size());
+        assertTrue(written.isEmpty()); // nothing on the calling thread
+
+        runDiskTasks();
+        assertEquals(1, written.size());
+        assertEquals("t3", written.get(0).accessToken);
+        assertEquals("Ann", written.get(0).userName);
+    }
+
+    @Test
+    public void changesBeforeTheLoad_areReplayedOnTopOfTheSavedSession() {
+        onDisk = login("t1");
+        SessionStore store = new SessionStore(diskIO);
+        store.load(storage);
+
+        store.clear(); // logout before the disk thread got to the load
+        runDiskTasks();
+
+        assertFalse(store.get().loggedIn);
+        assertNull(store.get().accessToken);
+        assertEquals(SessionStore.Session.EMPTY, onDisk);
+    }
+
+    @Test
+    public void tokenManager_followsTheStore() {
+        SessionStore store = new SessionStore(diskIO);
+        store.load(storage);
+        runDiskTasks();
+        TokenManager tokens = new TokenManager(refreshToken -> null, () -> 0L, null);
+        tokens.initialize(null, store);
+
+        store.update(session -> login("t1"));
+        assertEquals("t1", tokens.getAccessToken());
+        assertEquals("refresh-t1", tokens.getRefreshToken());
+
+        tokens.saveTokens("t2", "r2");
+        assertEquals("t2", store.get().accessToken);
+        assertEquals("Ann", store.get().userName);
+
+        store.clear();
+        assertNull(tokens.getAccessToken());
+    }
+}
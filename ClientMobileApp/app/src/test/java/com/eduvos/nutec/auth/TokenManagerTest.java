@@ -0,0 +1,154 @@
+package com.eduvos.nutec.auth;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okio.ByteString;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the in-memory token state, the refresh ahead of expiry and refresh coalescing.
+ */
+public class TokenManagerTest {
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    private String jwt(long expiresAtMs) {
+        String payload = "{\"sub\":\"user1\",\"exp\":" + TimeUnit.MILLISECONDS.toSeconds(expiresAtMs) + "}";
+        return "eyJhbGciOiJIUzI1NiJ9." + ByteString.encodeUtf8(payload).base64Url().replace("=", "") + ".sig";
+    }
+
+    @Test
+    public void expiry_isDecodedOnceAndCheckedAgainstTheClock() {
+        TokenManager manager = new TokenManager(null, now::get, null);
+        long expiresAt = now.get() + TimeUnit.MINUTES.toMillis(5);
+
+        manager.saveTokens(jwt(expiresAt), "refresh1");
+
+        assertEquals(expiresAt, manager.getExpiresAtMs());
+        assertFalse(manager.isExpired());
+        now.set(expiresAt - TokenManager.EXPIRY_MARGIN_MS);
+        assertTrue(manager.isExpired());
+
+        assertEquals(0, TokenManager.expiryOf("not-a-jwt"));
+        assertEquals(0, TokenManager.expiryOf("a.%%%.c"));
+        assertEquals(0, TokenManager.expiryOf(null));
+    }
+
+    @Test
+    public void refresh_isPlannedAheadOfExpiry() {
+        TokenManager manager = new TokenManager(null, now::get, null);
+        long expiresAt = now.get() + TimeUnit.MINUTES.toMillis(5);
+
+        manager.saveTokens(jwt(expiresAt), null);
+        assertEquals(-1, manager.refreshDelayMs()); // nothing to refresh with
+
+        manager.saveTokens(jwt(expiresAt), "refresh1");
+        assertEquals(TimeUnit.MINUTES.toMillis(5) - TokenManager.REFRESH_AHEAD_MS, manager.refreshDelayMs());
+
+        now.set(expiresAt);
+        assertEquals(0, manager.refreshDelayMs());
+    }
+
+    @Test
+    public void refreshNow_countsAndHandlesEachOutcome() {
+        long later = now.get() + TimeUnit.MINUTES.toMillis(10);
+        String[] outcome = {"ok"};
+        TokenManager manager = new TokenManager(refreshToken -> {
+            if (outcome[0].equals("offline")) throw new IOException("offline");
+            if (outcome[0].equals("rejected")) return null;
+            return new TokenManager.Tokens(jwt(later), refreshToken + "+");
+        }, now::get, null);
+        manager.saveTokens(jwt(now.get()), "refresh1");
+
+        assertEquals(jwt(later), manager.refreshNow());
+        assertEquals("refresh1+", manager.getRefreshToken());
+        assertEquals(later, manager.getExpiresAtMs());
+
+        outcome[0] = "offline";
+        assertNull(manager.refreshNow());
+        assertEquals("refresh1+", manager.getRefreshToken()); // still logged in
+
+        outcome[0] = "rejected";
+        assertNull(manager.refreshNow());
+        assertNull(manager.getAccessToken());
+        assertNull(manager.getRefreshToken());
+
+        assertEquals(1, manager.getRefreshCount());
+        assertEquals(2, manager.getFailedRefreshCount());
+    }
+
+    @Test
+    public void tokenCloseToExpiry_isRefreshedInTheBackground() throws Exception {
+        CountDownLatch refreshed = new CountDownLatch(1);
+        TokenManager manager = new TokenManager(refreshToken -> {
+            refreshed.countDown();
+            return new TokenManager.Tokens(jwt(now.get() + TimeUnit.MINUTES.toMillis(10)), refreshToken);
+        }, now::get, scheduler);
+
+        manager.saveTokens(jwt(now.get() + TimeUnit.SECONDS.toMillis(30)), "refresh1");
+
+        assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+        scheduler.submit(() -> { }).get(); // let the refresh finish saving
+        assertFalse(manager.isExpired());
+        assertEquals(1, manager.getRefreshCount());
+    }
+
+    @Test
+    public void concurrentRefreshes_callTheServerOnce() throws Exception {
+        long later = now.get() + TimeUnit.MINUTES.toMillis(10);
+        AtomicInteger serverCalls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        TokenManager manager = new TokenManager(refreshToken -> {
+            serverCalls.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return new TokenManager.Tokens(jwt(later), refreshToken);
+        }, now::get, null);
+        String stale = jwt(now.get());
+        manager.saveTokens(stale, "refresh1");
+
+        ExecutorService calls = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(calls.submit(() -> manager.refreshAfter(stale)));
+            }
+            Thread.sleep(100); // let every call reach the coordinator
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals(jwt(later), result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            calls.shutdownNow();
+        }
+
+        // A 401 for the old token that arrives after the refresh just gets the new one
+        assertEquals(jwt(later), manager.refreshAfter(stale));
+        assertEquals(1, serverCalls.get());
+        assertEquals(1, manager.getRefreshCount());
+    }
+}
@@ -0,0 +1,125 @@
+package com.eduvos.nutec.manager;
+
+import com.eduvos.nutec.pojo.CartItem;
+import com.eduvos.nutec.pojo.ProductItem;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the cart journal, with a disk thread the test steps by hand.
+ */
+public class CartJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Queue<Runnable> diskTasks = new ArrayDeque<>();
+    private final Executor diskIO = diskTasks::add;
+
+    private void runDiskTasks() {
+        Runnable task;
+        while ((task = diskTasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private CartManager restoredCart(File dir) {
+        CartManager cart = new CartManager(Runnable::run);
+        cart.attach(new CartJournal(dir, diskIO), diskIO);
+        runDiskTasks();
+        return cart;
+    }
+
+    @Test
+    public void changes_areWrittenTogetherAndRestored() throws Exception {
+        File dir = folder.newFolder();
+        CartManager cart = restoredCart(dir);
+
+        cart.addToCart(new ProductItem("Ink A", 10.0));
+        cart.addToCart(new ProductItem("Ink B", 20.0));
+        cart.addToCart(new ProductItem("Ink A", 10.0));
+        cart.setQuantity(cart.getCartItems().get(1), 5);
+        cart.removeItem(cart.getCartItems().get(0));
+        cart.addToCart(new ProductItem("Ink C", 30.0));
+
+        assertEquals(1, diskTasks.size()); // one write for the whole burst
+        runDiskTasks();
+
+        List<CartItem> items = restoredCart(dir).getCartItems();
+        assertEquals(2, items.size());
+        assertEquals("Ink B", items.get(0).getProductName());
+        assertEquals(5, items.get(0).getQuantity());
+        assertEquals(20.0, items.get(0).getPrice(), 0.0);
+        assertEquals("Ink C", items.get(1).getProductName());
+        assertEquals(1, items.get(1).getQuantity());
+    }
+
+    @Test
+    public void longHistory_isCompactedIntoTheSnapshot() throws Exception {
+        File dir = folder.newFolder();
+        CartManager cart = restoredCart(dir);
+
+        cart.addToCart(new ProductItem("Ink A", 10.0));
+        for (int i = 0; i < CartJournal.COMPACT_AFTER_RECORDS * 3; i++) {
+            cart.addToCart(new ProductItem("Ink B", 20.0));
+            runDiskTasks();
+        }
+
+        File journal = new File(dir, CartJournal.JOURNAL_FILE);
+        assertTrue(new File(dir, CartJournal.SNAPSHOT_FILE).exists());
+        // Never more than one compaction interval of records to replay
+        assertTrue(journal.length() < CartJournal.COMPACT_AFTER_RECORDS * 64L);
+
+        List<CartItem> items = restoredCart(dir).getCartItems();
+        assertEquals(2, items.size());
+        assertEquals(1, items.get(0).getQuantity());
+        assertEquals(CartJournal.COMPACT_AFTER_RECORDS * 3, items.get(1).getQuantity());
+    }
+
+    @Test
+    public void lineWithoutAName_isWrittenAndRestored() throws Exception {
+        File dir = folder.newFolder();
+        CartManager cart = restoredCart(dir);
+
+        // ProductOrder.getSkuDescription() can be null
+        cart.addToCart(new ProductItem(null, 1001, 10.0));
+        cart.addToCart(new ProductItem("Ink B", 1002, 20.0));
+        runDiskTasks();
+
+        List<CartItem> items = restoredCart(dir).getCartItems();
+        assertEquals(2, items.size());
+        assertNull(items.get(0).getProductName());
+        assertEquals(1001, items.get(0).getSku());
+        assertEquals("Ink B", items.get(1).getProductName());
+    }
+
+    @Test
+    public void changesBeforeTheRestore_areReplayedOnTopOfTheSavedCart() throws Exception {
+        File dir = folder.newFolder();
+        CartManager first = restoredCart(dir);
+        first.addToCart(new ProductItem("Ink A", 10.0));
+        runDiskTasks();
+
+        CartManager cart = new CartManager(Runnable::run);
+        cart.attach(new CartJournal(dir, diskIO), diskIO);
+        cart.addToCart(new ProductItem("Ink B", 20.0)); // before the disk thread got to the restore
+        runDiskTasks();
+
+        assertEquals(2, cart.getCartItems().size());
+        assertEquals(2, restoredCart(dir).getCartItems().size());
+
+        cart.clearCart();
+        runDiskTasks();
+        assertTrue(restoredCart(dir).getCartItems().isEmpty());
+    }
+}
@@ -0,0 +1,124 @@
+package com.eduvos.nutec.manager;
+
+import com.eduvos.nutec.pojo.CartItem;
+import com.eduvos.nutec.pojo.ProductItem;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the SKU index, running totals and change stream of the cart.
+ */
+public class CartLinesTest {
+
+    @Test
+    public void lines_areKeyedBySkuWithNamesAsFallback() {
+        CartLines lines = new CartLines();
+        lines.put(new CartItem("Ink A", 101, 10.0, 1));
+        lines.put(new CartItem("Ink A", 102, 10.0, 1)); // same name, other product
+        lines.put(new CartItem("Wipes", 0, 5.0, 1));
+
+        assertEquals(3, lines.size());
+        assertEquals(1, lines.indexOf(CartItem.keyOf(102, "anything")));
+        assertEquals(2, lines.indexOf(CartItem.keyOf(new ProductItem("Wipes", 5.0))));
+
+        CartManager.Change change = lines.put(new CartItem("Ink A", 101, 10.0, 4));
+        assertEquals(CartManager.Change.Type.UPDATED, change.type);
+        assertEquals(0, change.position);
+        assertEquals(3, lines.size());
+    }
+
+    @Test
+    public void totals_followEveryChange() {
+        CartLines lines = new CartLines();
+        lines.put(new CartItem("Ink A", 101, 10.10, 2));
+        lines.put(new CartItem("Ink B", 102, 0.20, 3));
+        assertEquals(20.80, lines.getSubtotal(), 0.0);
+        assertEquals(5, lines.getUnits());
+
+        lines.put(new CartItem("Ink A", 101, 10.10, 1));
+        lines.remove(CartItem.keyOf(102, "Ink B"));
+        assertEquals(10.10, lines.getSubtotal(), 0.0);
+        assertEquals(1, lines.getUnits());
+
+        lines.clear();
+        assertEquals(0.0, lines.getSubtotal(), 0.0);
+        assertEquals(0, lines.getUnits());
+    }
+
+    @Test
+    public void removal_reindexesLaterLines() {
+        CartLines lines = new CartLines();
+        for (int sku = 1; sku <= 4; sku++) {
+            lines.put(new CartItem("Ink " + sku, sku, 1.0, 1));
+        }
+
+        CartManager.Change change = lines.remove(CartItem.keyOf(2, null));
+        assertEquals(CartManager.Change.Type.REMOVED, change.type);
+        assertEquals(1, change.position);
+        assertEquals(2, change.item.getSku());
+        assertNull(lines.remove(CartItem.keyOf(2, null)));
+
+        assertEquals(1, lines.indexOf(CartItem.keyOf(3, null)));
+        assertEquals(2, lines.indexOf(CartItem.keyOf(4, null)));
+        assertEquals(-1, lines.indexOf(CartItem.keyOf(2, null)));
+    }
+
+    @Test
+    public void manager_publishesOneChangePerEdit() {
+        CartManager cart = new CartManager(Runnable::run);
+        List<CartManager.Change> changes = new ArrayList<>();
+        cart.addCartListener((items, batch) -> changes.addAll(batch));
+
+        cart.addToCart(new ProductItem("Ink A", 101, 10.0));
+        cart.addToCart(new ProductItem("Ink B", 102, 20.0));
+        cart.addToCart(new ProductItem("Ink A", 101, 10.0));
+        cart.removeItem(cart.getCartItems().get(0));
+
+        assertEquals(4, changes.size());
+        assertEquals(CartManager.Change.Type.INSERTED, changes.get(1).type);
+        assertEquals(1, changes.get(1).position);
+        assertEquals(CartManager.Change.Type.UPDATED, changes.get(2).type);
+        assertEquals(2, changes.get(2).item.getQuantity());
+        assertEquals(CartManager.Change.Type.REMOVED, changes.get(3).type);
+        assertEquals(20.0, cart.getSubtotal(), 0.0);
+    }
+
+    @Test
+    public void batch_publishesOneVersion() {
+        CartManager cart = new CartManager(Runnable::run);
+        List<ListSnapshot<CartItem>> versions = new ArrayList<>();
+        List<CartManager.Change> changes = new ArrayList<>();
+        cart.addCartListener((items, batch) -> {
+            versions.add(items);
+            changes.addAll(batch);
+        });
+
+        cart.addToCart(new ProductItem("Ink A", 101, 10.0));
+        ListSnapshot<CartItem> before = cart.getCartItems();
+        cart.batch(() -> {
+            cart.addToCart(new ProductItem("Ink B", 102, 20.0));
+            cart.addToCart(new ProductItem("Ink C", 103, 30.0));
+            assertSame(before, cart.getCartItems()); // nothing published halfway
+        });
+
+        assertEquals(2, versions.size());
+        assertEquals(before.getVersion() + 1, cart.getCartItems().getVersion());
+        assertEquals(3, changes.size());
+        assertEquals(1, before.size()); // old versions never change
+        assertEquals(3, cart.getCartItems().size());
+        assertEquals(60.0, cart.getSubtotal(), 0.0);
+
+        cart.batch(() -> {
+            cart.addToCart(new ProductItem("Ink D", 104, 1.0));
+            cart.clearCart();
+        });
+        assertEquals(CartManager.Change.Type.RESET, changes.get(changes.size() - 1).type);
+        assertEquals(4, changes.size()); // the insert before the reset is dropped
+        assertTrue(cart.getCartItems().isEmpty());
+    }
+}
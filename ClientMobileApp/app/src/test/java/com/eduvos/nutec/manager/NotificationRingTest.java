@@ -0,0 +1,89 @@
+package com.eduvos.nutec.manager;
+
+import com.eduvos.nutec.pojo.AppNotification;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the bounded notification ring and its unread counter.
+ */
+public class NotificationRingTest {
+
+    private static AppNotification notification(String title) {
+        return new AppNotification(title, "details", 0L, true, false);
+    }
+
+    @Test
+    public void add_keepsTheNewestAndCountsUnread() {
+        NotificationRing ring = new NotificationRing(3);
+        for (int i = 1; i <= 5; i++) {
+            ring.add(notification("n" + i));
+        }
+
+        assertEquals(3, ring.size());
+        assertEquals("n5", ring.get(0).getTitle());
+        assertEquals("n3", ring.get(2).getTitle());
+        assertEquals(3, ring.unreadCount()); // dropped ones no longer count
+    }
+
+    @Test
+    public void clear_dropsEverythingButKeepsTheCapacity() {
+        NotificationRing ring = new NotificationRing(3);
+        ring.add(notification("n1"));
+        ring.add(notification("n2"));
+
+        ring.clear();
+        assertEquals(0, ring.size());
+        assertEquals(0, ring.unreadCount());
+        assertEquals(3, ring.capacity());
+
+        ring.add(notification("n3"));
+        assertEquals("n3", ring.get(0).getTitle());
+        assertEquals(1, ring.unreadCount());
+    }
+
+    @Test
+    public void markRead_updatesTheCounterOnce() {
+        NotificationRing ring = new NotificationRing(3);
+        AppNotification first = notification("n1");
+        ring.add(first);
+        ring.add(notification("n2"));
+
+        assertTrue(ring.markRead(first));
+        assertFalse(ring.markRead(first));
+        assertEquals(1, ring.unreadCount());
+
+        ring.add(notification("n3"));
+        ring.add(notification("n4")); // drops the read n1
+        assertEquals(3, ring.unreadCount());
+
+        assertEquals(3, ring.markAllRead());
+        assertEquals(0, ring.unreadCount());
+        assertTrue(ring.get(2).isRead());
+    }
+
+    @Test
+    public void addOldest_andResize_keepTheOrder() {
+        NotificationRing ring = new NotificationRing(4);
+        ring.add(notification("new"));
+        assertTrue(ring.addOldest(notification("saved1")));
+        assertTrue(ring.addOldest(new AppNotification("saved2", null, 0L, false, true)));
+
+        assertEquals("new", ring.get(0).getTitle());
+        assertEquals("saved2", ring.get(2).getTitle());
+        assertEquals(2, ring.unreadCount());
+
+        ring.resize(2);
+        assertEquals(2, ring.size());
+        assertEquals("saved1", ring.get(1).getTitle());
+        assertEquals(2, ring.unreadCount());
+
+        ring.add(notification("newer"));
+        assertEquals("newer", ring.get(0).getTitle());
+        assertEquals("new", ring.get(1).getTitle());
+        assertEquals(2, ring.unreadCount());
+        assertFalse(ring.addOldest(notification("full")));
+    }
+}
@@ -0,0 +1,93 @@
+package com.eduvos.nutec.manager;
+
+import com.eduvos.nutec.pojo.ProductItem;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the wishlist index and its membership snapshots.
+ */
+public class WishlistManagerTest {
+
+    @Test
+    public void toggle_addsAndRemovesKeepingOrder() {
+        WishlistManager wishlist = new WishlistManager();
+        ProductItem a = new ProductItem("Ink A", 101, 10.0);
+        ProductItem b = new ProductItem("Ink B", 102, 20.0);
+        ProductItem c = new ProductItem("Wipes", 5.0);
+
+        assertTrue(wishlist.toggleWishlist(a));
+        assertTrue(wishlist.toggleWishlist(b));
+        assertTrue(wishlist.toggleWishlist(c));
+        assertFalse(wishlist.toggleWishlist(new ProductItem("Renamed A", 101, 10.0))); // same SKU
+
+        assertEquals(2, wishlist.getWishlistItems().size());
+        assertSame(b, wishlist.getWishlistItems().get(0));
+        assertEquals(0, wishlist.indexOf(b));
+        assertEquals(1, wishlist.indexOf(c));
+        assertEquals(-1, wishlist.indexOf(a));
+    }
+
+    @Test
+    public void membership_isASnapshotPerChange() {
+        WishlistManager wishlist = new WishlistManager();
+        ProductItem a = new ProductItem("Ink A", 101, 10.0);
+        ProductItem c = new ProductItem("Wipes", 5.0);
+        ProductItem huge = new ProductItem("Odd SKU", WishlistMembership.MAX_BITSET_SKU + 5, 1.0);
+
+        wishlist.toggleWishlist(a);
+        WishlistMembership before = wishlist.getMembership();
+        wishlist.toggleWishlist(c);
+        wishlist.toggleWishlist(huge);
+        WishlistMembership after = wishlist.getMembership();
+
+        assertEquals(1, before.size());
+        assertFalse(before.contains(c)); // readers keep a consistent view
+        assertEquals(3, after.size());
+        assertTrue(after.contains(101, "anything"));
+        assertTrue(after.contains(0, "Wipes"));
+        assertTrue(after.contains(huge));
+        assertFalse(after.contains(102, "Ink A"));
+
+        wishlist.toggleWishlist(a);
+        assertFalse(wishlist.getMembership().contains(a));
+        assertTrue(after.contains(a));
+    }
+
+    @Test
+    public void membership_buildsFromAWholeList() {
+        WishlistManager wishlist = new WishlistManager();
+        wishlist.toggleWishlist(new ProductItem("Ink A", 7, 1.0));
+        wishlist.toggleWishlist(new ProductItem("Wipes", 5.0));
+
+        WishlistMembership built = WishlistMembership.of(wishlist.getWishlistItems());
+        assertEquals(2, built.size());
+        assertTrue(built.contains(7, null));
+        assertTrue(built.contains(0, "Wipes"));
+        assertFalse(WishlistMembership.EMPTY.contains(7, null));
+    }
+
+    @Test
+    public void batch_publishesOneVersion() {
+        WishlistManager wishlist = new WishlistManager();
+        ProductItem a = new ProductItem("Ink A", 101, 10.0);
+        ProductItem b = new ProductItem("Ink B", 102, 20.0);
+        ListSnapshot<ProductItem> before = wishlist.getWishlistItems();
+
+        wishlist.batch(() -> {
+            wishlist.toggleWishlist(a);
+            wishlist.toggleWishlist(b);
+            wishlist.toggleWishlist(a);
+            assertSame(before, wishlist.getWishlistItems());
+            assertFalse(wishlist.getMembership().contains(b));
+        });
+
+        assertEquals(before.getVersion() + 1, wishlist.getWishlistItems().getVersion());
+        assertEquals(1, wishlist.getWishlistItems().size());
+        assertTrue(wishlist.getMembership().contains(b));
+        assertFalse(wishlist.getMembership().contains(a));
+        assertTrue(before.isEmpty());
+    }
+}
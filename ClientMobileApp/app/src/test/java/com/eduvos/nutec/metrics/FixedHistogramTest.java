@@ -0,0 +1,54 @@
+package com.eduvos.nutec.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the fixed-memory histogram used by the network metrics.
+ */
+public class FixedHistogramTest {
+
+    @Test
+    public void emptyHistogram_reportsZero() {
+        FixedHistogram histogram = new FixedHistogram(60_000);
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.percentile(50));
+        assertEquals(0, histogram.percentile(99));
+    }
+
+    @Test
+    public void percentiles_areWithinBucketError() {
+        FixedHistogram histogram = new FixedHistogram(60_000);
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(500.5, histogram.getMean(), 0.001);
+
+        // Buckets are ~20% wide, so a percentile may overshoot by at most that much
+        assertInRange(histogram.percentile(50), 500, 600);
+        assertInRange(histogram.percentile(95), 950, 1000);
+        assertInRange(histogram.percentile(99), 990, 1000);
+    }
+
+    @Test
+    public void valuesAboveMax_landInLastBucket() {
+        FixedHistogram histogram = new FixedHistogram(100);
+        histogram.record(5_000);
+        assertEquals(5_000, histogram.percentile(100));
+    }
+
+    @Test
+    public void negativeValues_areIgnored() {
+        FixedHistogram histogram = new FixedHistogram(100);
+        histogram.record(-1);
+        assertEquals(0, histogram.getCount());
+    }
+
+    private static void assertInRange(long value, long min, long max) {
+        assertTrue(value + " not in [" + min + ", " + max + "]", value >= min && value <= max);
+    }
+}
@@ -0,0 +1,261 @@
+package com.eduvos.nutec.sync;
+
+import com.eduvos.nutec.api.InventoryPager;
+import com.eduvos.nutec.pojo.ProductOrder;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the watermark-based inventory sync, against an in-memory "server".
+ */
+public class InventorySyncEngineTest {
+
+    private final List<ProductOrder> server = new ArrayList<>();
+    private final List<String> requests = new ArrayList<>();
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    // Same rules as StockMetrics/inventory?sortBy=orderDate&startDate=...
+    private final InventorySyncEngine.Fetcher fetcher = (startDate, page, pageSize) -> {
+        requests.add(startDate + "#" + page);
+        List<ProductOrder> matching = new ArrayList<>();
+        for (ProductOrder row : server) {
+            if (startDate == null || row.getOrderDate().compareTo(startDate) >= 0) matching.add(row);
+        }
+        matching.sort((a, b) -> a.getOrderDate().compareTo(b.getOrderDate()));
+        int from = Math.min(page * pageSize, matching.size());
+        return new ArrayList<>(matching.subList(from, Math.min(from + pageSize, matching.size())));
+    };
+
+    // Stands in for the disk thread, run by runDiskTasks()
+    private final List<Runnable> diskTasks = new ArrayList<>();
+
+    private InventorySyncEngine engine(CatalogStore catalog) {
+        return new InventorySyncEngine(fetcher, catalog, now::get, diskTasks::add);
+    }
+
+    private void runDiskTasks() {
+        while (!diskTasks.isEmpty()) {
+            diskTasks.remove(0).run();
+        }
+    }
+
+    private static ProductOrder row(int sku, int day) {
+        ProductOrder row = new ProductOrder();
+        row.setSku(sku);
+        row.setSkuDescription("Ink " + sku);
+        row.setLitres(sku % 50);
+        row.setUserId("user" + sku % 3);
+        row.setOrderDate(String.format(Locale.US, "2025-01-%02dT00:00:00Z", day));
+        return row;
+    }
+
+    private void addServerRows(int count, int day) {
+        for (int i = 0; i < count; i++) {
+            server.add(row(1000 + server.size(), day));
+        }
+    }
+
+    @Test
+    public void afterFirstSync_onlyRowsFromTheWatermarkOnAreFetched() throws Exception {
+        addServerRows(450, 1);
+        addServerRows(10, 2);
+        InventorySyncEngine engine = engine(new MemoryCatalog());
+
+        InventorySyncEngine.SyncResult first = engine.sync();
+        assertTrue(first.full);
+        assertEquals(460, first.fetched);
+        assertEquals("2025-01-02T00:00:00Z", engine.getWatermark());
+
+        addServerRows(5, 3);
+        requests.clear();
+        InventorySyncEngine.SyncResult delta = engine.sync();
+
+        assertFalse(delta.full);
+        assertEquals(List.of("2025-01-02T00:00:00Z#0"), requests);
+        assertEquals(15, delta.fetched); // the watermark day again, plus the new rows
+        assertEquals(5, delta.added);
+        assertEquals(465, engine.getCatalog().size());
+        assertEquals("2025-01-03T00:00:00Z", engine.getWatermark());
+    }
+
+    @Test
+    public void fullResync_afterTheInterval_dropsRowsDeletedOnTheServer() throws Exception {
+        addServerRows(20, 1);
+        InventorySyncEngine engine = engine(new MemoryCatalog());
+        engine.setFullResyncIntervalMs(60_000);
+        engine.sync();
+
+        server.remove(0);
+        assertFalse(engine.sync().full);
+        assertEquals(20, engine.getCatalog().size());
+
+        now.addAndGet(60_000);
+        InventorySyncEngine.SyncResult resync = engine.sync();
+        assertTrue(resync.full);
+        assertEquals(19, engine.getCatalog().size());
+    }
+
+    @Test
+    public void savedCatalog_isReusedAfterRestart() throws Exception {
+        CatalogStore catalog = new MemoryCatalog();
+        addServerRows(30, 4);
+        engine(catalog).sync();
+
+        InventorySyncEngine restarted = engine(catalog);
+        restarted.loadIfNeeded();
+
+        assertTrue(restarted.isReady());
+        assertEquals(30, restarted.getCatalog().size());
+        assertEquals("2025-01-04T00:00:00Z", restarted.getWatermark());
+        assertFalse(restarted.needsFullSync());
+    }
+
+    @Test
+    public void logoutDuringTheDownload_discardsTheRows() throws Exception {
+        addServerRows(30, 1);
+        MemoryCatalog catalog = new MemoryCatalog();
+        InventorySyncEngine[] engine = new InventorySyncEngine[1];
+        engine[0] = new InventorySyncEngine((startDate, page, pageSize) -> {
+            engine[0].clear();
+            return fetcher.fetch(startDate, page, pageSize);
+        }, catalog, now::get, diskTasks::add);
+
+        assertThrows(IOException.class, engine[0]::sync);
+        runDiskTasks();
+
+        assertEquals(0, catalog.size());
+        assertFalse(engine[0].isReady());
+    }
+
+    @Test
+    public void logoutDuringTheWrite_isWipedAfterIt() throws Exception {
+        addServerRows(30, 1);
+        InventorySyncEngine[] engine = new InventorySyncEngine[1];
+        engine[0] = engine(new MemoryCatalog() {
+            @Override
+            public void replaceAll(List<ProductOrder> all, SyncState state) {
+                super.replaceAll(all, state);
+                engine[0].clear();
+            }
+        });
+
+        engine[0].sync();
+        // The old user's rows are on disk until the wipe runs, but are never served as ready
+        assertFalse(engine[0].isReady());
+        assertTrue(engine[0].needsFullSync());
+
+        runDiskTasks();
+        assertEquals(0, engine[0].getCatalog().size());
+        assertNull(engine[0].getWatermark());
+        assertNull(engine[0].getCatalog().load());
+    }
+
+    @Test
+    public void pageSource_keepsItsSourceForTheWholeQuery() throws Exception {
+        addServerRows(30, 1);
+        InventorySyncEngine engine = engine(new MemoryCatalog());
+        List<Integer> serverPages = new ArrayList<>();
+        InventoryPager.PageSource source = engine.pageSource((page, pageSize, search, sortBy) -> {
+            serverPages.add(page);
+            return null;
+        }, Runnable::run, Runnable::run);
+
+        source.load(0, 10, null, null);
+        engine.sync();
+        // The catalog is ready now, but this query started on the server and stays there
+        Call<List<ProductOrder>> second = source.load(1, 10, null, null);
+        Call<List<ProductOrder>> nextQuery = source.load(0, 10, "ink", null);
+
+        assertEquals(List.of(0, 1), serverPages);
+        assertNull(second);
+        assertTrue(nextQuery instanceof CatalogPageCall);
+    }
+
+    @Test
+    public void catalogPageCall_reportsAFailedQueryAsAFailure() {
+        // MemoryCatalog cannot query, which stands in for a damaged database here
+        CatalogPageCall call = new CatalogPageCall(new MemoryCatalog(), null, null, 0, 30, Runnable::run, Runnable::run);
+        List<Throwable> failures = new ArrayList<>();
+
+        call.enqueue(new Callback<List<ProductOrder>>() {
+            @Override
+            public void onResponse(@NonNull Call<List<ProductOrder>> c, @NonNull Response<List<ProductOrder>> response) {
+                fail("Expected a failure");
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<List<ProductOrder>> c, @NonNull Throwable t) {
+                failures.add(t);
+            }
+        });
+
+        assertEquals(1, failures.size());
+        assertTrue(failures.get(0) instanceof IOException);
+        assertThrows(IOException.class, () -> call.clone().execute());
+    }
+
+    // Keeps what was last saved, so a second engine on the same catalog is a restart
+    private static class MemoryCatalog implements CatalogStore {
+        private final Map<String, ProductOrder> rows = new LinkedHashMap<>();
+        private SyncState saved;
+
+        @Override
+        public SyncState load() {
+            return saved;
+        }
+
+        @Override
+        public void replaceAll(List<ProductOrder> all, SyncState state) {
+            rows.clear();
+            put(all);
+            saved = state;
+        }
+
+        @Override
+        public int merge(List<ProductOrder> delta, SyncState state) {
+            int added = put(delta);
+            saved = state;
+            return added;
+        }
+
+        private int put(List<ProductOrder> delta) {
+            int added = 0;
+            for (ProductOrder row : delta) {
+                if (rows.put(CatalogRows.keyOf(row), row) == null) added++;
+            }
+            return added;
+        }
+
+        @Override
+        public void clear() {
+            rows.clear();
+            saved = null;
+        }
+
+        @Override
+        public int size() {
+            return rows.size();
+        }
+
+        @Override
+        public List<ProductOrder> query(String search, String sortBy, int page, int pageSize) {
+            throw new UnsupportedOperationException("The sync never reads pages");
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.eduvos.nutec.sync;
+
+import com.eduvos.nutec.pojo.Order;
+import com.eduvos.nutec.pojo.OrderItem;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for merging a revalidated order history into the cached one.
+ */
+public class OrderRepositoryTest {
+
+    private static Order order(String id, String status, int quantity) {
+        Order order = new Order();
+        order.setId(id);
+        order.setOrderNumber("N-" + id);
+        order.setStatus(status);
+        order.setCreatedAt("2025-01-01T10:00:00");
+        order.setItems(new ArrayList<>(Collections.singletonList(new OrderItem("Ink", 7, quantity, 10.0, 10.0 * quantity))));
+        order.setTotal(10.0 * quantity);
+        return order;
+    }
+
+    @Test
+    public void merge_keepsUnchangedInstancesAndTakesChangedOnes() {
+        Order a = order("a", "Pending", 1);
+        Order b = order("b", "Pending", 2);
+        List<Order> cached = Arrays.asList(a, b);
+
+        Order bShipped = order("b", "Completed", 2);
+        Order c = order("c", "Pending", 3);
+        OrderRepository.Merge merge = OrderRepository.merge(cached, Arrays.asList(c, order("a", "Pending", 1), bShipped));
+
+        assertTrue(merge.listChanged);
+        assertEquals(2, merge.changed);
+        assertSame(c, merge.orders.get(0));
+        assertSame(a, merge.orders.get(1)); // unchanged, the cached instance stays
+        assertSame(bShipped, merge.orders.get(2));
+    }
+
+    @Test
+    public void merge_ofTheSameHistory_changesNothing() {
+        List<Order> cached = Arrays.asList(order("a", "Pending", 1), order("b", "Pending", 2));
+
+        OrderRepository.Merge merge = OrderRepository.merge(cached,
+                Arrays.asList(order("a", "Pending", 1), order("b", "Pending", 2)));
+
+        assertFalse(merge.listChanged);
+        assertEquals(0, merge.changed);
+        assertSame(cached.get(0), merge.orders.get(0));
+
+        // Dropped or reordered orders still count as a change
+        assertTrue(OrderRepository.merge(cached, Collections.singletonList(order("a", "Pending", 1))).listChanged);
+        assertTrue(OrderRepository.merge(cached,
+                Arrays.asList(order("b", "Pending", 2), order("a", "Pending", 1))).listChanged);
+    }
+
+    @Test
+    public void limitedMerge_keepsTheOlderCachedOrders() {
+        Order a = order("a", "Pending", 1);
+        Order b = order("b", "Pending", 2);
+        Order c = order("c", "Pending", 3);
+        Order d = order("d", "Completed", 4);
+        List<Order> cached = Arrays.asList(a, b, c, d);
+
+        // Data saver: the newest two, one of them new and one changed
+        Order e = order("e", "Pending", 5);
+        Order aDone = order("a", "Completed", 1);
+        OrderRepository.Merge merge = OrderRepository.merge(cached, Arrays.asList(e, aDone), 2);
+
+        assertTrue(merge.listChanged);
+        assertEquals(2, merge.changed);
+        assertEquals(5, merge.orders.size());
+        assertSame(e, merge.orders.get(0));
+        assertSame(aDone, merge.orders.get(1));
+        assertSame(b, merge.orders.get(2)); // older than the window, kept as they were
+        assertSame(c, merge.orders.get(3));
+        assertSame(d, merge.orders.get(4));
+
+        // Unchanged newest orders leave the whole history alone
+        OrderRepository.Merge same = OrderRepository.merge(cached,
+                Arrays.asList(order("a", "Pending", 1), order("b", "Pending", 2)), 2);
+        assertFalse(same.listChanged);
+        assertEquals(4, same.orders.size());
+
+        // Fewer than the limit is the whole history, so dropped orders go
+        assertEquals(1, OrderRepository.merge(cached, Collections.singletonList(a), 2).orders.size());
+    }
+
+    @Test
+    public void sameContent_looksAtTheItems() {
+        assertTrue(OrderRepository.sameContent(order("a", "Pending", 1), order("a", "Pending", 1)));
+        assertFalse(OrderRepository.sameContent(order("a", "Pending", 1), order("a", "Pending", 2)));
+        Order noItems = order("a", "Pending", 1);
+        noItems.setItems(null);
+        assertFalse(OrderRepository.sameContent(order("a", "Pending", 1), noItems));
+    }
+}
@@ -0,0 +1,59 @@
+package com.eduvos.nutec.sync;
+
+import com.eduvos.nutec.pojo.ProductOrder;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for saving and clearing the products snapshot around a logout.
+ */
+public class ProductSnapshotStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String user = "u1";
+
+    private static ProductSnapshot snapshot(String userId, String description) {
+        ProductOrder row = new ProductOrder();
+        row.setSku(1);
+        row.setSkuDescription(description);
+        return new ProductSnapshot(userId, 0L, null, null, 0, 0, Collections.singletonList(row));
+    }
+
+    @Test
+    public void saveAfterClear_writesNothingUntilTheNextLogin() throws Exception {
+        File file = new File(folder.getRoot(), ProductSnapshotStore.FILE_NAME);
+        ProductSnapshotStore store = new ProductSnapshotStore(Runnable::run, () -> user);
+        store.open(file);
+
+        store.save(snapshot("u1", "Black Ink"));
+        assertTrue(file.exists());
+
+        // Logout: the delete is queued, then the products screen is torn down and saves
+        store.clear();
+        store.save(snapshot("u1", "Black Ink"));
+        assertFalse(file.exists());
+        user = null;
+        store.save(snapshot("u1", "Black Ink"));
+        assertFalse(file.exists());
+
+        // A new login with the old screen's rows still around
+        user = "u2";
+        store.onLogin();
+        store.save(snapshot("u1", "Black Ink"));
+        assertFalse(file.exists());
+
+        store.save(snapshot("u2", "Cyan Ink"));
+        ProductSnapshot read = ProductSnapshot.readFrom(file, "u2");
+        assertNotNull(read);
+        assertEquals("Cyan Ink", read.rows.get(0).getSkuDescription());
+    }
+}
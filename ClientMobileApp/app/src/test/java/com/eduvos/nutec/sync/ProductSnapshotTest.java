@@ -0,0 +1,98 @@
+package com.eduvos.nutec.sync;
+
+import com.eduvos.nutec.pojo.ProductOrder;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the memory-mapped products snapshot.
+ */
+public class ProductSnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static ProductOrder row(int sku, String description, Double averageDailyUse) {
+        ProductOrder row = new ProductOrder();
+        row.setSku(sku);
+        row.setSkuDescription(description);
+        row.setLitres(20);
+        row.setOrderDate("2025-03-01T00:00:00");
+        row.setDaysBetweenOrders(14);
+        row.setAverageDailyUse(averageDailyUse);
+        row.setUserId("u1");
+        return row;
+    }
+
+    @Test
+    public void snapshot_roundTripsThroughTheMappedFile() throws Exception {
+        File file = new File(folder.getRoot(), ProductSnapshotStore.FILE_NAME);
+        ProductSnapshot saved = new ProductSnapshot("u1", 1234L, "ink", "-litres", 1, -40,
+                Arrays.asList(row(7, "Black Ink 2000", 1.5), row(8, "Cyan Ink ü", null)));
+        saved.writeTo(file);
+
+        ProductSnapshot read = ProductSnapshot.readFrom(file, "u1");
+        assertNotNull(read);
+        assertEquals("u1", read.userId);
+        assertEquals(1234L, read.savedAt);
+        assertEquals("ink", read.search);
+        assertEquals("-litres", read.sortBy);
+        assertEquals(1, read.anchorPosition);
+        assertEquals(-40, read.anchorOffset);
+        assertEquals(2, read.rows.size());
+        assertEquals("Black Ink 2000", read.rows.get(0).getSkuDescription());
+        assertEquals(1.5, read.rows.get(0).getAverageDailyUse(), 0.0);
+        assertEquals("Cyan Ink ü", read.rows.get(1).getSkuDescription());
+        assertNull(read.rows.get(1).getAverageDailyUse());
+        assertNull(read.rows.get(1).getUserCode());
+        assertEquals(14, read.rows.get(1).getDaysBetweenOrders());
+    }
+
+    @Test
+    public void snapshot_keepsOnlyTheFirstRowsAndAClampedAnchor() {
+        List<ProductOrder> rows = new ArrayList<>();
+        for (int i = 0; i < ProductSnapshot.MAX_ROWS + 50; i++) {
+            rows.add(row(i, "Ink " + i, null));
+        }
+
+        ProductSnapshot snapshot = new ProductSnapshot("u1", 0L, "", null, ProductSnapshot.MAX_ROWS + 10, -25, rows);
+
+        assertEquals(ProductSnapshot.MAX_ROWS, snapshot.rows.size());
+        assertEquals(ProductSnapshot.MAX_ROWS - 1, snapshot.anchorPosition);
+        assertEquals(0, snapshot.anchorOffset);
+    }
+
+    @Test
+    public void otherVersionsAndMissingFiles_areIgnored() throws Exception {
+        File file = new File(folder.getRoot(), ProductSnapshotStore.FILE_NAME);
+        assertNull(ProductSnapshot.readFrom(file, "u1"));
+
+        byte[] bytes = new ProductSnapshot("u1", 0L, null, null, 0, 0, Arrays.asList(row(1, "Ink", null))).encode();
+        ByteBuffer.wrap(bytes).putInt(4, ProductSnapshot.FORMAT_VERSION + 1);
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(bytes);
+        }
+        assertNull(ProductSnapshot.readFrom(file, "u1"));
+    }
+
+    @Test
+    public void anotherUsersSnapshot_isIgnored() throws Exception {
+        File file = new File(folder.getRoot(), ProductSnapshotStore.FILE_NAME);
+        new ProductSnapshot("u1", 0L, null, null, 0, 0, Arrays.asList(row(1, "Ink", null))).writeTo(file);
+
+        assertNull(ProductSnapshot.readFrom(file, "u2"));
+        assertNull(ProductSnapshot.readFrom(file, null));
+        assertNotNull(ProductSnapshot.readFrom(file, "u1"));
+    }
+}
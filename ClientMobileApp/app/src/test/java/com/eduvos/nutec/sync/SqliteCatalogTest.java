@@ -0,0 +1,55 @@
+package com.eduvos.nutec.sync;
+
+import com.eduvos.nutec.pojo.ProductOrder;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for how SqliteCatalog turns search and sort into SQL. Reading and writing
+ * the database is covered by SqliteCatalogInstrumentedTest.
+ */
+public class SqliteCatalogTest {
+
+    @Test
+    public void ftsQuery_matchesEveryWordByPrefix() {
+        assertEquals("ink* 200*", SqliteCatalog.ftsQuery("  Ink-200 "));
+        assertEquals("black* ink*", SqliteCatalog.ftsQuery("BLACK ink"));
+        assertEquals("cyan* über*", SqliteCatalog.ftsQuery("Cyan, Über"));
+    }
+
+    @Test
+    public void ftsQuery_keepsOperatorsAndQuotesLiteral() {
+        // Lower case, so FTS reads or/and/not as words; punctuation never reaches the query
+        assertEquals("cyan* or* magenta*", SqliteCatalog.ftsQuery("Cyan OR \"magenta\""));
+        assertEquals("not* black*", SqliteCatalog.ftsQuery("NOT -black*"));
+        assertNull(SqliteCatalog.ftsQuery("%%"));
+        assertNull(SqliteCatalog.ftsQuery("   "));
+        assertNull(SqliteCatalog.ftsQuery(null));
+    }
+
+    @Test
+    public void orderBy_followsTheServerSortKeys() {
+        assertEquals("order_date DESC, row_key ASC", SqliteCatalog.orderBy(null));
+        assertEquals("order_date DESC, row_key ASC", SqliteCatalog.orderBy("unknown"));
+        assertEquals("order_date ASC, row_key ASC", SqliteCatalog.orderBy("orderDate"));
+        assertEquals("order_date DESC, row_key ASC", SqliteCatalog.orderBy("-orderDate"));
+        assertEquals("sku_description COLLATE NOCASE ASC, row_key ASC", SqliteCatalog.orderBy("name"));
+        assertEquals("sku_description COLLATE NOCASE DESC, row_key ASC", SqliteCatalog.orderBy("-name"));
+        assertEquals("litres ASC, row_key ASC", SqliteCatalog.orderBy("litres"));
+        assertEquals("litres DESC, row_key ASC", SqliteCatalog.orderBy("-LITRES"));
+    }
+
+    @Test
+    public void rowKey_isSkuDateAndUser() {
+        ProductOrder row = new ProductOrder();
+        row.setSku(7);
+        row.setOrderDate("2025-01-02T00:00:00Z");
+        row.setUserId("u1");
+        assertEquals("7|2025-01-02T00:00:00Z|u1", CatalogRows.keyOf(row));
+        assertEquals("b", CatalogRows.later("a", "b"));
+        assertEquals("a", CatalogRows.later("a", null));
+        assertNull(CatalogRows.later(null, null));
+    }
+}
@@ -0,0 +1,59 @@
+package com.eduvos.nutec.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the shared amount and date formats.
+ */
+public class DisplayFormatsTest {
+
+    private Locale saved;
+
+    @Before
+    public void setUp() {
+        saved = Locale.getDefault();
+        Locale.setDefault(Locale.US);
+    }
+
+    @After
+    public void tearDown() {
+        Locale.setDefault(saved);
+    }
+
+    @Test
+    public void money_matchesTheOldFormatString() {
+        double[] amounts = {0, 0.5, 1.005, 12.345, 12.355, 99.995, 1234567.891, -3.2};
+        for (double amount : amounts) {
+            assertEquals(String.format(Locale.US, "R%.2f", amount), DisplayFormats.money(amount));
+        }
+    }
+
+    @Test
+    public void money_followsTheLocale() {
+        Locale.setDefault(Locale.GERMANY);
+        assertEquals(String.format(Locale.GERMANY, "R%.2f", 1234.5), DisplayFormats.money(1234.5));
+    }
+
+    @Test
+    public void dates_areReformattedOrLeftAlone() {
+        assertEquals("Mar 14, 2025", DisplayFormats.orderDate("2025-03-14T09:30:00"));
+        assertEquals("March 14, 2025 at 09:30 PM", DisplayFormats.orderDateTime("2025-03-14T21:30:00"));
+        assertEquals("soon", DisplayFormats.orderDate("soon"));
+        assertNull(DisplayFormats.orderDateTime(null));
+    }
+
+    @Test
+    public void timestamp_usesLocalTime() {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2025, Calendar.MARCH, 4, 7, 5);
+        assertEquals("04 Mar 2025, 07:05", DisplayFormats.timestamp(calendar.getTimeInMillis()));
+    }
+}
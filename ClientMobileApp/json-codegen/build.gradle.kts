@@ -0,0 +1,10 @@
+// Annotation processor that generates reflection-free Gson TypeAdapters for the app's pojo classes.
+// Only used at compile time (annotationProcessor / compileOnly in :app), nothing ships in the APK.
+plugins {
+    id("java-library")
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
@@ -0,0 +1,21 @@
+package com.eduvos.nutec.codegen;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates a Gson TypeAdapter for this class at compile time, plus a GeneratedTypeAdapters
+ * factory for its package that registers every generated adapter.
+ *
+ * The class needs a non-private no-arg constructor, and its serialized fields must not be
+ * private (the adapter lives in the same package and reads/writes them directly).
+ * Field names follow @SerializedName, like Gson's reflective adapter.
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.SOURCE)
+public @interface GenerateTypeAdapter {
+}
@@ -0,0 +1,440 @@
+package com.eduvos.nutec.codegen;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Writes a {@code <Class>TypeAdapter} for every class annotated with @GenerateTypeAdapter and one
+ * {@code GeneratedTypeAdapters} TypeAdapterFactory per package.
+ *
+ * The generated code matches what Gson's reflective adapter does with the app's settings:
+ * declared field order, @SerializedName names and alternates, unknown names skipped, JSON null
+ * leaves primitive fields at their default, and strings/numbers/booleans are read as leniently
+ * as Gson's built-in adapters. Other field types (lists, nested pojos) are delegated to the
+ * Gson instance, so they use the generated adapters too when those exist.
+ */
+@SupportedAnnotationTypes("com.eduvos.nutec.codegen.GenerateTypeAdapter")
+public class TypeAdapterProcessor extends AbstractProcessor {
+
+    private static final String SERIALIZED_NAME = "com.google.gson.annotations.SerializedName";
+    private static final String REGISTRY_NAME = "GeneratedTypeAdapters";
+
+    private enum Kind {
+        BOOLEAN, INT, LONG, DOUBLE, FLOAT,
+        BOXED_BOOLEAN, BOXED_INT, BOXED_LONG, BOXED_DOUBLE, BOXED_FLOAT,
+        STRING, DELEGATE
+    }
+
+    private static final class Field {
+        final String name;
+        final String jsonName;
+        final List<String> alternates;
+        final TypeMirror type;
+        final Kind kind;
+
+        Field(String name, String jsonName, List<String> alternates, TypeMirror type, Kind kind) {
+            this.name = name;
+            this.jsonName = jsonName;
+            this.alternates = alternates;
+            this.type = type;
+            this.kind = kind;
+        }
+
+        String adapterField() {
+            return name + "Adapter";
+        }
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Map<String, List<TypeElement>> byPackage = new LinkedHashMap<>();
+
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateTypeAdapter.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@GenerateTypeAdapter only works on classes");
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            List<Field> fields = readFields(type);
+            if (fields == null || !hasNoArgConstructor(type)) continue;
+
+            String packageName = packageOf(type);
+            writeAdapter(type, packageName, fields);
+            byPackage.computeIfAbsent(packageName, key -> new ArrayList<>()).add(type);
+        }
+
+        for (Map.Entry<String, List<TypeElement>> entry : byPackage.entrySet()) {
+            // Stable output no matter which order the compiler hands the classes over
+            entry.getValue().sort(Comparator.comparing(type -> type.getSimpleName().toString()));
+            writeRegistry(entry.getKey(), entry.getValue());
+        }
+        return true;
+    }
+
+    /**
+     * @return the serialized fields in declaration order, or null if one of them cannot be handled
+     */
+    private List<Field> readFields(TypeElement type) {
+        List<Field> fields = new ArrayList<>();
+        boolean ok = true;
+
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            // Gson skips static and transient fields by default
+            if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) continue;
+
+            if (modifiers.contains(Modifier.PRIVATE)) {
+                error(field, "Field must not be private so the generated adapter can access it");
+                ok = false;
+                continue;
+            }
+            if (modifiers.contains(Modifier.FINAL)) {
+                error(field, "Field must not be final so the generated adapter can set it");
+                ok = false;
+                continue;
+            }
+
+            String name = field.getSimpleName().toString();
+            String jsonName = name;
+            List<String> alternates = new ArrayList<>();
+            AnnotationMirror serializedName = findAnnotation(field, SERIALIZED_NAME);
+            if (serializedName != null) {
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value
+                        : serializedName.getElementValues().entrySet()) {
+                    String key = value.getKey().getSimpleName().toString();
+                    if (key.equals("value")) {
+                        jsonName = (String) value.getValue().getValue();
+                    } else if (key.equals("alternate")) {
+                        for (Object alternate : (List<?>) value.getValue().getValue()) {
+                            alternates.add((String) ((AnnotationValue) alternate).getValue());
+                        }
+                    }
+                }
+            }
+
+            fields.add(new Field(name, jsonName, alternates, field.asType(), kindOf(field.asType())));
+        }
+        return ok ? fields : null;
+    }
+
+    private boolean hasNoArgConstructor(TypeElement type) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        error(type, "Class needs a non-private no-arg constructor for the generated adapter");
+        return false;
+    }
+
+    private static Kind kindOf(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN: return Kind.BOOLEAN;
+            case INT: return Kind.INT;
+            case LONG: return Kind.LONG;
+            case DOUBLE: return Kind.DOUBLE;
+            case FLOAT: return Kind.FLOAT;
+            case DECLARED:
+                switch (type.toString()) {
+                    case "java.lang.String": return Kind.STRING;
+                    case "java.lang.Boolean": return Kind.BOXED_BOOLEAN;
+                    case "java.lang.Integer": return Kind.BOXED_INT;
+                    case "java.lang.Long": return Kind.BOXED_LONG;
+                    case "java.lang.Double": return Kind.BOXED_DOUBLE;
+                    case "java.lang.Float": return Kind.BOXED_FLOAT;
+                    default: return Kind.DELEGATE;
+                }
+            default:
+                return Kind.DELEGATE;
+        }
+    }
+
+    // ============================================================
+    // Adapter
+    // ============================================================
+
+    private void writeAdapter(TypeElement type, String packageName, List<Field> fields) {
+        String className = type.getSimpleName().toString();
+        String adapterName = className + "TypeAdapter";
+        StringBuilder out = new StringBuilder();
+
+        header(out, packageName);
+        out.append("import com.google.gson.Gson;\n")
+                .append("import com.google.gson.TypeAdapter;\n")
+                .append("import com.google.gson.reflect.TypeToken;\n")
+                .append("import com.google.gson.stream.JsonReader;\n")
+                .append("import com.google.gson.stream.JsonToken;\n")
+                .append("import com.google.gson.stream.JsonWriter;\n")
+                .append("import java.io.IOException;\n\n")
+                .append("final class ").append(adapterName).append(" extends TypeAdapter<").append(className).append("> {\n");
+
+        for (Field field : fields) {
+            if (field.kind == Kind.DELEGATE) {
+                out.append("    private final TypeAdapter<").append(boxed(field.type)).append("> ")
+                        .append(field.adapterField()).append(";\n");
+            }
+        }
+
+        out.append("\n    ").append(adapterName).append("(Gson gson) {\n");
+        for (Field field : fields) {
+            if (field.kind == Kind.DELEGATE) {
+                out.append("        ").append(field.adapterField()).append(" = gson.getAdapter(")
+                        .append(typeLiteral(field.type)).append(");\n");
+            }
+        }
+        out.append("    }\n\n");
+
+        // write()
+        out.append("    @Override\n")
+                .append("    public void write(JsonWriter out, ").append(className).append(" value) throws IOException {\n")
+                .append("        if (value == null) {\n")
+                .append("            out.nullValue();\n")
+                .append("            return;\n")
+                .append("        }\n")
+                .append("        out.beginObject();\n");
+        for (Field field : fields) {
+            out.append("        out.name(").append(quote(field.jsonName)).append(");\n");
+            out.append("        ").append(writeStatement(field)).append("\n");
+        }
+        out.append("        out.endObject();\n")
+                .append("    }\n\n");
+
+        // read()
+        out.append("    @Override\n")
+                .append("    public ").append(className).append(" read(JsonReader in) throws IOException {\n")
+                .append("        if (in.peek() == JsonToken.NULL) {\n")
+                .append("            in.nextNull();\n")
+                .append("            return null;\n")
+                .append("        }\n")
+                .append("        ").append(className).append(" value = new ").append(className).append("();\n")
+                .append("        in.beginObject();\n")
+                .append("        while (in.hasNext()) {\n")
+                .append("            switch (in.nextName()) {\n");
+        for (Field field : fields) {
+            out.append("                case ").append(quote(field.jsonName)).append(":\n");
+            for (String alternate : field.alternates) {
+                out.append("                case ").append(quote(alternate)).append(":\n");
+            }
+            for (String line : readStatements(field)) {
+                out.append("                    ").append(line).append("\n");
+            }
+            out.append("                    break;\n");
+        }
+        out.append("                default:\n")
+                .append("                    in.skipValue();\n")
+                .append("            }\n")
+                .append("        }\n")
+                .append("        in.endObject();\n")
+                .append("        return value;\n")
+                .append("    }\n")
+                .append("}\n");
+
+        writeSource(packageName, adapterName, out, type);
+    }
+
+    private static String writeStatement(Field field) {
+        String value = "value." + field.name;
+        switch (field.kind) {
+            case BOOLEAN:
+            case INT:
+            case LONG:
+            case DOUBLE:
+            case BOXED_BOOLEAN:
+            case STRING:
+                return "out.value(" + value + ");";
+            case FLOAT:
+                // Through Number so it prints like Float.toString, as Gson's float adapter does
+                return "out.value((Number) Float.valueOf(" + value + "));";
+            case BOXED_INT:
+            case BOXED_LONG:
+            case BOXED_DOUBLE:
+            case BOXED_FLOAT:
+                return "out.value((Number) " + value + ");";
+            default:
+                return field.adapterField() + ".write(out, " + value + ");";
+        }
+    }
+
+    private static List<String> readStatements(Field field) {
+        List<String> lines = new ArrayList<>();
+        String target = "value." + field.name;
+
+        if (field.kind == Kind.DELEGATE) {
+            lines.add(target + " = " + field.adapterField() + ".read(in);");
+            return lines;
+        }
+
+        boolean primitive = field.type.getKind().isPrimitive();
+        lines.add("if (in.peek() == JsonToken.NULL) {");
+        lines.add("    in.nextNull();");
+        if (!primitive) {
+            lines.add("    " + target + " = null;");
+        }
+        lines.add("} else {");
+        lines.add("    " + target + " = " + readExpression(field.kind) + ";");
+        lines.add("}");
+        return lines;
+    }
+
+    private static String readExpression(Kind kind) {
+        switch (kind) {
+            case BOOLEAN:
+            case BOXED_BOOLEAN:
+                return "in.peek() == JsonToken.STRING ? Boolean.parseBoolean(in.nextString()) : in.nextBoolean()";
+            case INT:
+            case BOXED_INT:
+                return "in.nextInt()";
+            case LONG:
+            case BOXED_LONG:
+                return "in.nextLong()";
+            case DOUBLE:
+            case BOXED_DOUBLE:
+                return "in.nextDouble()";
+            case FLOAT:
+            case BOXED_FLOAT:
+                return "(float) in.nextDouble()";
+            case STRING:
+                return "in.peek() == JsonToken.BOOLEAN ? Boolean.toString(in.nextBoolean()) : in.nextString()";
+            default:
+                throw new IllegalArgumentException(kind.toString());
+        }
+    }
+
+    // ============================================================
+    // Registry
+    // ============================================================
+
+    private void writeRegistry(String packageName, List<TypeElement> types) {
+        StringBuilder out = new StringBuilder();
+
+        header(out, packageName);
+        out.append("import com.google.gson.Gson;\n")
+                .append("import com.google.gson.TypeAdapter;\n")
+                .append("import com.google.gson.TypeAdapterFactory;\n")
+                .append("import com.google.gson.reflect.TypeToken;\n\n")
+                .append("/**\n")
+                .append(" * Registers the generated adapters of this package with Gson.\n")
+                .append(" */\n")
+                .append("public final class ").append(REGISTRY_NAME).append(" implements TypeAdapterFactory {\n\n")
+                .append("    public static final ").append(REGISTRY_NAME).append(" FACTORY = new ").append(REGISTRY_NAME).append("();\n\n")
+                .append("    private ").append(REGISTRY_NAME).append("() {}\n\n")
+                .append("    /**\n")
+                .append("     * True for classes that have a generated adapter (and must never be read reflectively).\n")
+                .append("     */\n")
+                .append("    public static boolean isCovered(Class<?> type) {\n")
+                .append("        return ");
+        for (int i = 0; i < types.size(); i++) {
+            if (i > 0) out.append("\n                || ");
+            out.append("type == ").append(types.get(i).getSimpleName()).append(".class");
+        }
+        out.append(";\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    @SuppressWarnings(\"unchecked\")\n")
+                .append("    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> typeToken) {\n")
+                .append("        Class<? super T> type = typeToken.getRawType();\n");
+        for (TypeElement type : types) {
+            String name = type.getSimpleName().toString();
+            out.append("        if (type == ").append(name).append(".class) {\n")
+                    .append("            return (TypeAdapter<T>) new ").append(name).append("TypeAdapter(gson);\n")
+                    .append("        }\n");
+        }
+        out.append("        return null;\n")
+                .append("    }\n")
+                .append("}\n");
+
+        writeSource(packageName, REGISTRY_NAME, out, types.toArray(new Element[0]));
+    }
+
+    // ============================================================
+    // Helpers
+    // ============================================================
+
+    private static void header(StringBuilder out, String packageName) {
+        out.append("// Generated by TypeAdapterProcessor, do not edit.\n");
+        if (!packageName.isEmpty()) {
+            out.append("package ").append(packageName).append(";\n\n");
+        }
+    }
+
+    private void writeSource(String packageName, String className, StringBuilder source, Element... originatingElements) {
+        String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, originatingElements).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write " + qualifiedName + ": " + e.getMessage());
+        }
+    }
+
+    private String packageOf(TypeElement type) {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        return pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+    }
+
+    private static AnnotationMirror findAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (mirror.getAnnotationType().toString().equals(annotationName)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private String boxed(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass((javax.lang.model.type.PrimitiveType) type).getQualifiedName().toString();
+        }
+        return type.toString();
+    }
+
+    /**
+     * Class literal for plain types, a TypeToken for generic ones (List<OrderItem>...).
+     */
+    private String typeLiteral(TypeMirror type) {
+        if (type.getKind() == TypeKind.DECLARED && type.toString().indexOf('<') < 0) {
+            return type + ".class";
+        }
+        if (type.getKind() == TypeKind.ARRAY && type.toString().indexOf('<') < 0) {
+            return type + ".class";
+        }
+        return "new TypeToken<" + boxed(type) + ">() {}";
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
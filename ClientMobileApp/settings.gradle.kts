@@ -21,4 +21,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "NuTec"
 include(":app")
+include(":json-codegen")
  
\ No newline at end of file